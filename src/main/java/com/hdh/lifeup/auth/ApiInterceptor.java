@@ -4,26 +4,28 @@ import com.google.common.collect.Maps;
 import com.hdh.lifeup.model.dto.UserInfoDTO;
 import com.hdh.lifeup.model.enums.CodeMsgEnum;
 import com.hdh.lifeup.exception.GlobalException;
-import com.hdh.lifeup.redis.ApiKey;
-import com.hdh.lifeup.redis.RedisOperator;
 import com.hdh.lifeup.service.UserInfoService;
 import com.hdh.lifeup.util.TokenUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.Enumeration;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * ApiInterceptor class<br/>
- * Api接口拦截
+ * Api接口拦截，同时按接口记录耗时，指标为 api.latency
  * @author hdonghong
  * @since 2018/08/23
  */
@@ -31,19 +33,41 @@ import java.util.Map;
 @Service
 public class ApiInterceptor extends HandlerInterceptorAdapter {
 
-    private RedisOperator redisOperator;
+    private static final String START_NANOS = ApiInterceptor.class.getName() + ".START_NANOS";
+
+    private RateLimiter rateLimiter;
 
     private UserInfoService userInfoService;
 
+    private MeterRegistry meterRegistry;
+
     @Autowired
-    public ApiInterceptor(RedisOperator redisOperator,
-                          UserInfoService userInfoService) {
-        this.redisOperator = redisOperator;
+    public ApiInterceptor(RateLimiter rateLimiter,
+                          UserInfoService userInfoService,
+                          MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
         this.userInfoService = userInfoService;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        request.setAttribute(START_NANOS, System.nanoTime());
+        try {
+            return checkAccess(request, response, handler);
+        } catch (RuntimeException e) {
+            // preHandle抛出异常时不会再调用本拦截器的afterCompletion，被拒绝的请求在这里清理并记录耗时
+            UserContext.remove();
+            TokenContext.remove();
+            recordLatency(request, response, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 鉴权和限流，不通过时抛出异常
+     */
+    private boolean checkAccess(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
         if (HandlerMethod.class.isInstance(handler)) {
             HandlerMethod handlerMethod = (HandlerMethod) handler;
             ApiLimiting apiLimiting = handlerMethod.getMethodAnnotation(ApiLimiting.class);
@@ -60,16 +84,10 @@ public class ApiInterceptor extends HandlerInterceptorAdapter {
                 key +=  "-" + user.getUserId();
             }
 
-            // 接口限流
-            ApiKey<Long> apiKey = ApiKey.withExpire(apiLimiting.seconds());
-            Long accessCount = redisOperator.get(apiKey, key);
-            int maxAccess = apiLimiting.maxAccess();
-            if (accessCount == null) {
-                redisOperator.setex(apiKey, key, 1L);
-            } else if (accessCount < maxAccess) {
-                redisOperator.incr(apiKey, key);
-            } else {
-                log.error("【Api接口拦截】限流key = [{}]，accessCount = [{}], maxAccess = [{}]", key, accessCount, maxAccess);
+            // 接口限流，判断和计数在redis中原子完成
+            if (!rateLimiter.tryAcquire(key, apiLimiting)) {
+                log.error("【Api接口拦截】限流key = [{}]，maxAccess = [{}]", key, apiLimiting.maxAccess());
+                meterRegistry.counter("api.limited", "uri", getUri(request)).increment();
                 throw new GlobalException(CodeMsgEnum.TOO_MANY_ACCESSES);
             }
         }
@@ -80,9 +98,33 @@ public class ApiInterceptor extends HandlerInterceptorAdapter {
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, @Nullable Exception ex) throws Exception {
         UserContext.remove();
         TokenContext.remove();
+        recordLatency(request, response, ex);
         super.afterCompletion(request, response, handler, ex);
     }
 
+    /**
+     * 按接口的路径模板记录耗时，路径中的变量不会产生新的标签
+     */
+    private void recordLatency(HttpServletRequest request, HttpServletResponse response, Exception ex) {
+        Object startNanos = request.getAttribute(START_NANOS);
+        if (startNanos == null) {
+            return;
+        }
+        Timer.builder("api.latency")
+                .tag("uri", getUri(request))
+                .tag("method", request.getMethod())
+                .tag("status", String.valueOf(response.getStatus()))
+                .tag("exception", ex == null ? "None" : ex.getClass().getSimpleName())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - (Long) startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String getUri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+
 
     private UserInfoDTO getUser(HttpServletRequest request) {
         String authenticityToken = request.getHeader(TokenUtil.AUTHENTICITY_TOKEN);
@@ -24,4 +24,10 @@ public @interface ApiLimiting {
 
     /** 是否需要鉴权，默认需要 */
     boolean toAuth() default true;
+
+    /** 限流策略，默认固定窗口 */
+    LimitStrategy strategy() default LimitStrategy.FIXED_WINDOW;
+
+    /** 被限流后是否在本地记下解封时间，解封前的请求直接拒绝，不再访问redis */
+    boolean localPreCheck() default true;
 }
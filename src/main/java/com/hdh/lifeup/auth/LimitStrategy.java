@@ -0,0 +1,19 @@
+package com.hdh.lifeup.auth;
+
+/**
+ * LimitStrategy enum<br/>
+ * 接口限流策略
+ * @author hdonghong
+ * @since 2020/02/01
+ */
+public enum LimitStrategy {
+
+    /** 固定窗口：每个窗口内计数，窗口边界处最多可能放过两倍的请求 */
+    FIXED_WINDOW,
+
+    /** 滑动窗口：记录窗口内每次访问的时间，任意连续的窗口内都不超过上限 */
+    SLIDING_WINDOW,
+
+    /** 令牌桶：桶容量为上限，按 上限/窗口 的速率补充令牌，允许一定的突发 */
+    TOKEN_BUCKET
+}
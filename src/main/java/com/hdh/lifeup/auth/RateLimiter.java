@@ -0,0 +1,141 @@
+package com.hdh.lifeup.auth;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.hdh.lifeup.redis.ApiKey;
+import com.hdh.lifeup.redis.RedisOperator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RateLimiter class<br/>
+ * 接口限流，每种策略都是一个lua脚本，判断和计数在redis中原子完成，一次往返。
+ * 脚本统一返回0表示放行，大于0表示被限流，值为距离可以再次访问的毫秒数。
+ * @author hdonghong
+ * @since 2020/02/01
+ */
+@Slf4j
+@Component
+public class RateLimiter {
+
+    /**
+     * 固定窗口
+     * ARGV[1]: 上限；ARGV[2]: 窗口秒数
+     */
+    private static final DefaultRedisScript<Long> FIXED_WINDOW_SCRIPT = new DefaultRedisScript<>(
+            "local count = redis.call('INCR', KEYS[1]) " +
+            "if count == 1 then " +
+            "  redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+            "end " +
+            "if count <= tonumber(ARGV[1]) then " +
+            "  return 0 " +
+            "end " +
+            "return math.max(redis.call('PTTL', KEYS[1]), 1)", Long.class);
+
+    /**
+     * 滑动窗口，zset的分数为访问时间
+     * ARGV[1]: 上限；ARGV[2]: 窗口秒数；ARGV[3]: 当前毫秒；ARGV[4]: 本次访问的唯一成员
+     */
+    private static final DefaultRedisScript<Long> SLIDING_WINDOW_SCRIPT = new DefaultRedisScript<>(
+            "local window = tonumber(ARGV[2]) * 1000 " +
+            "local now = tonumber(ARGV[3]) " +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], 0, now - window) " +
+            "if redis.call('ZCARD', KEYS[1]) < tonumber(ARGV[1]) then " +
+            "  redis.call('ZADD', KEYS[1], now, ARGV[4]) " +
+            "  redis.call('PEXPIRE', KEYS[1], window) " +
+            "  return 0 " +
+            "end " +
+            "local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES') " +
+            "return math.max(tonumber(oldest[2]) + window - now, 1)", Long.class);
+
+    /**
+     * 令牌桶，hash中保存剩余令牌数和上次补充的时间
+     * ARGV[1]: 桶容量；ARGV[2]: 补满的秒数；ARGV[3]: 当前毫秒
+     */
+    private static final DefaultRedisScript<Long> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>(
+            "local capacity = tonumber(ARGV[1]) " +
+            "local window = tonumber(ARGV[2]) * 1000 " +
+            "local now = tonumber(ARGV[3]) " +
+            "local rate = capacity / window " +
+            "local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts') " +
+            "local tokens = tonumber(bucket[1]) or capacity " +
+            "local ts = tonumber(bucket[2]) or now " +
+            "tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate) " +
+            "local wait = 0 " +
+            "if tokens >= 1 then " +
+            "  tokens = tokens - 1 " +
+            "else " +
+            "  wait = math.ceil((1 - tokens) / rate) " +
+            "end " +
+            "redis.call('HMSET', KEYS[1], 'tokens', tostring(tokens), 'ts', ARGV[3]) " +
+            "redis.call('PEXPIRE', KEYS[1], window) " +
+            "return wait", Long.class);
+
+    private final RedisOperator redisOperator;
+
+    /** 被限流的key -> 解封时间（毫秒），只在本实例内有效 */
+    private final Cache<String, Long> blockedUntil = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .build();
+
+    @Autowired
+    public RateLimiter(RedisOperator redisOperator) {
+        this.redisOperator = redisOperator;
+    }
+
+    /**
+     * 尝试访问一次
+     * @param key 限流的key，一般是接口uri加用户id
+     * @param apiLimiting 限流配置
+     * @return 是否放行
+     */
+    public boolean tryAcquire(String key, ApiLimiting apiLimiting) {
+        long now = System.currentTimeMillis();
+        if (apiLimiting.localPreCheck()) {
+            Long until = blockedUntil.getIfPresent(key);
+            if (until != null && now < until) {
+                return false;
+            }
+        }
+
+        ApiKey<Long> apiKey = ApiKey.withExpire(apiLimiting.seconds());
+        int maxAccess = apiLimiting.maxAccess();
+        int seconds = apiLimiting.seconds();
+        Long waitMillis;
+        switch (apiLimiting.strategy()) {
+            case SLIDING_WINDOW:
+                String member = now + "-" + ThreadLocalRandom.current().nextInt();
+                waitMillis = redisOperator.eval(SLIDING_WINDOW_SCRIPT, apiKey, Lists.newArrayList(key + ":sliding"),
+                        maxAccess, seconds, now, member);
+                break;
+            case TOKEN_BUCKET:
+                waitMillis = redisOperator.eval(TOKEN_BUCKET_SCRIPT, apiKey, Lists.newArrayList(key + ":bucket"),
+                        maxAccess, seconds, now);
+                break;
+            case FIXED_WINDOW:
+            default:
+                waitMillis = redisOperator.eval(FIXED_WINDOW_SCRIPT, apiKey, Lists.newArrayList(key),
+                        maxAccess, seconds);
+                break;
+        }
+
+        long wait = Optional.ofNullable(waitMillis).orElse(0L);
+        if (wait <= 0) {
+            return true;
+        }
+        if (apiLimiting.localPreCheck()) {
+            blockedUntil.put(key, now + wait);
+        }
+        log.error("【接口限流】限流key = [{}], strategy = [{}], maxAccess = [{}], 等待毫秒数 = [{}]",
+                key, apiLimiting.strategy(), maxAccess, wait);
+        return false;
+    }
+}
@@ -0,0 +1,114 @@
+package com.hdh.lifeup.auth;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.hdh.lifeup.config.SessionCacheConfig;
+import com.hdh.lifeup.model.dto.UserInfoDTO;
+import com.hdh.lifeup.redis.RedisBatch;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.redis.UserKey;
+import com.hdh.lifeup.util.TokenUtil;
+import com.hdh.lifeup.convert.DomainConverter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * SessionCache class<br/>
+ * 登录态的两级缓存：本地缓存命中时不访问redis，未命中再用一次管道取回用户信息和剩余有效期。
+ * 有效期不足时不在请求线程里续期，而是记下token，由定时任务批量续期。
+ * @author hdonghong
+ * @since 2020/01/26
+ */
+@Slf4j
+@Component
+public class SessionCache {
+
+    private final RedisOperator redisOperator;
+
+    private final Cache<String, UserInfoDTO> localCache;
+
+    /** 待续期的token */
+    private final Set<String> pendingRefresh = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public SessionCache(RedisOperator redisOperator, SessionCacheConfig sessionCacheConfig) {
+        this.redisOperator = redisOperator;
+        this.localCache = CacheBuilder.newBuilder()
+                .maximumSize(sessionCacheConfig.getMaximumSize())
+                .expireAfterWrite(sessionCacheConfig.getExpireSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 通过token获取用户信息
+     * @param token token
+     * @return 用户信息的副本，调用方可以随意修改；token无效时返回null
+     */
+    public UserInfoDTO get(@NonNull String token) {
+        UserInfoDTO userInfoDTO = localCache.getIfPresent(token);
+        if (userInfoDTO == null) {
+            RedisBatch batch = redisOperator.batch();
+            RedisBatch.Response<UserInfoDTO> userResponse = batch.get(UserKey.TOKEN, token);
+            RedisBatch.Response<Long> ttlResponse = batch.ttl(UserKey.TOKEN, token);
+            batch.execute();
+
+            userInfoDTO = userResponse.get();
+            if (userInfoDTO == null) {
+                return null;
+            }
+            if (ttlResponse.get() < TokenUtil.MIN_EXPIRED) {
+                log.info("【登录态缓存】当前用户Token有效时长expire = [{}], 等待续期", ttlResponse.get());
+                pendingRefresh.add(token);
+            }
+            localCache.put(token, userInfoDTO);
+        }
+        return copy(userInfoDTO);
+    }
+
+    /**
+     * 写入用户信息，redis与本地缓存同时更新
+     * @param token token
+     * @param userInfoDTO 用户信息
+     */
+    public void put(@NonNull String token, @NonNull UserInfoDTO userInfoDTO) {
+        redisOperator.setex(UserKey.TOKEN, token, userInfoDTO);
+        localCache.put(token, copy(userInfoDTO));
+    }
+
+    /**
+     * 使本地缓存失效，下次读时回源redis
+     * @param token token
+     */
+    public void invalidate(@NonNull String token) {
+        localCache.invalidate(token);
+    }
+
+    /**
+     * 批量续期等待中的token，一次管道完成
+     * @return 续期的token数量
+     */
+    public int flushPendingRefresh() {
+        if (pendingRefresh.isEmpty()) {
+            return 0;
+        }
+        List<String> tokens = pendingRefresh.stream().collect(Collectors.toList());
+        pendingRefresh.removeAll(tokens);
+        RedisBatch batch = redisOperator.batch();
+        tokens.forEach(token -> batch.expire(UserKey.TOKEN, token));
+        batch.execute();
+        return tokens.size();
+    }
+
+    /** 本地缓存中的对象是共享的，返回副本避免请求间互相修改 */
+    private UserInfoDTO copy(UserInfoDTO source) {
+        return DomainConverter.INSTANCE.copy(source);
+    }
+}
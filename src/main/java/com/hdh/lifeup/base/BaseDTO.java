@@ -1,13 +1,18 @@
 package com.hdh.lifeup.base;
 
 import com.google.common.base.Preconditions;
+import com.hdh.lifeup.convert.BeanConverters;
+import com.hdh.lifeup.exception.GlobalException;
+import com.hdh.lifeup.model.enums.CodeMsgEnum;
 import org.springframework.beans.BeanUtils;
 
 import java.io.Serializable;
+import java.util.function.Function;
 
 /**
  * BaseDTO class<br/>
- * 通用的DTO父类，提供默认DTO与DO的转换，方法命名仿自JDK8日期API
+ * 通用的DTO父类，提供默认DTO与DO的转换，方法命名仿自JDK8日期API。
+ * 已在 {@link BeanConverters} 注册的类型使用编译期生成的转换方法，其余类型回退到反射复制
  * @author hdonghong
  * @since 2018/08/18
  */
@@ -22,14 +27,18 @@ public abstract class BaseDTO<DO extends BaseDO> implements Serializable {
      */
     public DO toDO(Class<DO> doClass) {
         Preconditions.checkNotNull(doClass, "DO class can not be null");
+        Function<BaseDTO<DO>, DO> converter = BeanConverters.get(getClass(), doClass);
+        if (converter != null) {
+            return converter.apply(this);
+        }
         try {
             DO aDO = doClass.newInstance();
             BeanUtils.copyProperties(this, aDO);
             return aDO;
         } catch (Exception e) {
             e.printStackTrace();
+            throw new GlobalException(CodeMsgEnum.SERVER_ERROR);
         }
-        return null;
     }
 
     /**
@@ -37,18 +46,25 @@ public abstract class BaseDTO<DO extends BaseDO> implements Serializable {
      * @param aDO DO对象
      * @param dtoClass DTO类型
      * @param <DTO> DTO泛型类型
-     * @return DTO对象
+     * @return DTO对象，aDO为null时返回null，调用方据此判断记录不存在
      */
     @SuppressWarnings("unchecked")
     public static <DTO extends BaseDTO, DO extends BaseDO> DTO from(DO aDO, Class<DTO> dtoClass) {
         Preconditions.checkNotNull(dtoClass, "DTO class can not be null");
+        if (aDO == null) {
+            return null;
+        }
+        Function<DO, DTO> converter = BeanConverters.get(aDO.getClass(), dtoClass);
+        if (converter != null) {
+            return converter.apply(aDO);
+        }
         try {
             DTO aDTO = dtoClass.newInstance();
             return (DTO) aDTO.from(aDO);
         } catch (Exception e) {
             e.printStackTrace();
+            throw new GlobalException(CodeMsgEnum.SERVER_ERROR);
         }
-        return null;
     }
 
     /**
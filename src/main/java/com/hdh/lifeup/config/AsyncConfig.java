@@ -1,6 +1,7 @@
 package com.hdh.lifeup.config;
 
 import com.hdh.lifeup.exception.AsyncExceptionHandler;
+import com.hdh.lifeup.metrics.CountingRejectedExecutionHandler;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -44,7 +45,8 @@ public class AsyncConfig implements AsyncConfigurer {
         executor.setQueueCapacity(100);
         executor.setKeepAliveSeconds(60);
         executor.setThreadNamePrefix("taskExecutor-");
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // 拒绝次数见MetricsConfig的executor.rejected
+        executor.setRejectedExecutionHandler(new CountingRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy()));
         // 优雅关闭连接池
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(60);
@@ -53,6 +55,44 @@ public class AsyncConfig implements AsyncConfigurer {
         return executor;
     }
 
+    /**
+     * 图片上传专用的线程池，上传都在等网络，与taskExecutor分开，避免互相占满。
+     * 队列满时由请求线程自己上传，相当于退回串行
+     */
+    @Bean("uploadExecutor")
+    public Executor uploadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(32);
+        executor.setQueueCapacity(64);
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix("uploadExecutor-");
+        executor.setRejectedExecutionHandler(new CountingRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy()));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 图片解码、缩放、编码专用的线程池，纯计算，线程数与CPU核数一致。
+     * 提交的是请求线程，缩小版本可有可无，队列满时拒绝，不让请求线程去做解码
+     */
+    @Bean("imageExecutor")
+    public Executor imageExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        int processors = Runtime.getRuntime().availableProcessors();
+        executor.setCorePoolSize(processors);
+        executor.setMaxPoolSize(processors);
+        executor.setQueueCapacity(64);
+        executor.setThreadNamePrefix("imageExecutor-");
+        executor.setRejectedExecutionHandler(new CountingRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy()));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
     /**
      * 异常处理
      * Spring对于2种异步方法的异常处理机制如下：
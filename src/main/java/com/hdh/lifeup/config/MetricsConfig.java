@@ -0,0 +1,96 @@
+package com.hdh.lifeup.config;
+
+import com.hdh.lifeup.metrics.CountingRejectedExecutionHandler;
+import com.hdh.lifeup.metrics.SqlMetricsInterceptor;
+import com.hdh.lifeup.service.LikeWriteBuffer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * MetricsConfig class<br/>
+ * 监控指标，通过actuator的 /actuator/prometheus 导出：<br/>
+ * * api.latency：接口耗时，见ApiInterceptor；<br/>
+ * * sql.latency：mapper方法的sql耗时，见 {@link SqlMetricsInterceptor}；<br/>
+ * * redis.command、redis.cache：redis命令耗时和读缓存命中，见RedisMetrics；<br/>
+ * * executor.*：异步线程池taskExecutor、上传线程池uploadExecutor、图片处理线程池imageExecutor的线程数、队列深度和拒绝次数；<br/>
+ * * like.buffer.*：点赞写库缓冲的积压和刷新情况，见 {@link LikeWriteBuffer}。
+ * @author hdonghong
+ * @since 2020/02/12
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * mybatis-plus会把容器中的Interceptor都注册到SqlSessionFactory
+     */
+    @Bean
+    public SqlMetricsInterceptor sqlMetricsInterceptor(MeterRegistry meterRegistry) {
+        return new SqlMetricsInterceptor(meterRegistry);
+    }
+
+    @Bean
+    public MeterBinder taskExecutorMetrics(@Qualifier("taskExecutor") Executor taskExecutor) {
+        return executorMetrics("taskExecutor", taskExecutor);
+    }
+
+    @Bean
+    public MeterBinder uploadExecutorMetrics(@Qualifier("uploadExecutor") Executor uploadExecutor) {
+        return executorMetrics("uploadExecutor", uploadExecutor);
+    }
+
+    @Bean
+    public MeterBinder imageExecutorMetrics(@Qualifier("imageExecutor") Executor imageExecutor) {
+        return executorMetrics("imageExecutor", imageExecutor);
+    }
+
+    private static MeterBinder executorMetrics(String name, Executor taskExecutor) {
+        return registry -> {
+            ThreadPoolExecutor executor = ((ThreadPoolTaskExecutor) taskExecutor).getThreadPoolExecutor();
+            Tags tags = Tags.of("name", name);
+            new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(registry);
+            Gauge.builder("executor.queue.remaining", executor, e -> e.getQueue().remainingCapacity())
+                    .tags(tags)
+                    .description("队列剩余容量")
+                    .register(registry);
+            if (executor.getRejectedExecutionHandler() instanceof CountingRejectedExecutionHandler) {
+                CountingRejectedExecutionHandler handler = (CountingRejectedExecutionHandler) executor.getRejectedExecutionHandler();
+                FunctionCounter.builder("executor.rejected", handler, CountingRejectedExecutionHandler::getRejectedCount)
+                        .tags(tags)
+                        .description("队列已满被拒绝的任务数，拒绝后由调用线程执行")
+                        .register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder likeWriteBufferMetrics(LikeWriteBuffer likeWriteBuffer) {
+        return registry -> {
+            Gauge.builder("like.buffer.depth", likeWriteBuffer, LikeWriteBuffer::getBufferDepth)
+                    .description("等待写库的点赞数")
+                    .register(registry);
+            Gauge.builder("like.buffer.flush.last", likeWriteBuffer, LikeWriteBuffer::getLastFlushMillis)
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            Gauge.builder("like.buffer.flush.max", likeWriteBuffer, LikeWriteBuffer::getMaxFlushMillis)
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            FunctionCounter.builder("like.buffer.flushes", likeWriteBuffer, LikeWriteBuffer::getFlushCount)
+                    .register(registry);
+            FunctionCounter.builder("like.buffer.flushed.rows", likeWriteBuffer, LikeWriteBuffer::getFlushedRows)
+                    .register(registry);
+            FunctionCounter.builder("like.buffer.flush.failures", likeWriteBuffer, LikeWriteBuffer::getFlushFailures)
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.hdh.lifeup.config;
+
+import com.hdh.lifeup.redis.RedisCodecs;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * RedisCodecConfig class<br/>
+ * redis的value编码配置，见 {@link RedisCodecs}
+ * @author hdonghong
+ * @since 2020/02/11
+ */
+@Slf4j
+@Data
+@ConfigurationProperties(prefix = "redis-codec")
+@Component
+public class RedisCodecConfig {
+
+    /**
+     * 使用二进制codec的key是否写入二进制格式。读取总是兼容json和二进制，
+     * 所以要在所有实例都升级后再打开；需要回滚到旧版本时先关闭，等已写入的二进制数据过期
+     */
+    private boolean binaryWrite = false;
+
+    @PostConstruct
+    public void apply() {
+        RedisCodecs.setBinaryWrite(binaryWrite);
+        log.info("【redis编码】二进制写入 = [{}]", binaryWrite);
+    }
+}
@@ -0,0 +1,23 @@
+package com.hdh.lifeup.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * SessionCacheConfig class<br/>
+ * 登录态本地缓存（redis前的一级缓存）的配置
+ * @author hdonghong
+ * @since 2020/01/26
+ */
+@Data
+@ConfigurationProperties(prefix = "session-cache")
+@Component
+public class SessionCacheConfig {
+
+    /** 本地最多缓存的token数，超出后按LRU淘汰 */
+    private long maximumSize = 10000;
+
+    /** 本地缓存写入后的存活时间，其他实例修改用户信息后，本实例最多读到这么久的旧数据 */
+    private long expireSeconds = 60;
+}
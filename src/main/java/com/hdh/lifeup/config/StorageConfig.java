@@ -0,0 +1,47 @@
+package com.hdh.lifeup.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * StorageConfig class<br/>
+ * 文件存储的配置，线上用七牛云（账号见 {@link QiniuConfig}），测试和压测可以换成本地目录
+ * @author hdonghong
+ * @since 2020/02/20
+ */
+@Data
+@ConfigurationProperties(prefix = "storage")
+@Component
+public class StorageConfig {
+
+    public static final String TYPE_QINIU = "qiniu";
+    public static final String TYPE_LOCAL = "local";
+
+    /** 存储类型：qiniu 或 local */
+    private String type = TYPE_QINIU;
+
+    /** 本地存储的根目录 */
+    private String localPath = "target/storage";
+
+    /** 本地存储的文件访问地址前缀，后面拼上文件的key */
+    private String localUrl = "http://localhost/storage/";
+
+    /** 七牛上传凭证的有效期，凭证在过期前一分钟重新生成 */
+    private int tokenExpireSeconds = 3600;
+
+    /** 一次请求中多张图片并行上传，等待全部完成的最长时间 */
+    private int uploadTimeoutSeconds = 30;
+
+    /** 动态图片缩略图的长边 */
+    private int thumbEdge = 360;
+
+    /** 动态图片中图的长边 */
+    private int mediumEdge = 1080;
+
+    /** 缩略图和中图的编码格式，ImageIO没有对应的编码器时退回jpg；有透明通道的图片总是用png */
+    private String variantFormat = "jpg";
+
+    /** 缩略图和中图的压缩质量 */
+    private float variantQuality = 0.8f;
+}
@@ -0,0 +1,26 @@
+package com.hdh.lifeup.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * TimelineConfig class<br/>
+ * 朋友圈时间线（推拉结合）的配置
+ * @author hdonghong
+ * @since 2020/01/12
+ */
+@Data
+@ConfigurationProperties(prefix = "timeline")
+@Component
+public class TimelineConfig {
+
+    /** 粉丝数达到该值的用户视为大V，其动态不再推送给粉丝，改为粉丝读时拉取 */
+    private int celebrityThreshold = 2000;
+
+    /** 每个收件箱、发件箱最多保留的动态数，超出的旧动态会被裁剪 */
+    private int boxCapacity = 800;
+
+    /** 推送时单次脚本处理的收件箱数量 */
+    private int fanOutBatchSize = 500;
+}
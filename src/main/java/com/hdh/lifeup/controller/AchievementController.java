@@ -10,10 +10,10 @@ import com.hdh.lifeup.service.UserInfoService;
 import com.hdh.lifeup.util.Result;
 import com.hdh.lifeup.model.vo.ResultVO;
 import com.hdh.lifeup.model.vo.UserListVO;
+import com.hdh.lifeup.convert.ViewConverter;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -75,11 +75,9 @@ public class AchievementController {
             @RequestParam(value = "hasComplete", defaultValue = "1", required = false) Integer hasComplete) {
         List<UserAchievementDTO> userAchievementDTOList = userAchievementService.listAchievements(
                 UserContext.get().getUserId(), hasComplete);
-        List<UserAchievementAO> achievementAOList = userAchievementDTOList.stream().map(userAchievementDTO -> {
-            UserAchievementAO userAchievementAO = new UserAchievementAO();
-            BeanUtils.copyProperties(userAchievementDTO, userAchievementAO);
-            return userAchievementAO;
-        }).collect(Collectors.toList());
+        List<UserAchievementAO> achievementAOList = userAchievementDTOList.stream()
+                .map(ViewConverter.INSTANCE::toUserAchievementAO)
+                .collect(Collectors.toList());
         return Result.success(achievementAOList);
     }
 }
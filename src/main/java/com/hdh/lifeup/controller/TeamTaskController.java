@@ -9,12 +9,12 @@ import com.hdh.lifeup.model.enums.CodeMsgEnum;
 import com.hdh.lifeup.model.vo.*;
 import com.hdh.lifeup.service.TeamTaskService;
 import com.hdh.lifeup.util.Result;
-import com.hdh.lifeup.util.sensitive.SensitiveFilter;
+import com.hdh.lifeup.util.sensitive.AhoCorasickFilter;
+import com.hdh.lifeup.convert.ViewConverter;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -45,8 +45,8 @@ public class TeamTaskController {
     })
     @PostMapping("/new")
     public ResultVO<NextSignVO> addTeam(@RequestBody TeamTaskVO teamTaskVO) {
-        teamTaskVO.setTeamTitle(SensitiveFilter.filter(teamTaskVO.getTeamTitle()))
-                .setTeamDesc(SensitiveFilter.filter(teamTaskVO.getTeamDesc()));
+        teamTaskVO.setTeamTitle(AhoCorasickFilter.filter(teamTaskVO.getTeamTitle()))
+                .setTeamDesc(AhoCorasickFilter.filter(teamTaskVO.getTeamDesc()));
         // 规定金币值的范围[0, 99]
         if (teamTaskVO.getCoin() < 0 || teamTaskVO.getCoinVariable() < 0
                 || teamTaskVO.getCoin() + teamTaskVO.getCoinVariable() > 99) {
@@ -169,15 +169,14 @@ public class TeamTaskController {
     })
     @PutMapping("/{teamId}")
     public ResultVO<?> editTeam(@RequestBody TeamEditVO teamEditVO) {
-        teamEditVO.setTeamTitle(SensitiveFilter.filter(teamEditVO.getTeamTitle()))
-                .setTeamDesc(SensitiveFilter.filter(teamEditVO.getTeamDesc()));
+        teamEditVO.setTeamTitle(AhoCorasickFilter.filter(teamEditVO.getTeamTitle()))
+                .setTeamDesc(AhoCorasickFilter.filter(teamEditVO.getTeamDesc()));
         // 规定金币值的范围[0, 99]
         if (teamEditVO.getCoin() < 0 || teamEditVO.getCoinVariable() < 0
                 || teamEditVO.getCoin() + teamEditVO.getCoinVariable() > 99) {
             return Result.error(CodeMsgEnum.TEAM_INVALID_COIN);
         }
-        TeamTaskDTO teamTaskDTO = new TeamTaskDTO();
-        BeanUtils.copyProperties(teamEditVO, teamTaskDTO);
+        TeamTaskDTO teamTaskDTO = ViewConverter.INSTANCE.toTeamTaskDTO(teamEditVO);
         teamTaskService.update(teamTaskDTO);
         return Result.success();
     }
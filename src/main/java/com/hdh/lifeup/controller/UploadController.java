@@ -3,8 +3,8 @@ package com.hdh.lifeup.controller;
 import com.google.common.collect.Lists;
 import com.hdh.lifeup.auth.ApiLimiting;
 import com.hdh.lifeup.config.QiniuConfig;
+import com.hdh.lifeup.service.UploadService;
 import com.hdh.lifeup.util.Result;
-import com.hdh.lifeup.util.UploadUtil;
 import com.hdh.lifeup.model.vo.ResultVO;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
@@ -29,11 +29,11 @@ import java.util.List;
 @Slf4j
 public class UploadController {
 
-    private QiniuConfig qiniuConfig;
+    private UploadService uploadService;
 
     @Autowired
-    public UploadController(QiniuConfig qiniuConfig) {
-        this.qiniuConfig = qiniuConfig;
+    public UploadController(UploadService uploadService) {
+        this.uploadService = uploadService;
     }
 
 
@@ -49,9 +49,9 @@ public class UploadController {
         List<String> imagePaths = Lists.newArrayList();
         if (imageFiles.size() > 0) {
             log.info("开始上传{}张图片", imageFiles.size());
-            for (MultipartFile image : imageFiles) {
-                imagePaths.add(UploadUtil.uploadImage(image, QiniuConfig.getImageURI(imageCategory), qiniuConfig));
-            }
+            String imageUri = QiniuConfig.getImageURI(imageCategory);
+            // 动态图片在列表中用缩略图展示
+            imagePaths = uploadService.uploadImages(imageFiles, imageUri, QiniuConfig.ACTIVITY_URI.equals(imageUri));
             log.info("上传图片成功");
         }
         return Result.success(imagePaths);
@@ -15,12 +15,12 @@ import com.hdh.lifeup.util.Result;
 import com.hdh.lifeup.model.vo.MobVO;
 import com.hdh.lifeup.model.vo.ResultVO;
 import com.hdh.lifeup.model.vo.UserAuthVO;
+import com.hdh.lifeup.convert.ViewConverter;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpMethod;
@@ -119,8 +119,7 @@ public class UserAuthController {
     @ApiOperation(value = " QQ登录")
     @PostMapping({"/qq/login"})
     public ResultVO<String> qqLogin(@RequestBody @Valid UserAuthVO userAuthVO) {
-        UserInfoDTO userInfoDTO = new UserInfoDTO();
-        BeanUtils.copyProperties(userAuthVO, userInfoDTO);
+        UserInfoDTO userInfoDTO = ViewConverter.INSTANCE.toUserInfoDTO(userAuthVO);
         // 注册类型：目前有手机号、QQ
         userInfoDTO.setAuthTypes(Lists.newArrayList(userAuthVO.getAuthType()));
 
@@ -135,8 +134,7 @@ public class UserAuthController {
     @ApiOperation(value = " google登录")
     @PostMapping({"/google/login"})
     public ResultVO<String> googleLogin(@RequestBody @Valid UserAuthVO userAuthVO) {
-        UserInfoDTO userInfoDTO = new UserInfoDTO();
-        BeanUtils.copyProperties(userAuthVO, userInfoDTO);
+        UserInfoDTO userInfoDTO = ViewConverter.INSTANCE.toUserInfoDTO(userAuthVO);
         // 注册类型：google
         userInfoDTO.setAuthTypes(Lists.newArrayList(userAuthVO.getAuthType()));
 
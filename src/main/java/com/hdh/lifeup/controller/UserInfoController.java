@@ -10,13 +10,13 @@ import com.hdh.lifeup.model.dto.TeamTaskDTO;
 import com.hdh.lifeup.model.dto.UserInfoDTO;
 import com.hdh.lifeup.service.TeamMemberService;
 import com.hdh.lifeup.service.TeamTaskService;
+import com.hdh.lifeup.service.UploadService;
 import com.hdh.lifeup.service.UserInfoService;
 import com.hdh.lifeup.util.Result;
-import com.hdh.lifeup.util.UploadUtil;
 import com.hdh.lifeup.model.vo.ResultVO;
 import com.hdh.lifeup.model.vo.UserDetailVO;
 import com.hdh.lifeup.model.vo.UserListVO;
-import com.hdh.lifeup.util.sensitive.SensitiveFilter;
+import com.hdh.lifeup.util.sensitive.AhoCorasickFilter;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
@@ -39,17 +39,17 @@ public class UserInfoController {
     private UserInfoService userInfoService;
     private TeamMemberService teamMemberService;
     private TeamTaskService teamTaskService;
-    private QiniuConfig qiniuConfig;
+    private UploadService uploadService;
 
     @Autowired
     public UserInfoController(UserInfoService userInfoService,
                               TeamMemberService teamMemberService,
                               TeamTaskService teamTaskService,
-                              QiniuConfig qiniuConfig) {
+                              UploadService uploadService) {
         this.userInfoService = userInfoService;
         this.teamMemberService = teamMemberService;
         this.teamTaskService = teamTaskService;
-        this.qiniuConfig = qiniuConfig;
+        this.uploadService = uploadService;
     }
 
     /**
@@ -87,7 +87,7 @@ public class UserInfoController {
     @ApiImplicitParam(name = "authenticity-token", required = true, paramType = "header", dataType = "String")
     @PutMapping("/profile")
     public ResultVO<UserInfoDTO> updateProfile(@RequestBody UserInfoDTO userInfoDTO) {
-        userInfoDTO.setNickname(SensitiveFilter.filter(userInfoDTO.getNickname()));
+        userInfoDTO.setNickname(AhoCorasickFilter.filter(userInfoDTO.getNickname()));
 
         UserInfoDTO updateResult = userInfoService.update(userInfoDTO);
         return Result.success(updateResult);
@@ -98,7 +98,7 @@ public class UserInfoController {
     @ApiImplicitParam(name = "authenticity-token", required = true, paramType = "header", dataType = "String")
     @PostMapping("/avatar")
     public ResultVO<String> upload(MultipartFile avatarImage) {
-        String imageUrl = UploadUtil.uploadImage(avatarImage, QiniuConfig.AVATAR_URI, qiniuConfig);
+        String imageUrl = uploadService.uploadImage(avatarImage, QiniuConfig.AVATAR_URI);
         UserInfoDTO userInfoDTO = UserContext.get().setUserHead(imageUrl);
         userInfoService.update(userInfoDTO);
         return Result.success(imageUrl);
@@ -0,0 +1,68 @@
+package com.hdh.lifeup.convert;
+
+import com.google.common.collect.Maps;
+import com.hdh.lifeup.model.domain.*;
+import com.hdh.lifeup.model.dto.*;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * BeanConverters class<br/>
+ * 按 (源类型, 目标类型) 查找生成的转换方法，供 {@link com.hdh.lifeup.base.BaseDTO} 与 {@link PageDTO} 这类只拿到Class的通用代码使用。
+ * 注册表在类加载时建好，之后只读
+ * @author hdonghong
+ * @since 2020/02/10
+ */
+public final class BeanConverters {
+
+    private static final Map<Class<?>, Map<Class<?>, Function<?, ?>>> CONVERTERS = Maps.newHashMap();
+
+    static {
+        DomainConverter converter = DomainConverter.INSTANCE;
+        register(AppVersionDO.class, AppVersionDTO.class, converter::toDTO);
+        register(AppVersionDTO.class, AppVersionDO.class, converter::toDO);
+        register(AttributeDO.class, AttributeDTO.class, converter::toDTO);
+        register(AttributeDTO.class, AttributeDO.class, converter::toDO);
+        register(FeedbackDO.class, FeedbackDTO.class, converter::toDTO);
+        register(FeedbackDTO.class, FeedbackDO.class, converter::toDO);
+        register(ReportRecordDO.class, ReportRecordDTO.class, converter::toDTO);
+        register(ReportRecordDTO.class, ReportRecordDO.class, converter::toDO);
+        register(ReportTypeDO.class, ReportTypeDTO.class, converter::toDTO);
+        register(ReportTypeDTO.class, ReportTypeDO.class, converter::toDO);
+        register(TaskDO.class, TaskDTO.class, converter::toDTO);
+        register(TaskDTO.class, TaskDO.class, converter::toDO);
+        register(TaskRecordDO.class, TaskRecordDTO.class, converter::toDTO);
+        register(TaskRecordDTO.class, TaskRecordDO.class, converter::toDO);
+        register(TeamMemberDO.class, TeamMemberDTO.class, converter::toDTO);
+        register(TeamMemberDTO.class, TeamMemberDO.class, converter::toDO);
+        register(TeamMemberRecordDO.class, TeamMemberRecordDTO.class, converter::toDTO);
+        register(TeamMemberRecordDTO.class, TeamMemberRecordDO.class, converter::toDO);
+        register(TeamTaskDO.class, TeamTaskDTO.class, converter::toDTO);
+        register(TeamTaskDTO.class, TeamTaskDO.class, converter::toDO);
+        register(UserAchievementDO.class, UserAchievementDTO.class, converter::toDTO);
+        register(UserAchievementDTO.class, UserAchievementDO.class, converter::toDO);
+        register(UserAuthDO.class, UserAuthDTO.class, converter::toDTO);
+        register(UserAuthDTO.class, UserAuthDO.class, converter::toDO);
+        register(UserInfoDO.class, UserInfoDTO.class, converter::toDTO);
+        register(UserInfoDTO.class, UserInfoDO.class, converter::toDO);
+        register(TeamMemberRecordDO.class, RecordDTO.class, converter::toRecordDTO);
+    }
+
+    private BeanConverters() {
+
+    }
+
+    private static <S, T> void register(Class<S> sourceClass, Class<T> targetClass, Function<S, T> converter) {
+        CONVERTERS.computeIfAbsent(sourceClass, key -> Maps.newHashMap()).put(targetClass, converter);
+    }
+
+    /**
+     * @return 生成的转换方法，没有注册时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public static <S, T> Function<S, T> get(Class<?> sourceClass, Class<T> targetClass) {
+        Map<Class<?>, Function<?, ?>> converters = CONVERTERS.get(sourceClass);
+        return converters == null ? null : (Function<S, T>) converters.get(targetClass);
+    }
+}
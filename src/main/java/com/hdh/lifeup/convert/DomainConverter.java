@@ -0,0 +1,98 @@
+package com.hdh.lifeup.convert;
+
+import com.hdh.lifeup.model.domain.*;
+import com.hdh.lifeup.model.dto.*;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.Mappings;
+import org.mapstruct.ReportingPolicy;
+import org.mapstruct.factory.Mappers;
+
+/**
+ * DomainConverter interface<br/>
+ * DO与DTO之间的转换，实现类由MapStruct在编译期生成，运行时直接调用getter/setter，没有反射。
+ * DO中独有的字段（is_del等）不转换。
+ * @author hdonghong
+ * @since 2020/02/10
+ */
+@Mapper(uses = JsonListConverter.class, unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface DomainConverter {
+
+    DomainConverter INSTANCE = Mappers.getMapper(DomainConverter.class);
+
+    AppVersionDTO toDTO(AppVersionDO appVersionDO);
+
+    AppVersionDO toDO(AppVersionDTO appVersionDTO);
+
+    AttributeDTO toDTO(AttributeDO attributeDO);
+
+    AttributeDO toDO(AttributeDTO attributeDTO);
+
+    FeedbackDTO toDTO(FeedbackDO feedbackDO);
+
+    FeedbackDO toDO(FeedbackDTO feedbackDTO);
+
+    ReportRecordDTO toDTO(ReportRecordDO reportRecordDO);
+
+    ReportRecordDO toDO(ReportRecordDTO reportRecordDTO);
+
+    ReportTypeDTO toDTO(ReportTypeDO reportTypeDO);
+
+    ReportTypeDO toDO(ReportTypeDTO reportTypeDTO);
+
+    TaskDTO toDTO(TaskDO taskDO);
+
+    TaskDO toDO(TaskDTO taskDTO);
+
+    TaskRecordDTO toDTO(TaskRecordDO taskRecordDO);
+
+    TaskRecordDO toDO(TaskRecordDTO taskRecordDTO);
+
+    TeamMemberDTO toDTO(TeamMemberDO teamMemberDO);
+
+    TeamMemberDO toDO(TeamMemberDTO teamMemberDTO);
+
+    TeamMemberRecordDTO toDTO(TeamMemberRecordDO teamMemberRecordDO);
+
+    TeamMemberRecordDO toDO(TeamMemberRecordDTO teamMemberRecordDTO);
+
+    TeamTaskDTO toDTO(TeamTaskDO teamTaskDO);
+
+    TeamTaskDO toDO(TeamTaskDTO teamTaskDTO);
+
+    UserAchievementDTO toDTO(UserAchievementDO userAchievementDO);
+
+    UserAchievementDO toDO(UserAchievementDTO userAchievementDTO);
+
+    UserAuthDTO toDTO(UserAuthDO userAuthDO);
+
+    UserAuthDO toDO(UserAuthDTO userAuthDTO);
+
+    /** DTO中的注册时间是Instant，DO中是LocalDateTime，与原来一样不转换 */
+    @Mapping(target = "createTime", ignore = true)
+    UserInfoDTO toDTO(UserInfoDO userInfoDO);
+
+    @Mapping(target = "createTime", ignore = true)
+    UserInfoDO toDO(UserInfoDTO userInfoDTO);
+
+    /** 用户卡片，只取列表展示用的字段 */
+    UserCardDTO toUserCardDTO(UserInfoDO userInfoDO);
+
+    /** 个人动态 */
+    RecordDTO toRecordDTO(TeamMemberRecordDO teamMemberRecordDO);
+
+    /** 复制一份用户信息，列表字段也会复制 */
+    UserInfoDTO copy(UserInfoDTO userInfoDTO);
+
+    /** 用修改的内容覆盖当前用户信息，用户id与注册时间不变 */
+    @Mappings({
+            @Mapping(target = "userId", ignore = true),
+            @Mapping(target = "createTime", ignore = true)
+    })
+    void update(UserInfoDTO source, @MappingTarget UserInfoDTO target);
+
+    /** 用修改的属性覆盖数据库中的属性，所属用户不变 */
+    @Mapping(target = "userId", ignore = true)
+    void update(AttributeDTO source, @MappingTarget AttributeDO target);
+}
@@ -0,0 +1,24 @@
+package com.hdh.lifeup.convert;
+
+import com.hdh.lifeup.util.JsonUtil;
+
+import java.util.List;
+
+/**
+ * JsonListConverter class<br/>
+ * DO中以json字符串保存的列表（团队奖励属性、动态图片、绑定类型等）与DTO中的List互转，
+ * 由MapStruct在生成的转换代码中调用
+ * @author hdonghong
+ * @since 2020/02/10
+ */
+public class JsonListConverter {
+
+    /** 空列表不写入，与原来的toDO一致 */
+    public String toJson(List<String> list) {
+        return list == null || list.isEmpty() ? null : JsonUtil.toJson(list);
+    }
+
+    public List<String> toList(String json) {
+        return JsonUtil.jsonToList(json, String.class);
+    }
+}
@@ -0,0 +1,50 @@
+package com.hdh.lifeup.convert;
+
+import com.hdh.lifeup.model.ao.UserAchievementAO;
+import com.hdh.lifeup.model.domain.UserAchievementDO;
+import com.hdh.lifeup.model.dto.TeamTaskDTO;
+import com.hdh.lifeup.model.dto.UserCardDTO;
+import com.hdh.lifeup.model.dto.UserAchievementDTO;
+import com.hdh.lifeup.model.dto.UserInfoDTO;
+import com.hdh.lifeup.model.vo.*;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Mappings;
+import org.mapstruct.ReportingPolicy;
+import org.mapstruct.factory.Mappers;
+
+/**
+ * ViewConverter interface<br/>
+ * 接口层的VO、AO与DTO、DO之间的转换，实现类由MapStruct在编译期生成。
+ * 只转换同名同类型的字段，VO中由服务组装的字段（成员数、是否关注等）调用方自己设置。
+ * @author hdonghong
+ * @since 2020/02/10
+ */
+@Mapper(unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface ViewConverter {
+
+    ViewConverter INSTANCE = Mappers.getMapper(ViewConverter.class);
+
+    /** 首次签到时间由调用方设置 */
+    @Mappings({
+            @Mapping(target = "firstStartTime", ignore = true),
+            @Mapping(target = "firstEndTime", ignore = true)
+    })
+    TeamTaskDTO toTeamTaskDTO(TeamTaskVO teamTaskVO);
+
+    TeamTaskDTO toTeamTaskDTO(TeamEditVO teamEditVO);
+
+    TeamDetailVO toTeamDetailVO(TeamTaskDTO teamTaskDTO);
+
+    NextSignVO toNextSignVO(TeamTaskDTO teamTaskDTO);
+
+    UserInfoDTO toUserInfoDTO(UserAuthVO userAuthVO);
+
+    UserDetailVO toUserDetailVO(UserInfoDTO userInfoDTO);
+
+    UserListVO toUserListVO(UserCardDTO userCardDTO);
+
+    UserAchievementAO toUserAchievementAO(UserAchievementDTO userAchievementDTO);
+
+    UserAchievementDO toUserAchievementDO(UserAchievementAO userAchievementAO);
+}
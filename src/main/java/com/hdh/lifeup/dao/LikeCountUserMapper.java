@@ -1,11 +1,13 @@
 package com.hdh.lifeup.dao;
 
 import com.hdh.lifeup.base.SuperMapper;
-import com.hdh.lifeup.model.domain.AppVersionDO;
 import com.hdh.lifeup.model.domain.LikeCountUserDO;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.Collection;
+
 /**
  * LikeCountUserMapper interface<br/>
  *
@@ -16,4 +18,18 @@ public interface LikeCountUserMapper extends SuperMapper<LikeCountUserDO> {
 
     @Update("update like_count_user set like_count = like_count + #{e} where user_id = #{userId} limit 1")
     Integer incr(@Param("userId") Long userId, @Param("e") int e);
+
+    /**
+     * 批量累加用户获赞数，没有记录的用户直接插入
+     * @param counts userId与增量likeCount
+     * @return 影响的行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO like_count_user (user_id, like_count) VALUES " +
+                "<foreach item='count' index='index' collection='counts' separator=','>" +
+                "(#{count.userId}, #{count.likeCount})" +
+                "</foreach>" +
+            "ON DUPLICATE KEY UPDATE like_count = like_count + VALUES(like_count)" +
+            "</script>")
+    int incrBatch(@Param("counts") Collection<LikeCountUserDO> counts);
 }
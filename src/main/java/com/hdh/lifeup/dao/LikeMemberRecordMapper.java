@@ -2,6 +2,11 @@ package com.hdh.lifeup.dao;
 
 import com.hdh.lifeup.base.SuperMapper;
 import com.hdh.lifeup.model.domain.LikeMemberRecordDO;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
 
 /**
  * LikeMemberRecordMapper interface<br/>
@@ -10,4 +15,30 @@ import com.hdh.lifeup.model.domain.LikeMemberRecordDO;
  * @since 2019/06/08
  */
 public interface LikeMemberRecordMapper extends SuperMapper<LikeMemberRecordDO> {
+
+    /**
+     * 批量插入点赞记录，已存在的忽略
+     * @param likes 点赞记录
+     * @return 插入的行数
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO like_member_record (member_record_id, user_id) VALUES " +
+                "<foreach item='like' index='index' collection='likes' separator=','>" +
+                "(#{like.memberRecordId}, #{like.userId})" +
+                "</foreach>" +
+            "</script>")
+    int insertIgnoreBatch(@Param("likes") Collection<LikeMemberRecordDO> likes);
+
+    /**
+     * 按 (动态id, 点赞用户id) 批量删除点赞记录
+     * @param likes 点赞记录
+     * @return 删除的行数
+     */
+    @Delete("<script>" +
+            "DELETE FROM like_member_record WHERE (member_record_id, user_id) IN " +
+                "<foreach item='like' index='index' collection='likes' open='(' separator=',' close=')'>" +
+                "(#{like.memberRecordId}, #{like.userId})" +
+                "</foreach>" +
+            "</script>")
+    int deleteBatch(@Param("likes") Collection<LikeMemberRecordDO> likes);
 }
@@ -2,11 +2,14 @@ package com.hdh.lifeup.dao;
 
 import com.hdh.lifeup.base.SuperMapper;
 import com.hdh.lifeup.model.domain.TeamMemberDO;
+import com.hdh.lifeup.model.dto.CountDTO;
+import com.hdh.lifeup.model.dto.PageCursor;
 import com.hdh.lifeup.model.dto.PageDTO;
 import com.hdh.lifeup.model.vo.UserListVO;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -18,16 +21,25 @@ import java.util.List;
 public interface TeamMemberMapper extends SuperMapper<TeamMemberDO> {
 
     /**
-     * 获取团队成员
+     * 获取团队成员，昵称和头像由用户卡片缓存填充
      * @param teamId 团队id
      * @param pageDTO 条件
+     * @param cursor 游标，由加入时间和用户id组成，为空时按偏移量分页
      * @return 成员列表
      */
-    @Select("select m.user_id, m.team_id, m.create_time, u.nickname, u.user_head from team_member m, user_info u " +
-            "where m.user_id = u.user_id " +
-            "and m.team_id = #{teamId} " +
-            "order by m.create_time desc limit #{page.currentPage}, #{page.size} ")
-    List<UserListVO> getMembers(@Param("teamId") Long teamId, @Param("page") PageDTO pageDTO);
+    @Select("<script>" +
+            "select m.user_id, m.team_id, m.create_time from team_member m " +
+            "where m.team_id = #{teamId} " +
+            "<if test='cursor != null'> AND (m.create_time &lt; #{cursor.createTime} " +
+                "OR (m.create_time = #{cursor.createTime} AND m.user_id &lt; #{cursor.id})) </if>" +
+            "order by m.create_time desc, m.user_id desc " +
+            "<choose>" +
+                "<when test='cursor != null'> limit #{page.size} </when>" +
+                "<otherwise> limit #{page.currentPage}, #{page.size} </otherwise>" +
+            "</choose>" +
+            "</script>")
+    List<UserListVO> getMembers(@Param("teamId") Long teamId, @Param("page") PageDTO pageDTO,
+                                @Param("cursor") PageCursor cursor);
 
     @Select("select team_id from team_member where user_id = #{userId}")
     List<Long> getTeamIdsByUserId(@Param("userId") Long userId);
@@ -40,4 +52,28 @@ public interface TeamMemberMapper extends SuperMapper<TeamMemberDO> {
     @Select("select count(1) from team_member where user_id = #{userId} " +
             "and DATE_SUB(CURDATE(), INTERVAL 30 DAY) < create_time")
     int countUserLast30DaysTeams(@Param("userId") Long userId);
+
+    /**
+     * 按团队分组统计成员数，没有成员的团队不返回
+     * @param teamIds 团队id
+     * @return 团队id与成员数
+     */
+    @Select("<script>" +
+            "select team_id as id, count(1) as count from team_member where team_id in " +
+            "<foreach item='teamId' collection='teamIds' open='(' separator=',' close=')'>#{teamId}</foreach> " +
+            "group by team_id" +
+            "</script>")
+    List<CountDTO> countByTeamIds(@Param("teamIds") Collection<Long> teamIds);
+
+    /**
+     * 按用户分组统计参与的团队数，没有参与团队的用户不返回
+     * @param userIds 用户id
+     * @return 用户id与团队数
+     */
+    @Select("<script>" +
+            "select user_id as id, count(1) as count from team_member where user_id in " +
+            "<foreach item='userId' collection='userIds' open='(' separator=',' close=')'>#{userId}</foreach> " +
+            "group by user_id" +
+            "</script>")
+    List<CountDTO> countByUserIds(@Param("userIds") Collection<Long> userIds);
 }
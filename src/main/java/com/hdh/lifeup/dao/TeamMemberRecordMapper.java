@@ -2,6 +2,8 @@ package com.hdh.lifeup.dao;
 
 import com.hdh.lifeup.base.SuperMapper;
 import com.hdh.lifeup.model.domain.TeamMemberRecordDO;
+import com.hdh.lifeup.model.dto.CountDTO;
+import com.hdh.lifeup.model.dto.PageCursor;
 import com.hdh.lifeup.model.dto.PageDTO;
 import com.hdh.lifeup.model.dto.RecordDTO;
 import org.apache.ibatis.annotations.Param;
@@ -12,50 +14,87 @@ import java.util.List;
 
 /**
  * TeamMemberRecordMapper interface<br/>
- *
+ * 查询动态时不关联user_info，昵称和头像由 {@link com.hdh.lifeup.service.UserCardCache} 填充
  * @author hdonghong
  * @since 2018/09/02
  */
 public interface TeamMemberRecordMapper extends SuperMapper<TeamMemberRecordDO> {
 
+    /** 游标分页的查询条件：从游标位置往后取，游标为空时不加条件 */
+    String SEEK_CONDITION = "<if test='cursor != null'> AND (r.create_time &lt; #{cursor.createTime} " +
+            "OR (r.create_time = #{cursor.createTime} AND r.member_record_id &lt; #{cursor.id})) </if>";
+
+    /** 排序加上id保证顺序稳定；有游标时只limit条数，否则退化为偏移量分页 */
+    String ORDER_AND_LIMIT = "ORDER BY r.create_time DESC, r.member_record_id DESC " +
+            "<choose>" +
+                "<when test='cursor != null'> LIMIT #{page.size} </when>" +
+                "<otherwise> LIMIT #{page.currentPage}, #{page.size} </otherwise>" +
+            "</choose>";
+
     /**
      * 获取某个团队成员动态
      * @param teamId 团队
      * @param pageDTO 条件
+     * @param cursor 游标，为空时按偏移量分页
      * @return 列表
      */
-    @Select("select r.*, u.nickname, u.user_head from team_member_record r, user_info u " +
-            "where r.user_id = u.user_id " +
-            "and r.team_id = #{teamId} " +
-            "AND r.activity_icon != 3 " +
-            "order by r.create_time desc limit #{page.currentPage}, #{page.size} ")
-    List<RecordDTO> getMemberRecords(@Param("teamId") Long teamId, @Param("page") PageDTO pageDTO);
-
     @Select("<script>" +
-            "select r.*, u.nickname, u.user_head from team_member_record r, user_info u " +
-            "where r.user_id = u.user_id " +
-            "and u.user_id in " +
-                "<foreach item='id' index='index' collection='userIds' open='(' separator=',' close=')'>" +
-                "${id}" +
-                "</foreach>" +
+            "select r.* from team_member_record r " +
+            "where r.team_id = #{teamId} " +
             "AND r.activity_icon != 3 " +
-            "<if test='filter == 1'> AND (r.user_activity != '' OR r.activity_images IS NOT NULL) </if>" +
-            "order by r.create_time desc limit #{page.currentPage}, #{page.size} " +
+            SEEK_CONDITION +
+            ORDER_AND_LIMIT +
             "</script>")
-    List<RecordDTO> getRecordsByUserIds(@Param("userIds") Collection<Long> userIds, @Param("page") PageDTO pageDTO, @Param("filter") int filter);
+    List<RecordDTO> getMemberRecords(@Param("teamId") Long teamId, @Param("page") PageDTO pageDTO,
+                                     @Param("cursor") PageCursor cursor);
 
 
     /** 获取所有人可见的动态数据 */
     @Select("<script>" +
-            "SELECT r.*, u.nickname, u.user_head FROM team_member_record r, user_info u " +
-            "WHERE r.user_id = u.user_id " +
-            "AND r.activity_icon != 1 " +
+            "SELECT r.* FROM team_member_record r " +
+            "WHERE r.activity_icon != 1 " +
             "AND r.activity_icon != 3 " +
             "AND r.activity_scope = 3 " +
             "<if test='filter == 1'> AND (r.user_activity != '' OR r.activity_images) IS NOT NULL </if>" +
-            "ORDER BY r.create_time DESC LIMIT #{page.currentPage}, #{page.size} " +
+            SEEK_CONDITION +
+            ORDER_AND_LIMIT +
+            "</script>")
+    List<RecordDTO> getRecords(@Param("page") PageDTO pageDTO, @Param("filter") int filter,
+                               @Param("cursor") PageCursor cursor);
+
+    /**
+     * 按动态id批量获取动态，不保证顺序
+     * @param ids 动态id
+     * @return 列表
+     */
+    @Select("<script>" +
+            "SELECT r.* FROM team_member_record r " +
+            "WHERE r.member_record_id IN " +
+                "<foreach item='id' index='index' collection='ids' open='(' separator=',' close=')'>" +
+                "#{id}" +
+                "</foreach>" +
             "</script>")
-    List<RecordDTO> getRecords(@Param("page") PageDTO pageDTO, @Param("filter") int filter);
+    List<RecordDTO> getRecordsByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 获取多个用户最近的动态id与发布时间，用于重建时间线收件箱
+     * @param userIds 用户id
+     * @param filter 过滤条件，0无；1过滤默认发的
+     * @param limit 最多返回的数量
+     * @return 只有memberRecordId和createTime的DO列表
+     */
+    @Select("<script>" +
+            "SELECT r.member_record_id, r.create_time FROM team_member_record r " +
+            "WHERE r.user_id IN " +
+                "<foreach item='id' index='index' collection='userIds' open='(' separator=',' close=')'>" +
+                "#{id}" +
+                "</foreach>" +
+            "AND r.activity_icon != 3 " +
+            "<if test='filter == 1'> AND (r.user_activity != '' OR r.activity_images IS NOT NULL) </if>" +
+            "ORDER BY r.create_time DESC LIMIT #{limit} " +
+            "</script>")
+    List<TeamMemberRecordDO> getLatestRecordIds(@Param("userIds") Collection<Long> userIds,
+                                                @Param("filter") int filter, @Param("limit") int limit);
 
     /**
      * 查看用户过去30天发表的动态数
@@ -65,4 +104,16 @@ public interface TeamMemberRecordMapper extends SuperMapper<TeamMemberRecordDO>
     @Select("select count(1) from team_member_record where user_id = #{userId} " +
             "and DATE_SUB(CURDATE(), INTERVAL 30 DAY) < create_time")
     int countUserLast30DaysRecords(@Param("userId") Long userId);
+
+    /**
+     * 按团队分组统计动态数，没有动态的团队不返回
+     * @param teamIds 团队id
+     * @return 团队id与动态数
+     */
+    @Select("<script>" +
+            "select team_id as id, count(1) as count from team_member_record where team_id in " +
+            "<foreach item='teamId' collection='teamIds' open='(' separator=',' close=')'>#{teamId}</foreach> " +
+            "group by team_id" +
+            "</script>")
+    List<CountDTO> countByTeamIds(@Param("teamIds") Collection<Long> teamIds);
 }
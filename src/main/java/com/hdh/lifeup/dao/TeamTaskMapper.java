@@ -2,11 +2,13 @@ package com.hdh.lifeup.dao;
 
 import com.hdh.lifeup.base.SuperMapper;
 import com.hdh.lifeup.model.domain.TeamTaskDO;
+import com.hdh.lifeup.model.dto.PageCursor;
 import com.hdh.lifeup.model.dto.PageDTO;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -22,18 +24,26 @@ public interface TeamTaskMapper extends SuperMapper<TeamTaskDO> {
      * @param userId
      * @param pageDTO
      * @param isOwner
+     * @param cursor 游标，由加入时间和团队id组成，为空时按偏移量分页
      * @return
      */
     @Select("<script>" +
-            "select t.* from team_task t, team_member m where t.team_id = m.team_id " +
+            "select t.*, m.create_time AS join_time from team_task t, team_member m where t.team_id = m.team_id " +
             "and m.user_id = #{userId} " +
             "and t.team_status = #{teamStatus} " +
             "and t.is_del = 0 " +
             "<if test='isOwner == true'> AND t.user_id = #{userId} </if>" +
-            "order by m.create_time desc limit #{page.currentPage}, #{page.size} " +
+            "<if test='cursor != null'> AND (m.create_time &lt; #{cursor.createTime} " +
+                "OR (m.create_time = #{cursor.createTime} AND t.team_id &lt; #{cursor.id})) </if>" +
+            "order by m.create_time desc, t.team_id desc " +
+            "<choose>" +
+                "<when test='cursor != null'> limit #{page.size} </when>" +
+                "<otherwise> limit #{page.currentPage}, #{page.size} </otherwise>" +
+            "</choose>" +
             "</script>")
     List<TeamTaskDO> getUserTeams(@Param("userId") Long userId, @Param("page") PageDTO pageDTO,
-                                  @Param("teamStatus") Integer teamStatus, @Param("isOwner") Boolean isOwner);
+                                  @Param("teamStatus") Integer teamStatus, @Param("isOwner") Boolean isOwner,
+                                  @Param("cursor") PageCursor cursor);
 
     @Select("select count(1) from team_task t, team_member m where t.team_id = m.team_id " +
             "and m.user_id = #{userId} " +
@@ -42,11 +52,45 @@ public interface TeamTaskMapper extends SuperMapper<TeamTaskDO> {
     int countUserTeamsWithStatus(@Param("userId") Long userId, @Param("teamStatus") Integer teamStatus);
 
     /**
-     * 增加团队活跃度排序值，e 小于0时则减少
+     * 按天衰减的活跃度，rank_update_time 为空的旧数据视为刚刚更新过
+     * 与 TeamRankServiceImpl 中的衰减系数保持一致
+     */
+    String DECAYED_RANK = "truncate(team_rank * pow(0.95, " +
+            "timestampdiff(second, ifnull(rank_update_time, now()), now()) / 86400), 0)";
+
+    /**
+     * 增加团队活跃度排序值，e 小于0时则减少；先把截至现在的衰减结算掉再累加
      * @param teamId
      * @param e
      * @return
      */
-    @Update("update team_task set team_rank = team_rank + #{e} where team_id = #{teamId} limit 1")
+    @Update("update team_task set team_rank = " + DECAYED_RANK + " + #{e}, rank_update_time = now() " +
+            "where team_id = #{teamId} limit 1")
     int incrTeamRank(@Param("teamId") Long teamId, @Param("e") int e);
+
+    /**
+     * 批量覆盖团队活跃度排序值，teamRank 为当前时刻衰减后的值
+     * @param teams teamId与teamRank
+     * @return 影响的行数
+     */
+    @Update("<script>" +
+            "update team_task set rank_update_time = now(), team_rank = case team_id " +
+                "<foreach item='team' index='index' collection='teams'>" +
+                "when #{team.teamId} then #{team.teamRank} " +
+                "</foreach>" +
+            "end where team_id in " +
+                "<foreach item='team' index='index' collection='teams' open='(' separator=',' close=')'>" +
+                "#{team.teamId}" +
+                "</foreach>" +
+            "</script>")
+    int updateTeamRanks(@Param("teams") Collection<TeamTaskDO> teams);
+
+    /**
+     * 一条sql结算所有长时间没有更新的团队的衰减，用于数据库与排行的对账
+     * @param days 超过多少天没有更新
+     * @return 影响的行数
+     */
+    @Update("update team_task set team_rank = " + DECAYED_RANK + ", rank_update_time = now() " +
+            "where team_rank != 0 and (rank_update_time is null or rank_update_time < now() - interval #{days} day)")
+    int settleTeamRanks(@Param("days") int days);
 }
@@ -1,12 +1,16 @@
 package com.hdh.lifeup.job;
 
-import com.hdh.lifeup.model.dto.TeamTaskDTO;
-import com.hdh.lifeup.service.TeamTaskService;
+import com.hdh.lifeup.auth.SessionCache;
+import com.hdh.lifeup.service.LikeWriteBuffer;
+import com.hdh.lifeup.service.TeamCounterService;
+import com.hdh.lifeup.service.TeamRankService;
+import com.hdh.lifeup.service.TeamScheduleService;
+import com.hdh.lifeup.service.TeamSearchIndex;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
-import java.util.List;
 
 /**
  * SchedulerTask class<br/>
@@ -14,23 +18,94 @@ import java.util.List;
  * @author hdonghong
  * @since 2019/12/08
  */
+@Slf4j
 @Component
 public class SchedulerTask {
 
     @Resource
-    private TeamTaskService teamTaskService;
+    private TeamRankService teamRankService;
+
+    @Resource
+    private SessionCache sessionCache;
+
+    @Resource
+    private LikeWriteBuffer likeWriteBuffer;
+
+    @Resource
+    private TeamScheduleService teamScheduleService;
+
+    @Resource
+    private TeamCounterService teamCounterService;
+
+    @Resource
+    private TeamSearchIndex teamSearchIndex;
+
+    /**
+     * 团队活跃度缩减机制，衰减在读取时按时间算出，这里只用一条sql结算数据库中长时间没更新的团队
+     */
+    @Scheduled(cron = "0 0 5 * * ?")
+    public void settleTeamRank() {
+        teamRankService.settle();
+    }
+
+    /**
+     * 团队活跃度回写数据库
+     */
+    @Scheduled(fixedDelay = 60 * 1000)
+    public void checkpointTeamRank() {
+        int count = teamRankService.checkpoint();
+        if (count > 0) {
+            log.info("【团队活跃度】回写团队数 = [{}]", count);
+        }
+    }
+
+    /**
+     * 批量续期有效期不足的登录token，续期不在请求线程里做
+     */
+    @Scheduled(fixedDelay = 30 * 1000)
+    public void refreshSessions() {
+        int count = sessionCache.flushPendingRefresh();
+        if (count > 0) {
+            log.info("【登录态续期】续期token数量 = [{}]", count);
+        }
+    }
+
+    /**
+     * 点赞缓冲区批量写库
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void flushLikes() {
+        likeWriteBuffer.flush();
+    }
+
+    /**
+     * 提前生成进行中团队当前和下一周期的签到记录，查询下一次签到时不再写库
+     */
+    @Scheduled(fixedDelay = 5 * 60 * 1000)
+    public void materializeTeamSchedule() {
+        int count = teamScheduleService.materialize();
+        if (count > 0) {
+            log.info("【团队签到周期】新生成的签到记录数 = [{}]", count);
+        }
+    }
+
+    /**
+     * 团队成员数、动态数等计数器与数据库核对
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000)
+    public void reconcileCounters() {
+        int count = teamCounterService.reconcile();
+        if (count > 0) {
+            log.warn("【计数器核对】修正的计数器数量 = [{}]", count);
+        }
+    }
 
     /**
-     * 团队活跃度缩减机制
+     * 应用其他实例写入的团队变更，保持搜索索引与数据库一致
      */
-    @Scheduled(cron="*0 0 5 * * ?")
-    public void decrTeamRank() {
-        List<TeamTaskDTO> teamTaskList = teamTaskService.getAllActiveTeams();
-        teamTaskList.forEach(teamTask -> {
-            // 每次至少减 1
-            int decrement = (int) -Math.max(teamTask.getTeamRank() * 0.05, 1);
-            teamTaskService.incrTeamRank(teamTask.getTeamId(), decrement);
-        });
+    @Scheduled(fixedDelay = 10 * 1000)
+    public void syncTeamSearchIndex() {
+        teamSearchIndex.sync();
     }
 
 }
@@ -0,0 +1,32 @@
+package com.hdh.lifeup.metrics;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CountingRejectedExecutionHandler class<br/>
+ * 记录线程池的拒绝次数，实际的拒绝策略交给delegate
+ * @author hdonghong
+ * @since 2020/02/12
+ */
+public class CountingRejectedExecutionHandler implements RejectedExecutionHandler {
+
+    private final RejectedExecutionHandler delegate;
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public CountingRejectedExecutionHandler(RejectedExecutionHandler delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+        rejectedCount.incrementAndGet();
+        delegate.rejectedExecution(r, executor);
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+}
@@ -0,0 +1,79 @@
+package com.hdh.lifeup.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SqlMetricsInterceptor class<br/>
+ * 按mapper方法记录sql耗时，指标为 sql.latency，标签mapper、method，例如 TeamTaskMapper、selectById。
+ * 与PerformanceInterceptor不同，这里不格式化sql也不打印日志，只多一次计时，可以在生产环境使用
+ * @author hdonghong
+ * @since 2020/02/12
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class SqlMetricsInterceptor implements Interceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    /** MappedStatement的id -> 计时器 */
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public SqlMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            timer(mappedStatement.getId()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return target instanceof Executor ? Plugin.wrap(target, this) : target;
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+
+    }
+
+    private Timer timer(String statementId) {
+        return timers.computeIfAbsent(statementId, id -> {
+            // com.hdh.lifeup.dao.TeamTaskMapper.selectById
+            int methodIndex = id.lastIndexOf('.');
+            String mapper = id.substring(id.lastIndexOf('.', methodIndex - 1) + 1, methodIndex);
+            return Timer.builder("sql.latency")
+                    .tag("mapper", mapper)
+                    .tag("method", id.substring(methodIndex + 1))
+                    .register(meterRegistry);
+        });
+    }
+}
@@ -40,6 +40,12 @@ public class TeamMemberRecordDO extends BaseDO {
 
     private String activityImages;
 
+    /** 与activityImages一一对应的缩略图，json */
+    private String activityThumbs;
+
+    /** 与activityImages一一对应的中图，json */
+    private String activityMediums;
+
     private LocalDateTime createTime;
 
 
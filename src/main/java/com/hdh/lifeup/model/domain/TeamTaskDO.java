@@ -1,5 +1,6 @@
 package com.hdh.lifeup.model.domain;
 
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableLogic;
 import com.baomidou.mybatisplus.annotation.TableName;
@@ -66,8 +67,15 @@ public class TeamTaskDO extends BaseDO {
     /** 团队活跃度 */
     private Integer teamRank;
 
+    /** 团队活跃度的结算时间，活跃度按天衰减，读取时再根据这个时间算出当前值 */
+    private LocalDateTime rankUpdateTime;
+
     @TableLogic
     private Integer isDel;
 
     private LocalDateTime createTime;
+
+    /** 当前用户加入团队的时间，仅在查询用户团队列表时有值，用作游标 */
+    @TableField(exist = false)
+    private LocalDateTime joinTime;
 }
@@ -0,0 +1,18 @@
+package com.hdh.lifeup.model.dto;
+
+import lombok.Data;
+
+/**
+ * CountDTO class<br/>
+ * 按id分组计数的一行结果
+ * @author hdonghong
+ * @since 2020/02/17
+ */
+@Data
+public class CountDTO {
+
+    /** 分组的id，如teamId、userId */
+    private Long id;
+
+    private Integer count;
+}
@@ -0,0 +1,25 @@
+package com.hdh.lifeup.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * ImageVariantDTO class<br/>
+ * 一张动态图片的缩小版本，列表展示用缩略图，详情用中图
+ * @author hdonghong
+ * @since 2020/02/20
+ */
+@Data
+@Accessors(chain = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageVariantDTO {
+
+    /** 缩略图地址 */
+    private String thumb;
+
+    /** 中图地址 */
+    private String medium;
+}
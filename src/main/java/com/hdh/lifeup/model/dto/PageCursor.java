@@ -0,0 +1,105 @@
+package com.hdh.lifeup.model.dto;
+
+import com.hdh.lifeup.exception.GlobalException;
+import com.hdh.lifeup.model.enums.CodeMsgEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * PageCursor class<br/>
+ * 游标分页的游标，由排序字段（创建时间）和唯一id组成，
+ * 对客户端是不透明的字符串，查询时按 (create_time, id) 从游标位置往后取
+ * @author hdonghong
+ * @since 2020/01/18
+ */
+@Slf4j
+@Data
+@AllArgsConstructor
+public class PageCursor implements Serializable {
+
+    private static final long serialVersionUID = -2850273398145317609L;
+
+    private static final String SEPARATOR = ":";
+
+    /** 上一页最后一条数据的创建时间 */
+    private LocalDateTime createTime;
+
+    /** 上一页最后一条数据的id */
+    private Long id;
+
+    /**
+     * 由毫秒时间戳构造游标，时间线按分数（毫秒）翻页时使用
+     * @param epochMilli 毫秒时间戳
+     * @param id 唯一id
+     * @return 游标
+     */
+    public static PageCursor ofEpochMilli(long epochMilli, Long id) {
+        LocalDateTime createTime = LocalDateTime.ofEpochSecond(
+                Math.floorDiv(epochMilli, 1000L),
+                (int) Math.floorMod(epochMilli, 1000L) * 1_000_000,
+                ZoneOffset.UTC
+        );
+        return new PageCursor(createTime, id);
+    }
+
+    /** 游标时间对应的毫秒数，编解码只做数值转换，不涉及时区 */
+    public long toEpochMilli() {
+        return createTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public String encode() {
+        String raw = toEpochMilli() + SEPARATOR + id;
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析客户端传来的游标
+     * @param cursor 游标字符串
+     * @return 游标，传空时返回null，表示从第一条开始
+     */
+    public static PageCursor decode(String cursor) {
+        if (StringUtils.isEmpty(cursor)) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.indexOf(SEPARATOR);
+            return ofEpochMilli(
+                    Long.parseLong(raw.substring(0, index)),
+                    Long.parseLong(raw.substring(index + 1))
+            );
+        } catch (RuntimeException e) {
+            log.error("【游标分页】不合法的游标，cursor = [{}]", cursor);
+            throw new GlobalException(CodeMsgEnum.PARAMETER_ERROR);
+        }
+    }
+
+    /**
+     * 根据本页数据生成下一页的游标
+     * @param list 本页数据
+     * @param size 每页数量
+     * @param timeGetter 取排序时间
+     * @param idGetter 取唯一id
+     * @return 下一页游标，本页不满时说明没有更多数据，返回null
+     */
+    public static <T> String next(List<T> list, long size,
+                                  Function<T, LocalDateTime> timeGetter, Function<T, Long> idGetter) {
+        if (list == null || list.isEmpty() || list.size() < size) {
+            return null;
+        }
+        T last = list.get(list.size() - 1);
+        return new PageCursor(timeGetter.apply(last), idGetter.apply(last)).encode();
+    }
+}
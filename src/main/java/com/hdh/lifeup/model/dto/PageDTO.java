@@ -5,6 +5,9 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.hdh.lifeup.base.BaseDO;
 import com.hdh.lifeup.base.BaseDTO;
+import com.hdh.lifeup.convert.BeanConverters;
+import com.hdh.lifeup.exception.GlobalException;
+import com.hdh.lifeup.model.enums.CodeMsgEnum;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.*;
@@ -12,6 +15,7 @@ import org.springframework.beans.BeanUtils;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -40,6 +44,25 @@ public class PageDTO<T> implements Serializable {
     @ApiModelProperty("查询结果，有后端返回")
     private List<T> list;
 
+    @ApiModelProperty("游标，传入上一页返回的nextCursor即可取下一页，传了游标时忽略currentPage")
+    private String cursor;
+
+    @ApiModelProperty("下一页的游标，由后端返回，为空表示没有更多数据")
+    private String nextCursor;
+
+    @ApiModelProperty("是否跳过总页数的计算，无限滚动的客户端传true可省去count查询，此时totalPage为空")
+    private Boolean skipTotal;
+
+    /** 是否需要计算总页数 */
+    public boolean needTotal() {
+        return !Boolean.TRUE.equals(skipTotal);
+    }
+
+    /** 当前页码，游标分页时可不传，默认为第一页 */
+    public long currentPageOrFirst() {
+        return currentPage == null ? 1L : currentPage;
+    }
+
     public static <DTO extends BaseDTO, DO extends BaseDO> PageDTO<DTO> create(IPage<DO> iPage, Class<DTO> dtoClass) {
         Preconditions.checkNotNull(iPage, "iPage不能为空");
         List<DO> doList = iPage.getRecords();
@@ -54,20 +77,28 @@ public class PageDTO<T> implements Serializable {
                       .build();
     }
 
+    /**
+     * 转换任意类型的分页，有生成的转换方法并且不需要忽略字段时使用转换方法，否则反射复制
+     */
     public static <T, V> PageDTO<V> createFreely(IPage<T> iPage, Class<V> valueClass, String... ignoreProperties) {
         Preconditions.checkNotNull(iPage, "iPage不能为空");
         List<T> pageList = iPage.getRecords();
-        List<V> result = pageList.stream()
-                .map(pageRecord -> {
-                    V value = null;
-                    try {
-                        value = valueClass.newInstance();
-                        BeanUtils.copyProperties(pageRecord, value, ignoreProperties);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
+        Function<T, V> converter = pageList.isEmpty() || ignoreProperties.length > 0 ?
+                null : BeanConverters.<T, V>get(pageList.get(0).getClass(), valueClass);
+        if (converter == null) {
+            converter = pageRecord -> {
+                try {
+                    V value = valueClass.newInstance();
+                    BeanUtils.copyProperties(pageRecord, value, ignoreProperties);
                     return value;
-                })
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    throw new GlobalException(CodeMsgEnum.SERVER_ERROR);
+                }
+            };
+        }
+        List<V> result = pageList.stream()
+                .map(converter)
                 .collect(Collectors.toList());
 
         return PageDTO.<V>builder()
@@ -39,6 +39,12 @@ public class RecordDTO implements Serializable {
 
     private List<String> activityImages;
 
+    /** 与activityImages一一对应的缩略图，列表中展示用 */
+    private List<String> activityThumbs;
+
+    /** 与activityImages一一对应的中图 */
+    private List<String> activityMediums;
+
     private Integer activityIcon;
 
     private LocalDateTime createTime;
@@ -53,4 +59,23 @@ public class RecordDTO implements Serializable {
         this.activityImages = activityImages == null ?
                 new ArrayList<>() : JsonUtil.jsonToList(activityImages, String.class);
     }
+
+    /** 缩略图出现之前的动态没有这一列，用原图代替 */
+    public void setActivityThumbs(String activityThumbs) {
+        this.activityThumbs = activityThumbs == null ?
+                null : JsonUtil.jsonToList(activityThumbs, String.class);
+    }
+
+    public void setActivityMediums(String activityMediums) {
+        this.activityMediums = activityMediums == null ?
+                null : JsonUtil.jsonToList(activityMediums, String.class);
+    }
+
+    public List<String> getActivityThumbs() {
+        return activityThumbs != null ? activityThumbs : activityImages;
+    }
+
+    public List<String> getActivityMediums() {
+        return activityMediums != null ? activityMediums : activityImages;
+    }
 }
@@ -2,11 +2,9 @@ package com.hdh.lifeup.model.dto;
 
 import com.hdh.lifeup.base.BaseDTO;
 import com.hdh.lifeup.model.domain.TaskDO;
-import com.hdh.lifeup.util.JsonUtil;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.experimental.Accessors;
-import org.springframework.beans.BeanUtils;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -66,28 +64,4 @@ public class TaskDTO extends BaseDTO<TaskDO> {
 
     /** 创建时间 */
     private LocalDateTime createTime;
-
-    @Override
-    public TaskDO toDO(Class<TaskDO> doClass) {
-        try {
-            TaskDO taskDO = doClass.newInstance();
-            BeanUtils.copyProperties(this, taskDO, "rewardAttributes");
-            if (this.rewardAttributes != null && this.rewardAttributes.size() > 0) {
-                taskDO.setRewardAttributes(JsonUtil.toJson(this.rewardAttributes));
-            }
-            return taskDO;
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
-    @SuppressWarnings("unchecked")
-    @Override
-    public <DTO extends BaseDTO> DTO from(TaskDO aDO) {
-        TaskDTO taskDTO = new TaskDTO();
-        BeanUtils.copyProperties(aDO, taskDTO, "authTypes");
-        taskDTO.setRewardAttributes(JsonUtil.jsonToList(aDO.getRewardAttributes(), String.class));
-        return (DTO) taskDTO;
-    }
 }
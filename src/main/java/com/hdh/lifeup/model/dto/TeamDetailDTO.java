@@ -0,0 +1,21 @@
+package com.hdh.lifeup.model.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * TeamDetailDTO class<br/>
+ * 团队详情中与查看者无关的部分，所有查看者共用一份缓存。
+ * 创建者的信息不放在这里，按请求从用户卡片缓存取，用户修改资料后不用等团队的缓存失效
+ * @author hdonghong
+ * @since 2020/02/18
+ */
+@Data
+@Accessors(chain = true)
+public class TeamDetailDTO {
+
+    private TeamTaskDTO team;
+
+    /** 团队成员数量 */
+    private Integer memberAmount;
+}
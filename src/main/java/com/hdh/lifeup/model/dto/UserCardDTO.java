@@ -0,0 +1,30 @@
+package com.hdh.lifeup.model.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.time.LocalDateTime;
+
+/**
+ * UserCardDTO class<br/>
+ * 列表中展示用户只需要的几个字段，单独缓存，列表查询不再关联user_info
+ * @author hdonghong
+ * @since 2020/02/18
+ */
+@Data
+@Accessors(chain = true)
+public class UserCardDTO {
+
+    private Long userId;
+
+    private String nickname;
+
+    private String userHead;
+
+    private Integer userSex;
+
+    /** 关注列表、排行榜中展示 */
+    private String userAddress;
+
+    private LocalDateTime createTime;
+}
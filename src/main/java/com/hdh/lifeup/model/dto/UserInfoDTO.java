@@ -4,11 +4,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Preconditions;
 import com.hdh.lifeup.base.BaseDTO;
 import com.hdh.lifeup.model.domain.UserInfoDO;
-import com.hdh.lifeup.util.JsonUtil;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.experimental.Accessors;
-import org.springframework.beans.BeanUtils;
 
 import java.time.Instant;
 import java.util.List;
@@ -63,28 +61,4 @@ public class UserInfoDTO extends BaseDTO<UserInfoDO> {
                 .setUserAddress(userInfoJson.get("yb_schoolname").asText());
         return userInfoDTO;
     }
-
-    @Override
-    public UserInfoDO toDO(Class<UserInfoDO> doClass) {
-        try {
-            UserInfoDO userInfoDO = doClass.newInstance();
-            BeanUtils.copyProperties(this, userInfoDO, "authTypes", "password");
-            if (this.authTypes != null && this.authTypes.size() > 0) {
-                userInfoDO.setAuthTypes(JsonUtil.toJson(this.authTypes));
-            }
-            return userInfoDO;
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
-    @Override
-    @SuppressWarnings("unchecked")
-    public <DTO extends BaseDTO> DTO from(UserInfoDO aDO) {
-        UserInfoDTO userInfoDTO = new UserInfoDTO();
-        BeanUtils.copyProperties(aDO, userInfoDTO, "authTypes");
-        userInfoDTO.setAuthTypes(JsonUtil.jsonToList(aDO.getAuthTypes(), String.class));
-        return (DTO) userInfoDTO;
-    }
 }
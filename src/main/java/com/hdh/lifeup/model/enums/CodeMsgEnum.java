@@ -56,6 +56,9 @@ public enum CodeMsgEnum {
     /** 点赞 */
     LIKE_ERROR(500801, "点赞操作失败"),
     LIKE_NOT_ENOUGH(500802, "点赞数不足"),
+
+    /** 上传 */
+    UPLOAD_ERROR(500901, "上传文件失败"),
     ;
 
     private int code;
@@ -1,6 +1,6 @@
 package com.hdh.lifeup.model.vo;
 
-import com.hdh.lifeup.model.dto.UserInfoDTO;
+import com.hdh.lifeup.model.dto.UserCardDTO;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.Data;
@@ -57,7 +57,7 @@ public class TeamDetailVO {
     private Integer teamStatus;
 
     @ApiModelProperty("团队的拥有者")
-    private UserInfoDTO owner;
+    private UserCardDTO owner;
 
     @ApiModelProperty("团队成员数量")
     private Integer memberAmount;
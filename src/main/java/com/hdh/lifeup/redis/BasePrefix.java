@@ -12,6 +12,8 @@ public abstract class BasePrefix<T> implements KeyPrefix<T> {
 
 	private Class<T> valueClass;
 
+	private RedisCodec<T> codec;
+
 
 	/**
 	 * -1代表永不过期
@@ -22,9 +24,14 @@ public abstract class BasePrefix<T> implements KeyPrefix<T> {
 	}
 	
 	protected BasePrefix(int expireSeconds, String prefix, Class<T> valueClass) {
+		this(expireSeconds, prefix, valueClass, RedisCodecs.forClass(valueClass));
+	}
+
+	protected BasePrefix(int expireSeconds, String prefix, Class<T> valueClass, RedisCodec<T> codec) {
 		this.expireSeconds = expireSeconds;
 		this.prefix = prefix;
 		this.valueClass = valueClass;
+		this.codec = codec;
 	}
 
 	@Override
@@ -42,4 +49,9 @@ public abstract class BasePrefix<T> implements KeyPrefix<T> {
 	public Class<T> getValueClass() {
 		return valueClass;
 	}
+
+	@Override
+	public RedisCodec<T> getCodec() {
+		return codec;
+	}
 }
@@ -0,0 +1,50 @@
+package com.hdh.lifeup.redis;
+
+/**
+ * CountKey class<br/>
+ * 团队成员数、动态数等计数器。计数器在第一次读取时从数据库加载，
+ * 写操作提交后只累加已存在的计数器，被改动过的id记入待核对集合，由定时任务与数据库核对
+ * @author hdonghong
+ * @since 2020/02/17
+ */
+public class CountKey<T> extends BasePrefix<T> {
+
+    private CountKey(String prefix, Class<T> valueClass) {
+        super(prefix, valueClass);
+    }
+
+    private CountKey(int expireSeconds, String prefix, Class<T> valueClass) {
+        super(expireSeconds, prefix, valueClass);
+    }
+
+    /** 团队的成员数，key为teamId */
+    public static final CountKey<Long> TEAM_MEMBERS = new CountKey<>(
+            3600 * 24, "team_members", Long.class
+    );
+
+    /** 团队的动态数，key为teamId */
+    public static final CountKey<Long> TEAM_RECORDS = new CountKey<>(
+            3600 * 24, "team_records", Long.class
+    );
+
+    /** 用户参与的团队数，key为userId */
+    public static final CountKey<Long> USER_TEAMS = new CountKey<>(
+            3600 * 24, "user_teams", Long.class
+    );
+
+    /** 所有人可见的动态数（新建和签到），只有一个key */
+    public static final CountKey<Long> PUBLIC_RECORDS = new CountKey<>(
+            3600 * 24, "public_records", Long.class
+    );
+
+    /** 计数器有变化、等待核对的teamId */
+    public static final CountKey<Long> DIRTY_TEAMS = new CountKey<>(
+            "dirty_teams", Long.class
+    );
+
+    /** 计数器有变化、等待核对的userId */
+    public static final CountKey<Long> DIRTY_USERS = new CountKey<>(
+            "dirty_users", Long.class
+    );
+
+}
@@ -0,0 +1,30 @@
+package com.hdh.lifeup.redis;
+
+import com.hdh.lifeup.model.dto.ImageVariantDTO;
+
+/**
+ * ImageKey class<br/>
+ * 上传图片相关的key
+ * @author hdonghong
+ * @since 2020/02/20
+ */
+public class ImageKey<T> extends BasePrefix<T> {
+
+    private ImageKey(int expireSeconds, String prefix, Class<T> valueClass) {
+        super(expireSeconds, prefix, valueClass);
+    }
+
+    /**
+     * 上传时生成的缩小版本，key为原图地址。只在上传后到发布动态前用到，发布时写入动态，所以只保留一天
+     */
+    public static final ImageKey<ImageVariantDTO> VARIANTS = new ImageKey<>(
+            3600 * 24, "variants", ImageVariantDTO.class
+    );
+
+    /**
+     * 发布动态时缩小版本还没生成完的原图，key为原图地址，值为动态id，生成后回填到动态中
+     */
+    public static final ImageKey<Long> PENDING_RECORD = new ImageKey<>(
+            3600 * 24, "pending_record", Long.class
+    );
+}
@@ -23,4 +23,10 @@ public interface KeyPrefix<T> {
 	 * @return 对应value的class类型
 	 */
 	Class<T> getValueClass();
+
+	/**
+	 * 该key对应value的编解码方式
+	 * @return codec
+	 */
+	RedisCodec<T> getCodec();
 }
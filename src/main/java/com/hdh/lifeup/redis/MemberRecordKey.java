@@ -14,7 +14,11 @@ public class MemberRecordKey<T> extends BasePrefix<T> {
         super(expireSeconds, prefix, valueClass);
     }
 
+    protected MemberRecordKey(int expireSeconds, String prefix, Class<T> valueClass, RedisCodec<T> codec) {
+        super(expireSeconds, prefix, valueClass, codec);
+    }
+
     public static final MemberRecordKey<TeamMemberRecordDTO> ID = new MemberRecordKey<>(
-            60 * 5, "id", TeamMemberRecordDTO.class
+            60 * 5, "id", TeamMemberRecordDTO.class, RedisCodecs.binary(TeamMemberRecordDTO.class)
     );
 }
@@ -0,0 +1,314 @@
+package com.hdh.lifeup.redis;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import lombok.NonNull;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * RedisBatch class<br/>
+ * 以管道方式批量执行的一组redis命令，通过 {@link RedisOperator#batch()} 创建。
+ * 添加命令时返回结果的占位 {@link Response}，调用 {@link #execute()} 后一次往返取回所有结果，
+ * key的拼接和value、成员的编解码与 {@link RedisOperator} 保持一致。
+ * 非线程安全，每次使用新建一个。
+ * @author hdonghong
+ * @since 2020/01/20
+ */
+public class RedisBatch {
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final RedisMetrics metrics;
+
+    private final List<Consumer<RedisOperations<String, String>>> commands = Lists.newArrayList();
+
+    private final List<Response<?>> responses = Lists.newArrayList();
+
+    private boolean executed = false;
+
+    RedisBatch(StringRedisTemplate redisTemplate, RedisMetrics metrics) {
+        this.redisTemplate = redisTemplate;
+        this.metrics = metrics;
+    }
+
+    // Key（键）
+
+    /** 剩余生存时间，单位秒，-1表示永不过期，-2表示不存在 */
+    public Response<Long> ttl(@NonNull KeyPrefix keyPrefix, @NonNull Object key) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        return add(operations -> operations.getExpire(realKey), result -> result == null ? -2L : (Long) result);
+    }
+
+    public Response<Boolean> expire(@NonNull KeyPrefix keyPrefix, @NonNull Object key) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        return add(operations -> operations.expire(realKey, keyPrefix.expireSeconds(), TimeUnit.SECONDS),
+                RedisBatch::toBoolean);
+    }
+
+    public Response<Boolean> del(@NonNull KeyPrefix keyPrefix, @NonNull Object key) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        // 管道中DEL的结果是删除的数量
+        return add(operations -> operations.delete(realKey), result -> toLong(result) > 0);
+    }
+
+    // String（字符串）
+
+    public <T> Response<T> get(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        return add(operations -> operations.opsForValue().get(realKey), result -> {
+            metrics.hit(keyPrefix, result != null);
+            return result != null ? RedisOperator.decodeRaw(keyPrefix, result) : null;
+        });
+    }
+
+    /** 带过期时间写入，value按codec编码成字节，与 {@link RedisOperator#setex} 一致 */
+    public Response<Boolean> setex(@NonNull KeyPrefix keyPrefix, @NonNull Object key, @NonNull Object value) {
+        byte[] rawKey = RedisOperator.getRawKey(keyPrefix, key);
+        byte[] rawValue = RedisOperator.encodeValue(keyPrefix, value);
+        return add(operations -> operations.execute((RedisCallback<Boolean>) connection ->
+                connection.stringCommands().setEx(rawKey, keyPrefix.expireSeconds(), rawValue)), RedisBatch::toBoolean);
+    }
+
+    public Response<Long> incrby(@NonNull KeyPrefix keyPrefix, @NonNull Object key, long value) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        return add(operations -> operations.opsForValue().increment(realKey, value), RedisBatch::toLong);
+    }
+
+    /** 偏移量处原来的值 */
+    public Response<Boolean> setbit(@NonNull KeyPrefix keyPrefix, @NonNull Object key, long offset, boolean value) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        return add(operations -> operations.opsForValue().setBit(realKey, offset, value), RedisBatch::toBoolean);
+    }
+
+    public Response<Boolean> getbit(@NonNull KeyPrefix keyPrefix, @NonNull Object key, long offset) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        return add(operations -> operations.opsForValue().getBit(realKey, offset), RedisBatch::toBoolean);
+    }
+
+    // hash
+
+    public Response<Boolean> hset(@NonNull KeyPrefix keyPrefix, @NonNull Object key, @NonNull String field, @NonNull Object value) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        String encodedValue = RedisOperator.encode(keyPrefix, value);
+        return add(operations -> operations.opsForHash().put(realKey, field, encodedValue), RedisBatch::toBoolean);
+    }
+
+    /** 域已存在时不覆盖，结果为是否写入 */
+    public Response<Boolean> hsetnx(@NonNull KeyPrefix keyPrefix, @NonNull Object key, @NonNull String field, @NonNull Object value) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        String encodedValue = RedisOperator.encode(keyPrefix, value);
+        return add(operations -> operations.opsForHash().putIfAbsent(realKey, field, encodedValue), RedisBatch::toBoolean);
+    }
+
+    /** 结果为累加后的值 */
+    public Response<Long> hincrby(@NonNull KeyPrefix keyPrefix, @NonNull Object key, @NonNull String field, long delta) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        return add(operations -> operations.opsForHash().increment(realKey, field, delta), RedisBatch::toLong);
+    }
+
+    public Response<Long> hdel(@NonNull KeyPrefix keyPrefix, @NonNull Object key, @NonNull String ... fields) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        return add(operations -> operations.opsForHash().delete(realKey, (Object[]) fields), RedisBatch::toLong);
+    }
+
+    /** 域不存在时结果为null */
+    public <T> Response<T> hget(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key, @NonNull String field) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        return add(operations -> operations.opsForHash().get(realKey, field), result -> {
+            metrics.hit(keyPrefix, result != null);
+            return result != null ? RedisOperator.decodeRaw(keyPrefix, result) : null;
+        });
+    }
+
+    // set
+
+    public Response<Long> sadd(@NonNull KeyPrefix keyPrefix, @NonNull Object key, @NonNull Object ... members) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        String[] encodedMembers = RedisOperator.encodeArray(keyPrefix, members);
+        return add(operations -> operations.opsForSet().add(realKey, encodedMembers), RedisBatch::toLong);
+    }
+
+    public Response<Boolean> sismember(@NonNull KeyPrefix keyPrefix, @NonNull Object key, @NonNull Object member) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        String encodedMember = RedisOperator.encode(keyPrefix, member);
+        return add(operations -> operations.opsForSet().isMember(realKey, encodedMember), RedisBatch::toBoolean);
+    }
+
+    public Response<Long> scard(@NonNull KeyPrefix keyPrefix, @NonNull Object key) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        return add(operations -> operations.opsForSet().size(realKey), RedisBatch::toLong);
+    }
+
+    // zset
+
+    /**
+     * 一条ZADD添加一个或者多个成员
+     * @param scoreAndMembers 要求传参格式为,(s1, m1, s2, m2, ... sn, mn)
+     */
+    public Response<Long> zadd(@NonNull KeyPrefix keyPrefix, @NonNull Object key, @NonNull Object ... scoreAndMembers) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        Set<ZSetOperations.TypedTuple<String>> tuples = RedisOperator.toTuples(keyPrefix, scoreAndMembers);
+        return add(operations -> operations.opsForZSet().add(realKey, tuples), RedisBatch::toLong);
+    }
+
+    public Response<Double> zincrby(@NonNull KeyPrefix keyPrefix, @NonNull Object key, @NonNull Object member, double delta) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        String encodedMember = RedisOperator.encode(keyPrefix, member);
+        return add(operations -> operations.opsForZSet().incrementScore(realKey, encodedMember, delta), result -> (Double) result);
+    }
+
+    /** 成员不存在时结果为null */
+    public Response<Double> zscore(@NonNull KeyPrefix keyPrefix, @NonNull Object key, @NonNull Object member) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        String encodedMember = RedisOperator.encode(keyPrefix, member);
+        return add(operations -> operations.opsForZSet().score(realKey, encodedMember), result -> (Double) result);
+    }
+
+    public Response<Long> zrem(@NonNull KeyPrefix keyPrefix, @NonNull Object key, @NonNull Object ... members) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        String[] encodedMembers = RedisOperator.encodeArray(keyPrefix, members);
+        return add(operations -> operations.opsForZSet().remove(realKey, (Object[]) encodedMembers), RedisBatch::toLong);
+    }
+
+    public Response<Long> zremrangeByRank(@NonNull KeyPrefix keyPrefix, @NonNull Object key, long start, long end) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        return add(operations -> operations.opsForZSet().removeRange(realKey, start, end), RedisBatch::toLong);
+    }
+
+    public Response<Long> zcard(@NonNull KeyPrefix keyPrefix, @NonNull Object key) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        return add(operations -> operations.opsForZSet().zCard(realKey), RedisBatch::toLong);
+    }
+
+    /** 分数在 [min, max] 之间的成员数 */
+    public Response<Long> zcount(@NonNull KeyPrefix keyPrefix, @NonNull Object key, double min, double max) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        return add(operations -> operations.opsForZSet().count(realKey, min, max), RedisBatch::toLong);
+    }
+
+    /** 成员不存在时结果为null */
+    public Response<Long> zrank(@NonNull KeyPrefix keyPrefix, @NonNull Object key, @NonNull Object member) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        String encodedMember = RedisOperator.encode(keyPrefix, member);
+        return add(operations -> operations.opsForZSet().rank(realKey, encodedMember), result -> (Long) result);
+    }
+
+    /** 见 {@link RedisOperator#zrange(KeyPrefix, Object, long, long)} */
+    public <T> Response<LinkedHashSet<T>> zrange(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key, long start, long end) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        return add(operations -> operations.opsForZSet().range(realKey, start, end),
+                result -> RedisOperator.toMemberSet((Collection<?>) result, keyPrefix));
+    }
+
+    /** 见 {@link RedisOperator#zrevrangeWithScores(KeyPrefix, Object, long, long)} */
+    @SuppressWarnings("unchecked")
+    public <T> Response<LinkedHashMap<T, Double>> zrevrangeWithScores(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key,
+                                                                      long start, long end) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        return add(operations -> operations.opsForZSet().reverseRangeWithScores(realKey, start, end),
+                result -> RedisOperator.toScoreMap((Set<ZSetOperations.TypedTuple<?>>) result, keyPrefix));
+    }
+
+    /** 见 {@link RedisOperator#zrevrangeByScoreWithScores(KeyPrefix, Object, double, long)} */
+    public <T> Response<LinkedHashMap<T, Double>> zrevrangeByScoreWithScores(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key,
+                                                                             double max, long count) {
+        return zrevrangeByScoreWithScores(keyPrefix, key, Double.NEGATIVE_INFINITY, max, count);
+    }
+
+    /** 分数在 [min, max] 之间的成员及其分数，按分数从高到低最多返回count个 */
+    @SuppressWarnings("unchecked")
+    public <T> Response<LinkedHashMap<T, Double>> zrevrangeByScoreWithScores(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key,
+                                                                             double min, double max, long count) {
+        String realKey = RedisOperator.getRealKey(keyPrefix, key);
+        return add(operations -> operations.opsForZSet()
+                        .reverseRangeByScoreWithScores(realKey, min, max, 0, count),
+                result -> RedisOperator.toScoreMap((Set<ZSetOperations.TypedTuple<?>>) result, keyPrefix));
+    }
+
+    /**
+     * 一次往返执行所有命令，执行后各个 {@link Response} 才能取值，每个batch只能执行一次。
+     * 结果不经过模板的序列化器，value和成员保持原始字节，由各自的codec解码
+     */
+    public void execute() {
+        Preconditions.checkState(!executed, "batch已经执行过了");
+        executed = true;
+        if (commands.isEmpty()) {
+            return;
+        }
+        SessionCallback<Object> session = new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                commands.forEach(command -> command.accept((RedisOperations<String, String>) operations));
+                return null;
+            }
+        };
+        List<Object> results = metrics.recordPipeline(commands.size(), () -> redisTemplate.executePipelined(session, null));
+        for (int i = 0, len = responses.size(); i < len; i++) {
+            responses.get(i).complete(results.get(i));
+        }
+    }
+
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * 每个命令在管道中只产生一个结果，结果按添加的顺序对应
+     */
+    private <T> Response<T> add(Consumer<RedisOperations<String, String>> command, Function<Object, T> converter) {
+        Preconditions.checkState(!executed, "batch已经执行过了，不能再添加命令");
+        Response<T> response = new Response<>(converter);
+        commands.add(command);
+        responses.add(response);
+        return response;
+    }
+
+    private static Boolean toBoolean(Object result) {
+        return Boolean.TRUE.equals(result);
+    }
+
+    private static Long toLong(Object result) {
+        return result == null ? 0L : ((Number) result).longValue();
+    }
+
+    /**
+     * 管道中命令的结果，execute之后才能取值
+     * @param <T> 结果类型
+     */
+    public static class Response<T> {
+
+        private final Function<Object, T> converter;
+
+        private T value;
+
+        private boolean done = false;
+
+        private Response(Function<Object, T> converter) {
+            this.converter = converter;
+        }
+
+        public T get() {
+            Preconditions.checkState(done, "管道还未执行，请先调用execute");
+            return value;
+        }
+
+        private void complete(Object result) {
+            this.value = converter.apply(result);
+            this.done = true;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.hdh.lifeup.redis;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RedisCodec interface<br/>
+ * key对应value的编解码方式，由 {@link KeyPrefix#getCodec()} 指定，常用的实现见 {@link RedisCodecs}。
+ * set、zset、hash中的成员要求是文本，走 {@link #encodeToString(Object)}；字符串类型的value可以是任意字节。
+ * @author hdonghong
+ * @since 2020/02/11
+ */
+public interface RedisCodec<T> {
+
+    byte[] encode(T value);
+
+    T decode(byte[] bytes);
+
+    default String encodeToString(T value) {
+        return new String(encode(value), StandardCharsets.UTF_8);
+    }
+
+    default T decodeFromString(String value) {
+        return decode(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
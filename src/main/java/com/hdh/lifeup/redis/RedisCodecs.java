@@ -0,0 +1,190 @@
+package com.hdh.lifeup.redis;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileConstants;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hdh.lifeup.exception.GlobalException;
+import com.hdh.lifeup.model.enums.CodeMsgEnum;
+import com.hdh.lifeup.util.JsonUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RedisCodecs class<br/>
+ * 常用的 {@link RedisCodec}：<br/>
+ * * {@link #json(Class)}：原来的json字符串，未指定codec的key默认使用；<br/>
+ * * {@link #number(Class)}：Long、Integer直接存十进制数字，与json编码的结果完全一致，可以直接切换，也能被INCR累加；<br/>
+ * * {@link #binary(Class)}：Smile二进制格式，用于登录态等较大的对象，只能作为字符串类型的value。
+ * <p>
+ * 二进制codec读取时根据Smile的头部判断格式，json写入的旧数据照常读取。
+ * 写入格式由 {@link #setBinaryWrite(boolean)} 控制，默认仍写json：所有实例都升级到能读二进制后再打开，
+ * 回滚前先关闭，等旧数据过期即可。
+ * @author hdonghong
+ * @since 2020/02/11
+ */
+public final class RedisCodecs {
+
+    private static final ObjectMapper SMILE_MAPPER = new ObjectMapper(new SmileFactory())
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .registerModule(new JavaTimeModule());
+
+    private static volatile boolean binaryWrite = false;
+
+    private RedisCodecs() {
+
+    }
+
+    public static <T> RedisCodec<T> json(Class<T> valueClass) {
+        return new JsonCodec<>(valueClass);
+    }
+
+    public static <T> RedisCodec<T> number(Class<T> valueClass) {
+        return new NumberCodec<>(valueClass);
+    }
+
+    public static <T> RedisCodec<T> binary(Class<T> valueClass) {
+        return new BinaryCodec<>(valueClass);
+    }
+
+    /**
+     * 未指定codec时按value类型选择，数字使用 {@link #number(Class)}，其他使用 {@link #json(Class)}
+     */
+    public static <T> RedisCodec<T> forClass(Class<T> valueClass) {
+        return NumberCodec.supports(valueClass) ? number(valueClass) : json(valueClass);
+    }
+
+    public static void setBinaryWrite(boolean binaryWrite) {
+        RedisCodecs.binaryWrite = binaryWrite;
+    }
+
+    public static boolean isBinaryWrite() {
+        return binaryWrite;
+    }
+
+    private static class JsonCodec<T> implements RedisCodec<T> {
+
+        private final Class<T> valueClass;
+
+        JsonCodec(Class<T> valueClass) {
+            this.valueClass = valueClass;
+        }
+
+        @Override
+        public byte[] encode(T value) {
+            return encodeToString(value).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public T decode(byte[] bytes) {
+            return decodeFromString(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String encodeToString(T value) {
+            return JsonUtil.toJson(value);
+        }
+
+        @Override
+        public T decodeFromString(String value) {
+            return JsonUtil.jsonToObject(value, valueClass);
+        }
+    }
+
+    private static class NumberCodec<T> implements RedisCodec<T> {
+
+        private final boolean isLong;
+
+        NumberCodec(Class<T> valueClass) {
+            if (!supports(valueClass)) {
+                throw new IllegalArgumentException("不支持的数字类型：" + valueClass);
+            }
+            this.isLong = valueClass == Long.class || valueClass == Long.TYPE;
+        }
+
+        static boolean supports(Class<?> valueClass) {
+            return valueClass == Long.class || valueClass == Long.TYPE
+                    || valueClass == Integer.class || valueClass == Integer.TYPE;
+        }
+
+        @Override
+        public byte[] encode(T value) {
+            return encodeToString(value).getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public T decode(byte[] bytes) {
+            return decodeFromString(new String(bytes, StandardCharsets.US_ASCII));
+        }
+
+        @Override
+        public String encodeToString(T value) {
+            return value.toString();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T decodeFromString(String value) {
+            return (T) (isLong ? Long.valueOf(value) : Integer.valueOf(value));
+        }
+    }
+
+    private static class BinaryCodec<T> implements RedisCodec<T> {
+
+        private final Class<T> valueClass;
+
+        private final JsonCodec<T> jsonCodec;
+
+        BinaryCodec(Class<T> valueClass) {
+            this.valueClass = valueClass;
+            this.jsonCodec = new JsonCodec<>(valueClass);
+        }
+
+        @Override
+        public byte[] encode(T value) {
+            if (!binaryWrite) {
+                return jsonCodec.encode(value);
+            }
+            try {
+                return SMILE_MAPPER.writeValueAsBytes(value);
+            } catch (IOException e) {
+                e.printStackTrace();
+                throw new GlobalException(CodeMsgEnum.SERVER_ERROR);
+            }
+        }
+
+        @Override
+        public T decode(byte[] bytes) {
+            if (!isSmile(bytes)) {
+                return jsonCodec.decode(bytes);
+            }
+            try {
+                return SMILE_MAPPER.readValue(bytes, valueClass);
+            } catch (IOException e) {
+                e.printStackTrace();
+                throw new GlobalException(CodeMsgEnum.SERVER_ERROR);
+            }
+        }
+
+        @Override
+        public String encodeToString(T value) {
+            throw new UnsupportedOperationException("二进制codec只能用于字符串类型的value");
+        }
+
+        @Override
+        public T decodeFromString(String value) {
+            throw new UnsupportedOperationException("二进制codec只能用于字符串类型的value");
+        }
+
+        private static boolean isSmile(byte[] bytes) {
+            return bytes.length >= 3
+                    && bytes[0] == SmileConstants.HEADER_BYTE_1
+                    && bytes[1] == SmileConstants.HEADER_BYTE_2
+                    && bytes[2] == SmileConstants.HEADER_BYTE_3;
+        }
+    }
+}
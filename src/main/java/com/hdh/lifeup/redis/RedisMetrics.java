@@ -0,0 +1,65 @@
+package com.hdh.lifeup.redis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * RedisMetrics class<br/>
+ * redis命令的监控指标：<br/>
+ * * redis.command：每个命令的耗时，管道整体记为pipeline；<br/>
+ * * redis.pipeline.size：每次管道的命令数；<br/>
+ * * redis.cache：GET、HGET等读取的命中和未命中次数，按key前缀区分。
+ * @author hdonghong
+ * @since 2020/02/12
+ */
+class RedisMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /** key前缀 -> [命中, 未命中] */
+    private final Map<String, Counter[]> cacheCounters = new ConcurrentHashMap<>();
+
+    private final DistributionSummary pipelineSize;
+
+    RedisMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.pipelineSize = DistributionSummary.builder("redis.pipeline.size")
+                .description("每次管道的命令数")
+                .register(meterRegistry);
+    }
+
+    <R> R record(String command, Supplier<R> call) {
+        return timer(command).record(call);
+    }
+
+    void run(String command, Runnable call) {
+        timer(command).record(call);
+    }
+
+    <R> R recordPipeline(int size, Supplier<R> call) {
+        pipelineSize.record(size);
+        return record("pipeline", call);
+    }
+
+    void hit(KeyPrefix keyPrefix, boolean hit) {
+        Counter[] counters = cacheCounters.computeIfAbsent(keyPrefix.getPrefix(), prefix -> new Counter[] {
+                meterRegistry.counter("redis.cache", "prefix", prefix, "result", "hit"),
+                meterRegistry.counter("redis.cache", "prefix", prefix, "result", "miss")
+        });
+        counters[hit ? 0 : 1].increment();
+    }
+
+    private Timer timer(String command) {
+        return timers.computeIfAbsent(command, name -> Timer.builder("redis.command")
+                .tag("command", name)
+                .register(meterRegistry));
+    }
+}
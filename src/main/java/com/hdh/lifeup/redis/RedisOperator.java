@@ -2,29 +2,79 @@ package com.hdh.lifeup.redis;
 
 import com.google.common.collect.Sets;
 import com.hdh.lifeup.util.JsonUtil;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.NonNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * RedisUtil class<br/>
- *
+ * value与集合成员按key的 {@link KeyPrefix#getCodec()} 编解码，字符串类型的value直接读写字节，可以使用二进制codec。
+ * 每个命令的耗时和读缓存的命中情况见 {@link RedisMetrics}
  * @author hdonghong
  * @since 2018/09/07
  */
 @Component
 public class RedisOperator {
 
+    /**
+     * 对存在的zset添加成员，并只保留分数最高的若干个成员；不存在的key直接跳过
+     * KEYS: 多个zset；ARGV[1]: 分数；ARGV[2]: 成员；ARGV[3]: 裁剪的结束排名（负数）
+     */
+    private static final DefaultRedisScript<Long> ZADD_IF_EXISTS_SCRIPT = new DefaultRedisScript<>(
+            "local added = 0 " +
+            "for _, key in ipairs(KEYS) do " +
+            "  if redis.call('EXISTS', key) == 1 then " +
+            "    redis.call('ZADD', key, ARGV[1], ARGV[2]) " +
+            "    redis.call('ZREMRANGEBYRANK', key, 0, tonumber(ARGV[3])) " +
+            "    added = added + 1 " +
+            "  end " +
+            "end " +
+            "return added", Long.class);
+
+    /**
+     * 只对已经存在的计数器累加，不存在的key直接跳过，由读取时从数据库加载
+     * KEYS: 多个计数器；ARGV[1]: 增量
+     */
+    private static final DefaultRedisScript<Long> INCRBY_IF_EXISTS_SCRIPT = new DefaultRedisScript<>(
+            "local updated = 0 " +
+            "for _, key in ipairs(KEYS) do " +
+            "  if redis.call('EXISTS', key) == 1 then " +
+            "    redis.call('INCRBY', key, ARGV[1]) " +
+            "    updated = updated + 1 " +
+            "  end " +
+            "end " +
+            "return updated", Long.class);
+
     private StringRedisTemplate redisTemplate;
 
+    private RedisMetrics metrics;
+
     @Autowired
-    public RedisOperator(StringRedisTemplate redisTemplate) {
+    public RedisOperator(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
         this.redisTemplate = redisTemplate;
+        this.metrics = new RedisMetrics(meterRegistry);
+    }
+
+    /**
+     * 新建一个管道批量执行的命令组，用于把多次往返合并成一次
+     * @return 命令组
+     */
+    public RedisBatch batch() {
+        return new RedisBatch(redisTemplate, metrics);
     }
 
     // Key（键）
@@ -35,7 +85,7 @@ public class RedisOperator {
      * @return key 集合
      */
     public Set<String> keys(@NonNull String pattern) {
-        return redisTemplate.keys(pattern);
+        return metrics.record("keys", () -> redisTemplate.keys(pattern));
     }
 
     /**
@@ -46,7 +96,7 @@ public class RedisOperator {
      */
     public long ttl(@NonNull KeyPrefix keyPrefix, @NonNull Object key) {
         String realKey = getRealKey(keyPrefix, key);
-        return Optional.ofNullable(redisTemplate.getExpire(realKey)).orElse(-2L);
+        return Optional.ofNullable(metrics.record("ttl", () -> redisTemplate.getExpire(realKey))).orElse(-2L);
     }
 
     /**
@@ -56,7 +106,8 @@ public class RedisOperator {
      */
     public boolean expire(@NonNull KeyPrefix keyPrefix, @NonNull Object key) {
         String realKey = getRealKey(keyPrefix, key);
-        return Optional.ofNullable(redisTemplate.expire(realKey, keyPrefix.expireSeconds(), TimeUnit.SECONDS))
+        return Optional.ofNullable(metrics.record("expire",
+                () -> redisTemplate.expire(realKey, keyPrefix.expireSeconds(), TimeUnit.SECONDS)))
                        .orElse(false);
     }
 
@@ -67,7 +118,27 @@ public class RedisOperator {
      */
     public boolean del(@NonNull KeyPrefix keyPrefix, @NonNull Object key) {
         String realKey = getRealKey(keyPrefix, key);
-        return Optional.ofNullable(redisTemplate.delete(realKey)).orElse(false);
+        return Optional.ofNullable(metrics.record("del", () -> redisTemplate.delete(realKey))).orElse(false);
+    }
+
+    /**
+     * 判断key是否存在
+     * @param key 键
+     * @return 是否存在
+     */
+    public boolean exists(@NonNull KeyPrefix keyPrefix, @NonNull Object key) {
+        String realKey = getRealKey(keyPrefix, key);
+        return Optional.ofNullable(metrics.record("exists", () -> redisTemplate.hasKey(realKey))).orElse(false);
+    }
+
+    /**
+     * 重命名key，新key已存在时会被覆盖
+     * @param keyPrefix key前缀，新旧key使用同一个前缀
+     * @param key 旧key
+     * @param newKey 新key
+     */
+    public void rename(@NonNull KeyPrefix keyPrefix, @NonNull Object key, @NonNull Object newKey) {
+        metrics.run("rename", () -> redisTemplate.rename(getRealKey(keyPrefix, key), getRealKey(keyPrefix, newKey)));
     }
 
     // String（字符串）
@@ -79,31 +150,33 @@ public class RedisOperator {
      * @param value 值
      */
     public void set(@NonNull KeyPrefix keyPrefix, @NonNull Object key, @NonNull Object value) {
-        String realKey = getRealKey(keyPrefix, key);
-        redisTemplate.opsForValue().set(realKey, JsonUtil.toJson(value));
+        byte[] rawKey = getRawKey(keyPrefix, key);
+        byte[] rawValue = encodeValue(keyPrefix, value);
+        metrics.record("set", () -> redisTemplate.execute(
+                (RedisCallback<Boolean>) connection -> connection.stringCommands().set(rawKey, rawValue)));
     }
 
     public long incr(@NonNull KeyPrefix keyPrefix, @NonNull Object key) {
         String realKey = getRealKey(keyPrefix, key);
-        Long count = redisTemplate.opsForValue().increment(realKey, 1L);
+        Long count = metrics.record("incr", () -> redisTemplate.opsForValue().increment(realKey, 1L));
         return Optional.ofNullable(count).orElse(0L);
     }
 
     public long incrby(@NonNull KeyPrefix keyPrefix, @NonNull Object key, int value) {
         String realKey = getRealKey(keyPrefix, key);
-        Long count = redisTemplate.opsForValue().increment(realKey, value);
+        Long count = metrics.record("incrby", () -> redisTemplate.opsForValue().increment(realKey, value));
         return Optional.ofNullable(count).orElse(0L);
     }
 
     public long decr(@NonNull KeyPrefix keyPrefix, @NonNull Object key) {
         String realKey = getRealKey(keyPrefix, key);
-        Long count = redisTemplate.opsForValue().increment(realKey, -1L);
+        Long count = metrics.record("decr", () -> redisTemplate.opsForValue().increment(realKey, -1L));
         return Optional.ofNullable(count).orElse(0L);
     }
 
     public long decrby(@NonNull KeyPrefix keyPrefix, @NonNull Object key, int value) {
         String realKey = getRealKey(keyPrefix, key);
-        Long count = redisTemplate.opsForValue().increment(realKey, -value);
+        Long count = metrics.record("decrby", () -> redisTemplate.opsForValue().increment(realKey, -value));
         return Optional.ofNullable(count).orElse(0L);
     }
 
@@ -115,11 +188,12 @@ public class RedisOperator {
         if (keyAndValues.length % 2 != 0) {
             throw new UnsupportedOperationException("要求传参格式为,(k1, v1, k2, v2, ... kn, vn)");
         }
-        Map<String, String> map = new HashMap<>(16);
+        Map<byte[], byte[]> map = new HashMap<>(16);
         for (int i = 0,  len = keyAndValues.length; i < len; ++i) {
-            map.put(getRealKey(keyPrefix, keyAndValues[i]), JsonUtil.toJson(keyAndValues[++i]));
+            map.put(getRawKey(keyPrefix, keyAndValues[i]), encodeValue(keyPrefix, keyAndValues[++i]));
         }
-        redisTemplate.opsForValue().multiSet(map);
+        metrics.record("mset", () -> redisTemplate.execute(
+                (RedisCallback<Boolean>) connection -> connection.stringCommands().mSet(map)));
     }
 
     /**
@@ -128,8 +202,10 @@ public class RedisOperator {
      * @param value 值
      */
     public void setex(@NonNull KeyPrefix keyPrefix, Object key, Object value) {
-        String realKey = getRealKey(keyPrefix, key);
-        redisTemplate.opsForValue().set(realKey, JsonUtil.toJson(value), keyPrefix.expireSeconds(), TimeUnit.SECONDS);
+        byte[] rawKey = getRawKey(keyPrefix, key);
+        byte[] rawValue = encodeValue(keyPrefix, value);
+        metrics.record("setex", () -> redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                connection.stringCommands().setEx(rawKey, keyPrefix.expireSeconds(), rawValue)));
     }
 
     /**
@@ -138,21 +214,83 @@ public class RedisOperator {
      * @param value 值
      */
     public boolean setnx(@NonNull KeyPrefix keyPrefix, Object key, Object value) {
-        String realKey = getRealKey(keyPrefix, key);
-        return Optional.ofNullable(redisTemplate.opsForValue().setIfAbsent(realKey, JsonUtil.toJson(value)))
+        byte[] rawKey = getRawKey(keyPrefix, key);
+        byte[] rawValue = encodeValue(keyPrefix, value);
+        return Optional.ofNullable(metrics.record("setnx", () -> redisTemplate.execute(
+                (RedisCallback<Boolean>) connection -> connection.stringCommands().setNX(rawKey, rawValue))))
                        .orElse(false);
     }
 
+    /**
+     * SET key value NX EX：key不存在时写入并带上过期时间
+     * @param key 键
+     * @param value 值
+     * @return 是否写入
+     */
+    public boolean setnxex(@NonNull KeyPrefix keyPrefix, Object key, Object value) {
+        byte[] rawKey = getRawKey(keyPrefix, key);
+        byte[] rawValue = encodeValue(keyPrefix, value);
+        return Optional.ofNullable(metrics.record("setnxex", () -> redisTemplate.execute(
+                (RedisCallback<Boolean>) connection -> connection.stringCommands().set(rawKey, rawValue,
+                        Expiration.seconds(keyPrefix.expireSeconds()), RedisStringCommands.SetOption.ifAbsent()))))
+                       .orElse(false);
+    }
+
+    /**
+     * 只对已经存在的计数器累加，判断与累加在一个脚本里原子完成
+     * @param keyPrefix key前缀
+     * @param keys 多个计数器
+     * @param delta 增量，小于0时减少
+     * @return 实际累加的计数器数量
+     */
+    public long incrbyIfExists(@NonNull KeyPrefix keyPrefix, @NonNull Collection<?> keys, long delta) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        List<String> realKeys = keys.stream()
+                .map(key -> getRealKey(keyPrefix, key))
+                .collect(Collectors.toList());
+        Long updated = metrics.record("incrbyIfExists",
+                () -> redisTemplate.execute(INCRBY_IF_EXISTS_SCRIPT, realKeys, String.valueOf(delta)));
+        return Optional.ofNullable(updated).orElse(0L);
+    }
+
     /**
      * 获取对象
      * @param key 键
      * @param <T> 限定类型
      */
     public <T> T get(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key) {
-        String realKey = getRealKey(keyPrefix, key);
-        String value = redisTemplate.opsForValue().get(realKey);
-        return value != null ?
-            JsonUtil.jsonToObject(value, keyPrefix.getValueClass()) : null;
+        byte[] rawKey = getRawKey(keyPrefix, key);
+        byte[] value = metrics.record("get", () -> redisTemplate.execute(
+                (RedisCallback<byte[]>) connection -> connection.stringCommands().get(rawKey)));
+        metrics.hit(keyPrefix, value != null);
+        return value != null ? keyPrefix.getCodec().decode(value) : null;
+    }
+
+    /**
+     * 实现命令：MGET，一次获取多个对象
+     * @param keyPrefix key前缀
+     * @param keys 多个key
+     * @param <T> 限定类型
+     * @return 与keys顺序一致的结果，不存在的key对应null
+     */
+    public <T> List<T> mget(@NonNull KeyPrefix<T> keyPrefix, @NonNull List<?> keys) {
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        byte[][] rawKeys = keys.stream()
+                .map(key -> getRawKey(keyPrefix, key))
+                .toArray(byte[][]::new);
+        List<byte[]> values = metrics.record("mget", () -> redisTemplate.execute(
+                (RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(rawKeys)));
+        List<T> result = new ArrayList<>(keys.size());
+        for (int i = 0, len = keys.size(); i < len; i++) {
+            byte[] value = values != null ? values.get(i) : null;
+            metrics.hit(keyPrefix, value != null);
+            result.add(value != null ? keyPrefix.getCodec().decode(value) : null);
+        }
+        return result;
     }
 
     /**
@@ -162,7 +300,8 @@ public class RedisOperator {
      */
     public <T> List<T> getList(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key) {
         String realKey = getRealKey(keyPrefix, key);
-        String value = redisTemplate.opsForValue().get(realKey);
+        String value = metrics.record("getList", () -> redisTemplate.opsForValue().get(realKey));
+        metrics.hit(keyPrefix, value != null);
         return value != null ?
             JsonUtil.jsonToList(value, keyPrefix.getValueClass()) : null;
     }
@@ -179,11 +318,7 @@ public class RedisOperator {
      */
     public <T> long sadd(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key, @NonNull Object ... members) {
         String realKey = getRealKey(keyPrefix, key);
-        String[] jsonValues = new String[members.length];
-        for (int i = 0, len = members.length; i < len; i++) {
-            jsonValues[i] = JsonUtil.toJson(members[i]);
-        }
-        Long addCount = redisTemplate.opsForSet().add(realKey, jsonValues);
+        Long addCount = metrics.record("sadd", () -> redisTemplate.opsForSet().add(realKey, encodeArray(keyPrefix, members)));
         return Optional.ofNullable(addCount).orElse(0L);
     }
 
@@ -197,7 +332,7 @@ public class RedisOperator {
      */
     public <T> boolean sismember(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key, @NonNull Object value) {
         String realKey = getRealKey(keyPrefix, key);
-        Boolean isMember = redisTemplate.opsForSet().isMember(realKey, JsonUtil.toJson(value));
+        Boolean isMember = metrics.record("sismember", () -> redisTemplate.opsForSet().isMember(realKey, encode(keyPrefix, value)));
         return Optional.ofNullable(isMember).orElse(false);
     }
 
@@ -211,11 +346,7 @@ public class RedisOperator {
      */
     public <T> long srem(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key, @NonNull Object ... members) {
         String realKey = getRealKey(keyPrefix, key);
-        Object[] jsonValues = new String[members.length];
-        for (int i = 0, len = members.length; i < len; i++) {
-            jsonValues[i] = JsonUtil.toJson(members[i]);
-        }
-        Long addCount = redisTemplate.opsForSet().remove(realKey, jsonValues);
+        Long addCount = metrics.record("srem", () -> redisTemplate.opsForSet().remove(realKey, (Object[]) encodeArray(keyPrefix, members)));
         return Optional.ofNullable(addCount).orElse(0L);
     }
 
@@ -228,9 +359,24 @@ public class RedisOperator {
      */
     public <T> Set<T> smembers(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key) {
         String realKey = getRealKey(keyPrefix, key);
-        Set<String> members = redisTemplate.opsForSet().members(realKey);
+        Set<String> members = metrics.record("smembers", () -> redisTemplate.opsForSet().members(realKey));
         return members != null ?
-                members.stream().map(member -> JsonUtil.jsonToObject(member, keyPrefix.getValueClass())).collect(Collectors.toSet()) : Sets.newHashSet();
+                members.stream().map(member -> decode(keyPrefix, member)).collect(Collectors.toSet()) : Sets.newHashSet();
+    }
+
+    /**
+     * 随机移除并返回集合中最多count个成员
+     * @param keyPrefix key前缀
+     * @param key key
+     * @param count 最多移除的数量
+     * @param <T> 成员类型
+     * @return 被移除的成员
+     */
+    public <T> List<T> spop(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key, long count) {
+        String realKey = getRealKey(keyPrefix, key);
+        List<String> members = metrics.record("spop", () -> redisTemplate.opsForSet().pop(realKey, count));
+        return members != null ?
+                members.stream().map(member -> decode(keyPrefix, member)).collect(Collectors.toList()) : new ArrayList<>();
     }
 
     /**
@@ -242,7 +388,7 @@ public class RedisOperator {
      */
     public <T> long scard(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key) {
         String realKey = getRealKey(keyPrefix, key);
-        Long membersCount = redisTemplate.opsForSet().size(realKey);
+        Long membersCount = metrics.record("scard", () -> redisTemplate.opsForSet().size(realKey));
         return Optional.ofNullable(membersCount).orElse(0L);
     }
 
@@ -257,39 +403,149 @@ public class RedisOperator {
      * @return 添加成功的数量
      */
     public <T> long zadd(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key, @NonNull Object ... scoreAndMembers) {
-        if (scoreAndMembers.length % 2 != 0) {
-            throw new UnsupportedOperationException("要求传参格式为,(s1, m1, s2, m2, ... sn, mn)");
+        String realKey = getRealKey(keyPrefix, key);
+        Set<ZSetOperations.TypedTuple<String>> tuples = toTuples(keyPrefix, scoreAndMembers);
+        if (tuples.isEmpty()) {
+            return 0L;
         }
-        long zaddResult = 0;
+        // 一条ZADD写入所有成员
+        Long addCount = metrics.record("zadd", () -> redisTemplate.opsForZSet().add(realKey, tuples));
+        return Optional.ofNullable(addCount).orElse(0L);
+    }
+
+    /**
+     * 按分数从低到高返回指定排名区间的成员，保持zset中的顺序，分页时只取一页而不是整个zset
+     * @param keyPrefix key前缀
+     * @param key key
+     * @param start 开始排名（含）
+     * @param end 结束排名（含），-1表示最后一个
+     * @param <T> 成员类型
+     * @return 成员，按分数从低到高
+     */
+    public <T> LinkedHashSet<T> zrange(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key, long start, long end) {
         String realKey = getRealKey(keyPrefix, key);
-        for (int i = 0, len = scoreAndMembers.length; i < len; i += 2) {
-            double score = Double.parseDouble(scoreAndMembers[i].toString());
-            String member = JsonUtil.toJson(scoreAndMembers[i + 1]);
-            if (Optional.ofNullable(
-                    redisTemplate.opsForZSet().add(realKey, member, score)).orElse(false)
-                ) {
-                zaddResult++;
-            }
+        Set<String> members = metrics.record("zrange", () -> redisTemplate.opsForZSet().range(realKey, start, end));
+        return toMemberSet(members, keyPrefix);
+    }
+
+    /**
+     * 按分数从高到低返回指定排名区间的成员及其分数，保持zset中的顺序
+     * @param keyPrefix key前缀
+     * @param key key
+     * @param start 开始排名（含）
+     * @param end 结束排名（含），-1表示最后一个
+     * @param <T> 成员类型
+     * @return 成员 -> 分数，按分数从高到低
+     */
+    public <T> LinkedHashMap<T, Double> zrevrangeWithScores(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key, long start, long end) {
+        String realKey = getRealKey(keyPrefix, key);
+        Set<ZSetOperations.TypedTuple<String>> tuples = metrics.record("zrevrangeWithScores",
+                () -> redisTemplate.opsForZSet().reverseRangeWithScores(realKey, start, end));
+        return toScoreMap(tuples, keyPrefix);
+    }
+
+    /**
+     * 按分数从高到低返回分数不大于max的成员及其分数，用于按分数游标翻页
+     * @param keyPrefix key前缀
+     * @param key key
+     * @param max 最大分数（含）
+     * @param count 最多返回的数量
+     * @param <T> 成员类型
+     * @return 成员 -> 分数，按分数从高到低
+     */
+    public <T> LinkedHashMap<T, Double> zrevrangeByScoreWithScores(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key,
+                                                                   double max, long count) {
+        String realKey = getRealKey(keyPrefix, key);
+        Set<ZSetOperations.TypedTuple<String>> tuples = metrics.record("zrevrangeByScoreWithScores", () -> redisTemplate.opsForZSet()
+                .reverseRangeByScoreWithScores(realKey, Double.NEGATIVE_INFINITY, max, 0, count));
+        return toScoreMap(tuples, keyPrefix);
+    }
+
+    /**
+     * 按分数从低到高返回分数不小于min的成员及其分数，用于按序号增量读取
+     * @param keyPrefix key前缀
+     * @param key key
+     * @param min 最小分数（含）
+     * @param count 最多返回的数量
+     * @param <T> 成员类型
+     * @return 成员 -> 分数，按分数从低到高
+     */
+    public <T> LinkedHashMap<T, Double> zrangeByScoreWithScores(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key,
+                                                                double min, long count) {
+        String realKey = getRealKey(keyPrefix, key);
+        Set<ZSetOperations.TypedTuple<String>> tuples = metrics.record("zrangeByScoreWithScores", () -> redisTemplate.opsForZSet()
+                .rangeByScoreWithScores(realKey, min, Double.POSITIVE_INFINITY, 0, count));
+        return toScoreMap(tuples, keyPrefix);
+    }
+
+    /**
+     * 只对已经存在的zset添加成员，添加后裁剪到最多capacity个成员（移除分数最低的）
+     * @param keyPrefix key前缀
+     * @param keys 多个key
+     * @param score 分数
+     * @param member 成员
+     * @param capacity 每个zset保留的最大成员数
+     * @param <T> 成员类型
+     * @return 实际添加的zset数量
+     */
+    public <T> long zaddIfExists(@NonNull KeyPrefix<T> keyPrefix, @NonNull Collection<?> keys,
+                                 long score, @NonNull Object member, int capacity) {
+        if (keys.isEmpty()) {
+            return 0;
         }
-        return zaddResult;
+        List<String> realKeys = keys.stream()
+                .map(key -> getRealKey(keyPrefix, key))
+                .collect(Collectors.toList());
+        Long added = metrics.record("zaddIfExists", () -> redisTemplate.execute(ZADD_IF_EXISTS_SCRIPT, realKeys,
+                String.valueOf(score), encode(keyPrefix, member), String.valueOf(-(capacity + 1))));
+        return Optional.ofNullable(added).orElse(0L);
     }
 
-    public <T> Set<T> zrange(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key, int min, int max) {
+    /**
+     * 移除指定排名区间的成员
+     * @param keyPrefix key前缀
+     * @param key key
+     * @param start 开始排名（含）
+     * @param end 结束排名（含）
+     * @param <T> 成员类型
+     * @return 移除的数量
+     */
+    public <T> long zremrangeByRank(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key, long start, long end) {
         String realKey = getRealKey(keyPrefix, key);
-        Set<String> members = redisTemplate.opsForZSet().range(realKey, min, max);
-        return members != null ?
-                members.stream().map(member -> JsonUtil.jsonToObject(member, keyPrefix.getValueClass())).collect(Collectors.toSet()) : Sets.newHashSet();
+        Long removed = metrics.record("zremrangeByRank", () -> redisTemplate.opsForZSet().removeRange(realKey, start, end));
+        return Optional.ofNullable(removed).orElse(0L);
     }
 
     public <T> long zcard(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key) {
         String realKey = getRealKey(keyPrefix, key);
-        Long membersCount = redisTemplate.opsForZSet().zCard(realKey);
+        Long membersCount = metrics.record("zcard", () -> redisTemplate.opsForZSet().zCard(realKey));
         return Optional.ofNullable(membersCount).orElse(0L);
     }
 
     public <T> Long zrank(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key, @NonNull Object member) {
         String realKey = getRealKey(keyPrefix, key);
-        return redisTemplate.opsForZSet().rank(realKey, JsonUtil.toJson(member));
+        return metrics.record("zrank", () -> redisTemplate.opsForZSet().rank(realKey, encode(keyPrefix, member)));
+    }
+
+    /**
+     * 管道批量执行ZRANK，keys与members按下标一一对应
+     * @param keyPrefix key前缀
+     * @param keys 多个key
+     * @param members 与key对应的成员
+     * @param <T> 成员类型
+     * @return 与keys顺序一致的排名，成员不存在时为null
+     */
+    public <T> List<Long> zrankEach(@NonNull KeyPrefix<T> keyPrefix, @NonNull List<?> keys, @NonNull List<?> members) {
+        if (keys.size() != members.size()) {
+            throw new UnsupportedOperationException("要求keys与members数量一致");
+        }
+        RedisBatch batch = batch();
+        List<RedisBatch.Response<Long>> responses = new ArrayList<>(keys.size());
+        for (int i = 0, len = keys.size(); i < len; i++) {
+            responses.add(batch.zrank(keyPrefix, keys.get(i), members.get(i)));
+        }
+        batch.execute();
+        return responses.stream().map(RedisBatch.Response::get).collect(Collectors.toList());
     }
 
 
@@ -304,14 +560,33 @@ public class RedisOperator {
          */
     public <T> long zrem(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key, @NonNull Object ... members) {
         String realKey = getRealKey(keyPrefix, key);
-        Object[] jsonValues = new String[members.length];
-        for (int i = 0, len = members.length; i < len; i++) {
-            jsonValues[i] = JsonUtil.toJson(members[i]);
-        }
-        Long addCount = redisTemplate.opsForZSet().remove(realKey, jsonValues);
+        Long addCount = metrics.record("zrem", () -> redisTemplate.opsForZSet().remove(realKey, (Object[]) encodeArray(keyPrefix, members)));
         return Optional.ofNullable(addCount).orElse(0L);
     }
 
+    // script
+
+    /**
+     * 执行lua脚本，key按前缀拼接，参数统一转为字符串
+     * @param script 脚本
+     * @param keyPrefix key前缀
+     * @param keys 多个key
+     * @param args 参数
+     * @param <R> 脚本返回值类型
+     * @return 脚本返回值
+     */
+    public <R> R eval(@NonNull RedisScript<R> script, @NonNull KeyPrefix keyPrefix,
+                      @NonNull List<?> keys, @NonNull Object ... args) {
+        List<String> realKeys = keys.stream()
+                .map(key -> getRealKey(keyPrefix, key))
+                .collect(Collectors.toList());
+        Object[] stringArgs = new String[args.length];
+        for (int i = 0, len = args.length; i < len; i++) {
+            stringArgs[i] = String.valueOf(args[i]);
+        }
+        return metrics.record("eval", () -> redisTemplate.execute(script, realKeys, stringArgs));
+    }
+
     // hash
 
     /**
@@ -322,7 +597,7 @@ public class RedisOperator {
      */
     public void hset(@NonNull KeyPrefix keyPrefix, @NonNull Object key, @NonNull String field, @NonNull Object value) {
         String realKey = getRealKey(keyPrefix, key);
-        redisTemplate.opsForHash().put(realKey, field, JsonUtil.toJson(value));
+        metrics.run("hset", () -> redisTemplate.opsForHash().put(realKey, field, encode(keyPrefix, value)));
     }
 
     /**
@@ -334,13 +609,100 @@ public class RedisOperator {
      */
     public <T> T hget(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key, @NonNull String field) {
         String realKey = getRealKey(keyPrefix, key);
-        Object value = redisTemplate.opsForHash().get(realKey, field);
-        return value != null ?
-            JsonUtil.jsonToObject(value.toString(), keyPrefix.getValueClass()) : null;
+        Object value = metrics.record("hget", () -> redisTemplate.opsForHash().get(realKey, field));
+        metrics.hit(keyPrefix, value != null);
+        return value != null ? decode(keyPrefix, value.toString()) : null;
+    }
+
+    /**
+     * 实现命令：HMGET key field [field ...]，一次取多个域的值
+     * @param fields 域
+     * @return 与fields顺序一致的值，域不存在的为null
+     */
+    public <T> List<T> hmget(@NonNull KeyPrefix<T> keyPrefix, @NonNull Object key, @NonNull List<String> fields) {
+        if (fields.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String realKey = getRealKey(keyPrefix, key);
+        List<Object> values = metrics.record("hmget",
+                () -> redisTemplate.opsForHash().multiGet(realKey, new ArrayList<>(fields)));
+        List<T> result = new ArrayList<>(fields.size());
+        for (Object value : values) {
+            result.add(value != null ? decode(keyPrefix, value.toString()) : null);
+        }
+        return result;
+    }
+
+    /**
+     * 集合成员、hash的值按codec编码成文本
+     */
+    @SuppressWarnings("unchecked")
+    static String encode(KeyPrefix keyPrefix, Object value) {
+        return keyPrefix.getCodec().encodeToString(value);
+    }
+
+    static <T> T decode(KeyPrefix<T> keyPrefix, String value) {
+        return keyPrefix.getCodec().decodeFromString(value);
+    }
+
+    /**
+     * 管道中取回的是原始字节，其他情况是文本
+     */
+    static <T> T decodeRaw(KeyPrefix<T> keyPrefix, Object value) {
+        return value instanceof byte[] ?
+                keyPrefix.getCodec().decode((byte[]) value) : keyPrefix.getCodec().decodeFromString(value.toString());
+    }
+
+    /**
+     * 字符串类型的value按codec编码成字节
+     */
+    @SuppressWarnings("unchecked")
+    static byte[] encodeValue(KeyPrefix keyPrefix, Object value) {
+        return keyPrefix.getCodec().encode(value);
+    }
+
+    static String[] encodeArray(KeyPrefix keyPrefix, Object[] members) {
+        String[] values = new String[members.length];
+        for (int i = 0, len = members.length; i < len; i++) {
+            values[i] = encode(keyPrefix, members[i]);
+        }
+        return values;
     }
 
-    private String getRealKey(KeyPrefix keyPrefix, Object key) {
+    static Set<ZSetOperations.TypedTuple<String>> toTuples(KeyPrefix keyPrefix, Object[] scoreAndMembers) {
+        if (scoreAndMembers.length % 2 != 0) {
+            throw new UnsupportedOperationException("要求传参格式为,(s1, m1, s2, m2, ... sn, mn)");
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples = new LinkedHashSet<>();
+        for (int i = 0, len = scoreAndMembers.length; i < len; i += 2) {
+            double score = Double.parseDouble(scoreAndMembers[i].toString());
+            tuples.add(new DefaultTypedTuple<>(encode(keyPrefix, scoreAndMembers[i + 1]), score));
+        }
+        return tuples;
+    }
+
+    static <T> LinkedHashMap<T, Double> toScoreMap(Set<? extends ZSetOperations.TypedTuple<?>> tuples, KeyPrefix<T> keyPrefix) {
+        LinkedHashMap<T, Double> result = new LinkedHashMap<>();
+        if (tuples != null) {
+            tuples.forEach(tuple -> result.put(decodeRaw(keyPrefix, tuple.getValue()), tuple.getScore()));
+        }
+        return result;
+    }
+
+    static <T> LinkedHashSet<T> toMemberSet(Collection<?> members, KeyPrefix<T> keyPrefix) {
+        LinkedHashSet<T> result = new LinkedHashSet<>();
+        if (members != null) {
+            members.forEach(member -> result.add(decodeRaw(keyPrefix, member)));
+        }
+        return result;
+    }
+
+    static String getRealKey(KeyPrefix keyPrefix, Object key) {
         return keyPrefix.getPrefix() + key;
     }
 
+    static byte[] getRawKey(KeyPrefix keyPrefix, Object key) {
+        return getRealKey(keyPrefix, key).getBytes(StandardCharsets.UTF_8);
+    }
+
 }
@@ -0,0 +1,66 @@
+package com.hdh.lifeup.redis;
+
+import com.hdh.lifeup.model.dto.TeamDetailDTO;
+
+/**
+ * TeamKey class<br/>
+ * 团队相关的key
+ * @author hdonghong
+ * @since 2020/02/05
+ */
+public class TeamKey<T> extends BasePrefix<T> {
+
+    private TeamKey(String prefix, Class<T> valueClass) {
+        super(prefix, valueClass);
+    }
+
+    private TeamKey(int expireSeconds, String prefix, Class<T> valueClass) {
+        super(expireSeconds, prefix, valueClass);
+    }
+
+    private TeamKey(int expireSeconds, String prefix, Class<T> valueClass, RedisCodec<T> codec) {
+        super(expireSeconds, prefix, valueClass, codec);
+    }
+
+    /** 团队活跃度排行，zset的成员为团队id，分数为活跃度，只收录进行中且未过截止日期的团队 */
+    public static final TeamKey<Long> RANK = new TeamKey<>(
+            "rank", Long.class
+    );
+
+    /** 活跃度有变化、等待回写数据库的团队id集合 */
+    public static final TeamKey<Long> RANK_DIRTY = new TeamKey<>(
+            "rank_dirty", Long.class
+    );
+
+    /** 团队的签到周期表，hash的域为周期序号，值为对应的teamRecordId，由定时任务提前生成 */
+    public static final TeamKey<Long> SCHEDULE = new TeamKey<>(
+            3600 * 24 * 7, "schedule", Long.class
+    );
+
+    /**
+     * 成员在团队中的签到位图，key为 teamId:userId。
+     * 第0位表示已从数据库加载过，第k+1位表示第k次已签到
+     */
+    public static final TeamKey<Boolean> SIGNED = new TeamKey<>(
+            3600 * 24 * 7, "signed", Boolean.class
+    );
+
+    /** 团队详情的版本号，团队信息或成员变化时加一，不过期 */
+    public static final TeamKey<Long> DETAIL_VERSION = new TeamKey<>(
+            "detail_version", Long.class
+    );
+
+    /** 所有人共用的团队详情，key为 teamId:版本号，版本号变化后旧的详情不再被读到，等待过期 */
+    public static final TeamKey<TeamDetailDTO> DETAIL = new TeamKey<>(
+            60 * 10, "detail", TeamDetailDTO.class, RedisCodecs.binary(TeamDetailDTO.class)
+    );
+
+    /**
+     * 团队搜索索引的变更日志，seq为递增的变更序号，
+     * log为zset，成员为有变化的团队id，分数为最近一次变化的序号，不过期
+     */
+    public static final TeamKey<Long> SEARCH_CHANGES = new TeamKey<>(
+            "search_changes", Long.class
+    );
+
+}
@@ -0,0 +1,44 @@
+package com.hdh.lifeup.redis;
+
+/**
+ * TimelineKey class<br/>
+ * 朋友圈时间线相关的key，zset的成员为动态id，分数为发布时间（毫秒）
+ * @author hdonghong
+ * @since 2020/01/12
+ */
+public class TimelineKey<T> extends BasePrefix<T> {
+
+    private TimelineKey(String prefix, Class<T> valueClass) {
+        super(prefix, valueClass);
+    }
+
+    private TimelineKey(int expireSeconds, String prefix, Class<T> valueClass) {
+        super(expireSeconds, prefix, valueClass);
+    }
+
+    /** 用户的收件箱，关注的人发布动态时推送进来，长时间不读会过期，下次读时再重建 */
+    public static final TimelineKey<Long> INBOX = new TimelineKey<>(
+            3600 * 24 * 7, "inbox", Long.class
+    );
+
+    /** 只收录带文字或图片的动态的收件箱，对应 filter = 1 */
+    public static final TimelineKey<Long> CONTENT_INBOX = new TimelineKey<>(
+            3600 * 24 * 7, "content_inbox", Long.class
+    );
+
+    /** 用户的发件箱，大V的动态不推送给粉丝，由粉丝读时从这里拉取 */
+    public static final TimelineKey<Long> OUTBOX = new TimelineKey<>(
+            "outbox", Long.class
+    );
+
+    /** 只收录带文字或图片的动态的发件箱 */
+    public static final TimelineKey<Long> CONTENT_OUTBOX = new TimelineKey<>(
+            "content_outbox", Long.class
+    );
+
+    /** 大V用户id集合 */
+    public static final TimelineKey<Long> CELEBRITY = new TimelineKey<>(
+            "celebrity", Long.class
+    );
+
+}
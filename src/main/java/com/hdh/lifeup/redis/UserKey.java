@@ -1,5 +1,6 @@
 package com.hdh.lifeup.redis;
 
+import com.hdh.lifeup.model.dto.UserCardDTO;
 import com.hdh.lifeup.model.dto.UserInfoDTO;
 import com.hdh.lifeup.util.TokenUtil;
 
@@ -13,8 +14,17 @@ public class UserKey<T> extends BasePrefix<T> {
 		super(expireSeconds, prefix, valueClass);
 	}
 
+	private UserKey(int expireSeconds, String prefix, Class<T> valueClass, RedisCodec<T> codec) {
+		super(expireSeconds, prefix, valueClass, codec);
+	}
+
 	public static final UserKey<UserInfoDTO> TOKEN = new UserKey<>(
-			TokenUtil.EXPIRE_SECONDS, "token", UserInfoDTO.class
+			TokenUtil.EXPIRE_SECONDS, "token", UserInfoDTO.class, RedisCodecs.binary(UserInfoDTO.class)
+	);
+
+	/** 用户卡片（昵称、头像、性别），修改用户信息后删除 */
+	public static final UserKey<UserCardDTO> CARD = new UserKey<>(
+			3600 * 24, "card", UserCardDTO.class
 	);
 
 	public static final UserKey<Long> FOLLOWING = new UserKey<>(
@@ -32,8 +42,9 @@ public class UserKey<T> extends BasePrefix<T> {
 	public static final UserKey<Long> LIKE_COUNT_EXCHANGED = new UserKey<>(
 			TokenUtil.EXPIRE_SECONDS, "like_count_exchanged", Long.class
 	);
+	/** 每个ISO周一个hash，key为周（如2020W07），域为用户id，值为该周签到获得的经验，保留两周 */
 	public static final UserKey<Long> ATTRIBUTE_WEEK = new UserKey<>(
-			3600 * 12, "attribute_week", Long.class
+			3600 * 24 * 14, "attribute_week", Long.class
 	);
 
 }
@@ -2,8 +2,6 @@ package com.hdh.lifeup.service;
 
 import com.hdh.lifeup.dao.*;
 import com.hdh.lifeup.model.constant.TaskConst.*;
-import com.hdh.lifeup.model.domain.LikeCountUserDO;
-import com.hdh.lifeup.model.domain.LikeMemberRecordDO;
 import com.hdh.lifeup.model.vo.TeamActivityRankVO;
 import com.hdh.lifeup.model.dto.TeamMemberRecordDTO;
 import com.hdh.lifeup.redis.RedisOperator;
@@ -14,8 +12,6 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
-import java.util.Objects;
-
 /**
  * AsyncTaskService class<br/>
  * 异步任务类
@@ -26,9 +22,6 @@ import java.util.Objects;
 @Component
 public class AsyncTaskService {
 
-    @Autowired
-    private LikeMemberRecordMapper likeMemberRecordMapper;
-
     @Autowired
     private LikeCountUserMapper likeCountUserMapper;
 
@@ -36,52 +29,14 @@ public class AsyncTaskService {
     private RedisOperator redisOperator;
 
     @Autowired
-    private TeamTaskService teamTaskService;
+    private TeamRankService teamRankService;
 
     @Autowired
     @Lazy
     private TeamMemberService teamMemberService;
 
-    /**
-     * 点赞
-     * @param userId
-     * @param memberRecordDTO
-     */
-    @Async("taskExecutor")
-    public void doLike(Long userId, TeamMemberRecordDTO memberRecordDTO){
-        LikeMemberRecordDO likeMemberRecordDO = new LikeMemberRecordDO()
-                .setMemberRecordId(memberRecordDTO.getMemberRecordId())
-                .setUserId(userId);
-        Integer result = likeMemberRecordMapper.insert(likeMemberRecordDO);
-        if (!Objects.equals(result, 1)) {
-            log.error("【doLike】likeMemberRecordMapper.insert failed. userId = [{}], memberRecordDTO = [{}]",
-                    userId, memberRecordDTO);
-            return;
-        }
-        result = likeCountUserMapper.incr(userId, 1);
-        if (!Objects.equals(result, 1)) {
-            LikeCountUserDO likeCountUserDO = new LikeCountUserDO()
-                    .setUserId(memberRecordDTO.getUserId())
-                    .setLikeCount(1);
-            likeCountUserMapper.insert(likeCountUserDO);
-        }
-    }
-
-    /**
-     * 取消点赞
-     * @param userId
-     * @param memberRecordDTO
-     */
-    @Async("taskExecutor")
-    public void undoLike(Long userId, TeamMemberRecordDTO memberRecordDTO) {
-        Integer result = likeMemberRecordMapper.deleteById(memberRecordDTO.getMemberRecordId());
-        if (!Objects.equals(result, 1)) {
-            log.error("【undoLike】likeMemberRecordMapper.deleteById failed. userId = [{}], memberRecordDTO = [{}]",
-                    userId, memberRecordDTO);
-            return;
-        }
-        likeCountUserMapper.incr(userId, -1);
-    }
+    @Autowired
+    private TimelineService timelineService;
 
     /**
      * 点赞量兑换
@@ -125,7 +80,44 @@ public class AsyncTaskService {
         } else {
             return;
         }
-        teamTaskService.incrTeamRank(teamId, teamActivityRankVO.getTeamRank());
+        if (ActivityIcon.IC_NEW.equals(activityIcon)) {
+            teamRankService.add(teamId, teamActivityRankVO.getTeamRank());
+        } else {
+            teamRankService.incr(teamId, teamActivityRankVO.getTeamRank());
+        }
+    }
+
+    /**
+     * 签到时把团队的奖励经验累加到用户本周的经验值
+     * @param userId
+     * @param rewardExp 团队的奖励经验，签到时已经查出，不再查库
+     */
+    @Async("taskExecutor")
+    public void incrAttributeWeekly(Long userId, Integer rewardExp) {
+        if (rewardExp == null) {
+            log.error("【累加本周经验】团队没有奖励经验，userId = [{}]", userId);
+            return;
+        }
+        teamMemberService.incrAttributeWeekly(userId, rewardExp);
+    }
+
+    /**
+     * 将新动态推送到粉丝的时间线
+     * @param memberRecordDTO
+     */
+    @Async("taskExecutor")
+    public void fanOutRecord(TeamMemberRecordDTO memberRecordDTO) {
+        timelineService.fanOut(memberRecordDTO);
+    }
+
+    /**
+     * 将删除的动态移出时间线
+     * @param authorId
+     * @param memberRecordId
+     */
+    @Async("taskExecutor")
+    public void removeRecord(Long authorId, Long memberRecordId) {
+        timelineService.removeRecord(authorId, memberRecordId);
     }
 
 }
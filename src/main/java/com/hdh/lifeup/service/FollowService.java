@@ -0,0 +1,38 @@
+package com.hdh.lifeup.service;
+
+import com.hdh.lifeup.model.dto.PageDTO;
+
+import java.util.List;
+
+/**
+ * FollowService interface<br/>
+ * 关注关系的读取，关注和粉丝都是redis中的zset，分数为关注时间
+ * @author hdonghong
+ * @since 2020/02/15
+ */
+public interface FollowService {
+
+    /**
+     * 分页获取用户关注的人，按关注时间先后，只取一页
+     * @param userId 用户id
+     * @param pageDTO 分页条件
+     * @return 用户id分页
+     */
+    PageDTO<Long> pageFollowings(Long userId, PageDTO pageDTO);
+
+    /**
+     * 分页获取用户的粉丝，按关注时间先后，只取一页
+     * @param userId 用户id
+     * @param pageDTO 分页条件
+     * @return 用户id分页
+     */
+    PageDTO<Long> pageFollowers(Long userId, PageDTO pageDTO);
+
+    /**
+     * 批量获取targetIds中每个用户对于userId而言的身份，redis只往返一次
+     * @param userId 用户id
+     * @param targetIds 对方用户id
+     * @return 与targetIds顺序一致的 {@link com.hdh.lifeup.model.constant.UserConst.FollowStatus}
+     */
+    List<Integer> getFollowStatuses(Long userId, List<Long> targetIds);
+}
@@ -0,0 +1,45 @@
+package com.hdh.lifeup.service;
+
+import com.hdh.lifeup.model.dto.ImageVariantDTO;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ImageVariantService interface<br/>
+ * 动态图片的缩略图和中图，上传时生成，发布动态时记录到动态中
+ * @author hdonghong
+ * @since 2020/02/20
+ */
+public interface ImageVariantService {
+
+    /**
+     * 生成缩略图和中图并保存，原图只解码一次，解码和编码在图片处理线程池中执行
+     * @param imageName 原图在存储中的路径，缩小版本保存在同一目录
+     * @param image 原图的字节
+     * @return 缩小版本的地址，图片格式不支持时为null
+     */
+    CompletableFuture<ImageVariantDTO> createVariants(String imageName, byte[] image);
+
+    /**
+     * 记录原图对应的缩小版本，等发布动态时取用；已经发布的动态在等待这张图时，回填到动态中
+     * @param imageUrl 原图地址
+     * @param variants 缩小版本的地址
+     */
+    void saveVariants(String imageUrl, ImageVariantDTO variants);
+
+    /**
+     * 批量获取原图对应的缩小版本，没有生成过的用原图地址代替
+     * @param imageUrls 原图地址
+     * @return 与imageUrls顺序一致的缩小版本
+     */
+    List<ImageVariantDTO> getVariants(List<String> imageUrls);
+
+    /**
+     * 动态发布时部分图片的缩小版本还没生成完，先用原图地址保存，等生成后回填到动态中。
+     * 在事务中调用时，提交后才开始等待
+     * @param memberRecordId 动态id
+     * @param imageUrls 还没有缩小版本的原图地址
+     */
+    void fillWhenReady(Long memberRecordId, List<String> imageUrls);
+}
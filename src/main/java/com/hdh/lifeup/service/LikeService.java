@@ -1,7 +1,10 @@
 package com.hdh.lifeup.service;
 
+import com.hdh.lifeup.model.dto.RecordDTO;
 import com.hdh.lifeup.redis.KeyPrefix;
 
+import java.util.List;
+
 /**
  * LikeService interface<br/>
  *
@@ -22,5 +25,12 @@ public interface LikeService {
 
     <T> int isLike(KeyPrefix<T> keyPrefix, long sourceId, long userId);
 
+    /**
+     * 批量填充动态的点赞状态和点赞数，整页动态通过一次管道查询，不再逐条访问redis
+     * @param recordList 动态列表
+     * @param userId 当前用户id
+     */
+    void assembleLikes(List<RecordDTO> recordList, Long userId);
+
     int exchangeLike(Long userId, Integer count);
 }
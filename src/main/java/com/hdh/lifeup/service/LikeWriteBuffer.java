@@ -0,0 +1,208 @@
+package com.hdh.lifeup.service;
+
+import com.google.common.collect.Lists;
+import com.hdh.lifeup.dao.LikeCountUserMapper;
+import com.hdh.lifeup.dao.LikeMemberRecordMapper;
+import com.hdh.lifeup.model.domain.LikeCountUserDO;
+import com.hdh.lifeup.model.domain.LikeMemberRecordDO;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * LikeWriteBuffer class<br/>
+ * 点赞写库的合并缓冲：点赞、取消点赞先在内存中按 (动态, 点赞用户) 和 (动态创建者) 累加增量，
+ * 同一窗口内的点赞和取消会相互抵消，再由定时任务批量写库。
+ * redis中的点赞集合和获赞数仍然实时更新，数据库只是持久化，允许落后一个刷新周期。
+ * @author hdonghong
+ * @since 2020/02/03
+ */
+@Slf4j
+@Component
+public class LikeWriteBuffer {
+
+    /** 单条批量sql最多的行数 */
+    private static final int BATCH_SIZE = 500;
+
+    private final LikeMemberRecordMapper likeMemberRecordMapper;
+
+    private final LikeCountUserMapper likeCountUserMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /** 写入时持有读锁可以并发，刷新时持有写锁交换缓冲区 */
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    /** (动态, 点赞用户) -> 净增量，1为点赞，-1为取消，0为抵消 */
+    private Map<LikeEdge, Integer> likeDeltas = new ConcurrentHashMap<>();
+
+    /** 动态创建者 -> 获赞数净增量 */
+    private Map<Long, Integer> countDeltas = new ConcurrentHashMap<>();
+
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+    private final AtomicLong lastFlushMillis = new AtomicLong();
+    private final AtomicLong maxFlushMillis = new AtomicLong();
+
+    @Autowired
+    public LikeWriteBuffer(LikeMemberRecordMapper likeMemberRecordMapper,
+                           LikeCountUserMapper likeCountUserMapper,
+                           TransactionTemplate transactionTemplate) {
+        this.likeMemberRecordMapper = likeMemberRecordMapper;
+        this.likeCountUserMapper = likeCountUserMapper;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * 记录一次点赞
+     * @param memberRecordId 动态id
+     * @param userId 点赞的用户
+     * @param creatorId 动态的创建者
+     */
+    public void like(Long memberRecordId, Long userId, Long creatorId) {
+        add(new LikeEdge(memberRecordId, userId), 1, creatorId);
+    }
+
+    /**
+     * 记录一次取消点赞
+     * @param memberRecordId 动态id
+     * @param userId 取消点赞的用户
+     * @param creatorId 动态的创建者
+     */
+    public void unlike(Long memberRecordId, Long userId, Long creatorId) {
+        add(new LikeEdge(memberRecordId, userId), -1, creatorId);
+    }
+
+    private void add(LikeEdge edge, int delta, Long creatorId) {
+        swapLock.readLock().lock();
+        try {
+            likeDeltas.merge(edge, delta, Integer::sum);
+            countDeltas.merge(creatorId, delta, Integer::sum);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 把缓冲区中的增量批量写库，写库失败时增量放回缓冲区，下次再试
+     */
+    public void flush() {
+        Map<LikeEdge, Integer> likeSnapshot;
+        Map<Long, Integer> countSnapshot;
+        swapLock.writeLock().lock();
+        try {
+            if (likeDeltas.isEmpty() && countDeltas.isEmpty()) {
+                return;
+            }
+            likeSnapshot = likeDeltas;
+            countSnapshot = countDeltas;
+            likeDeltas = new ConcurrentHashMap<>();
+            countDeltas = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        List<LikeMemberRecordDO> likes = Lists.newArrayList();
+        List<LikeMemberRecordDO> unlikes = Lists.newArrayList();
+        likeSnapshot.forEach((edge, delta) -> {
+            if (delta > 0) {
+                likes.add(edge.toDO());
+            } else if (delta < 0) {
+                unlikes.add(edge.toDO());
+            }
+        });
+        List<LikeCountUserDO> counts = Lists.newArrayList();
+        countSnapshot.forEach((creatorId, delta) -> {
+            if (delta != 0) {
+                counts.add(new LikeCountUserDO().setUserId(creatorId).setLikeCount(delta));
+            }
+        });
+
+        long start = System.currentTimeMillis();
+        try {
+            transactionTemplate.execute(status -> {
+                Lists.partition(likes, BATCH_SIZE).forEach(likeMemberRecordMapper::insertIgnoreBatch);
+                Lists.partition(unlikes, BATCH_SIZE).forEach(likeMemberRecordMapper::deleteBatch);
+                Lists.partition(counts, BATCH_SIZE).forEach(likeCountUserMapper::incrBatch);
+                return null;
+            });
+            flushedRows.addAndGet(likes.size() + unlikes.size() + counts.size());
+        } catch (RuntimeException e) {
+            flushFailures.incrementAndGet();
+            log.error("【点赞写库】批量写库失败，增量放回缓冲区，likes = [{}], unlikes = [{}], counts = [{}]",
+                    likes.size(), unlikes.size(), counts.size(), e);
+            swapLock.readLock().lock();
+            try {
+                likeSnapshot.forEach((edge, delta) -> likeDeltas.merge(edge, delta, Integer::sum));
+                countSnapshot.forEach((creatorId, delta) -> countDeltas.merge(creatorId, delta, Integer::sum));
+            } finally {
+                swapLock.readLock().unlock();
+            }
+            return;
+        } finally {
+            long cost = System.currentTimeMillis() - start;
+            flushCount.incrementAndGet();
+            lastFlushMillis.set(cost);
+            maxFlushMillis.accumulateAndGet(cost, Math::max);
+        }
+        log.info("【点赞写库】likes = [{}], unlikes = [{}], counts = [{}], cost = [{}]ms",
+                likes.size(), unlikes.size(), counts.size(), lastFlushMillis.get());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    /** 缓冲区中等待写库的 (动态, 点赞用户) 数量 */
+    public int getBufferDepth() {
+        return likeDeltas.size();
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getFlushedRows() {
+        return flushedRows.get();
+    }
+
+    public long getFlushFailures() {
+        return flushFailures.get();
+    }
+
+    public long getLastFlushMillis() {
+        return lastFlushMillis.get();
+    }
+
+    public long getMaxFlushMillis() {
+        return maxFlushMillis.get();
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class LikeEdge {
+
+        private final Long memberRecordId;
+
+        private final Long userId;
+
+        private LikeMemberRecordDO toDO() {
+            return new LikeMemberRecordDO()
+                    .setMemberRecordId(memberRecordId)
+                    .setUserId(userId);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.hdh.lifeup.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * StorageBackend interface<br/>
+ * 文件存储，按 {@link com.hdh.lifeup.config.StorageConfig#getType()} 选择七牛云或本地目录。
+ * 实现需要是线程安全的，多个文件会同时上传
+ * @author hdonghong
+ * @since 2020/02/20
+ */
+public interface StorageBackend {
+
+    /**
+     * 保存文件，已存在同名文件时覆盖
+     * @param key 文件在存储中的路径，如 images/activities/xxx.jpg
+     * @param input 文件内容，由调用方关闭
+     * @param size 文件大小，未知时为-1
+     * @param contentType 文件类型，可以为null
+     * @return 文件的访问地址
+     * @throws IOException 保存失败
+     */
+    String put(String key, InputStream input, long size, String contentType) throws IOException;
+}
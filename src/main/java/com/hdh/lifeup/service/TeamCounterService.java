@@ -0,0 +1,61 @@
+package com.hdh.lifeup.service;
+
+/**
+ * TeamCounterService interface<br/>
+ * 团队成员数、团队动态数、用户参与团队数和公开动态数的计数器，代替热点路径上的 COUNT(*)。
+ * 计数器保存在redis，第一次读取时从数据库加载；成员和动态增删的事务提交后再累加，
+ * 变化过的团队和用户由 {@link #reconcile()} 定期与数据库核对，修正偏差
+ * @author hdonghong
+ * @since 2020/02/17
+ */
+public interface TeamCounterService {
+
+    /**
+     * 团队的成员数
+     * @param teamId 团队id
+     * @return 成员数
+     */
+    int countTeamMembers(Long teamId);
+
+    /**
+     * 团队的动态数
+     * @param teamId 团队id
+     * @return 动态数
+     */
+    int countTeamRecords(Long teamId);
+
+    /**
+     * 用户参与的团队数
+     * @param userId 用户id
+     * @return 团队数
+     */
+    int countUserTeams(Long userId);
+
+    /**
+     * 所有人可见的动态数，不含加入团队和放弃的动态
+     * @return 动态数
+     */
+    int countPublicRecords();
+
+    /**
+     * 成员加入或退出团队，在事务中调用时等提交后再累加
+     * @param teamId 团队id
+     * @param userId 用户id
+     * @param delta 加入为1，退出为-1
+     */
+    void memberChanged(Long teamId, Long userId, int delta);
+
+    /**
+     * 新增或删除动态，在事务中调用时等提交后再累加
+     * @param teamId 团队id
+     * @param activityIcon 动态类型
+     * @param delta 新增为1，删除为-1
+     */
+    void recordChanged(Long teamId, Integer activityIcon, int delta);
+
+    /**
+     * 用数据库重新统计变化过的团队和用户，覆盖与数据库不一致的计数器
+     * @return 修正的计数器数量
+     */
+    int reconcile();
+}
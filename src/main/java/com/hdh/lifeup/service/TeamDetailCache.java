@@ -0,0 +1,56 @@
+package com.hdh.lifeup.service;
+
+import com.hdh.lifeup.model.dto.TeamDetailDTO;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.redis.TeamKey;
+import com.hdh.lifeup.util.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * TeamDetailCache class<br/>
+ * 团队详情的共享缓存，缓存的key带上团队的版本号。失效时不删除缓存，而是在事务提交后把版本号加一：
+ * 提交前读到旧数据的请求只会写入旧版本的key，不会把旧数据写回新版本
+ * @author hdonghong
+ * @since 2020/02/18
+ */
+@Slf4j
+@Component
+public class TeamDetailCache {
+
+    private final RedisOperator redisOperator;
+
+    @Autowired
+    public TeamDetailCache(RedisOperator redisOperator) {
+        this.redisOperator = redisOperator;
+    }
+
+    /**
+     * 获取团队详情，未命中时用loader加载并写入当前版本
+     * @param teamId 团队id
+     * @param loader 从数据库加载详情
+     * @return 团队详情，每次调用都是新的对象，调用方可以随意修改
+     */
+    public TeamDetailDTO get(Long teamId, Function<Long, TeamDetailDTO> loader) {
+        long version = Optional.ofNullable(redisOperator.get(TeamKey.DETAIL_VERSION, teamId)).orElse(0L);
+        String detailKey = teamId + ":" + version;
+        TeamDetailDTO teamDetailDTO = redisOperator.get(TeamKey.DETAIL, detailKey);
+        if (teamDetailDTO == null) {
+            teamDetailDTO = loader.apply(teamId);
+            redisOperator.setex(TeamKey.DETAIL, detailKey, teamDetailDTO);
+        }
+        return teamDetailDTO;
+    }
+
+    /**
+     * 团队信息或成员变化后使缓存失效，在事务中调用时等提交后再执行
+     * @param teamId 团队id
+     */
+    public void evict(Long teamId) {
+        TransactionUtil.afterCommit("团队详情缓存", () -> redisOperator.incr(TeamKey.DETAIL_VERSION, teamId));
+    }
+}
@@ -125,11 +125,19 @@ public interface TeamMemberService {
      */
     int countUserLast30DaysRecords(Long userId);
 
-    /** 排行榜的临时实现：获取用户的经验值
+    /**
+     * 批量获取用户本周（ISO周）签到获得的经验值，redis只往返一次
+     * @param userIds 用户id
+     * @return 与userIds顺序一致的经验值，本周没有签到的为0
+     */
+    List<Integer> getAttributeWeekly(List<Long> userIds);
+
+    /**
+     * 累加用户本周签到获得的经验值
      * @param userId 用户id
-     * @return 用户的总经验值
+     * @param exp 经验值
      */
-    int getAttributeWeekly(Long userId);
+    void incrAttributeWeekly(Long userId, int exp);
 
     /**
      * 当前用户退出团队
@@ -0,0 +1,77 @@
+package com.hdh.lifeup.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * TeamRankService interface<br/>
+ * 团队活跃度排行，活跃度保存在redis的zset中实时累加，定期回写到team_task.team_rank。
+ * 活跃度每天衰减5%，在读取时按时间算出，没有定时的全量衰减
+ * @author hdonghong
+ * @since 2020/02/05
+ */
+public interface TeamRankService {
+
+    /**
+     * 新团队加入排行
+     * @param teamId 团队id
+     * @param e 初始活跃度
+     */
+    void add(Long teamId, int e);
+
+    /**
+     * 增加团队活跃度，e 小于0时则减少；不在排行中的团队直接更新数据库
+     * @param teamId 团队id
+     * @param e 增量
+     */
+    void incr(Long teamId, int e);
+
+    /**
+     * 按活跃度从高到低取一页团队
+     * @param offset 偏移量
+     * @param size 数量
+     * @return 团队id -> 活跃度，按活跃度倒序
+     */
+    LinkedHashMap<Long, Integer> getHotTeams(long offset, long size);
+
+    /**
+     * 批量获取团队当前的活跃度，redis只往返一次
+     * @param teamIds 团队id
+     * @return 团队id -> 活跃度，不在排行中的团队不返回
+     */
+    Map<Long, Integer> getRanks(Collection<Long> teamIds);
+
+    /**
+     * 把数据库中的活跃度衰减到现在，与排行中的活跃度可以直接比较
+     * @param teamRank 数据库中的活跃度
+     * @param rankUpdateTime 活跃度的结算时刻，为空时视为刚刚结算
+     * @return 现在的活跃度
+     */
+    int decay(int teamRank, LocalDateTime rankUpdateTime);
+
+    /**
+     * 排行中的团队数量
+     * @return 团队数量
+     */
+    long count();
+
+    /**
+     * 将团队移出排行，团队结束或过了截止日期时调用
+     * @param teamIds 团队id
+     */
+    void remove(Long ... teamIds);
+
+    /**
+     * 用一条sql结算数据库中长时间没有更新的团队的衰减，排行中的团队不受影响
+     * @return 结算的团队数量
+     */
+    int settle();
+
+    /**
+     * 把有变化的活跃度回写数据库
+     * @return 回写的团队数量
+     */
+    int checkpoint();
+}
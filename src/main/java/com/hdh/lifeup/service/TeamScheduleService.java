@@ -0,0 +1,54 @@
+package com.hdh.lifeup.service;
+
+import com.hdh.lifeup.model.dto.TeamTaskDTO;
+import com.hdh.lifeup.model.vo.NextSignVO;
+
+import java.util.List;
+
+/**
+ * TeamScheduleService interface<br/>
+ * 团队签到周期表：签到时间段按周期序号直接算出，对应的team_record由定时任务提前生成并缓存在redis，
+ * 成员的签到状态保存在位图中，查询下一次签到只读redis。
+ * @author hdonghong
+ * @since 2020/02/09
+ */
+public interface TeamScheduleService {
+
+    /**
+     * 获取成员的下一次签到信息：当前周期未签到时为当前周期，已签到时为下一周期，还未开始时为第一个周期
+     * @param teamTaskDTO 团队信息
+     * @param userId 成员
+     * @return 下一次签到信息
+     */
+    NextSignVO getNextSign(TeamTaskDTO teamTaskDTO, Long userId);
+
+    /**
+     * 批量获取成员在多个团队的下一次签到信息，redis只往返一次，位图或周期表未命中时按批查询数据库
+     * @param teams 团队信息
+     * @param userId 成员
+     * @return 下一次签到信息，按teams的顺序，已结束的团队不返回
+     */
+    List<NextSignVO> getNextSigns(List<TeamTaskDTO> teams, Long userId);
+
+    /**
+     * 获取第period次签到信息
+     * @param teamTaskDTO 团队信息
+     * @param period 周期序号
+     * @return 签到信息
+     */
+    NextSignVO getSign(TeamTaskDTO teamTaskDTO, long period);
+
+    /**
+     * 记录成员已签到第period次
+     * @param teamId 团队id
+     * @param userId 成员
+     * @param period 周期序号
+     */
+    void markSignedIn(Long teamId, Long userId, long period);
+
+    /**
+     * 为进行中的团队提前生成当前和下一个周期的签到记录
+     * @return 新生成的签到记录数
+     */
+    int materialize();
+}
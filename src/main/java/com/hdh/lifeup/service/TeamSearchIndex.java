@@ -0,0 +1,332 @@
+package com.hdh.lifeup.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.google.common.collect.Lists;
+import com.hdh.lifeup.dao.TeamTaskMapper;
+import com.hdh.lifeup.model.domain.TeamTaskDO;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.redis.TeamKey;
+import com.hdh.lifeup.util.TransactionUtil;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.hdh.lifeup.model.constant.TaskConst.TaskStatus;
+
+/**
+ * TeamSearchIndex class<br/>
+ * 进行中团队的标题和描述的内存倒排索引，替代 team_title LIKE '%xx%' 的全表扫描。
+ * 中文没有分词，按相邻两个字切分：标题收录单字和两字，描述只收录两字；
+ * 查询时取查询词所有两字的倒排表求交集，再用contains确认，标题命中的排在只命中描述的前面。
+ * <p>
+ * 启动后从数据库按主键分批重建，重建完成前 {@link #isReady()} 为false，调用方退回数据库查询。
+ * 团队的新增、修改和结束在事务提交后写入redis的变更日志，每个实例按序号增量读取日志，
+ * 从数据库重新加载有变化的团队，多个实例的索引最终一致
+ * @author hdonghong
+ * @since 2020/02/19
+ */
+@Slf4j
+@Component
+public class TeamSearchIndex {
+
+    /** 命中标题 */
+    public static final int TITLE_HIT = 2;
+
+    /** 只命中描述 */
+    public static final int DESC_HIT = 1;
+
+    /** 描述只索引前面这么多字，后面的部分搜不到 */
+    private static final int DESC_INDEX_LENGTH = 200;
+
+    private static final int BATCH_SIZE = 1000;
+
+    /** 变更日志最多保留的团队数，落后更多的实例会漏掉变更，要靠重建恢复 */
+    private static final int CHANGE_LOG_CAPACITY = 10000;
+
+    private static final String SEQ = "seq";
+
+    private static final String LOG = "log";
+
+    /**
+     * 生成变更序号并记入日志，同一个团队只保留最近一次的序号
+     * KEYS[1]: 序号；KEYS[2]: 日志zset；ARGV[1]: 团队id；ARGV[2]: 日志容量
+     */
+    private static final DefaultRedisScript<Long> PUBLISH_SCRIPT = new DefaultRedisScript<>(
+            "local seq = redis.call('INCR', KEYS[1]) " +
+            "redis.call('ZADD', KEYS[2], seq, ARGV[1]) " +
+            "redis.call('ZREMRANGEBYRANK', KEYS[2], 0, -(tonumber(ARGV[2]) + 1)) " +
+            "return seq", Long.class);
+
+    private final TeamTaskMapper teamTaskMapper;
+
+    private final RedisOperator redisOperator;
+
+    /** 团队id -> 索引中的团队 */
+    private volatile Map<Long, Doc> docs = new ConcurrentHashMap<>();
+
+    /** 词 -> 包含该词的团队id */
+    private volatile Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    /** 已经应用到索引的最大变更序号 */
+    private long appliedSeq;
+
+    @Autowired
+    public TeamSearchIndex(TeamTaskMapper teamTaskMapper, RedisOperator redisOperator) {
+        this.teamTaskMapper = teamTaskMapper;
+        this.redisOperator = redisOperator;
+    }
+
+    /**
+     * 从数据库重建索引。按主键分批读取，每批只取索引用到的列，不会一次把整表读进内存；
+     * 重建期间的变更由重建前记下的序号之后的日志补上
+     */
+    @Async("taskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long startSeq = currentSeq();
+        Map<Long, Doc> newDocs = new ConcurrentHashMap<>();
+        Map<String, Set<Long>> newPostings = new ConcurrentHashMap<>();
+        long lastId = Long.MIN_VALUE;
+        List<TeamTaskDO> batch;
+        do {
+            batch = teamTaskMapper.selectList(
+                    new QueryWrapper<TeamTaskDO>()
+                            .select("team_id", "team_title", "team_desc", "start_date", "team_rank", "rank_update_time")
+                            .ne("team_status", TaskStatus.COMPLETE)
+                            .gt("team_id", lastId)
+                            .orderByAsc("team_id")
+                            .last("LIMIT " + BATCH_SIZE)
+            );
+            batch.forEach(teamTaskDO -> put(newDocs, newPostings, teamTaskDO));
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getTeamId();
+            }
+        } while (batch.size() == BATCH_SIZE);
+
+        synchronized (this) {
+            docs = newDocs;
+            postings = newPostings;
+            appliedSeq = startSeq;
+            ready = true;
+        }
+        log.info("【团队搜索索引】从数据库重建完成，团队数 = [{}]，词数 = [{}]", newDocs.size(), newPostings.size());
+        sync();
+    }
+
+    /**
+     * 索引是否可用，重建完成前调用方应当退回数据库查询
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 搜索标题或描述包含关键字的团队
+     * @param keyword 关键字，忽略大小写
+     * @param startDateFilter 是否过滤掉已过截止日期的团队
+     * @return 命中的团队，无序，由调用方排序分页
+     */
+    public List<Hit> search(String keyword, boolean startDateFilter) {
+        String query = normalize(keyword).trim();
+        if (query.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<String, Set<Long>> currentPostings = postings;
+        Map<Long, Doc> currentDocs = docs;
+        // 单字查询只能用标题的单字，只命中描述的团队搜不到
+        Set<String> tokens = query.length() == 1 ? Collections.singleton(query) : bigrams(query);
+        List<Set<Long>> postingLists = Lists.newArrayListWithCapacity(tokens.size());
+        for (String token : tokens) {
+            Set<Long> teamIds = currentPostings.get(token);
+            if (teamIds == null) {
+                return Collections.emptyList();
+            }
+            postingLists.add(teamIds);
+        }
+        // 从最短的倒排表开始求交集
+        postingLists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> shortest = postingLists.get(0);
+        List<Set<Long>> others = postingLists.subList(1, postingLists.size());
+
+        LocalDate today = LocalDate.now();
+        List<Hit> hits = Lists.newArrayList();
+        for (Long teamId : shortest) {
+            if (!others.stream().allMatch(teamIds -> teamIds.contains(teamId))) {
+                continue;
+            }
+            Doc doc = currentDocs.get(teamId);
+            if (doc == null || (startDateFilter && !doc.getStartDate().isAfter(today))) {
+                continue;
+            }
+            // 两字都在不代表整个词连续出现，还要确认一次
+            if (doc.getTitle().contains(query)) {
+                hits.add(new Hit(teamId, TITLE_HIT, doc.getTeamRank(), doc.getRankUpdateTime()));
+            } else if (doc.getDesc().contains(query)) {
+                hits.add(new Hit(teamId, DESC_HIT, doc.getTeamRank(), doc.getRankUpdateTime()));
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * 团队新增、修改或结束后调用，在事务中调用时等提交后再写入变更日志
+     * @param teamId 团队id
+     */
+    public void changed(Long teamId) {
+        TransactionUtil.afterCommit("团队搜索索引", () -> {
+            redisOperator.eval(PUBLISH_SCRIPT, TeamKey.SEARCH_CHANGES, Arrays.asList(SEQ, LOG), teamId, CHANGE_LOG_CAPACITY);
+            sync();
+        });
+    }
+
+    /**
+     * 读取本实例还没有应用的变更，从数据库重新加载这些团队，已结束或已删除的移出索引
+     * @return 应用的变更数量
+     */
+    public int sync() {
+        if (!ready) {
+            return 0;
+        }
+        synchronized (this) {
+            Map<Long, Double> changes = redisOperator.zrangeByScoreWithScores(
+                    TeamKey.SEARCH_CHANGES, LOG, appliedSeq + 1, BATCH_SIZE);
+            if (changes.isEmpty()) {
+                return 0;
+            }
+            Map<Long, TeamTaskDO> teamTaskDOMap = teamTaskMapper.selectList(
+                    new QueryWrapper<TeamTaskDO>()
+                            .select("team_id", "team_title", "team_desc", "start_date", "team_rank", "rank_update_time", "team_status")
+                            .in("team_id", changes.keySet())
+            ).stream().collect(Collectors.toMap(TeamTaskDO::getTeamId, Function.identity()));
+            for (Long teamId : changes.keySet()) {
+                TeamTaskDO teamTaskDO = teamTaskDOMap.get(teamId);
+                if (teamTaskDO == null || TaskStatus.COMPLETE.equals(teamTaskDO.getTeamStatus())) {
+                    remove(teamId);
+                } else {
+                    put(teamTaskDO);
+                }
+            }
+            appliedSeq = Collections.max(changes.values()).longValue();
+            return changes.size();
+        }
+    }
+
+    /**
+     * 加入或更新一个团队
+     */
+    synchronized void put(TeamTaskDO teamTaskDO) {
+        remove(teamTaskDO.getTeamId());
+        put(docs, postings, teamTaskDO);
+    }
+
+    /**
+     * 移出一个团队
+     */
+    synchronized void remove(Long teamId) {
+        Doc doc = docs.remove(teamId);
+        if (doc == null) {
+            return;
+        }
+        for (String token : tokensOf(doc)) {
+            Set<Long> teamIds = postings.get(token);
+            if (teamIds != null) {
+                teamIds.remove(teamId);
+                if (teamIds.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    private static void put(Map<Long, Doc> docs, Map<String, Set<Long>> postings, TeamTaskDO teamTaskDO) {
+        String desc = normalize(teamTaskDO.getTeamDesc());
+        Doc doc = new Doc(
+                normalize(teamTaskDO.getTeamTitle()),
+                desc.length() > DESC_INDEX_LENGTH ? desc.substring(0, DESC_INDEX_LENGTH) : desc,
+                teamTaskDO.getStartDate() == null ? LocalDate.MAX : teamTaskDO.getStartDate(),
+                teamTaskDO.getTeamRank() == null ? 0 : teamTaskDO.getTeamRank(),
+                teamTaskDO.getRankUpdateTime()
+        );
+        docs.put(teamTaskDO.getTeamId(), doc);
+        for (String token : tokensOf(doc)) {
+            postings.computeIfAbsent(token, key -> ConcurrentHashMap.newKeySet()).add(teamTaskDO.getTeamId());
+        }
+    }
+
+    /**
+     * 团队在索引中的词：标题的单字和两字，描述的两字
+     */
+    static Set<String> tokensOf(Doc doc) {
+        String title = doc.getTitle();
+        Set<String> tokens = new HashSet<>();
+        for (int i = 0, len = title.length(); i < len; i++) {
+            tokens.add(title.substring(i, i + 1));
+        }
+        tokens.addAll(bigrams(title));
+        tokens.addAll(bigrams(doc.getDesc()));
+        return tokens;
+    }
+
+    /**
+     * 相邻两个字切分，不足两个字时返回空集合
+     */
+    static Set<String> bigrams(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (int i = 0, len = text.length(); i + 2 <= len; i++) {
+            tokens.add(text.substring(i, i + 2));
+        }
+        return tokens;
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private long currentSeq() {
+        return Optional.ofNullable(redisOperator.get(TeamKey.SEARCH_CHANGES, SEQ)).orElse(0L);
+    }
+
+    /**
+     * 索引中的团队，只保留搜索和排序用到的字段
+     */
+    @Data
+    @AllArgsConstructor
+    static class Doc {
+        private String title;
+        private String desc;
+        private LocalDate startDate;
+        /** 数据库中的活跃度，不在活跃度排行中的团队用它衰减到现在的值排序 */
+        private int teamRank;
+        /** 活跃度的结算时刻 */
+        private LocalDateTime rankUpdateTime;
+    }
+
+    /**
+     * 一条搜索结果
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Hit {
+        private Long teamId;
+        /** {@link #TITLE_HIT} 或 {@link #DESC_HIT} */
+        private int matchLevel;
+        /** 数据库中的活跃度，还没有衰减 */
+        private int teamRank;
+        private LocalDateTime rankUpdateTime;
+    }
+}
@@ -100,13 +100,6 @@ public interface TeamTaskService {
      */
     void endTeam(Long teamId);
 
-    /**
-     * 获取所有活跃的团队
-     * 即 team_rank != 0
-     * @return
-     */
-    List<TeamTaskDTO> getAllActiveTeams();
-
     /**
      * 增加团队活跃度排序值，e 小于0时则减少
      * @param teamId
@@ -0,0 +1,41 @@
+package com.hdh.lifeup.service;
+
+import com.hdh.lifeup.model.dto.PageDTO;
+import com.hdh.lifeup.model.dto.TeamMemberRecordDTO;
+
+/**
+ * TimelineService interface<br/>
+ * 朋友圈时间线，写时推送到粉丝收件箱，大V读时拉取
+ * @author hdonghong
+ * @since 2020/01/12
+ */
+public interface TimelineService {
+
+    /**
+     * 将新发布的动态推送到作者及其粉丝的收件箱，大V只写发件箱
+     * @param memberRecordDTO 新动态，要求memberRecordId和userId不为空
+     */
+    void fanOut(TeamMemberRecordDTO memberRecordDTO);
+
+    /**
+     * 分页读取用户朋友圈的动态id，按发布时间倒序
+     * @param userId 用户id
+     * @param pageDTO 分页条件，传了游标时按游标翻页
+     * @param filter 过滤条件，0无；1过滤默认发的
+     * @return 动态id分页
+     */
+    PageDTO<Long> pageTimeline(Long userId, PageDTO pageDTO, int filter);
+
+    /**
+     * 清空用户的收件箱，关注关系变化时调用，下次读时重建
+     * @param userId 用户id
+     */
+    void evictInbox(Long userId);
+
+    /**
+     * 从作者的发件箱以及作者和粉丝的收件箱中移除动态，大V的动态不在粉丝的收件箱中，只清理作者自己的
+     * @param authorId 作者id
+     * @param memberRecordId 动态id
+     */
+    void removeRecord(Long authorId, Long memberRecordId);
+}
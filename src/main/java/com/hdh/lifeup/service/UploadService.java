@@ -0,0 +1,31 @@
+package com.hdh.lifeup.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+
+/**
+ * UploadService interface<br/>
+ * 图片上传，文件保存在 {@link StorageBackend} 中
+ * @author hdonghong
+ * @since 2020/02/20
+ */
+public interface UploadService {
+
+    /**
+     * 上传一张图片
+     * @param imageFile 图片
+     * @param imageUri 保存的目录，见 {@link com.hdh.lifeup.config.QiniuConfig#getImageURI(String)}
+     * @return 图片的访问地址
+     */
+    String uploadImage(MultipartFile imageFile, String imageUri);
+
+    /**
+     * 并行上传多张图片，任意一张失败则整体失败
+     * @param imageFiles 图片
+     * @param imageUri 保存的目录
+     * @param withVariants 是否同时生成缩略图和中图，在后台生成，不等待完成，生成失败或还没生成完时动态中使用原图
+     * @return 与imageFiles顺序一致的原图地址，缩小版本见 {@link ImageVariantService#getVariants(List)}
+     */
+    List<String> uploadImages(List<MultipartFile> imageFiles, String imageUri, boolean withVariants);
+}
@@ -0,0 +1,120 @@
+package com.hdh.lifeup.service;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hdh.lifeup.convert.DomainConverter;
+import com.hdh.lifeup.dao.UserInfoMapper;
+import com.hdh.lifeup.model.domain.UserInfoDO;
+import com.hdh.lifeup.model.dto.UserCardDTO;
+import com.hdh.lifeup.redis.RedisBatch;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.redis.UserKey;
+import com.hdh.lifeup.util.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * UserCardCache class<br/>
+ * 用户卡片的读穿缓存：先用一次MGET取回，未命中的用户一次selectBatchIds查出，再用一次管道写回。
+ * 不存在的用户不缓存，修改用户信息的事务提交后删除卡片
+ * @author hdonghong
+ * @since 2020/02/18
+ */
+@Slf4j
+@Component
+public class UserCardCache {
+
+    private final RedisOperator redisOperator;
+
+    private final UserInfoMapper userInfoMapper;
+
+    @Autowired
+    public UserCardCache(RedisOperator redisOperator, UserInfoMapper userInfoMapper) {
+        this.redisOperator = redisOperator;
+        this.userInfoMapper = userInfoMapper;
+    }
+
+    /**
+     * 获取一个用户的卡片
+     * @param userId 用户id
+     * @return 卡片，用户不存在时为null
+     */
+    public UserCardDTO get(Long userId) {
+        return getMany(Collections.singletonList(userId)).get(userId);
+    }
+
+    /**
+     * 批量获取用户卡片，redis和数据库各最多一次
+     * @param userIds 用户id，可以重复
+     * @return userId到卡片，不存在的用户没有对应的项
+     */
+    public Map<Long, UserCardDTO> getMany(Collection<Long> userIds) {
+        List<Long> distinctIds = userIds.stream().distinct().collect(Collectors.toList());
+        if (distinctIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<UserCardDTO> cachedCards = redisOperator.mget(UserKey.CARD, distinctIds);
+        Map<Long, UserCardDTO> cards = Maps.newHashMapWithExpectedSize(distinctIds.size());
+        List<Long> missIds = Lists.newArrayList();
+        for (int i = 0, size = distinctIds.size(); i < size; i++) {
+            UserCardDTO card = cachedCards.get(i);
+            if (card != null) {
+                cards.put(distinctIds.get(i), card);
+            } else {
+                missIds.add(distinctIds.get(i));
+            }
+        }
+        if (missIds.isEmpty()) {
+            return cards;
+        }
+
+        List<UserInfoDO> userInfoDOList = userInfoMapper.selectBatchIds(missIds);
+        if (userInfoDOList.isEmpty()) {
+            return cards;
+        }
+        RedisBatch batch = redisOperator.batch();
+        for (UserInfoDO userInfoDO : userInfoDOList) {
+            UserCardDTO card = DomainConverter.INSTANCE.toUserCardDTO(userInfoDO);
+            cards.put(card.getUserId(), card);
+            batch.setex(UserKey.CARD, card.getUserId(), card);
+        }
+        batch.execute();
+        return cards;
+    }
+
+    /**
+     * 用卡片填充列表中的昵称、头像，用户不存在时保持原样
+     * @param list 列表
+     * @param userIdGetter 取列表项的用户id
+     * @param cardSetter 把卡片填入列表项
+     */
+    public <T> void assemble(List<T> list, Function<T, Long> userIdGetter, BiConsumer<T, UserCardDTO> cardSetter) {
+        if (list.isEmpty()) {
+            return;
+        }
+        Map<Long, UserCardDTO> cards = getMany(list.stream().map(userIdGetter).collect(Collectors.toList()));
+        for (T item : list) {
+            UserCardDTO card = cards.get(userIdGetter.apply(item));
+            if (card != null) {
+                cardSetter.accept(item, card);
+            }
+        }
+    }
+
+    /**
+     * 用户信息修改后删除卡片，在事务中调用时等提交后再删除
+     * @param userId 用户id
+     */
+    public void evict(Long userId) {
+        TransactionUtil.afterCommit("用户卡片缓存", () -> redisOperator.del(UserKey.CARD, userId));
+    }
+}
@@ -9,9 +9,9 @@ import com.hdh.lifeup.model.enums.CodeMsgEnum;
 import com.hdh.lifeup.exception.GlobalException;
 import com.hdh.lifeup.dao.AttributeMapper;
 import com.hdh.lifeup.service.AttributeService;
+import com.hdh.lifeup.convert.DomainConverter;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -52,7 +52,7 @@ public class AttributeServiceImpl implements AttributeService {
             log.error("【更新人物属性】人物属性不存在，也可能是不存在的用户，user = [{}]", UserContext.get());
             throw new GlobalException(CodeMsgEnum.ATTRIBUTE_NOT_EXIST);
         }
-        BeanUtils.copyProperties(attributeDTO, attributeDO, "userId");
+        DomainConverter.INSTANCE.update(attributeDTO, attributeDO);
         Integer result = attributeMapper.update(
                 attributeDO,
                 new QueryWrapper<AttributeDO>().eq("user_id", userId)
@@ -0,0 +1,92 @@
+package com.hdh.lifeup.service.impl;
+
+import com.google.common.collect.Lists;
+import com.hdh.lifeup.model.dto.PageDTO;
+import com.hdh.lifeup.redis.RedisBatch;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.redis.UserKey;
+import com.hdh.lifeup.service.FollowService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static com.hdh.lifeup.model.constant.UserConst.FollowStatus;
+
+/**
+ * FollowServiceImpl class<br/>
+ * 分页用ZRANGE只取一页，总数用ZCARD，两条命令在一个管道里；
+ * 关注关系只看当前用户自己的两个zset，N个用户的关系一次管道查完
+ * @author hdonghong
+ * @since 2020/02/15
+ */
+@Service
+public class FollowServiceImpl implements FollowService {
+
+    private RedisOperator redisOperator;
+
+    @Autowired
+    public FollowServiceImpl(RedisOperator redisOperator) {
+        this.redisOperator = redisOperator;
+    }
+
+    @Override
+    public PageDTO<Long> pageFollowings(Long userId, PageDTO pageDTO) {
+        return page(UserKey.FOLLOWING, userId, pageDTO);
+    }
+
+    @Override
+    public PageDTO<Long> pageFollowers(Long userId, PageDTO pageDTO) {
+        return page(UserKey.FOLLOWER, userId, pageDTO);
+    }
+
+    @Override
+    public List<Integer> getFollowStatuses(Long userId, List<Long> targetIds) {
+        if (targetIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int size = targetIds.size();
+        RedisBatch batch = redisOperator.batch();
+        List<RedisBatch.Response<Long>> followings = Lists.newArrayListWithCapacity(size);
+        List<RedisBatch.Response<Long>> followers = Lists.newArrayListWithCapacity(size);
+        for (Long targetId : targetIds) {
+            // 对方是否我关注的人、是否我的粉丝，两个zset都在我自己名下
+            followings.add(batch.zrank(UserKey.FOLLOWING, userId, targetId));
+            followers.add(batch.zrank(UserKey.FOLLOWER, userId, targetId));
+        }
+        batch.execute();
+
+        List<Integer> statuses = Lists.newArrayListWithCapacity(size);
+        for (int i = 0; i < size; i++) {
+            int status;
+            if (userId.equals(targetIds.get(i))) {
+                status = FollowStatus.MYSELF;
+            } else if (followings.get(i).get() == null) {
+                status = FollowStatus.NOT_FOLLOW;
+            } else {
+                status = followers.get(i).get() != null ? FollowStatus.INTERACTIVE : FollowStatus.FOLLOWING;
+            }
+            statuses.add(status);
+        }
+        return statuses;
+    }
+
+    private PageDTO<Long> page(UserKey<Long> userKey, Long userId, PageDTO pageDTO) {
+        long size = pageDTO.getSize();
+        long currentPage = pageDTO.currentPageOrFirst();
+        long start = (currentPage - 1) * size;
+
+        RedisBatch batch = redisOperator.batch();
+        RedisBatch.Response<Long> total = batch.zcard(userKey, userId);
+        RedisBatch.Response<LinkedHashSet<Long>> userIds = batch.zrange(userKey, userId, start, start + size - 1);
+        batch.execute();
+
+        return PageDTO.<Long>builder()
+                .currentPage(currentPage)
+                .list(Lists.newArrayList(userIds.get()))
+                .totalPage((long) Math.ceil((total.get() * 1.0) / size))
+                .build();
+    }
+}
@@ -0,0 +1,197 @@
+package com.hdh.lifeup.service.impl;
+
+import com.hdh.lifeup.config.StorageConfig;
+import com.hdh.lifeup.dao.TeamMemberRecordMapper;
+import com.hdh.lifeup.model.domain.TeamMemberRecordDO;
+import com.hdh.lifeup.model.dto.ImageVariantDTO;
+import com.hdh.lifeup.redis.ImageKey;
+import com.hdh.lifeup.redis.MemberRecordKey;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.service.ImageVariantService;
+import com.hdh.lifeup.service.StorageBackend;
+import com.hdh.lifeup.util.ImageUtil;
+import com.hdh.lifeup.util.JsonUtil;
+import com.hdh.lifeup.util.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * ImageVariantServiceImpl class<br/>
+ * 原图解码时按中图尺寸降采样，摆正方向后先缩到中图，再由中图缩到缩略图，两者一起编码；
+ * 解码编码在imageExecutor中执行，保存走uploadExecutor，不占用对方的线程。
+ * 上传不等缩小版本，发布动态时还没生成完的，生成后再回填到动态中
+ * @author hdonghong
+ * @since 2020/02/20
+ */
+@Slf4j
+@Service
+public class ImageVariantServiceImpl implements ImageVariantService {
+
+    private static final String DEFAULT_FORMAT = "jpg";
+
+    /** 有透明通道的图片不能用jpg */
+    private static final String ALPHA_FORMAT = "png";
+
+    private final StorageBackend storageBackend;
+
+    private final Executor imageExecutor;
+
+    private final Executor uploadExecutor;
+
+    private final RedisOperator redisOperator;
+
+    private final TeamMemberRecordMapper memberRecordMapper;
+
+    private final int thumbEdge;
+
+    private final int mediumEdge;
+
+    private final String variantFormat;
+
+    private final float variantQuality;
+
+    @Autowired
+    public ImageVariantServiceImpl(StorageBackend storageBackend,
+                                   @Qualifier("imageExecutor") Executor imageExecutor,
+                                   @Qualifier("uploadExecutor") Executor uploadExecutor,
+                                   RedisOperator redisOperator,
+                                   TeamMemberRecordMapper memberRecordMapper,
+                                   StorageConfig storageConfig) {
+        this.storageBackend = storageBackend;
+        this.imageExecutor = imageExecutor;
+        this.uploadExecutor = uploadExecutor;
+        this.redisOperator = redisOperator;
+        this.memberRecordMapper = memberRecordMapper;
+        this.thumbEdge = storageConfig.getThumbEdge();
+        this.mediumEdge = storageConfig.getMediumEdge();
+        this.variantQuality = storageConfig.getVariantQuality();
+        if (ImageUtil.canEncode(storageConfig.getVariantFormat())) {
+            this.variantFormat = storageConfig.getVariantFormat();
+        } else {
+            log.warn("【图片缩放】没有 [{}] 格式的编码器，改用 [{}]", storageConfig.getVariantFormat(), DEFAULT_FORMAT);
+            this.variantFormat = DEFAULT_FORMAT;
+        }
+    }
+
+    @Override
+    public CompletableFuture<ImageVariantDTO> createVariants(String imageName, byte[] image) {
+        int dot = imageName.lastIndexOf('.');
+        String baseName = dot > imageName.lastIndexOf('/') ? imageName.substring(0, dot) : imageName;
+        return CompletableFuture.supplyAsync(() -> encodeVariants(image), imageExecutor)
+                .thenApplyAsync(encoded -> encoded == null ? null : store(baseName, encoded), uploadExecutor);
+    }
+
+    @Override
+    public void saveVariants(String imageUrl, ImageVariantDTO variants) {
+        redisOperator.setex(ImageKey.VARIANTS, imageUrl, variants);
+        // 先写缩小版本再查等待的动态，与fillWhenReady的顺序相反，两边至少有一边能看到对方
+        Long memberRecordId = redisOperator.get(ImageKey.PENDING_RECORD, imageUrl);
+        if (memberRecordId != null) {
+            fillRecord(memberRecordId);
+            redisOperator.del(ImageKey.PENDING_RECORD, imageUrl);
+        }
+    }
+
+    @Override
+    public List<ImageVariantDTO> getVariants(List<String> imageUrls) {
+        List<ImageVariantDTO> variants = redisOperator.mget(ImageKey.VARIANTS, imageUrls);
+        List<ImageVariantDTO> result = new ArrayList<>(imageUrls.size());
+        for (int i = 0, len = imageUrls.size(); i < len; i++) {
+            ImageVariantDTO variant = variants.get(i);
+            result.add(variant != null ? variant : new ImageVariantDTO(imageUrls.get(i), imageUrls.get(i)));
+        }
+        return result;
+    }
+
+    @Override
+    public void fillWhenReady(Long memberRecordId, List<String> imageUrls) {
+        TransactionUtil.afterCommit("图片缩放", () -> {
+            imageUrls.forEach(imageUrl -> redisOperator.setex(ImageKey.PENDING_RECORD, imageUrl, memberRecordId));
+            // 从发布到现在可能已经生成完了，这时saveVariants看不到等待的动态，由这里回填
+            List<ImageVariantDTO> variants = redisOperator.mget(ImageKey.VARIANTS, imageUrls);
+            if (variants.stream().anyMatch(Objects::nonNull)) {
+                fillRecord(memberRecordId);
+            }
+        });
+    }
+
+    /**
+     * 按目前已有的缩小版本重写动态的缩略图和中图，重复执行结果一样
+     */
+    private void fillRecord(Long memberRecordId) {
+        TeamMemberRecordDO recordDO = memberRecordMapper.selectById(memberRecordId);
+        // 动态已经被删除
+        if (recordDO == null || recordDO.getActivityImages() == null) {
+            return;
+        }
+        List<ImageVariantDTO> variants = getVariants(JsonUtil.jsonToList(recordDO.getActivityImages(), String.class));
+        TeamMemberRecordDO updateDO = new TeamMemberRecordDO();
+        updateDO.setMemberRecordId(memberRecordId);
+        updateDO.setActivityThumbs(JsonUtil.toJson(
+                variants.stream().map(ImageVariantDTO::getThumb).collect(Collectors.toList())));
+        updateDO.setActivityMediums(JsonUtil.toJson(
+                variants.stream().map(ImageVariantDTO::getMedium).collect(Collectors.toList())));
+        memberRecordMapper.updateById(updateDO);
+        redisOperator.del(MemberRecordKey.ID, memberRecordId);
+        log.info("【图片缩放】回填动态的缩小版本，memberRecordId = [{}]", memberRecordId);
+    }
+
+    private EncodedVariants encodeVariants(byte[] image) {
+        try {
+            BufferedImage decoded = ImageUtil.decode(image, mediumEdge);
+            if (decoded == null) {
+                return null;
+            }
+            BufferedImage medium = ImageUtil.scaleToFit(
+                    ImageUtil.orient(decoded, ImageUtil.readOrientation(image)), mediumEdge);
+            BufferedImage thumb = ImageUtil.scaleToFit(medium, thumbEdge);
+            String format = ImageUtil.hasAlpha(medium) ? ALPHA_FORMAT : variantFormat;
+            return new EncodedVariants(format,
+                    ImageUtil.encode(thumb, format, variantQuality),
+                    ImageUtil.encode(medium, format, variantQuality));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ImageVariantDTO store(String baseName, EncodedVariants encoded) {
+        try {
+            String thumbName = baseName + "_thumb." + encoded.format;
+            String mediumName = baseName + "_medium." + encoded.format;
+            String contentType = "image/" + ("jpg".equals(encoded.format) ? "jpeg" : encoded.format);
+            return new ImageVariantDTO(
+                    storageBackend.put(thumbName, new ByteArrayInputStream(encoded.thumb), encoded.thumb.length, contentType),
+                    storageBackend.put(mediumName, new ByteArrayInputStream(encoded.medium), encoded.medium.length, contentType));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class EncodedVariants {
+
+        private final String format;
+
+        private final byte[] thumb;
+
+        private final byte[] medium;
+
+        private EncodedVariants(String format, byte[] thumb, byte[] medium) {
+            this.format = format;
+            this.thumb = thumb;
+            this.medium = medium;
+        }
+    }
+}
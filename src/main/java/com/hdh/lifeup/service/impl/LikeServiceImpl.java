@@ -1,22 +1,28 @@
 package com.hdh.lifeup.service.impl;
 
+import com.google.common.collect.Lists;
 import com.hdh.lifeup.dao.LikeCountUserMapper;
 import com.hdh.lifeup.exception.GlobalException;
 import com.hdh.lifeup.model.domain.LikeCountUserDO;
+import com.hdh.lifeup.model.dto.RecordDTO;
 import com.hdh.lifeup.model.dto.TeamMemberRecordDTO;
 import com.hdh.lifeup.model.enums.CodeMsgEnum;
 import com.hdh.lifeup.redis.KeyPrefix;
 import com.hdh.lifeup.redis.LikeKey;
+import com.hdh.lifeup.redis.RedisBatch;
 import com.hdh.lifeup.redis.RedisOperator;
 import com.hdh.lifeup.redis.UserKey;
 import com.hdh.lifeup.service.AsyncTaskService;
 import com.hdh.lifeup.service.LikeService;
+import com.hdh.lifeup.service.LikeWriteBuffer;
 import com.hdh.lifeup.service.TeamMemberService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * LikeServiceImpl class<br/>
  *
@@ -40,6 +46,9 @@ public class LikeServiceImpl implements LikeService {
     @Autowired
     private LikeCountUserMapper likeCountUserMapper;
 
+    @Autowired
+    private LikeWriteBuffer likeWriteBuffer;
+
     @Override
     public int doLike(Long userId, Long memberRecordId) {
         TeamMemberRecordDTO memberRecordDTO = teamMemberService.getOneMemberRecord(memberRecordId);
@@ -53,10 +62,10 @@ public class LikeServiceImpl implements LikeService {
 
         // 记录的创建者的点赞数加1
         Long creatorId = memberRecordDTO.getUserId();
-        int likeCount = (int) redisOperator.incr(UserKey.LIKE_COUNT, creatorId);
+        redisOperator.incr(UserKey.LIKE_COUNT, creatorId);
 
-        // 异步写库
-        asyncTaskService.doLike(userId, memberRecordDTO);
+        // 合并后批量写库
+        likeWriteBuffer.like(memberRecordId, userId, creatorId);
         return (int) redisOperator.scard(LikeKey.ACTIVITY, memberRecordId);
     }
 
@@ -71,10 +80,10 @@ public class LikeServiceImpl implements LikeService {
         }
         // 记录的创建者的点赞数减1
         Long creatorId = memberRecordDTO.getUserId();
-        long likeCount = redisOperator.decr(UserKey.LIKE_COUNT, creatorId);
+        redisOperator.decr(UserKey.LIKE_COUNT, creatorId);
 
-        // 异步写库
-        asyncTaskService.undoLike(userId, memberRecordDTO);
+        // 合并后批量写库
+        likeWriteBuffer.unlike(memberRecordId, userId, creatorId);
         return (int) redisOperator.scard(LikeKey.ACTIVITY, memberRecordId);
     }
 
@@ -106,6 +115,27 @@ public class LikeServiceImpl implements LikeService {
         return redisOperator.sismember(keyPrefix, sourceId, userId) ? 1 : 0;
     }
 
+    @Override
+    public void assembleLikes(List<RecordDTO> recordList, Long userId) {
+        if (recordList.isEmpty()) {
+            return;
+        }
+        // 点赞状态和点赞数放在同一个管道里，整页只需一次往返
+        RedisBatch batch = redisOperator.batch();
+        List<RedisBatch.Response<Boolean>> likeFlags = Lists.newArrayListWithCapacity(recordList.size());
+        List<RedisBatch.Response<Long>> likeCounts = Lists.newArrayListWithCapacity(recordList.size());
+        recordList.forEach(recordDTO -> {
+            likeFlags.add(batch.sismember(LikeKey.ACTIVITY, recordDTO.getMemberRecordId(), userId));
+            likeCounts.add(batch.scard(LikeKey.ACTIVITY, recordDTO.getMemberRecordId()));
+        });
+        batch.execute();
+        for (int i = 0, len = recordList.size(); i < len; i++) {
+            recordList.get(i)
+                    .setIsLike(likeFlags.get(i).get() ? 1 : 0)
+                    .setLikeCount(likeCounts.get(i).get().intValue());
+        }
+    }
+
     @Override
     public int exchangeLike(Long userId, Integer count) {
         // 获取总赞数和已经兑换的赞数
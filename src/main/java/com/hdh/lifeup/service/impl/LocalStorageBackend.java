@@ -0,0 +1,46 @@
+package com.hdh.lifeup.service.impl;
+
+import com.hdh.lifeup.config.StorageConfig;
+import com.hdh.lifeup.service.StorageBackend;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * LocalStorageBackend class<br/>
+ * 本地目录存储，测试和压测时代替七牛云，storage.type = local 时启用
+ * @author hdonghong
+ * @since 2020/02/20
+ */
+@Service
+@ConditionalOnProperty(prefix = "storage", name = "type", havingValue = StorageConfig.TYPE_LOCAL)
+public class LocalStorageBackend implements StorageBackend {
+
+    private final Path root;
+
+    private final String urlPrefix;
+
+    @Autowired
+    public LocalStorageBackend(StorageConfig storageConfig) {
+        this.root = Paths.get(storageConfig.getLocalPath()).toAbsolutePath().normalize();
+        this.urlPrefix = storageConfig.getLocalUrl();
+    }
+
+    @Override
+    public String put(String key, InputStream input, long size, String contentType) throws IOException {
+        Path target = root.resolve(key).normalize();
+        if (!target.startsWith(root)) {
+            throw new IOException("非法的文件路径：" + key);
+        }
+        Files.createDirectories(target.getParent());
+        Files.copy(input, target, StandardCopyOption.REPLACE_EXISTING);
+        return urlPrefix + key;
+    }
+}
@@ -0,0 +1,77 @@
+package com.hdh.lifeup.service.impl;
+
+import com.hdh.lifeup.config.QiniuConfig;
+import com.hdh.lifeup.config.StorageConfig;
+import com.hdh.lifeup.service.StorageBackend;
+import com.qiniu.common.QiniuException;
+import com.qiniu.common.Zone;
+import com.qiniu.http.Response;
+import com.qiniu.storage.Configuration;
+import com.qiniu.storage.UploadManager;
+import com.qiniu.util.Auth;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+
+/**
+ * QiniuStorageBackend class<br/>
+ * 七牛云存储。UploadManager内部的http客户端带连接池，整个应用共用一个；
+ * 上传凭证对整个bucket有效，缓存到快过期时再重新生成，不再每个文件签一次
+ * @author hdonghong
+ * @since 2020/02/20
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "storage", name = "type", havingValue = StorageConfig.TYPE_QINIU, matchIfMissing = true)
+public class QiniuStorageBackend implements StorageBackend {
+
+    /** 凭证在过期前这么久就重新生成，避免上传到一半凭证失效 */
+    private static final long TOKEN_REFRESH_AHEAD_MILLIS = 60 * 1000;
+
+    private final QiniuConfig qiniuConfig;
+
+    private final int tokenExpireSeconds;
+
+    private final UploadManager uploadManager;
+
+    private final Auth auth;
+
+    private volatile String upToken;
+
+    private volatile long upTokenExpireAt;
+
+    @Autowired
+    public QiniuStorageBackend(QiniuConfig qiniuConfig, StorageConfig storageConfig) {
+        this.qiniuConfig = qiniuConfig;
+        this.tokenExpireSeconds = storageConfig.getTokenExpireSeconds();
+        this.uploadManager = new UploadManager(new Configuration(Zone.zone2()));
+        this.auth = Auth.create(qiniuConfig.getAccessKey(), qiniuConfig.getSecretKey());
+    }
+
+    @Override
+    public String put(String key, InputStream input, long size, String contentType) throws QiniuException {
+        Response response = uploadManager.put(input, key, getUpToken(), null, contentType);
+        if (!response.isOK()) {
+            log.error("【七牛上传】上传失败，key = [{}], response = [{}]", key, response);
+            throw new QiniuException(response);
+        }
+        return qiniuConfig.getCdnPath() + key;
+    }
+
+    private String getUpToken() {
+        if (System.currentTimeMillis() < upTokenExpireAt) {
+            return upToken;
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (now >= upTokenExpireAt) {
+                upToken = auth.uploadToken(qiniuConfig.getBucket(), null, tokenExpireSeconds, null);
+                upTokenExpireAt = now + tokenExpireSeconds * 1000L - TOKEN_REFRESH_AHEAD_MILLIS;
+            }
+            return upToken;
+        }
+    }
+}
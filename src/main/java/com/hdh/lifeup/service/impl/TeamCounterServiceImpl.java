@@ -0,0 +1,191 @@
+package com.hdh.lifeup.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.hdh.lifeup.dao.TeamMemberMapper;
+import com.hdh.lifeup.dao.TeamMemberRecordMapper;
+import com.hdh.lifeup.model.domain.TeamMemberDO;
+import com.hdh.lifeup.model.domain.TeamMemberRecordDO;
+import com.hdh.lifeup.model.dto.CountDTO;
+import com.hdh.lifeup.redis.CountKey;
+import com.hdh.lifeup.redis.RedisBatch;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.service.TeamCounterService;
+import com.hdh.lifeup.util.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.hdh.lifeup.model.constant.TaskConst.ActivityIcon;
+
+/**
+ * TeamCounterServiceImpl class<br/>
+ * 计数器只在存在时累加（INCRBY在脚本里判断），不存在时由读取方从数据库加载并 SET NX，
+ * 避免累加到一个从0开始的新key上。累加后把id记入待核对集合，核对在累加之后，
+ * 即使核对与累加交错产生偏差，这次累加也会让id再次进入集合，在下一轮被修正
+ * @author hdonghong
+ * @since 2020/02/17
+ */
+@Slf4j
+@Service
+public class TeamCounterServiceImpl implements TeamCounterService {
+
+    /** 公开动态数和待核对集合都只有一个，key固定 */
+    private static final String ALL = "all";
+
+    /** 单次核对的id数 */
+    private static final int BATCH_SIZE = 500;
+
+    private RedisOperator redisOperator;
+
+    private TeamMemberMapper memberMapper;
+
+    private TeamMemberRecordMapper memberRecordMapper;
+
+    @Autowired
+    public TeamCounterServiceImpl(RedisOperator redisOperator, TeamMemberMapper memberMapper,
+                                  TeamMemberRecordMapper memberRecordMapper) {
+        this.redisOperator = redisOperator;
+        this.memberMapper = memberMapper;
+        this.memberRecordMapper = memberRecordMapper;
+    }
+
+    @Override
+    public int countTeamMembers(Long teamId) {
+        return count(CountKey.TEAM_MEMBERS, teamId,
+                () -> memberMapper.selectCount(new QueryWrapper<TeamMemberDO>().eq("team_id", teamId)));
+    }
+
+    @Override
+    public int countTeamRecords(Long teamId) {
+        return count(CountKey.TEAM_RECORDS, teamId,
+                () -> memberRecordMapper.selectCount(new QueryWrapper<TeamMemberRecordDO>().eq("team_id", teamId)));
+    }
+
+    @Override
+    public int countUserTeams(Long userId) {
+        return count(CountKey.USER_TEAMS, userId,
+                () -> memberMapper.selectCount(new QueryWrapper<TeamMemberDO>().eq("user_id", userId)));
+    }
+
+    @Override
+    public int countPublicRecords() {
+        return count(CountKey.PUBLIC_RECORDS, ALL, this::selectPublicRecords);
+    }
+
+    @Override
+    public void memberChanged(Long teamId, Long userId, int delta) {
+        TransactionUtil.afterCommit("计数器", () -> {
+            redisOperator.incrbyIfExists(CountKey.TEAM_MEMBERS, Collections.singleton(teamId), delta);
+            redisOperator.incrbyIfExists(CountKey.USER_TEAMS, Collections.singleton(userId), delta);
+            RedisBatch batch = redisOperator.batch();
+            batch.sadd(CountKey.DIRTY_TEAMS, ALL, teamId);
+            batch.sadd(CountKey.DIRTY_USERS, ALL, userId);
+            batch.execute();
+        });
+    }
+
+    @Override
+    public void recordChanged(Long teamId, Integer activityIcon, int delta) {
+        TransactionUtil.afterCommit("计数器", () -> {
+            redisOperator.incrbyIfExists(CountKey.TEAM_RECORDS, Collections.singleton(teamId), delta);
+            if (isPublic(activityIcon)) {
+                redisOperator.incrbyIfExists(CountKey.PUBLIC_RECORDS, Collections.singleton(ALL), delta);
+            }
+            redisOperator.sadd(CountKey.DIRTY_TEAMS, ALL, teamId);
+        });
+    }
+
+    @Override
+    public int reconcile() {
+        int repaired = 0;
+        List<Long> teamIds;
+        while (!(teamIds = redisOperator.spop(CountKey.DIRTY_TEAMS, ALL, BATCH_SIZE)).isEmpty()) {
+            try {
+                repaired += repair(CountKey.TEAM_MEMBERS, teamIds, memberMapper::countByTeamIds);
+                repaired += repair(CountKey.TEAM_RECORDS, teamIds, memberRecordMapper::countByTeamIds);
+            } catch (RuntimeException e) {
+                log.error("【计数器核对】失败，放回待核对集合，teamIds = [{}]", teamIds, e);
+                redisOperator.sadd(CountKey.DIRTY_TEAMS, ALL, teamIds.toArray());
+                return repaired;
+            }
+        }
+        List<Long> userIds;
+        while (!(userIds = redisOperator.spop(CountKey.DIRTY_USERS, ALL, BATCH_SIZE)).isEmpty()) {
+            try {
+                repaired += repair(CountKey.USER_TEAMS, userIds, memberMapper::countByUserIds);
+            } catch (RuntimeException e) {
+                log.error("【计数器核对】失败，放回待核对集合，userIds = [{}]", userIds, e);
+                redisOperator.sadd(CountKey.DIRTY_USERS, ALL, userIds.toArray());
+                return repaired;
+            }
+        }
+        // 公开动态数每次都核对，只有一条sql
+        Long cached = redisOperator.get(CountKey.PUBLIC_RECORDS, ALL);
+        if (cached != null) {
+            int actual = selectPublicRecords();
+            if (cached != actual) {
+                log.warn("【计数器核对】公开动态数有偏差，cached = [{}], actual = [{}]", cached, actual);
+                redisOperator.setex(CountKey.PUBLIC_RECORDS, ALL, actual);
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    /**
+     * 用数据库分组统计的结果覆盖有偏差的计数器，redis中不存在的计数器跳过，读取时会重新加载
+     * @return 修正的计数器数量
+     */
+    private int repair(CountKey<Long> countKey, List<Long> ids, Function<List<Long>, List<CountDTO>> counter) {
+        List<Long> cachedCounts = redisOperator.mget(countKey, ids);
+        Map<Long, Integer> actualCounts = counter.apply(ids).stream()
+                .collect(Collectors.toMap(CountDTO::getId, CountDTO::getCount));
+        int repaired = 0;
+        for (int i = 0, size = ids.size(); i < size; i++) {
+            Long cached = cachedCounts.get(i);
+            if (cached == null) {
+                continue;
+            }
+            long actual = actualCounts.getOrDefault(ids.get(i), 0);
+            if (cached != actual) {
+                log.warn("【计数器核对】有偏差，key = [{}{}], cached = [{}], actual = [{}]",
+                        countKey.getPrefix(), ids.get(i), cached, actual);
+                redisOperator.setex(countKey, ids.get(i), actual);
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    private int count(CountKey<Long> countKey, Object key, Supplier<Integer> loader) {
+        Long cached = redisOperator.get(countKey, key);
+        if (cached != null) {
+            return cached.intValue();
+        }
+        int count = Optional.ofNullable(loader.get()).orElse(0);
+        // 加载期间已有其他请求写入时以先写入的为准
+        redisOperator.setnxex(countKey, key, (long) count);
+        return count;
+    }
+
+    private int selectPublicRecords() {
+        Integer count = memberRecordMapper.selectCount(
+                new QueryWrapper<TeamMemberRecordDO>()
+                        .ne("activity_icon", ActivityIcon.IC_JOIN)
+                        .ne("activity_icon", ActivityIcon.IC_GIVE_UP)
+        );
+        return Optional.ofNullable(count).orElse(0);
+    }
+
+    private static boolean isPublic(Integer activityIcon) {
+        return !ActivityIcon.IC_JOIN.equals(activityIcon) && !ActivityIcon.IC_GIVE_UP.equals(activityIcon);
+    }
+}
@@ -12,7 +12,7 @@ import com.hdh.lifeup.dao.TeamTaskMapper;
 import com.hdh.lifeup.exception.GlobalException;
 import com.hdh.lifeup.model.domain.TeamMemberDO;
 import com.hdh.lifeup.model.domain.TeamMemberRecordDO;
-import com.hdh.lifeup.model.domain.TeamTaskDO;
+import com.hdh.lifeup.model.dto.PageCursor;
 import com.hdh.lifeup.model.dto.PageDTO;
 import com.hdh.lifeup.model.dto.RecordDTO;
 import com.hdh.lifeup.model.dto.TeamMemberDTO;
@@ -21,11 +21,19 @@ import com.hdh.lifeup.model.enums.CodeMsgEnum;
 import com.hdh.lifeup.model.vo.UserListVO;
 import com.hdh.lifeup.redis.LikeKey;
 import com.hdh.lifeup.redis.MemberRecordKey;
+import com.hdh.lifeup.redis.RedisBatch;
 import com.hdh.lifeup.redis.RedisOperator;
 import com.hdh.lifeup.redis.UserKey;
 import com.hdh.lifeup.service.AsyncTaskService;
+import com.hdh.lifeup.service.FollowService;
 import com.hdh.lifeup.service.LikeService;
+import com.hdh.lifeup.service.TeamCounterService;
+import com.hdh.lifeup.service.TeamDetailCache;
 import com.hdh.lifeup.service.TeamMemberService;
+import com.hdh.lifeup.service.TimelineService;
+import com.hdh.lifeup.service.UserCardCache;
+import com.hdh.lifeup.convert.DomainConverter;
+import com.hdh.lifeup.util.TransactionUtil;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,15 +42,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.temporal.TemporalField;
-import java.time.temporal.WeekFields;
+import java.time.temporal.IsoFields;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import static com.hdh.lifeup.model.constant.TaskConst.*;
-import static com.hdh.lifeup.model.constant.UserConst.FollowStatus;
 
 /**
  * TeamMemberServiceImpl class<br/>
@@ -73,6 +77,21 @@ public class TeamMemberServiceImpl implements TeamMemberService {
     @Resource
     private AsyncTaskService asyncTaskService;
 
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private FollowService followService;
+
+    @Autowired
+    private TeamCounterService teamCounterService;
+
+    @Autowired
+    private TeamDetailCache teamDetailCache;
+
+    @Autowired
+    private UserCardCache userCardCache;
+
     @Override
     public TeamMemberDTO getOne(@NonNull Long teamId, @NonNull Long userId) {
         TeamMemberDO teamMemberDO = memberMapper.selectOne(
@@ -96,15 +115,13 @@ public class TeamMemberServiceImpl implements TeamMemberService {
             log.error("【插入新成员】新增失败, teamMemberDTO = [{}]", teamMemberDTO);
             throw new GlobalException(CodeMsgEnum.DATABASE_EXCEPTION);
         }
+        teamCounterService.memberChanged(teamMemberDTO.getTeamId(), teamMemberDTO.getUserId(), 1);
         return teamMemberDTO;
     }
 
     @Override
     public int countMembersByTeamId(@NonNull Long teamId) {
-        Integer memberAmount = memberMapper.selectCount(
-                new QueryWrapper<TeamMemberDO>().eq("team_id", teamId)
-        );
-        return Optional.ofNullable(memberAmount).orElse(0);
+        return teamCounterService.countTeamMembers(teamId);
     }
 
     @Override
@@ -123,14 +140,20 @@ public class TeamMemberServiceImpl implements TeamMemberService {
             }
         }
         teamMemberRecordDTO.setUserId(memberUserId);
-        Integer result = memberRecordMapper.insert(teamMemberRecordDTO.toDO(TeamMemberRecordDO.class));
+        TeamMemberRecordDO memberRecordDO = teamMemberRecordDTO.toDO(TeamMemberRecordDO.class);
+        Integer result = memberRecordMapper.insert(memberRecordDO);
         if (!Objects.equals(1, result)) {
             log.error("【团队成员发布动态】新增失败, teamMemberRecordDTO = [{}]", teamMemberRecordDTO);
             throw new GlobalException(CodeMsgEnum.DATABASE_EXCEPTION);
         }
-        // 异步更新团队活跃度
-        asyncTaskService.updateTeamRank(
-                teamMemberRecordDTO.getTeamId(), teamMemberRecordDTO.getUserId(), teamMemberRecordDTO.getActivityIcon());
+        teamMemberRecordDTO.setMemberRecordId(memberRecordDO.getMemberRecordId());
+        teamCounterService.recordChanged(teamMemberRecordDTO.getTeamId(), teamMemberRecordDTO.getActivityIcon(), 1);
+        // 事务提交后再异步更新团队活跃度、推送到粉丝的时间线，回滚的动态不会被推送出去
+        TransactionUtil.afterCommit("发布动态", () -> {
+            asyncTaskService.updateTeamRank(
+                    teamMemberRecordDTO.getTeamId(), teamMemberRecordDTO.getUserId(), teamMemberRecordDTO.getActivityIcon());
+            asyncTaskService.fanOutRecord(teamMemberRecordDTO);
+        });
     }
 
     @Override
@@ -145,56 +168,65 @@ public class TeamMemberServiceImpl implements TeamMemberService {
         memberDTO.setUserId(userId);
         this.insert(memberDTO);
         this.addMemberRecord(memberRecordDTO);
+        teamDetailCache.evict(memberDTO.getTeamId());
     }
 
     @Override
     public PageDTO<UserListVO> pageMembers(Long teamId, PageDTO pageDTO) {
-        Long currentPage = pageDTO.getCurrentPage();
-        // FIXME 没有limit
-        Integer count = memberMapper.selectCount(
-                new QueryWrapper<TeamMemberDO>().eq("team_id", teamId)
-        );
+        long currentPage = pageDTO.currentPageOrFirst();
+        PageCursor cursor = PageCursor.decode(pageDTO.getCursor());
+        Long totalPage = null;
+        boolean hasMembers = true;
+        if (pageDTO.needTotal()) {
+            int count = teamCounterService.countTeamMembers(teamId);
+            totalPage = (long) Math.ceil((count * 1.0) / pageDTO.getSize());
+            hasMembers = totalPage > 0;
+        }
         List<UserListVO> membersList = Lists.newArrayList();
-        if (Optional.ofNullable(count).orElse(0) > 0) {
+        if (hasMembers) {
             pageDTO.setCurrentPage((currentPage - 1) * pageDTO.getSize());
-            membersList = memberMapper.getMembers(teamId, pageDTO);
-            membersList.forEach(member -> {
-                // 默认‘我’没有关注这个member
-                int followStatus = FollowStatus.NOT_FOLLOW;
-                Long currentUserId = UserContext.get().getUserId();
-                Long memberId = member.getUserId();
-                if (currentUserId.equals(memberId)) {
-                    followStatus = FollowStatus.MYSELF;
-                } else if (redisOperator.zrank(UserKey.FOLLOWING, currentUserId, memberId) != null ){
-                    // 如果我关注了这个member
-                    followStatus = FollowStatus.FOLLOWING;
-                    // 如果这个member也关注了我
-                    if (redisOperator.zrank(UserKey.FOLLOWING, memberId, currentUserId) != null ) {
-                        followStatus = FollowStatus.INTERACTIVE;
-                    }
-                }
-                member.setIsFollow(followStatus);
-            });
+            membersList = memberMapper.getMembers(teamId, pageDTO, cursor);
+            userCardCache.assemble(membersList, UserListVO::getUserId,
+                    (member, card) -> member.setNickname(card.getNickname()).setUserHead(card.getUserHead()));
+            assembleFollowStatus(membersList, UserContext.get().getUserId());
         }
         return PageDTO.<UserListVO>builder()
                 .currentPage(currentPage)
                 .list(membersList)
-                .totalPage((long) Math.ceil((count * 1.0) / pageDTO.getSize()))
+                .totalPage(totalPage)
+                .nextCursor(PageCursor.next(membersList, pageDTO.getSize(), UserListVO::getCreateTime, UserListVO::getUserId))
                 .build();
     }
 
+    /**
+     * 批量填充成员与当前用户的关注状态，在一次管道请求中查完
+     */
+    private void assembleFollowStatus(List<UserListVO> membersList, Long currentUserId) {
+        if (membersList.isEmpty()) {
+            return;
+        }
+        List<Long> memberIds = membersList.stream().map(UserListVO::getUserId).collect(Collectors.toList());
+        List<Integer> followStatuses = followService.getFollowStatuses(currentUserId, memberIds);
+        for (int i = 0, size = membersList.size(); i < size; i++) {
+            membersList.get(i).setIsFollow(followStatuses.get(i));
+        }
+    }
+
     @Override
     public PageDTO<RecordDTO> pageMemberRecords(Long teamId, PageDTO pageDTO) {
-        Integer count = memberRecordMapper.selectCount(
-                new QueryWrapper<TeamMemberRecordDO>().eq("team_id", teamId)
-        );
-        long totalPage = (long) Math.ceil((count * 1.0) / pageDTO.getSize());
-        Long currentPage = pageDTO.getCurrentPage();
+        long currentPage = pageDTO.currentPageOrFirst();
+        PageCursor cursor = PageCursor.decode(pageDTO.getCursor());
+        Long totalPage = null;
+        if (pageDTO.needTotal()) {
+            int count = teamCounterService.countTeamRecords(teamId);
+            totalPage = (long) Math.ceil((count * 1.0) / pageDTO.getSize());
+        }
 
         List<RecordDTO> recordList = Lists.newArrayList();
-        if (totalPage >= currentPage) {
+        // 游标翻页或跳过总数时不知道总页数，直接查
+        if (totalPage == null || totalPage >= currentPage) {
             pageDTO.setCurrentPage((currentPage - 1) * pageDTO.getSize());
-            recordList = memberRecordMapper.getMemberRecords(teamId, pageDTO);
+            recordList = memberRecordMapper.getMemberRecords(teamId, pageDTO, cursor);
             Long userId = UserContext.get().getUserId();
             assembleRecordList(recordList, userId);
         }
@@ -203,17 +235,18 @@ public class TeamMemberServiceImpl implements TeamMemberService {
                 .currentPage(currentPage)
                 .list(recordList)
                 .totalPage(totalPage)
+                .nextCursor(nextRecordCursor(recordList, pageDTO.getSize()))
                 .build();
     }
 
+    private String nextRecordCursor(List<RecordDTO> recordList, long size) {
+        return PageCursor.next(recordList, size, RecordDTO::getCreateTime, RecordDTO::getMemberRecordId);
+    }
+
     private void assembleRecordList(List<RecordDTO> recordList, Long userId) {
-        recordList.forEach(recordDTO -> {
-            Long memberRecordId = recordDTO.getMemberRecordId();
-            int isLike = likeService.isLike(LikeKey.ACTIVITY, memberRecordId, userId);
-            int likeCount = likeService.getRecordLikeCount(memberRecordId);
-            recordDTO.setIsLike(isLike)
-                    .setLikeCount(likeCount);
-        });
+        userCardCache.assemble(recordList, RecordDTO::getUserId,
+                (record, card) -> record.setNickname(card.getNickname()).setUserHead(card.getUserHead()));
+        likeService.assembleLikes(recordList, userId);
     }
 
     @Override
@@ -222,60 +255,93 @@ public class TeamMemberServiceImpl implements TeamMemberService {
         if (userId == null) {
             userId = UserContext.get().getUserId();
         }
-        IPage<TeamMemberRecordDO> userRecordsPage = memberRecordMapper.selectPage(
-                new Page<>(pageDTO.getCurrentPage(), pageDTO.getSize()),
-                new QueryWrapper<TeamMemberRecordDO>()
-                        .eq("user_id", userId)
-                        .ne("activity_icon", ActivityIcon.IC_GIVE_UP)
-                        .orderByDesc("member_record_id")
-        );
-        PageDTO<RecordDTO> recordPage = PageDTO.createFreely(userRecordsPage, RecordDTO.class);
+        QueryWrapper<TeamMemberRecordDO> queryWrapper = new QueryWrapper<TeamMemberRecordDO>()
+                .eq("user_id", userId)
+                .ne("activity_icon", ActivityIcon.IC_GIVE_UP)
+                .orderByDesc("member_record_id");
+        PageDTO<RecordDTO> recordPage;
+        PageCursor cursor = PageCursor.decode(pageDTO.getCursor());
+        if (cursor == null && pageDTO.needTotal()) {
+            IPage<TeamMemberRecordDO> userRecordsPage = memberRecordMapper.selectPage(
+                    new Page<>(pageDTO.currentPageOrFirst(), pageDTO.getSize()), queryWrapper
+            );
+            recordPage = PageDTO.createFreely(userRecordsPage, RecordDTO.class);
+        } else {
+            // 按id倒序，游标中的id即可定位，不需要count
+            long currentPage = pageDTO.currentPageOrFirst();
+            if (cursor != null) {
+                queryWrapper.lt("member_record_id", cursor.getId())
+                        .last("LIMIT " + pageDTO.getSize());
+            } else {
+                queryWrapper.last("LIMIT " + (currentPage - 1) * pageDTO.getSize() + ", " + pageDTO.getSize());
+            }
+            List<RecordDTO> recordList = memberRecordMapper.selectList(queryWrapper)
+                    .stream()
+                    .map(DomainConverter.INSTANCE::toRecordDTO)
+                    .collect(Collectors.toList());
+            recordPage = PageDTO.<RecordDTO>builder()
+                    .currentPage(currentPage)
+                    .list(recordList)
+                    .build();
+        }
+        recordPage.setNextCursor(nextRecordCursor(recordPage.getList(), pageDTO.getSize()));
         assembleRecordList(recordPage.getList(), UserContext.get().getUserId());
         return recordPage;
     }
 
     @Override
     public PageDTO<RecordDTO> getMoments(PageDTO pageDTO, int scope, int filter) {
-        Long currentPage = pageDTO.getCurrentPage();
-        Integer count;
-        long totalPage;
+        long currentPage = pageDTO.currentPageOrFirst();
+        Long totalPage = null;
+        String nextCursor;
         Long userId = UserContext.get().getUserId();
         List<RecordDTO> recordList = Lists.newArrayList();
         // 如果是指定在圈子内
         if (ActivityScope.MYFOLLOWERS.equals(scope)) {
-            Set<Long> userIdSet = redisOperator.zrange(UserKey.FOLLOWING, userId, 0, -1);
-            userIdSet.add(userId);
-            count = memberRecordMapper.selectCount(
-                    new QueryWrapper<TeamMemberRecordDO>()
-                            .in("user_id", userIdSet)
-                            .ne("activity_icon", ActivityIcon.IC_GIVE_UP)
-            );
-            totalPage = (long) Math.ceil((count * 1.0) / pageDTO.getSize());
-            if (totalPage >= currentPage) {
-                pageDTO.setCurrentPage((currentPage - 1) * pageDTO.getSize());
-                recordList = memberRecordMapper.getRecordsByUserIds(userIdSet, pageDTO, filter);
-            }
+            // 从时间线读一页动态id，再按id取动态；游标取自时间线，与动态是否已被删除无关
+            PageDTO<Long> idPage = timelineService.pageTimeline(userId, pageDTO, filter);
+            totalPage = idPage.getTotalPage();
+            nextCursor = idPage.getNextCursor();
+            recordList = this.listRecordsByIds(idPage.getList());
         } else {
             // 否则认为指定在所有人
-            count = memberRecordMapper.selectCount(
-                    new QueryWrapper<TeamMemberRecordDO>()
-                            .ne("activity_icon", ActivityIcon.IC_JOIN)
-                            .ne("activity_icon", ActivityIcon.IC_GIVE_UP)
-            );
-            totalPage = (long) Math.ceil((count * 1.0) / pageDTO.getSize());
-            if (totalPage >= currentPage) {
+            if (pageDTO.needTotal()) {
+                int count = teamCounterService.countPublicRecords();
+                totalPage = (long) Math.ceil((count * 1.0) / pageDTO.getSize());
+            }
+            if (totalPage == null || totalPage >= currentPage) {
                 pageDTO.setCurrentPage((currentPage - 1) * pageDTO.getSize());
-                recordList = memberRecordMapper.getRecords(pageDTO, filter);
+                recordList = memberRecordMapper.getRecords(pageDTO, filter, PageCursor.decode(pageDTO.getCursor()));
             }
+            nextCursor = nextRecordCursor(recordList, pageDTO.getSize());
         }
         assembleRecordList(recordList, userId);
         return PageDTO.<RecordDTO>builder()
                       .currentPage(currentPage)
                       .list(recordList)
-                      .totalPage((long) Math.ceil((count * 1.0) / pageDTO.getSize()))
+                      .totalPage(totalPage)
+                      .nextCursor(nextCursor)
                       .build();
     }
 
+    /**
+     * 按id批量取动态，并按传入的id顺序排列，已被删除的动态会被跳过
+     * @param memberRecordIds 动态id
+     * @return 动态列表
+     */
+    private List<RecordDTO> listRecordsByIds(List<Long> memberRecordIds) {
+        if (memberRecordIds.isEmpty()) {
+            return Lists.newArrayList();
+        }
+        Map<Long, RecordDTO> recordMap = memberRecordMapper.getRecordsByIds(memberRecordIds)
+                .stream()
+                .collect(Collectors.toMap(RecordDTO::getMemberRecordId, recordDTO -> recordDTO));
+        return memberRecordIds.stream()
+                .map(recordMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public int isMember(Long teamId, Long userId) {
         Integer result = memberMapper.selectCount(
@@ -296,10 +362,7 @@ public class TeamMemberServiceImpl implements TeamMemberService {
 
     @Override
     public int countUserTeams(Long userId) {
-        Integer countResult = memberMapper.selectCount(
-                new QueryWrapper<TeamMemberDO>().eq("user_id", userId)
-        );
-        return Optional.ofNullable(countResult).orElse(0);
+        return teamCounterService.countUserTeams(userId);
     }
 
     @Override
@@ -323,40 +386,42 @@ public class TeamMemberServiceImpl implements TeamMemberService {
 
 
     @Override
-    @Deprecated // FIXME 极丑的实现
-    public int getAttributeWeekly(Long userId) {
-        Long attributeWeek = redisOperator.get(UserKey.ATTRIBUTE_WEEK, userId);
-        if (attributeWeek != null) {
-            return attributeWeek.intValue();
-        }
-        TemporalField fieldISO = WeekFields.of(Locale.CHINA).dayOfWeek();
-        LocalDateTime monday = LocalDateTime.of(LocalDate.now().with(fieldISO, 1), LocalTime.MIN);
-//        LocalDateTime sunday = LocalDateTime.of(LocalDate.now().with(fieldISO, 7), LocalTime.create(23, 59, 59, 0));
-        List<TeamMemberRecordDO> memberRecordDOList = memberRecordMapper.selectList(
-                new QueryWrapper<TeamMemberRecordDO>().eq("user_id", userId)
-//                                                      .gt("create_time", monday)
-//                                                      .lt("create_time", LocalDateTime.now().withNano(0))
-        );
-        List<Long> teamIdList = memberRecordDOList.stream().map(TeamMemberRecordDO::getTeamId).collect(Collectors.toList());
-        if (teamIdList.size() == 0) {
-            return 0;
-        }
-        Integer expSum = teamTaskMapper.selectBatchIds(teamIdList)
-                .stream().map(TeamTaskDO::getRewardExp)
-                .reduce(0, (sum, e) -> sum + e);
-        redisOperator.setex(UserKey.ATTRIBUTE_WEEK, userId, expSum);
-        return expSum;
+    public List<Integer> getAttributeWeekly(List<Long> userIds) {
+        List<String> fields = userIds.stream().map(String::valueOf).collect(Collectors.toList());
+        List<Long> exps = redisOperator.hmget(UserKey.ATTRIBUTE_WEEK, weekOf(LocalDate.now()), fields);
+        return exps.stream().map(exp -> exp != null ? exp.intValue() : 0).collect(Collectors.toList());
+    }
+
+    @Override
+    public void incrAttributeWeekly(Long userId, int exp) {
+        String week = weekOf(LocalDate.now());
+        RedisBatch batch = redisOperator.batch();
+        batch.hincrby(UserKey.ATTRIBUTE_WEEK, week, String.valueOf(userId), exp);
+        batch.expire(UserKey.ATTRIBUTE_WEEK, week);
+        batch.execute();
+    }
+
+    /**
+     * ISO周的标识，如2020W07，跨年的周归属周四所在的年
+     */
+    static String weekOf(LocalDate date) {
+        return String.format("%dW%02d",
+                date.get(IsoFields.WEEK_BASED_YEAR), date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
     }
 
     @Override
     public int quitTeam(Long teamId) {
+        Long userId = UserContext.get().getUserId();
         Integer result = memberMapper.delete(
-                new QueryWrapper<TeamMemberDO>().eq("user_id", UserContext.get().getUserId())
+                new QueryWrapper<TeamMemberDO>().eq("user_id", userId)
                         .eq("team_id", teamId)
                         .eq("team_role", TeamRole.MEMBER)
         );
         if (Optional.ofNullable(result).orElse(0) == 0) {
             log.error("【退出团队】失败，teamId = [{}], user = [{}]", teamId, UserContext.get());
+        } else {
+            teamCounterService.memberChanged(teamId, userId, -result);
+            teamDetailCache.evict(teamId);
         }
         return result;
     }
@@ -381,7 +446,9 @@ public class TeamMemberServiceImpl implements TeamMemberService {
 
     @Override
     public void delUserRecord(Long memberRecordId, Long userId) {
-        Integer ret = memberRecordMapper.delete(
+        // 计数器需要动态所属的团队和类型
+        TeamMemberRecordDO memberRecordDO = memberRecordMapper.selectById(memberRecordId);
+        Integer ret = memberRecordDO == null ? 0 : memberRecordMapper.delete(
                 new QueryWrapper<TeamMemberRecordDO>()
                 .eq("member_record_id", memberRecordId)
                 .eq("user_id", userId)
@@ -390,6 +457,9 @@ public class TeamMemberServiceImpl implements TeamMemberService {
             log.error("【删除动态】不存在的动态，memberRecordId = [{}], userId = [{}]", memberRecordId, userId);
             throw new GlobalException(CodeMsgEnum.MEMBER_RECORD_NOT_EXIT);
         }
+        teamCounterService.recordChanged(memberRecordDO.getTeamId(), memberRecordDO.getActivityIcon(), -1);
+        // 异步移出粉丝的时间线
+        asyncTaskService.removeRecord(userId, memberRecordId);
     }
 
     @Override
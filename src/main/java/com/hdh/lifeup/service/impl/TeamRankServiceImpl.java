@@ -0,0 +1,407 @@
+package com.hdh.lifeup.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.google.common.collect.Lists;
+import com.hdh.lifeup.dao.TeamTaskMapper;
+import com.hdh.lifeup.model.domain.TeamTaskDO;
+import com.hdh.lifeup.redis.RedisBatch;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.redis.TeamKey;
+import com.hdh.lifeup.service.TeamRankService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.hdh.lifeup.model.constant.TaskConst.TaskStatus;
+
+/**
+ * TeamRankServiceImpl class<br/>
+ * 活跃度以redis的zset为准，所有实例通过ZINCRBY原子累加，变化的团队记入待回写集合，由定时任务批量回写数据库。
+ * zset不存在时（首次启动或被清空）从数据库重建，重建由redis锁保证同时只有一个实例进行；
+ * 重建期间的增量先累加到缓冲zset，重建写完后与数据库的快照合并再改名，不会被回写覆盖掉。
+ * zset中总有一个占位成员，没有团队时也不会反复重建，读取时过滤掉；读到空结果时才检查zset是否存在。
+ * <p>
+ * 活跃度每天衰减5%，zset中保存的是折算到固定起点 {@link #EPOCH_MILLIS} 的值：
+ * t 时刻的增量 e 记为 e / 0.95^(t - 起点)，读取时再乘上 0.95^(now - 起点)。
+ * 所有团队乘的是同一个系数，zset的顺序就是衰减后的顺序，不需要定时扫描全部团队。
+ * 注意只按比例衰减，没有原来每天至少减1的下限（下限会破坏共用系数），小的活跃度降到0要慢得多。
+ * @author hdonghong
+ * @since 2020/02/05
+ */
+@Slf4j
+@Service
+public class TeamRankServiceImpl implements TeamRankService {
+
+    /** 排行只有一个，key固定 */
+    private static final String RANK_ZSET = "hot";
+
+    /** 重建时先写入的临时key，后面拼上锁的token，写完再改名，避免读到不完整的排行 */
+    private static final String REBUILD_ZSET = "rebuild:";
+
+    /** 重建锁，持有锁期间的增量写入下面两个缓冲zset */
+    private static final String REBUILD_LOCK = "rebuild_lock";
+
+    /** 重建期间新加入排行的团队 */
+    private static final String PENDING_ADD = "pending_add";
+
+    /** 重建期间已在排行中的团队的增量，合并时只保留快照中有的团队 */
+    private static final String PENDING_INCR = "pending_incr";
+
+    private static final long REBUILD_LOCK_MILLIS = 60 * 1000L;
+
+    /** 等待其他实例重建的最长时间 */
+    private static final long REBUILD_WAIT_MILLIS = 3000L;
+
+    /** 占位成员，分数远低于任何团队，排在最后 */
+    private static final long PLACEHOLDER = 0L;
+
+    private static final double PLACEHOLDER_SCORE = -1e18;
+
+    /** 累加的结果：已累加到排行 */
+    private static final long IN_RANK = 1L;
+
+    /** 累加的结果：正在重建，已写入缓冲 */
+    private static final long BUFFERED = 2L;
+
+    /**
+     * 排行存在时累加到排行，正在重建时累加到缓冲，都不是时返回-1
+     * KEYS[1]: 排行；KEYS[2]: 重建锁；KEYS[3]: 缓冲；ARGV[1]: 增量；ARGV[2]: 团队id；ARGV[3]: 为1时要求团队已在排行中
+     */
+    private static final DefaultRedisScript<Long> INCR_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+            "  if ARGV[3] == '1' and not redis.call('ZSCORE', KEYS[1], ARGV[2]) then " +
+            "    return 0 " +
+            "  end " +
+            "  redis.call('ZINCRBY', KEYS[1], ARGV[1], ARGV[2]) " +
+            "  return 1 " +
+            "end " +
+            "if redis.call('EXISTS', KEYS[2]) == 1 then " +
+            "  redis.call('ZINCRBY', KEYS[3], ARGV[1], ARGV[2]) " +
+            "  return 2 " +
+            "end " +
+            "return -1", Long.class);
+
+    /** KEYS[1]: 重建锁；ARGV[1]: token；ARGV[2]: 锁的毫秒数 */
+    private static final DefaultRedisScript<Long> LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then " +
+            "  return 1 " +
+            "end " +
+            "return 0", Long.class);
+
+    /** KEYS[1]: 重建锁；ARGV[1]: token，只释放自己持有的锁 */
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('DEL', KEYS[1]) " +
+            "end " +
+            "return 0", Long.class);
+
+    /**
+     * 把重建的快照与缓冲合并成排行并释放锁，返回缓冲中被合并的团队，锁已经不是自己的时返回nil
+     * KEYS[1]: 快照；KEYS[2]: 新团队缓冲；KEYS[3]: 增量缓冲；KEYS[4]: 排行；KEYS[5]: 重建锁；ARGV[1]: token
+     */
+    @SuppressWarnings("unchecked")
+    private static final DefaultRedisScript<List> MERGE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[5]) ~= ARGV[1] then " +
+            "  redis.call('DEL', KEYS[1]) " +
+            "  return false " +
+            "end " +
+            "local merged = redis.call('ZRANGE', KEYS[2], 0, -1) " +
+            "for _, teamId in ipairs(redis.call('ZRANGE', KEYS[3], 0, -1)) do " +
+            "  if redis.call('ZSCORE', KEYS[1], teamId) then " +
+            "    table.insert(merged, teamId) " +
+            "  else " +
+            "    redis.call('ZREM', KEYS[3], teamId) " +
+            "  end " +
+            "end " +
+            "redis.call('ZUNIONSTORE', KEYS[4], 3, KEYS[1], KEYS[2], KEYS[3]) " +
+            "redis.call('DEL', KEYS[1], KEYS[2], KEYS[3], KEYS[5]) " +
+            "return merged", List.class);
+
+    private static final String DIRTY_SET = "all";
+
+    /** 单次管道或批量sql处理的团队数 */
+    private static final int BATCH_SIZE = 500;
+
+    /** 每天保留的比例 */
+    private static final double DECAY_PER_DAY = 0.95;
+
+    private static final double DAY_MILLIS = 24 * 3600 * 1000.0;
+
+    /** 折算的起点 2020-01-01 00:00:00 UTC，double的范围足够用三十多年 */
+    static final long EPOCH_MILLIS = 1577836800000L;
+
+    /** 数据库中超过这么多天没有结算的团队由 {@link #settle()} 统一结算 */
+    private static final int SETTLE_DAYS = 7;
+
+    private RedisOperator redisOperator;
+
+    private TeamTaskMapper teamTaskMapper;
+
+    @Autowired
+    public TeamRankServiceImpl(RedisOperator redisOperator, TeamTaskMapper teamTaskMapper) {
+        this.redisOperator = redisOperator;
+        this.teamTaskMapper = teamTaskMapper;
+    }
+
+    @Override
+    public void add(Long teamId, int e) {
+        incr(teamId, e, false);
+    }
+
+    @Override
+    public void incr(Long teamId, int e) {
+        // 已结束或过了截止日期的团队不在排行中，不能因为签到又被加回去
+        incr(teamId, e, true);
+    }
+
+    private void incr(Long teamId, int e, boolean mustInRank) {
+        double delta = toStored(e, System.currentTimeMillis());
+        String pending = mustInRank ? PENDING_INCR : PENDING_ADD;
+        List<String> keys = Arrays.asList(RANK_ZSET, REBUILD_LOCK, pending);
+        Long result = redisOperator.eval(INCR_SCRIPT, TeamKey.RANK, keys, delta, teamId, mustInRank ? 1 : 0);
+        // 排行不存在也没有在重建，先重建再累加
+        if (result != null && result < 0 && ensureRank()) {
+            result = redisOperator.eval(INCR_SCRIPT, TeamKey.RANK, keys, delta, teamId, mustInRank ? 1 : 0);
+        }
+        if (Objects.equals(result, IN_RANK)) {
+            redisOperator.sadd(TeamKey.RANK_DIRTY, DIRTY_SET, teamId);
+        } else if (!Objects.equals(result, BUFFERED)) {
+            // 缓冲中的团队在合并后记入待回写集合，不在排行中的直接更新数据库
+            teamTaskMapper.incrTeamRank(teamId, e);
+        }
+    }
+
+    @Override
+    public LinkedHashMap<Long, Integer> getHotTeams(long offset, long size) {
+        LinkedHashMap<Long, Double> scores = redisOperator.zrevrangeWithScores(TeamKey.RANK, RANK_ZSET, offset, offset + size - 1);
+        // 有占位成员时排行不会是空的，读到空结果才可能需要重建
+        if (scores.isEmpty() && ensureRank()) {
+            scores = redisOperator.zrevrangeWithScores(TeamKey.RANK, RANK_ZSET, offset, offset + size - 1);
+        }
+        scores.remove(PLACEHOLDER);
+        long now = System.currentTimeMillis();
+        LinkedHashMap<Long, Integer> hotTeams = new LinkedHashMap<>();
+        scores.forEach((teamId, score) -> hotTeams.put(teamId, toRank(score, now)));
+        return hotTeams;
+    }
+
+    @Override
+    public Map<Long, Integer> getRanks(Collection<Long> teamIds) {
+        List<Long> teamIdList = Lists.newArrayList(teamIds);
+        List<Double> scores = zscores(teamIdList);
+        // 占位成员的分数一起取回，取不到说明排行不存在
+        if (scores.get(teamIdList.size()) == null && ensureRank()) {
+            scores = zscores(teamIdList);
+        }
+
+        long now = System.currentTimeMillis();
+        Map<Long, Integer> ranks = new LinkedHashMap<>();
+        for (int i = 0, len = teamIdList.size(); i < len; i++) {
+            Double score = scores.get(i);
+            if (score != null) {
+                ranks.put(teamIdList.get(i), toRank(score, now));
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * 批量取分数，最后一个是占位成员的分数
+     */
+    private List<Double> zscores(List<Long> teamIds) {
+        RedisBatch batch = redisOperator.batch();
+        List<RedisBatch.Response<Double>> responses = Lists.newArrayListWithCapacity(teamIds.size() + 1);
+        teamIds.forEach(teamId -> responses.add(batch.zscore(TeamKey.RANK, RANK_ZSET, teamId)));
+        responses.add(batch.zscore(TeamKey.RANK, RANK_ZSET, PLACEHOLDER));
+        batch.execute();
+        return responses.stream().map(RedisBatch.Response::get).collect(Collectors.toList());
+    }
+
+    @Override
+    public int decay(int teamRank, LocalDateTime rankUpdateTime) {
+        if (rankUpdateTime == null) {
+            return teamRank;
+        }
+        long now = System.currentTimeMillis();
+        return toRank(toStored(teamRank, toMillis(rankUpdateTime, now)), now);
+    }
+
+    @Override
+    public long count() {
+        long count = redisOperator.zcard(TeamKey.RANK, RANK_ZSET);
+        if (count == 0 && ensureRank()) {
+            count = redisOperator.zcard(TeamKey.RANK, RANK_ZSET);
+        }
+        // 不计占位成员
+        return Math.max(0, count - 1);
+    }
+
+    @Override
+    public void remove(Long ... teamIds) {
+        if (teamIds.length == 0) {
+            return;
+        }
+        // 移出前先回写，避免丢掉还没回写的活跃度
+        writeBack(Lists.newArrayList(teamIds));
+        redisOperator.zrem(TeamKey.RANK, RANK_ZSET, (Object[]) teamIds);
+    }
+
+    @Override
+    public int settle() {
+        int count = teamTaskMapper.settleTeamRanks(SETTLE_DAYS);
+        log.info("【团队活跃度】结算衰减的团队数 = [{}]", count);
+        return count;
+    }
+
+    @Override
+    public int checkpoint() {
+        int total = 0;
+        List<Long> teamIds;
+        while (!(teamIds = redisOperator.spop(TeamKey.RANK_DIRTY, DIRTY_SET, BATCH_SIZE)).isEmpty()) {
+            try {
+                total += writeBack(teamIds);
+            } catch (RuntimeException e) {
+                log.error("【团队活跃度】回写失败，放回待回写集合，teamIds = [{}]", teamIds, e);
+                redisOperator.sadd(TeamKey.RANK_DIRTY, DIRTY_SET, teamIds.toArray());
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 用zset中的活跃度覆盖数据库，覆盖是幂等的，多个实例同时回写也没有问题
+     * @return 回写的团队数量
+     */
+    private int writeBack(List<Long> teamIds) {
+        RedisBatch batch = redisOperator.batch();
+        List<RedisBatch.Response<Double>> scores = Lists.newArrayListWithCapacity(teamIds.size());
+        teamIds.forEach(teamId -> scores.add(batch.zscore(TeamKey.RANK, RANK_ZSET, teamId)));
+        batch.execute();
+
+        long now = System.currentTimeMillis();
+        List<TeamTaskDO> teams = Lists.newArrayList();
+        for (int i = 0, len = teamIds.size(); i < len; i++) {
+            Double score = scores.get(i).get();
+            if (score != null) {
+                TeamTaskDO teamTaskDO = new TeamTaskDO();
+                teamTaskDO.setTeamId(teamIds.get(i));
+                teamTaskDO.setTeamRank(toRank(score, now));
+                teams.add(teamTaskDO);
+            }
+        }
+        if (!teams.isEmpty()) {
+            teamTaskMapper.updateTeamRanks(teams);
+        }
+        return teams.size();
+    }
+
+    /**
+     * 排行不存在时从数据库重建，只收录进行中且未过截止日期的团队。
+     * 其他实例正在重建时等它完成
+     * @return 排行可以读取时返回true，可能是其他实例刚好重建完成
+     */
+    private boolean ensureRank() {
+        if (redisOperator.exists(TeamKey.RANK, RANK_ZSET)) {
+            return true;
+        }
+        String token = UUID.randomUUID().toString();
+        Long locked = redisOperator.eval(LOCK_SCRIPT, TeamKey.RANK,
+                Collections.singletonList(REBUILD_LOCK), token, REBUILD_LOCK_MILLIS);
+        if (!Objects.equals(locked, 1L)) {
+            return waitForRebuild();
+        }
+        String rebuildZset = REBUILD_ZSET + token;
+        try {
+            List<TeamTaskDO> teamTaskDOList = teamTaskMapper.selectList(
+                    new QueryWrapper<TeamTaskDO>()
+                            .select("team_id", "team_rank", "rank_update_time")
+                            .ne("team_status", TaskStatus.COMPLETE)
+                            .gt("start_date", new Date())
+            );
+            long now = System.currentTimeMillis();
+            redisOperator.zadd(TeamKey.RANK, rebuildZset, PLACEHOLDER_SCORE, PLACEHOLDER);
+            for (List<TeamTaskDO> partition : Lists.partition(teamTaskDOList, BATCH_SIZE)) {
+                Object[] scoreAndMembers = new Object[partition.size() * 2];
+                for (int i = 0, len = partition.size(); i < len; i++) {
+                    TeamTaskDO teamTaskDO = partition.get(i);
+                    // 数据库中是结算时刻的值，按结算时刻折算
+                    long rankMillis = toMillis(teamTaskDO.getRankUpdateTime(), now);
+                    scoreAndMembers[2 * i] = toStored(Optional.ofNullable(teamTaskDO.getTeamRank()).orElse(0), rankMillis);
+                    scoreAndMembers[2 * i + 1] = teamTaskDO.getTeamId();
+                }
+                redisOperator.zadd(TeamKey.RANK, rebuildZset, scoreAndMembers);
+            }
+            List<?> merged = redisOperator.eval(MERGE_SCRIPT, TeamKey.RANK,
+                    Arrays.asList(rebuildZset, PENDING_ADD, PENDING_INCR, RANK_ZSET, REBUILD_LOCK), token);
+            if (merged == null) {
+                log.error("【团队活跃度】重建超时，锁已失效，放弃本次重建，团队数 = [{}]", teamTaskDOList.size());
+                return false;
+            }
+            // 重建期间有增量的团队合并后再记入待回写集合
+            if (!merged.isEmpty()) {
+                redisOperator.sadd(TeamKey.RANK_DIRTY, DIRTY_SET, merged.toArray());
+            }
+            log.info("【团队活跃度】从数据库重建排行，团队数 = [{}]，合并重建期间的增量 = [{}]",
+                    teamTaskDOList.size(), merged.size());
+            return true;
+        } catch (RuntimeException e) {
+            redisOperator.del(TeamKey.RANK, rebuildZset);
+            redisOperator.eval(UNLOCK_SCRIPT, TeamKey.RANK, Collections.singletonList(REBUILD_LOCK), token);
+            throw e;
+        }
+    }
+
+    /**
+     * 等其他实例重建完成，超时后返回false，调用方按排行为空处理
+     */
+    private boolean waitForRebuild() {
+        long deadline = System.currentTimeMillis() + REBUILD_WAIT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            if (redisOperator.exists(TeamKey.RANK, RANK_ZSET)) {
+                return true;
+            }
+        }
+        log.warn("【团队活跃度】等待其他实例重建排行超时");
+        return false;
+    }
+
+    private static long toMillis(LocalDateTime rankUpdateTime, long now) {
+        return rankUpdateTime == null ? now : rankUpdateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 把 millis 时刻的活跃度折算到起点
+     */
+    static double toStored(double rank, long millis) {
+        return rank / Math.pow(DECAY_PER_DAY, (millis - EPOCH_MILLIS) / DAY_MILLIS);
+    }
+
+    /**
+     * 把折算到起点的值还原成 now 时刻的活跃度，不足1的部分舍去
+     */
+    static int toRank(double stored, long now) {
+        return (int) (stored * Math.pow(DECAY_PER_DAY, (now - EPOCH_MILLIS) / DAY_MILLIS));
+    }
+}
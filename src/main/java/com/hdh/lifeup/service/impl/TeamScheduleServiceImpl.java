@@ -0,0 +1,386 @@
+package com.hdh.lifeup.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.hdh.lifeup.base.BaseDTO;
+import com.hdh.lifeup.dao.TeamMemberRecordMapper;
+import com.hdh.lifeup.dao.TeamRecordMapper;
+import com.hdh.lifeup.dao.TeamTaskMapper;
+import com.hdh.lifeup.exception.GlobalException;
+import com.hdh.lifeup.model.domain.TeamMemberRecordDO;
+import com.hdh.lifeup.model.domain.TeamRecordDO;
+import com.hdh.lifeup.model.domain.TeamTaskDO;
+import com.hdh.lifeup.model.dto.TeamTaskDTO;
+import com.hdh.lifeup.model.enums.CodeMsgEnum;
+import com.hdh.lifeup.model.vo.NextSignVO;
+import com.hdh.lifeup.redis.RedisBatch;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.redis.TeamKey;
+import com.hdh.lifeup.service.TeamScheduleService;
+import com.hdh.lifeup.util.SignPeriodUtil;
+import com.hdh.lifeup.convert.ViewConverter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.hdh.lifeup.model.constant.TaskConst.TaskStatus;
+
+/**
+ * TeamScheduleServiceImpl class<br/>
+ * 周期表保存在 {@link TeamKey#SCHEDULE}，未命中时先查数据库，数据库也没有才生成签到记录；
+ * 生成时用HSETNX决定哪一条生效，并发生成的多余记录会被删掉，所以同一周期只有一条记录被使用。
+ * <p>
+ * 签到位图只加载当前周期开始之后的签到，之前的周期不会再被查询。
+ * @author hdonghong
+ * @since 2020/02/09
+ */
+@Slf4j
+@Service
+public class TeamScheduleServiceImpl implements TeamScheduleService {
+
+    /** 位图的第0位，表示已经从数据库加载过 */
+    private static final long LOADED_OFFSET = 0;
+
+    /** 定时任务每批处理的团队数 */
+    private static final int BATCH_SIZE = 500;
+
+    private RedisOperator redisOperator;
+
+    private TeamTaskMapper teamTaskMapper;
+
+    private TeamRecordMapper teamRecordMapper;
+
+    private TeamMemberRecordMapper memberRecordMapper;
+
+    /** 生成签到记录使用独立的事务，写入周期表之前就要提交，不能随调用方回滚 */
+    private TransactionTemplate requiresNewTemplate;
+
+    @Autowired
+    public TeamScheduleServiceImpl(RedisOperator redisOperator,
+                                   TeamTaskMapper teamTaskMapper,
+                                   TeamRecordMapper teamRecordMapper,
+                                   TeamMemberRecordMapper memberRecordMapper,
+                                   PlatformTransactionManager transactionManager) {
+        this.redisOperator = redisOperator;
+        this.teamTaskMapper = teamTaskMapper;
+        this.teamRecordMapper = teamRecordMapper;
+        this.memberRecordMapper = memberRecordMapper;
+        this.requiresNewTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public NextSignVO getNextSign(TeamTaskDTO teamTaskDTO, Long userId) {
+        List<NextSignVO> nextSigns = this.getNextSigns(Collections.singletonList(teamTaskDTO), userId);
+        if (nextSigns.isEmpty()) {
+            throw new GlobalException(CodeMsgEnum.TEAM_IS_END);
+        }
+        return nextSigns.get(0);
+    }
+
+    @Override
+    public List<NextSignVO> getNextSigns(List<TeamTaskDTO> teams, Long userId) {
+        LocalDateTime nowTime = LocalDateTime.now();
+        // 所有团队当前、下一周期的记录和签到状态一次取回，还没开始的周期不需要判断是否签到
+        List<Slot> slots = Lists.newArrayListWithCapacity(teams.size());
+        RedisBatch batch = redisOperator.batch();
+        for (TeamTaskDTO team : teams) {
+            long period = currentPeriod(team, nowTime);
+            if (period == SignPeriodUtil.NO_PERIOD) {
+                continue;
+            }
+            Slot slot = new Slot(team, period);
+            slot.current = batch.hget(TeamKey.SCHEDULE, team.getTeamId(), String.valueOf(period));
+            if (SignPeriodUtil.isOpen(team.getFirstStartTime(), team.getFirstEndTime(), team.getTeamFreq(), period, nowTime)) {
+                String signedKey = signedKey(team.getTeamId(), userId);
+                slot.next = batch.hget(TeamKey.SCHEDULE, team.getTeamId(), String.valueOf(period + 1));
+                slot.loaded = batch.getbit(TeamKey.SIGNED, signedKey, LOADED_OFFSET);
+                slot.signed = batch.getbit(TeamKey.SIGNED, signedKey, period + 1);
+            }
+            slots.add(slot);
+        }
+        batch.execute();
+
+        // 位图还没加载的团队一起从数据库加载
+        List<Slot> coldSlots = slots.stream()
+                .filter(slot -> slot.loaded != null && !slot.loaded.get())
+                .collect(Collectors.toList());
+        Set<Long> signedTeamIds = coldSlots.isEmpty() ?
+                Collections.emptySet() : this.loadSigned(coldSlots, userId);
+
+        List<Slot> results = Lists.newArrayListWithCapacity(slots.size());
+        for (Slot slot : slots) {
+            boolean hasSigned = slot.loaded != null && (slot.loaded.get() ?
+                    slot.signed.get() : signedTeamIds.contains(slot.team.getTeamId()));
+            if (!hasSigned) {
+                slot.teamRecordId = slot.current.get();
+                results.add(slot);
+            } else if (slot.team.getTeamFreq() != 0) {
+                // 已签到则取下一周期，单次任务签到后没有下一次
+                Slot next = new Slot(slot.team, slot.period + 1);
+                next.teamRecordId = slot.next.get();
+                results.add(next);
+            }
+        }
+        this.resolveRecords(results, nowTime);
+        return results.stream().map(this::toNextSign).collect(Collectors.toList());
+    }
+
+    @Override
+    public NextSignVO getSign(TeamTaskDTO teamTaskDTO, long period) {
+        Slot slot = new Slot(teamTaskDTO, period);
+        slot.teamRecordId = redisOperator.hget(TeamKey.SCHEDULE, teamTaskDTO.getTeamId(), String.valueOf(period));
+        this.resolveRecords(Collections.singletonList(slot), LocalDateTime.now());
+        return this.toNextSign(slot);
+    }
+
+    @Override
+    public void markSignedIn(Long teamId, Long userId, long period) {
+        String signedKey = signedKey(teamId, userId);
+        RedisBatch batch = redisOperator.batch();
+        batch.setbit(TeamKey.SIGNED, signedKey, period + 1, true);
+        batch.expire(TeamKey.SIGNED, signedKey);
+        batch.execute();
+    }
+
+    @Override
+    public int materialize() {
+        int created = 0;
+        long lastTeamId = 0;
+        List<TeamTaskDO> teamTaskDOList;
+        do {
+            teamTaskDOList = teamTaskMapper.selectList(
+                    new QueryWrapper<TeamTaskDO>()
+                            .select("team_id", "team_freq", "first_start_time", "first_end_time")
+                            .eq("team_status", TaskStatus.DOING)
+                            .gt("team_id", lastTeamId)
+                            .orderByAsc("team_id")
+                            .last("LIMIT " + BATCH_SIZE)
+            );
+            if (teamTaskDOList.isEmpty()) {
+                break;
+            }
+            created += this.materialize(teamTaskDOList.stream()
+                    .map(teamTaskDO -> BaseDTO.from(teamTaskDO, TeamTaskDTO.class))
+                    .collect(Collectors.toList()));
+            lastTeamId = teamTaskDOList.get(teamTaskDOList.size() - 1).getTeamId();
+        } while (teamTaskDOList.size() == BATCH_SIZE);
+        return created;
+    }
+
+    /**
+     * 一批团队的当前和下一周期，先用管道查周期表，未命中的再补上
+     */
+    private int materialize(List<TeamTaskDTO> teams) {
+        LocalDateTime nowTime = LocalDateTime.now();
+        List<Slot> slots = Lists.newArrayList();
+        RedisBatch batch = redisOperator.batch();
+        for (TeamTaskDTO team : teams) {
+            long period = SignPeriodUtil.currentPeriod(team.getFirstStartTime(), team.getFirstEndTime(),
+                    team.getTeamFreq(), nowTime);
+            if (period == SignPeriodUtil.NO_PERIOD) {
+                continue;
+            }
+            long lastPeriod = team.getTeamFreq() == 0 ? period : period + 1;
+            for (long k = period; k <= lastPeriod; k++) {
+                Slot slot = new Slot(team, k);
+                slot.current = batch.hget(TeamKey.SCHEDULE, team.getTeamId(), String.valueOf(k));
+                slots.add(slot);
+            }
+            // 顺手清掉已经用不到的周期，周期表随团队一直续期
+            if (period >= 2) {
+                batch.hdel(TeamKey.SCHEDULE, team.getTeamId(), String.valueOf(period - 2));
+            }
+            batch.expire(TeamKey.SCHEDULE, team.getTeamId());
+        }
+        batch.execute();
+
+        slots.forEach(slot -> slot.teamRecordId = slot.current.get());
+        return this.resolveRecords(slots, nowTime);
+    }
+
+    /**
+     * 补上周期表中没有的记录：先一次查数据库，周期表过期或被清空时数据库中可能已经有记录了；数据库也没有的再逐条生成
+     * @return 新生成的签到记录数
+     */
+    private int resolveRecords(List<Slot> slots, LocalDateTime nowTime) {
+        List<Slot> missing = slots.stream()
+                .filter(slot -> slot.teamRecordId == null)
+                .collect(Collectors.toList());
+        if (missing.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, TeamTaskDTO> teamMap = Maps.newHashMap();
+        missing.forEach(slot -> teamMap.put(slot.team.getTeamId(), slot.team));
+        Map<String, Long> existing = Maps.newHashMap();
+        teamRecordMapper.selectList(
+                new QueryWrapper<TeamRecordDO>()
+                        .select("team_record_id", "team_id", "next_start_time")
+                        .in("team_id", teamMap.keySet())
+                        .gt("next_end_time", nowTime)
+                        .orderByAsc("team_record_id")
+        ).forEach(teamRecordDO -> {
+            TeamTaskDTO team = teamMap.get(teamRecordDO.getTeamId());
+            long k = SignPeriodUtil.periodOf(team.getFirstStartTime(), team.getTeamFreq(), teamRecordDO.getNextStartTime());
+            if (k != SignPeriodUtil.NO_PERIOD) {
+                existing.putIfAbsent(team.getTeamId() + ":" + k, teamRecordDO.getTeamRecordId());
+            }
+        });
+
+        int created = 0;
+        RedisBatch batch = redisOperator.batch();
+        for (Slot slot : missing) {
+            Long teamId = slot.team.getTeamId();
+            slot.teamRecordId = existing.get(teamId + ":" + slot.period);
+            if (slot.teamRecordId != null) {
+                batch.hsetnx(TeamKey.SCHEDULE, teamId, String.valueOf(slot.period), slot.teamRecordId);
+                batch.expire(TeamKey.SCHEDULE, teamId);
+            } else {
+                log.info("【团队签到周期】周期表未命中，生成签到记录，teamId = [{}], period = [{}]", teamId, slot.period);
+                slot.teamRecordId = this.createRecord(slot.team, slot.period);
+                created++;
+            }
+        }
+        batch.execute();
+        return created;
+    }
+
+    /**
+     * 生成第period次的签到记录并写入周期表，并发生成时以先写入周期表的为准，多余的删除
+     * @return 生效的teamRecordId
+     */
+    private Long createRecord(TeamTaskDTO teamTaskDTO, long period) {
+        Long teamId = teamTaskDTO.getTeamId();
+        TeamRecordDO teamRecordDO = new TeamRecordDO()
+                .setTeamId(teamId)
+                .setNextStartTime(SignPeriodUtil.startOf(teamTaskDTO.getFirstStartTime(), teamTaskDTO.getTeamFreq(), period))
+                .setNextEndTime(SignPeriodUtil.endOf(teamTaskDTO.getFirstEndTime(), teamTaskDTO.getTeamFreq(), period));
+        requiresNewTemplate.execute(status -> teamRecordMapper.insert(teamRecordDO));
+
+        String field = String.valueOf(period);
+        RedisBatch batch = redisOperator.batch();
+        batch.hsetnx(TeamKey.SCHEDULE, teamId, field, teamRecordDO.getTeamRecordId());
+        RedisBatch.Response<Long> winner = batch.hget(TeamKey.SCHEDULE, teamId, field);
+        batch.expire(TeamKey.SCHEDULE, teamId);
+        batch.execute();
+
+        if (!Objects.equals(winner.get(), teamRecordDO.getTeamRecordId())) {
+            log.info("【团队签到周期】并发生成了同一周期的签到记录，删除多余的，teamId = [{}], period = [{}], teamRecordId = [{}]",
+                    teamId, period, teamRecordDO.getTeamRecordId());
+            teamRecordMapper.deleteById(teamRecordDO.getTeamRecordId());
+        }
+        return winner.get();
+    }
+
+    /**
+     * 从数据库加载成员在这些团队当前周期开始之后的签到，写入位图，两条sql完成
+     * @return 当前周期已签到的团队id
+     */
+    private Set<Long> loadSigned(List<Slot> slots, Long userId) {
+        Map<Long, Slot> slotMap = Maps.newHashMap();
+        slots.forEach(slot -> slotMap.put(slot.team.getTeamId(), slot));
+        LocalDateTime since = slots.stream()
+                .map(slot -> SignPeriodUtil.startOf(slot.team.getFirstStartTime(), slot.team.getTeamFreq(), slot.period))
+                .min(Comparator.naturalOrder())
+                .orElseThrow(IllegalArgumentException::new);
+        List<Long> teamRecordIds = memberRecordMapper.selectList(
+                new QueryWrapper<TeamMemberRecordDO>()
+                        .select("team_record_id")
+                        .in("team_id", slotMap.keySet())
+                        .eq("user_id", userId)
+                        .ge("create_time", since)
+        ).stream().map(TeamMemberRecordDO::getTeamRecordId).distinct().collect(Collectors.toList());
+
+        Set<Long> signedTeamIds = Sets.newHashSet();
+        RedisBatch batch = redisOperator.batch();
+        if (!teamRecordIds.isEmpty()) {
+            for (TeamRecordDO teamRecordDO : teamRecordMapper.selectBatchIds(teamRecordIds)) {
+                Slot slot = slotMap.get(teamRecordDO.getTeamId());
+                if (slot == null) {
+                    continue;
+                }
+                long k = SignPeriodUtil.periodOf(slot.team.getFirstStartTime(), slot.team.getTeamFreq(),
+                        teamRecordDO.getNextStartTime());
+                if (k != SignPeriodUtil.NO_PERIOD) {
+                    batch.setbit(TeamKey.SIGNED, signedKey(slot.team.getTeamId(), userId), k + 1, true);
+                    if (k == slot.period) {
+                        signedTeamIds.add(slot.team.getTeamId());
+                    }
+                }
+            }
+        }
+        for (Long teamId : slotMap.keySet()) {
+            String signedKey = signedKey(teamId, userId);
+            batch.setbit(TeamKey.SIGNED, signedKey, LOADED_OFFSET, true);
+            batch.expire(TeamKey.SIGNED, signedKey);
+        }
+        batch.execute();
+        return signedTeamIds;
+    }
+
+    private NextSignVO toNextSign(Slot slot) {
+        TeamTaskDTO teamTaskDTO = slot.team;
+        NextSignVO nextSignVO = ViewConverter.INSTANCE.toNextSignVO(teamTaskDTO);
+        nextSignVO.setTeamRecordId(slot.teamRecordId)
+                  .setNextStartTime(SignPeriodUtil.startOf(teamTaskDTO.getFirstStartTime(), teamTaskDTO.getTeamFreq(), slot.period))
+                  .setNextEndTime(SignPeriodUtil.endOf(teamTaskDTO.getFirstEndTime(), teamTaskDTO.getTeamFreq(), slot.period));
+        return nextSignVO;
+    }
+
+    /**
+     * 要求任务进行中，单次任务过了签到时间也算结束
+     * @return 当前周期，已结束时返回 {@link SignPeriodUtil#NO_PERIOD}
+     */
+    private static long currentPeriod(TeamTaskDTO teamTaskDTO, LocalDateTime nowTime) {
+        if (!TaskStatus.DOING.equals(teamTaskDTO.getTeamStatus()) || teamTaskDTO.getCompleteTime() != null) {
+            return SignPeriodUtil.NO_PERIOD;
+        }
+        return SignPeriodUtil.currentPeriod(teamTaskDTO.getFirstStartTime(), teamTaskDTO.getFirstEndTime(),
+                teamTaskDTO.getTeamFreq(), nowTime);
+    }
+
+    private static String signedKey(Long teamId, Long userId) {
+        return teamId + ":" + userId;
+    }
+
+    /**
+     * 某个团队的第period次签到，以及在管道中查询的结果
+     */
+    private static class Slot {
+
+        private final TeamTaskDTO team;
+
+        private final long period;
+
+        private Long teamRecordId;
+
+        private RedisBatch.Response<Long> current;
+
+        private RedisBatch.Response<Long> next;
+
+        /** 周期未开始时不查询签到状态，为null */
+        private RedisBatch.Response<Boolean> loaded;
+
+        private RedisBatch.Response<Boolean> signed;
+
+        private Slot(TeamTaskDTO team, long period) {
+            this.team = team;
+            this.period = period;
+        }
+    }
+}
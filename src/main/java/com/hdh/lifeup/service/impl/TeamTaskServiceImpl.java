@@ -5,13 +5,12 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
 import com.hdh.lifeup.auth.UserContext;
 import com.hdh.lifeup.base.BaseDTO;
-import com.hdh.lifeup.dao.TeamRecordMapper;
 import com.hdh.lifeup.dao.TeamTaskMapper;
 import com.hdh.lifeup.exception.GlobalException;
 import com.hdh.lifeup.exception.SingleTaskException;
-import com.hdh.lifeup.model.domain.TeamRecordDO;
 import com.hdh.lifeup.model.domain.TeamTaskDO;
 import com.hdh.lifeup.model.dto.*;
 import com.hdh.lifeup.model.enums.CodeMsgEnum;
@@ -19,12 +18,19 @@ import com.hdh.lifeup.model.vo.ActivityVO;
 import com.hdh.lifeup.model.vo.NextSignVO;
 import com.hdh.lifeup.model.vo.TeamDetailVO;
 import com.hdh.lifeup.model.vo.TeamTaskVO;
+import com.hdh.lifeup.service.AsyncTaskService;
+import com.hdh.lifeup.service.ImageVariantService;
+import com.hdh.lifeup.service.TeamDetailCache;
 import com.hdh.lifeup.service.TeamMemberService;
+import com.hdh.lifeup.service.TeamRankService;
+import com.hdh.lifeup.service.TeamScheduleService;
+import com.hdh.lifeup.service.TeamSearchIndex;
 import com.hdh.lifeup.service.TeamTaskService;
-import com.hdh.lifeup.service.UserInfoService;
+import com.hdh.lifeup.service.UserCardCache;
+import com.hdh.lifeup.util.SignPeriodUtil;
+import com.hdh.lifeup.convert.ViewConverter;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,9 +39,12 @@ import org.springframework.util.StringUtils;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static com.hdh.lifeup.model.constant.TaskConst.*;
@@ -52,21 +61,41 @@ public class TeamTaskServiceImpl implements TeamTaskService {
 
     private TeamTaskMapper teamTaskMapper;
 
-    private TeamRecordMapper teamRecordMapper;
-
     private TeamMemberService memberService;
 
-    private UserInfoService userInfoService;
+    private UserCardCache userCardCache;
+
+    private TeamRankService teamRankService;
+
+    private TeamScheduleService teamScheduleService;
+
+    private TeamDetailCache teamDetailCache;
+
+    private TeamSearchIndex teamSearchIndex;
+
+    private ImageVariantService imageVariantService;
+
+    private AsyncTaskService asyncTaskService;
 
     @Autowired
     public TeamTaskServiceImpl(TeamTaskMapper teamTaskMapper,
-                               TeamRecordMapper teamRecordMapper,
                                TeamMemberService teamMemberService,
-                               UserInfoService userInfoService) {
+                               UserCardCache userCardCache,
+                               TeamRankService teamRankService,
+                               TeamScheduleService teamScheduleService,
+                               TeamDetailCache teamDetailCache,
+                               TeamSearchIndex teamSearchIndex,
+                               ImageVariantService imageVariantService,
+                               AsyncTaskService asyncTaskService) {
         this.teamTaskMapper = teamTaskMapper;
-        this.teamRecordMapper = teamRecordMapper;
         this.memberService = teamMemberService;
-        this.userInfoService = userInfoService;
+        this.userCardCache = userCardCache;
+        this.teamRankService = teamRankService;
+        this.teamScheduleService = teamScheduleService;
+        this.teamDetailCache = teamDetailCache;
+        this.teamSearchIndex = teamSearchIndex;
+        this.imageVariantService = imageVariantService;
+        this.asyncTaskService = asyncTaskService;
     }
 
     @Override
@@ -97,15 +126,15 @@ public class TeamTaskServiceImpl implements TeamTaskService {
             throw new GlobalException(CodeMsgEnum.DATABASE_EXCEPTION);
         }
         teamTaskDTO.setTeamId(teamTaskDO.getTeamId());
+        teamSearchIndex.changed(teamTaskDO.getTeamId());
         return teamTaskDTO;
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public NextSignVO addTeam(@NonNull TeamTaskVO teamTaskVO) {
-        TeamTaskDTO teamTaskDTO = new TeamTaskDTO();
+        TeamTaskDTO teamTaskDTO = ViewConverter.INSTANCE.toTeamTaskDTO(teamTaskVO);
         teamTaskDTO.setTeamStatus(TaskStatus.DOING);
-        BeanUtils.copyProperties(teamTaskVO, teamTaskDTO, "firstStartTime", "firstEndTime");
 
         // 存主团队表
         LocalDateTime firstStartTime = teamTaskVO.getFirstStartTime();
@@ -144,15 +173,24 @@ public class TeamTaskServiceImpl implements TeamTaskService {
     @Override
     public PageDTO<TeamTaskDTO> page(PageDTO pageDTO, String teamTitle, Integer rankRule, Boolean startDateFilter) {
 //        log.info("pageNo = " + pageDTO.getCurrentPage());
+        // 默认条件下的活跃度排序直接由redis的排行提供，不再对整表排序
+        if (RankRule.TEAM_RANK_FIRST.equals(rankRule) && StringUtils.isEmpty(teamTitle)
+                && (startDateFilter == null || startDateFilter)) {
+            return pageHotTeams(pageDTO);
+        }
+        // 按标题搜索走内存索引，索引重建完成前仍然查数据库
+        if (!StringUtils.isEmpty(teamTitle) && teamSearchIndex.isReady()) {
+            return searchTeams(pageDTO, teamTitle, rankRule, startDateFilter == null || startDateFilter);
+        }
         QueryWrapper<TeamTaskDO> wrapper = new QueryWrapper<TeamTaskDO>()
                 .ne("team_status", TaskStatus.COMPLETE);
         // 判断是否过滤掉超过截止时间的团队，默认是过滤
         if (startDateFilter == null || startDateFilter) {
             wrapper.gt("start_date", new Date());
         }
-        // 处理团队排序规则
+        // 处理团队排序规则，库中的活跃度只在写入和结算时衰减，按衰减后的值排序才与排行一致
         if (RankRule.TEAM_RANK_FIRST.equals(rankRule)) {
-            wrapper.orderByDesc("team_rank");
+            wrapper.orderByDesc(TeamTaskMapper.DECAYED_RANK);
         }
         wrapper.orderByDesc("team_id");
         if (!StringUtils.isEmpty(teamTitle)) {
@@ -165,32 +203,131 @@ public class TeamTaskServiceImpl implements TeamTaskService {
         return PageDTO.create(taskDOPage, TeamTaskDTO.class);
     }
 
+    /**
+     * 搜索团队，标题命中的排在只命中描述的前面，同一档内的顺序与数据库查询一致：
+     * 按活跃度（排行中的以排行为准）、再按团队id倒序。只对一页需要的前几名排序，只查这一页的团队
+     */
+    private PageDTO<TeamTaskDTO> searchTeams(PageDTO pageDTO, String teamTitle, Integer rankRule, boolean startDateFilter) {
+        long currentPage = pageDTO.currentPageOrFirst();
+        long size = pageDTO.getSize();
+        List<TeamSearchIndex.Hit> hits = teamSearchIndex.search(teamTitle, startDateFilter);
+        Long totalPage = (long) Math.ceil((hits.size() * 1.0) / size);
+        long from = (currentPage - 1) * size;
+        if (from >= hits.size()) {
+            return PageDTO.<TeamTaskDTO>builder()
+                    .currentPage(currentPage)
+                    .list(Lists.newArrayList())
+                    .totalPage(totalPage)
+                    .build();
+        }
+
+        Comparator<TeamSearchIndex.Hit> comparator = Comparator.comparingInt(TeamSearchIndex.Hit::getMatchLevel);
+        if (RankRule.TEAM_RANK_FIRST.equals(rankRule)) {
+            Map<Long, Integer> ranks = teamRankService.getRanks(
+                    hits.stream().map(TeamSearchIndex.Hit::getTeamId).collect(Collectors.toList()));
+            // 不在排行中的团队用数据库中的活跃度衰减到现在，与排行中的活跃度比较
+            hits.stream()
+                    .filter(hit -> !ranks.containsKey(hit.getTeamId()))
+                    .forEach(hit -> ranks.put(hit.getTeamId(), teamRankService.decay(hit.getTeamRank(), hit.getRankUpdateTime())));
+            comparator = comparator.thenComparingInt(hit -> ranks.get(hit.getTeamId()));
+        }
+        comparator = comparator.thenComparing(TeamSearchIndex.Hit::getTeamId);
+        List<TeamSearchIndex.Hit> topHits = Ordering.from(comparator).greatestOf(hits, (int) Math.min(from + size, hits.size()));
+        List<Long> teamIds = topHits.subList((int) from, topHits.size()).stream()
+                .map(TeamSearchIndex.Hit::getTeamId)
+                .collect(Collectors.toList());
+
+        Map<Long, TeamTaskDO> teamTaskDOMap = teamTaskMapper.selectBatchIds(teamIds).stream()
+                .collect(Collectors.toMap(TeamTaskDO::getTeamId, Function.identity()));
+        List<TeamTaskDTO> teamTaskDTOList = teamIds.stream()
+                .map(teamTaskDOMap::get)
+                .filter(Objects::nonNull)
+                .map(teamTaskDO -> TeamTaskDTO.from(teamTaskDO, TeamTaskDTO.class))
+                .collect(Collectors.toList());
+        return PageDTO.<TeamTaskDTO>builder()
+                .currentPage(currentPage)
+                .list(teamTaskDTOList)
+                .totalPage(totalPage)
+                .build();
+    }
+
+    /**
+     * 按活跃度分页，排行中已结束或过了截止日期的团队在这里顺便移出
+     */
+    private PageDTO<TeamTaskDTO> pageHotTeams(PageDTO pageDTO) {
+        long currentPage = pageDTO.currentPageOrFirst();
+        Map<Long, Integer> hotTeams = teamRankService.getHotTeams((currentPage - 1) * pageDTO.getSize(), pageDTO.getSize());
+        Long totalPage = pageDTO.needTotal() ?
+                (long) Math.ceil((teamRankService.count() * 1.0) / pageDTO.getSize()) : null;
+        if (hotTeams.isEmpty()) {
+            return PageDTO.<TeamTaskDTO>builder()
+                    .currentPage(currentPage)
+                    .list(Lists.newArrayList())
+                    .totalPage(totalPage)
+                    .build();
+        }
+
+        Map<Long, TeamTaskDO> teamTaskDOMap = teamTaskMapper.selectBatchIds(hotTeams.keySet()).stream()
+                .collect(Collectors.toMap(TeamTaskDO::getTeamId, Function.identity()));
+        List<TeamTaskDTO> teamTaskDTOList = Lists.newArrayListWithCapacity(hotTeams.size());
+        List<Long> staleTeamIds = Lists.newArrayList();
+        LocalDate today = LocalDate.now();
+        hotTeams.forEach((teamId, teamRank) -> {
+            TeamTaskDO teamTaskDO = teamTaskDOMap.get(teamId);
+            if (teamTaskDO == null || TaskStatus.COMPLETE.equals(teamTaskDO.getTeamStatus())
+                    || !teamTaskDO.getStartDate().isAfter(today)) {
+                staleTeamIds.add(teamId);
+                return;
+            }
+            // 数据库中的活跃度要等回写，以排行中的为准
+            teamTaskDO.setTeamRank(teamRank);
+            teamTaskDTOList.add(TeamTaskDTO.from(teamTaskDO, TeamTaskDTO.class));
+        });
+        if (!staleTeamIds.isEmpty()) {
+            teamRankService.remove(staleTeamIds.toArray(new Long[0]));
+        }
+        return PageDTO.<TeamTaskDTO>builder()
+                .currentPage(currentPage)
+                .list(teamTaskDTOList)
+                .totalPage(totalPage)
+                .build();
+    }
+
     @Override
     public PageDTO<TeamTaskDTO> pageUserTeams(Long userId, PageDTO pageDTO, Integer teamStatus, Boolean isOwner) {
         if (userId == null) {
             userId = UserContext.get().getUserId();
         }
-        Long currentPage = pageDTO.getCurrentPage();
-        // FIXME count时没有带查询条件
-        int count = memberService.countUserTeams(userId);
+        long currentPage = pageDTO.currentPageOrFirst();
+        PageCursor cursor = PageCursor.decode(pageDTO.getCursor());
+        Long totalPage = null;
+        boolean hasTeams = true;
+        if (pageDTO.needTotal()) {
+            // FIXME count时没有带查询条件
+            int count = memberService.countUserTeams(userId);
+            totalPage = (long) Math.ceil((count * 1.0) / pageDTO.getSize());
+            hasTeams = count > 0;
+        }
         List<TeamTaskDO> teamTaskDOList = Lists.newArrayList();
-        if (count > 0) {
+        if (hasTeams) {
             pageDTO.setCurrentPage((currentPage - 1) * pageDTO.getSize());
-            teamTaskDOList = teamTaskMapper.getUserTeams(userId, pageDTO, teamStatus, isOwner);
+            teamTaskDOList = teamTaskMapper.getUserTeams(userId, pageDTO, teamStatus, isOwner, cursor);
         }
         return PageDTO.<TeamTaskDTO>builder()
                 .currentPage(currentPage)
                 .list(teamTaskDOList.stream().map(teamTaskDO -> TeamTaskDTO.from(teamTaskDO, TeamTaskDTO.class)).collect(Collectors.toList()))
-                .totalPage((long) Math.ceil((count * 1.0) / pageDTO.getSize()))
+                .totalPage(totalPage)
                 .size((long) teamTaskDOList.size())
+                .nextCursor(PageCursor.next(teamTaskDOList, pageDTO.getSize(), TeamTaskDO::getJoinTime, TeamTaskDO::getTeamId))
                 .build();
     }
 
     @Override
     public TeamDetailVO getDetail(@NonNull Long teamId) {
-        TeamTaskDTO teamTaskDTO = this.getOne(teamId);
-        int memberAmount = memberService.countMembersByTeamId(teamId);
-        UserInfoDTO owner = userInfoService.getOne(teamTaskDTO.getUserId());
+        // 团队信息和成员数所有人共用，创建者走用户卡片缓存，下一次签到和是否成员按当前用户查
+        TeamDetailDTO teamDetailDTO = teamDetailCache.get(teamId, this::loadDetail);
+        TeamTaskDTO teamTaskDTO = teamDetailDTO.getTeam();
+        UserCardDTO owner = userCardCache.get(teamTaskDTO.getUserId());
         NextSignVO nextSign;
         try {
             nextSign = this.getNextSign(teamTaskDTO);
@@ -198,17 +335,23 @@ public class TeamTaskServiceImpl implements TeamTaskService {
             nextSign = new NextSignVO();
         }
 
-        TeamDetailVO teamDetailVO = new TeamDetailVO();
-        BeanUtils.copyProperties(teamTaskDTO, teamDetailVO);
-        teamDetailVO.setMemberAmount(memberAmount)
+        TeamDetailVO teamDetailVO = ViewConverter.INSTANCE.toTeamDetailVO(teamTaskDTO);
+        teamDetailVO.setMemberAmount(teamDetailDTO.getMemberAmount())
                     .setOwner(owner)
                     .setNextStartTime(nextSign.getNextStartTime())
                     .setNextEndTime(nextSign.getNextEndTime())
                     .setIsMember(memberService.isMember(teamId, UserContext.get().getUserId()))
-                    .setIsOwner(UserContext.get().getUserId().equals(owner.getUserId()) ? 1 : 0);
+                    .setIsOwner(UserContext.get().getUserId().equals(teamTaskDTO.getUserId()) ? 1 : 0);
         return teamDetailVO;
     }
 
+    private TeamDetailDTO loadDetail(Long teamId) {
+        TeamTaskDTO teamTaskDTO = this.getOne(teamId);
+        return new TeamDetailDTO()
+                .setTeam(teamTaskDTO)
+                .setMemberAmount(memberService.countMembersByTeamId(teamId));
+    }
+
     @Override
     public NextSignVO getNextSign(Long teamId) {
         // 验证团队是否存在
@@ -217,67 +360,7 @@ public class TeamTaskServiceImpl implements TeamTaskService {
     }
 
     private NextSignVO getNextSign(TeamTaskDTO teamTaskDTO) {
-        // 要求任务进行中
-        if (!TaskStatus.DOING.equals(teamTaskDTO.getTeamStatus())) {
-            throw new GlobalException(CodeMsgEnum.TEAM_IS_END);
-        }
-
-        LocalDateTime nowTime = LocalDateTime.now();
-        List<TeamRecordDO> teamRecordDOList = teamRecordMapper.selectList(
-                new QueryWrapper<TeamRecordDO>().eq("team_id", teamTaskDTO.getTeamId())
-                                                .gt("next_end_time", nowTime)
-                                                .orderByAsc("team_record_id")
-        );
-
-        // 如果没有下一次的签到信息，就直接生成后返回
-        NextSignVO nextSignVO = new NextSignVO();
-        BeanUtils.copyProperties(teamTaskDTO, nextSignVO);
-
-        if (CollectionUtils.isEmpty(teamRecordDOList)) {
-            BeanUtils.copyProperties(this.addTeamRecord(teamTaskDTO, 1), nextSignVO);
-            return nextSignVO;
-        }
-
-
-        // 倒序取距离当前时间最近一次的签到信息，签到开始时间早于当前时间的
-        TeamRecordDO teamRecordSrc = null;
-        int i;
-        for (i = teamRecordDOList.size() - 1; i >= 0; i--) {
-            TeamRecordDO teamRecordDO = teamRecordDOList.get(i);
-            if (teamRecordDO.getNextStartTime().isBefore(nowTime)) {
-                teamRecordSrc = teamRecordDO;
-                break;
-            }
-        }
-        // 如果没有就取最近一次签到信息，签到开始时间晚于当前时间的
-        if (teamRecordSrc == null) {
-            teamRecordSrc = teamRecordDOList.get(0);
-            BeanUtils.copyProperties(teamRecordSrc, nextSignVO);
-            return nextSignVO;
-        }
-
-        // 判断是否已经签到了，result == 1说明学员已经签到了最近一次
-        int result = memberService.hasSignedIn(teamRecordSrc.getTeamRecordId(), UserContext.get().getUserId());
-        if (result == 1) {
-            // 已经签到了则需要取下一次签到信息，直接取 / 新增 取决于当前数据库是否已经生成
-            teamRecordSrc = i < teamRecordDOList.size() - 1 ?
-                    teamRecordDOList.get(i + 1) : this.addTeamRecord(teamTaskDTO, 2);
-        }
-
-        // 这种做法会导致在某个时段内一直只有两条。比如firstStartTime:11-21; firstEndTime:11-31; freq:1;
-        // 用户在11-25日加入时，可以连续签到 11-21~11-31 和 11-22~12-1，但是之后会一直拿不到签到信息，需要等到过了11-31后才能拿到；
-        // 因为此时 teamRecordDOList 的 size 才小于 2  ↓↓↓↓↓
-        // 如果当前已经生成了下下次签到的记录就直接返回，否则生成下下次签到记录
-        // 假设还没有签到最近一次的
-//        TeamRecordDO teamRecordSrc = teamRecordDOList.get(0);
-//        int result = memberService.hasSignedIn(teamRecordSrc.getTeamRecordId(), UserContext.get().getUserId());
-//        // 判断是否已经签到了，result == 1说明学员已经签到了最近一次
-//        if (result == 1) {
-//             teamRecordSrc = (teamRecordDOList.size() == 2) ?
-//                    teamRecordDOList.get(1) : this.addTeamRecord(teamTaskDTO, 2);
-//        }
-        BeanUtils.copyProperties(teamRecordSrc, nextSignVO);
-        return nextSignVO;
+        return teamScheduleService.getNextSign(teamTaskDTO, UserContext.get().getUserId());
     }
 
     @Override
@@ -285,18 +368,19 @@ public class TeamTaskServiceImpl implements TeamTaskService {
         if (CollectionUtils.isEmpty(teamIdList)) {
             teamIdList = memberService.getTeamIdsByUserId(userId);
         }
-        List<NextSignVO> signVOList = Lists.newArrayList();
-        teamIdList.forEach(teamId -> {
-            try {
-                NextSignVO nextSign = getNextSign(teamId);
-                signVOList.add(nextSign);
-
-            } catch (Exception e) {
-                log.info("【获取签到信息列表】userId = [{}], teamId = [{}], e = [{}]",
-                        userId, teamId, e);
-            }
-        });
-        return signVOList;
+        if (CollectionUtils.isEmpty(teamIdList)) {
+            return Lists.newArrayList();
+        }
+        // 一次取回所有团队，按传入的顺序返回，不存在的团队忽略
+        Map<Long, TeamTaskDO> teamTaskDOMap = teamTaskMapper.selectBatchIds(teamIdList).stream()
+                .collect(Collectors.toMap(TeamTaskDO::getTeamId, Function.identity()));
+        List<TeamTaskDTO> teams = teamIdList.stream()
+                .distinct()
+                .map(teamTaskDOMap::get)
+                .filter(Objects::nonNull)
+                .map(teamTaskDO -> BaseDTO.from(teamTaskDO, TeamTaskDTO.class))
+                .collect(Collectors.toList());
+        return teamScheduleService.getNextSigns(teams, userId);
     }
 
     @Override
@@ -348,6 +432,8 @@ public class TeamTaskServiceImpl implements TeamTaskService {
         }
 
         NextSignVO nextSign = this.getNextSign(teamTaskDTO);
+        long period = SignPeriodUtil.periodOf(teamTaskDTO.getFirstStartTime(), teamTaskDTO.getTeamFreq(),
+                nextSign.getNextStartTime());
         LocalDateTime nowTime = LocalDateTime.now();
 
         if (nowTime.isBefore(nextSign.getNextStartTime())) {
@@ -368,14 +454,37 @@ public class TeamTaskServiceImpl implements TeamTaskService {
                     .setUserActivity(activityVO.getActivity())
                     .setActivityImages(activityVO.getActivityImages())
                     .setActivityIcon(activityIcon);
+            // 上传时生成的缩略图和中图随动态一起保存，列表只需要下载缩略图
+            List<String> pendingImages = Lists.newArrayList();
+            if (!CollectionUtils.isEmpty(activityVO.getActivityImages())) {
+                List<ImageVariantDTO> variants = imageVariantService.getVariants(activityVO.getActivityImages());
+                memberRecordDTO.setActivityThumbs(variants.stream().map(ImageVariantDTO::getThumb).collect(Collectors.toList()))
+                               .setActivityMediums(variants.stream().map(ImageVariantDTO::getMedium).collect(Collectors.toList()));
+                // 还没生成完的先用原图地址代替
+                for (int i = 0, len = variants.size(); i < len; i++) {
+                    String imageUrl = activityVO.getActivityImages().get(i);
+                    if (imageUrl.equals(variants.get(i).getThumb())) {
+                        pendingImages.add(imageUrl);
+                    }
+                }
+            }
             memberService.addMemberRecord(memberRecordDTO);
+            if (!pendingImages.isEmpty()) {
+                imageVariantService.fillWhenReady(memberRecordDTO.getMemberRecordId(), pendingImages);
+            }
+            teamScheduleService.markSignedIn(teamId, UserContext.get().getUserId(), period);
+            // 异步累加本周签到经验，奖励经验就在已经查出的团队信息里
+            if (ActivityIcon.IC_SIGN.equals(activityIcon)) {
+                asyncTaskService.incrAttributeWeekly(UserContext.get().getUserId(), teamTaskDTO.getRewardExp());
+            }
             // 单次任务在这次签到完成后就直接完成了，没有下一次
             if (teamTaskDTO.getTeamFreq() == 0) {
                 throw new SingleTaskException(CodeMsgEnum.TEAM_IS_END);
             }
         }
 
-        return this.getNextSign(teamTaskDTO);
+        // 签到后下一次就是下一个周期，不需要再查一遍
+        return teamScheduleService.getSign(teamTaskDTO, period + 1);
     }
 
    @Override
@@ -393,23 +502,15 @@ public class TeamTaskServiceImpl implements TeamTaskService {
         teamTaskDO.setTeamStatus(TaskStatus.COMPLETE);
         teamTaskDO.setCompleteTime(LocalDateTime.now());
         teamTaskMapper.updateById(teamTaskDO);
-    }
-
-    @Override
-    public List<TeamTaskDTO> getAllActiveTeams() {
-        List<TeamTaskDO> teamTaskDOList = teamTaskMapper.selectList(
-                new QueryWrapper<TeamTaskDO>()
-                        .ne("team_rank", 0)
-        );
-
-        return teamTaskDOList.stream()
-                .map(teamTaskDO -> TeamTaskDTO.from(teamTaskDO, TeamTaskDTO.class))
-                .collect(Collectors.toList());
+        teamRankService.remove(teamId);
+        teamDetailCache.evict(teamId);
+        teamSearchIndex.changed(teamId);
     }
 
     @Override
     public int incrTeamRank(Long teamId, int e) {
-        return teamTaskMapper.incrTeamRank(teamId, e);
+        teamRankService.incr(teamId, e);
+        return 1;
     }
 
     @Override
@@ -421,55 +522,8 @@ public class TeamTaskServiceImpl implements TeamTaskService {
             throw new GlobalException(CodeMsgEnum.TEAM_INVALID_BEHAVIOR);
         }
         teamTaskMapper.updateById(teamTaskDTO.toDO(TeamTaskDO.class));
+        teamDetailCache.evict(teamTaskDTO.getTeamId());
+        teamSearchIndex.changed(teamTaskDTO.getTeamId());
         return teamTaskDTO;
     }
-
-    /**
-     * 由团队添加下n次团队签到记录
-     * n可能为1，即下一次的团队签到记录
-     * n可能为2，即下下一次的团队签到记录
-     * @param teamTaskDTO 团队信息
-     */
-    private TeamRecordDO addTeamRecord(TeamTaskDTO teamTaskDTO, int n) {
-        LocalDateTime firstStartTime = teamTaskDTO.getFirstStartTime();
-        LocalDateTime nowTime = LocalDateTime.now();
-
-        // 计算下n次签到的日期时间
-        LocalDate firstStartDate = firstStartTime.toLocalDate();
-        LocalDate nowDate = nowTime.toLocalDate();
-        long period = nowDate.toEpochDay() - firstStartDate.toEpochDay();
-        int teamFreq = teamTaskDTO.getTeamFreq();
-
-        boolean isEnd = (teamFreq == 0 && period > 0) || teamTaskDTO.getCompleteTime() != null;
-        if (isEnd) {
-            // 如果是不重复的团队任务，并且已经过了签到日期或者有了完成时间，则提示已经结束
-            throw new GlobalException(CodeMsgEnum.TEAM_IS_END);
-        }
-        // 处理不重复的任务
-        if (teamFreq == 0 && n != 1) {
-            throw new GlobalException(CodeMsgEnum.TEAM_IS_END);
-        }
-        long nextSignPeriod = (teamFreq == 0) ?
-                0 : (long) Math.ceil((period * 1.0) / teamFreq) * teamFreq + teamFreq * (n - 1);
-        LocalDateTime nextStartTime = firstStartTime.plusDays(nextSignPeriod);
-        LocalDateTime nextEndTime = teamTaskDTO.getFirstEndTime().plusDays(nextSignPeriod);
-        if (period < 0) {
-            // 应对开始日期在当前日期之后
-            nextStartTime = teamTaskDTO.getFirstStartTime();
-            nextEndTime = teamTaskDTO.getFirstEndTime();
-        }
-        // 如果新生成的下一次签到结束时间 小于 当前时间（也就是说新生成的团队动态就已经是结束的），则需要再加一个 频率值
-        if (nextEndTime.isBefore(nowTime)) {
-            nextStartTime = nextStartTime.plusDays(teamFreq);
-            nextEndTime = nextEndTime.plusDays(teamFreq);
-        }
-
-        // 插入下n次的团队签到记录
-        TeamRecordDO nextTeamRecordDO = new TeamRecordDO().setNextStartTime(nextStartTime)
-                                                      .setNextEndTime(nextEndTime)
-                                                      .setTeamId(teamTaskDTO.getTeamId());
-        teamRecordMapper.insert(nextTeamRecordDO);
-
-        return nextTeamRecordDO;
-    }
 }
@@ -0,0 +1,301 @@
+package com.hdh.lifeup.service.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.hdh.lifeup.config.TimelineConfig;
+import com.hdh.lifeup.dao.TeamMemberRecordMapper;
+import com.hdh.lifeup.model.domain.TeamMemberRecordDO;
+import com.hdh.lifeup.model.dto.PageCursor;
+import com.hdh.lifeup.model.dto.PageDTO;
+import com.hdh.lifeup.model.dto.TeamMemberRecordDTO;
+import com.hdh.lifeup.redis.RedisBatch;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.redis.TimelineKey;
+import com.hdh.lifeup.redis.UserKey;
+import com.hdh.lifeup.service.TimelineService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.hdh.lifeup.model.constant.TaskConst.ActivityIcon;
+
+/**
+ * TimelineServiceImpl class<br/>
+ * 推拉结合的朋友圈时间线：
+ * 普通用户发布动态时推送到粉丝的收件箱（只推给收件箱还存在的活跃粉丝），
+ * 大V只写自己的发件箱，粉丝读时再把关注的大V发件箱与自己的收件箱归并。
+ * @author hdonghong
+ * @since 2020/01/12
+ */
+@Slf4j
+@Service
+public class TimelineServiceImpl implements TimelineService {
+
+    /** 大V集合只有一个，key固定 */
+    private static final String CELEBRITY_SET = "all";
+
+    /**
+     * 重建后没有动态时写入收件箱的占位成员，空时间线也像非空的一样缓存到过期，不必每次读都重建；
+     * 分数为0，排在最后，收件箱满时最先被裁掉，读时过滤
+     */
+    private static final long EMPTY_MARKER = 0L;
+
+    /** 时间线顺序：发布时间倒序，同一时间按id倒序，与游标的比较方式一致 */
+    private static final Comparator<Map.Entry<Long, Double>> TIMELINE_ORDER =
+            Comparator.<Map.Entry<Long, Double>>comparingDouble(Map.Entry::getValue)
+                    .thenComparingLong(Map.Entry::getKey)
+                    .reversed();
+
+    private RedisOperator redisOperator;
+
+    private TeamMemberRecordMapper memberRecordMapper;
+
+    private TimelineConfig timelineConfig;
+
+    @Autowired
+    public TimelineServiceImpl(RedisOperator redisOperator,
+                               TeamMemberRecordMapper memberRecordMapper,
+                               TimelineConfig timelineConfig) {
+        this.redisOperator = redisOperator;
+        this.memberRecordMapper = memberRecordMapper;
+        this.timelineConfig = timelineConfig;
+    }
+
+    @Override
+    public void fanOut(TeamMemberRecordDTO memberRecordDTO) {
+        // 放弃的动态不出现在朋友圈
+        if (ActivityIcon.IC_GIVE_UP.equals(memberRecordDTO.getActivityIcon())) {
+            return;
+        }
+        Long authorId = memberRecordDTO.getUserId();
+        Long memberRecordId = memberRecordDTO.getMemberRecordId();
+        long score = System.currentTimeMillis();
+        boolean hasContent = hasContent(memberRecordDTO);
+
+        // 发件箱总是要写的，与粉丝数的查询一起走一次管道
+        RedisBatch batch = redisOperator.batch();
+        pushToOutbox(batch, TimelineKey.OUTBOX, authorId, score, memberRecordId);
+        if (hasContent) {
+            pushToOutbox(batch, TimelineKey.CONTENT_OUTBOX, authorId, score, memberRecordId);
+        }
+        RedisBatch.Response<Long> followerCountResponse = batch.zcard(UserKey.FOLLOWER, authorId);
+        batch.execute();
+
+        long followerCount = followerCountResponse.get();
+        int celebrityThreshold = timelineConfig.getCelebrityThreshold();
+        if (followerCount >= celebrityThreshold) {
+            // 大V不推送，由粉丝读时拉取
+            redisOperator.sadd(TimelineKey.CELEBRITY, CELEBRITY_SET, authorId);
+            return;
+        } else if (followerCount < celebrityThreshold / 2) {
+            // 粉丝数回落到阈值一半以下才移出大V，避免在阈值附近来回切换
+            redisOperator.srem(TimelineKey.CELEBRITY, CELEBRITY_SET, authorId);
+        }
+
+        List<Long> receivers = Lists.newArrayList(redisOperator.zrange(UserKey.FOLLOWER, authorId, 0, -1));
+        receivers.add(authorId);
+        int capacity = timelineConfig.getBoxCapacity();
+        Lists.partition(receivers, timelineConfig.getFanOutBatchSize()).forEach(receiverBatch -> {
+            redisOperator.zaddIfExists(TimelineKey.INBOX, receiverBatch, score, memberRecordId, capacity);
+            if (hasContent) {
+                redisOperator.zaddIfExists(TimelineKey.CONTENT_INBOX, receiverBatch, score, memberRecordId, capacity);
+            }
+        });
+    }
+
+    @Override
+    public PageDTO<Long> pageTimeline(Long userId, PageDTO pageDTO, int filter) {
+        TimelineKey<Long> inboxKey = (filter == 1) ? TimelineKey.CONTENT_INBOX : TimelineKey.INBOX;
+        TimelineKey<Long> outboxKey = (filter == 1) ? TimelineKey.CONTENT_OUTBOX : TimelineKey.OUTBOX;
+        // 续期失败说明收件箱不存在，需要重建
+        if (!redisOperator.expire(inboxKey, userId)) {
+            rebuildInbox(userId, inboxKey, filter);
+        }
+
+        long size = pageDTO.getSize();
+        long currentPage = pageDTO.currentPageOrFirst();
+        long offset = (currentPage - 1) * size;
+        PageCursor cursor = PageCursor.decode(pageDTO.getCursor());
+        List<Long> celebrityIds = getFollowingCelebrities(userId);
+
+        // 收件箱、关注的大V发件箱的范围读以及总数统计合并成一次管道请求
+        RedisBatch batch = redisOperator.batch();
+        List<RedisBatch.Response<LinkedHashMap<Long, Double>>> ranges = Lists.newArrayList();
+        if (cursor != null) {
+            // 游标翻页：各来源取与游标同分数的全部动态，再取更早的前 size 条。
+            // 同分数的动态可能很多（重建时数据库的时间只精确到秒），只多取固定条数会越不过已经返回过的那些
+            long cursorScore = cursor.toEpochMilli();
+            addCursorRanges(batch, ranges, inboxKey, userId, cursorScore, size);
+            celebrityIds.forEach(celebrityId -> addCursorRanges(batch, ranges, outboxKey, celebrityId, cursorScore, size));
+        } else if (celebrityIds.isEmpty()) {
+            // 没有关注大V时，一次有界的范围读即可
+            ranges.add(batch.zrevrangeWithScores(inboxKey, userId, offset, offset + size - 1));
+        } else {
+            // 收件箱与关注的大V发件箱各取前 offset + size 条，按发布时间归并
+            ranges.add(batch.zrevrangeWithScores(inboxKey, userId, 0, offset + size - 1));
+            celebrityIds.forEach(celebrityId ->
+                    ranges.add(batch.zrevrangeWithScores(outboxKey, celebrityId, 0, offset + size - 1)));
+        }
+        List<RedisBatch.Response<Long>> counts = Lists.newArrayList();
+        if (pageDTO.needTotal()) {
+            // 不计入分数为0的占位成员
+            counts.add(batch.zcount(inboxKey, userId, 1, Double.POSITIVE_INFINITY));
+            celebrityIds.forEach(celebrityId -> counts.add(batch.zcard(outboxKey, celebrityId)));
+        }
+        batch.execute();
+
+        List<Map.Entry<Long, Double>> entries = Lists.newArrayList();
+        ranges.forEach(range -> entries.addAll(range.get().entrySet()));
+        entries.removeIf(entry -> entry.getKey() == EMPTY_MARKER);
+        List<Map.Entry<Long, Double>> pageEntries = entries;
+        if (cursor != null) {
+            long cursorScore = cursor.toEpochMilli();
+            Long cursorId = cursor.getId();
+            entries.removeIf(entry -> entry.getValue() == cursorScore && entry.getKey() >= cursorId);
+            pageEntries = merge(entries, 0, size);
+        } else if (!celebrityIds.isEmpty()) {
+            pageEntries = merge(entries, offset, size);
+        }
+
+        Long totalPage = null;
+        if (pageDTO.needTotal()) {
+            long total = counts.stream().mapToLong(RedisBatch.Response::get).sum();
+            totalPage = (long) Math.ceil((total * 1.0) / size);
+        }
+        String nextCursor = null;
+        if (pageEntries.size() >= size) {
+            Map.Entry<Long, Double> last = pageEntries.get(pageEntries.size() - 1);
+            nextCursor = PageCursor.ofEpochMilli(last.getValue().longValue(), last.getKey()).encode();
+        }
+
+        return PageDTO.<Long>builder()
+                .currentPage(currentPage)
+                .list(pageEntries.stream().map(Map.Entry::getKey).collect(Collectors.toList()))
+                .totalPage(totalPage)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private void addCursorRanges(RedisBatch batch, List<RedisBatch.Response<LinkedHashMap<Long, Double>>> ranges,
+                                 TimelineKey<Long> boxKey, Long boxId, long cursorScore, long size) {
+        ranges.add(batch.zrevrangeByScoreWithScores(boxKey, boxId, cursorScore, cursorScore, timelineConfig.getBoxCapacity()));
+        ranges.add(batch.zrevrangeByScoreWithScores(boxKey, boxId, Double.NEGATIVE_INFINITY, cursorScore - 1, size));
+    }
+
+    /**
+     * 多个来源的动态按发布时间、id倒序归并，同一条动态只保留一次
+     */
+    private List<Map.Entry<Long, Double>> merge(List<Map.Entry<Long, Double>> entries, long skip, long limit) {
+        Set<Long> seen = Sets.newHashSet();
+        return entries.stream()
+                .sorted(TIMELINE_ORDER)
+                .filter(entry -> seen.add(entry.getKey()))
+                .skip(skip)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void evictInbox(Long userId) {
+        redisOperator.del(TimelineKey.INBOX, userId);
+        redisOperator.del(TimelineKey.CONTENT_INBOX, userId);
+    }
+
+    @Override
+    public void removeRecord(Long authorId, Long memberRecordId) {
+        RedisBatch batch = redisOperator.batch();
+        batch.zrem(TimelineKey.OUTBOX, authorId, memberRecordId);
+        batch.zrem(TimelineKey.CONTENT_OUTBOX, authorId, memberRecordId);
+        batch.zrem(TimelineKey.INBOX, authorId, memberRecordId);
+        batch.zrem(TimelineKey.CONTENT_INBOX, authorId, memberRecordId);
+        RedisBatch.Response<Boolean> celebrity = batch.sismember(TimelineKey.CELEBRITY, CELEBRITY_SET, authorId);
+        batch.execute();
+
+        // 大V的动态只在发件箱里，粉丝读时拉取，不用逐个清理粉丝的收件箱。
+        // 成为大V之前推送的旧动态可能还留在粉丝收件箱里，读取时查不到记录会被跳过，收件箱过期后也会重建
+        if (Boolean.TRUE.equals(celebrity.get())) {
+            return;
+        }
+        // 推送时写进了粉丝的收件箱，也要一并移除，否则分页会变短、总数偏大
+        List<Long> receivers = Lists.newArrayList(redisOperator.zrange(UserKey.FOLLOWER, authorId, 0, -1));
+        Lists.partition(receivers, timelineConfig.getFanOutBatchSize()).forEach(receiverBatch -> {
+            RedisBatch inboxBatch = redisOperator.batch();
+            receiverBatch.forEach(receiverId -> {
+                inboxBatch.zrem(TimelineKey.INBOX, receiverId, memberRecordId);
+                inboxBatch.zrem(TimelineKey.CONTENT_INBOX, receiverId, memberRecordId);
+            });
+            inboxBatch.execute();
+        });
+    }
+
+    /**
+     * 收件箱不存在（新用户、过期或关注关系变化）时，从数据库取关注的非大V用户最近的动态重建，
+     * 没有动态时写入占位成员
+     */
+    private void rebuildInbox(Long userId, TimelineKey<Long> inboxKey, int filter) {
+        Set<Long> userIdSet = redisOperator.zrange(UserKey.FOLLOWING, userId, 0, -1);
+        userIdSet.add(userId);
+        userIdSet.removeAll(redisOperator.smembers(TimelineKey.CELEBRITY, CELEBRITY_SET));
+        List<TeamMemberRecordDO> latestRecords = userIdSet.isEmpty() ? Collections.emptyList()
+                : memberRecordMapper.getLatestRecordIds(userIdSet, filter, timelineConfig.getBoxCapacity());
+        if (latestRecords.isEmpty()) {
+            RedisBatch batch = redisOperator.batch();
+            batch.zadd(inboxKey, userId, 0, EMPTY_MARKER);
+            batch.expire(inboxKey, userId);
+            batch.execute();
+            return;
+        }
+        Object[] scoreAndMembers = new Object[latestRecords.size() * 2];
+        for (int i = 0, len = latestRecords.size(); i < len; i++) {
+            TeamMemberRecordDO recordDO = latestRecords.get(i);
+            scoreAndMembers[i * 2] = recordDO.getCreateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            scoreAndMembers[i * 2 + 1] = recordDO.getMemberRecordId();
+        }
+        RedisBatch batch = redisOperator.batch();
+        batch.zadd(inboxKey, userId, scoreAndMembers);
+        batch.expire(inboxKey, userId);
+        batch.execute();
+        log.info("【重建时间线】userId = [{}], filter = [{}], size = [{}]", userId, filter, latestRecords.size());
+    }
+
+    /**
+     * 获取用户关注的大V（包括自己是大V的情况）
+     */
+    private List<Long> getFollowingCelebrities(Long userId) {
+        List<Long> celebrities = Lists.newArrayList(redisOperator.smembers(TimelineKey.CELEBRITY, CELEBRITY_SET));
+        if (celebrities.isEmpty()) {
+            return celebrities;
+        }
+        List<Long> followingRanks = redisOperator.zrankEach(UserKey.FOLLOWING,
+                Collections.nCopies(celebrities.size(), userId), celebrities);
+        List<Long> result = Lists.newArrayList();
+        for (int i = 0, len = celebrities.size(); i < len; i++) {
+            Long celebrityId = celebrities.get(i);
+            if (celebrityId.equals(userId) || followingRanks.get(i) != null) {
+                result.add(celebrityId);
+            }
+        }
+        return result;
+    }
+
+    private void pushToOutbox(RedisBatch batch, TimelineKey<Long> outboxKey, Long authorId, long score, Long memberRecordId) {
+        batch.zadd(outboxKey, authorId, score, memberRecordId);
+        batch.zremrangeByRank(outboxKey, authorId, 0, -(timelineConfig.getBoxCapacity() + 1));
+    }
+
+    private boolean hasContent(TeamMemberRecordDTO memberRecordDTO) {
+        return !StringUtils.isEmpty(memberRecordDTO.getUserActivity())
+                || !CollectionUtils.isEmpty(memberRecordDTO.getActivityImages());
+    }
+}
@@ -0,0 +1,155 @@
+package com.hdh.lifeup.service.impl;
+
+import com.hdh.lifeup.config.StorageConfig;
+import com.hdh.lifeup.exception.GlobalException;
+import com.hdh.lifeup.model.dto.ImageVariantDTO;
+import com.hdh.lifeup.model.enums.CodeMsgEnum;
+import com.hdh.lifeup.service.ImageVariantService;
+import com.hdh.lifeup.service.StorageBackend;
+import com.hdh.lifeup.service.UploadService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * UploadServiceImpl class<br/>
+ * 一次请求的多张图片提交到有界的上传线程池并行上传，请求线程只等待全部完成，
+ * 耗时从每张图片的耗时之和降到最慢的一张；线程池满时由请求线程自己上传。
+ * 需要缩小版本时，原图只读一次，上传原图与生成缩小版本同时进行，请求只等待原图上传完成
+ * @author hdonghong
+ * @since 2020/02/20
+ */
+@Slf4j
+@Service
+public class UploadServiceImpl implements UploadService {
+
+    private final StorageBackend storageBackend;
+
+    private final Executor uploadExecutor;
+
+    private final ImageVariantService imageVariantService;
+
+    private final int uploadTimeoutSeconds;
+
+    @Autowired
+    public UploadServiceImpl(StorageBackend storageBackend,
+                             @Qualifier("uploadExecutor") Executor uploadExecutor,
+                             ImageVariantService imageVariantService,
+                             StorageConfig storageConfig) {
+        this.storageBackend = storageBackend;
+        this.uploadExecutor = uploadExecutor;
+        this.imageVariantService = imageVariantService;
+        this.uploadTimeoutSeconds = storageConfig.getUploadTimeoutSeconds();
+    }
+
+    @Override
+    public String uploadImage(MultipartFile imageFile, String imageUri) {
+        if (imageFile == null) {
+            throw new GlobalException(CodeMsgEnum.SERVER_ERROR);
+        }
+        String imageName = imageUri + UUID.randomUUID().toString() + suffixOf(imageFile.getOriginalFilename());
+        try (InputStream inputStream = imageFile.getInputStream()) {
+            return storageBackend.put(imageName, inputStream, imageFile.getSize(), imageFile.getContentType());
+        } catch (IOException e) {
+            log.error("【上传图片】上传失败，imageName = [{}]", imageName, e);
+            throw new GlobalException(CodeMsgEnum.UPLOAD_ERROR);
+        }
+    }
+
+    @Override
+    public List<String> uploadImages(List<MultipartFile> imageFiles, String imageUri, boolean withVariants) {
+        // 只有一张时直接在请求线程上传，省掉一次线程切换
+        if (!withVariants && imageFiles.size() <= 1) {
+            return imageFiles.stream()
+                    .map(imageFile -> uploadImage(imageFile, imageUri))
+                    .collect(Collectors.toList());
+        }
+        List<CompletableFuture<String>> futures = imageFiles.stream()
+                .map(imageFile -> withVariants ? uploadWithVariants(imageFile, imageUri)
+                        : CompletableFuture.supplyAsync(() -> uploadImage(imageFile, imageUri), uploadExecutor))
+                .collect(Collectors.toList());
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(uploadTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof GlobalException) {
+                throw (GlobalException) e.getCause();
+            }
+            log.error("【上传图片】上传失败，imageUri = [{}]", imageUri, e.getCause());
+            throw new GlobalException(CodeMsgEnum.UPLOAD_ERROR);
+        } catch (TimeoutException e) {
+            futures.forEach(future -> future.cancel(true));
+            log.error("【上传图片】等待上传超时，imageUri = [{}], 图片数 = [{}]", imageUri, imageFiles.size());
+            throw new GlobalException(CodeMsgEnum.UPLOAD_ERROR);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GlobalException(CodeMsgEnum.UPLOAD_ERROR);
+        }
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    private CompletableFuture<String> uploadWithVariants(MultipartFile imageFile, String imageUri) {
+        String imageName = imageUri + UUID.randomUUID().toString() + suffixOf(imageFile.getOriginalFilename());
+        byte[] image;
+        try {
+            image = imageFile.getBytes();
+        } catch (IOException e) {
+            log.error("【上传图片】读取图片失败，imageName = [{}]", imageName, e);
+            throw new GlobalException(CodeMsgEnum.UPLOAD_ERROR);
+        }
+        CompletableFuture<String> original = CompletableFuture.supplyAsync(() -> {
+            try {
+                return storageBackend.put(imageName, new ByteArrayInputStream(image), image.length, imageFile.getContentType());
+            } catch (IOException e) {
+                log.error("【上传图片】上传失败，imageName = [{}]", imageName, e);
+                throw new GlobalException(CodeMsgEnum.UPLOAD_ERROR);
+            }
+        }, uploadExecutor);
+        // 请求只等原图，缩小版本在后台生成和记录，慢了或失败了动态中都用原图代替
+        CompletableFuture<ImageVariantDTO> variants;
+        try {
+            variants = imageVariantService.createVariants(imageName, image);
+        } catch (RejectedExecutionException e) {
+            log.warn("【上传图片】图片处理线程池已满，不生成缩略图，imageName = [{}]", imageName);
+            return original;
+        }
+        variants.exceptionally(e -> {
+            log.warn("【上传图片】生成缩略图失败，只保留原图，imageName = [{}]", imageName, e);
+            return null;
+        }).thenAcceptBoth(original, (variant, imageUrl) -> {
+            if (variant != null) {
+                try {
+                    imageVariantService.saveVariants(imageUrl, variant);
+                } catch (RuntimeException e) {
+                    log.warn("【上传图片】记录缩略图失败，动态中将使用原图，imageUrl = [{}]", imageUrl, e);
+                }
+            }
+        });
+        return original;
+    }
+
+    /**
+     * 文件后缀，带上点号，没有后缀时返回空串
+     */
+    static String suffixOf(String originalFilename) {
+        if (originalFilename == null) {
+            return "";
+        }
+        int dot = originalFilename.lastIndexOf('.');
+        return dot < 0 ? "" : originalFilename.substring(dot);
+    }
+}
@@ -7,8 +7,8 @@ import com.hdh.lifeup.model.ao.UserAchievementAO;
 import com.hdh.lifeup.model.domain.UserAchievementDO;
 import com.hdh.lifeup.model.dto.UserAchievementDTO;
 import com.hdh.lifeup.service.UserAchievementService;
+import com.hdh.lifeup.convert.ViewConverter;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
@@ -31,8 +31,7 @@ public class UserAchievementServiceImpl implements UserAchievementService {
     @Override
     public void sync(UserAchievementAO userAchievementAO) {
         Preconditions.checkNotNull(userAchievementAO);
-        UserAchievementDO userAchievementDO = new UserAchievementDO();
-        BeanUtils.copyProperties(userAchievementAO, userAchievementDO);
+        UserAchievementDO userAchievementDO = ViewConverter.INSTANCE.toUserAchievementDO(userAchievementAO);
         QueryWrapper<UserAchievementDO> achievementQueryWrapper = new QueryWrapper<UserAchievementDO>()
                 .eq("user_id", userAchievementDO.getUserId())
                 .eq("client_achievement_id", userAchievementDO.getClientAchievementId());
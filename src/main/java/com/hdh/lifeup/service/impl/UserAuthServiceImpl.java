@@ -17,9 +17,9 @@ import com.hdh.lifeup.service.UserInfoService;
 import com.hdh.lifeup.util.PasswordUtil;
 import com.hdh.lifeup.util.TokenUtil;
 import com.hdh.lifeup.model.vo.UserAuthVO;
+import com.hdh.lifeup.convert.ViewConverter;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -143,8 +143,7 @@ public class UserAuthServiceImpl implements UserAuthService {
     @Override
     @Transactional(rollbackFor = Exception.class)
     public String register(@NonNull UserAuthVO userAuthVO) {
-        UserInfoDTO userInfoDTO = new UserInfoDTO();
-        BeanUtils.copyProperties(userAuthVO, userInfoDTO);
+        UserInfoDTO userInfoDTO = ViewConverter.INSTANCE.toUserInfoDTO(userAuthVO);
         // 注册类型：目前有手机号、QQ
         userInfoDTO.setAuthTypes(Lists.newArrayList(userAuthVO.getAuthType()));
         UserInfoDTO userInfoResult = userInfoService.insert(userInfoDTO);
@@ -1,8 +1,10 @@
 package com.hdh.lifeup.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.hdh.lifeup.auth.SessionCache;
 import com.hdh.lifeup.auth.TokenContext;
 import com.hdh.lifeup.auth.UserContext;
 import com.hdh.lifeup.base.BaseDTO;
@@ -12,6 +14,7 @@ import com.hdh.lifeup.model.constant.TaskConst;
 import com.hdh.lifeup.model.domain.UserInfoDO;
 import com.hdh.lifeup.model.dto.AttributeDTO;
 import com.hdh.lifeup.model.dto.PageDTO;
+import com.hdh.lifeup.model.dto.UserCardDTO;
 import com.hdh.lifeup.model.dto.UserInfoDTO;
 import com.hdh.lifeup.model.enums.CodeMsgEnum;
 import com.hdh.lifeup.model.vo.UserDetailVO;
@@ -19,14 +22,17 @@ import com.hdh.lifeup.model.vo.UserListVO;
 import com.hdh.lifeup.redis.RedisOperator;
 import com.hdh.lifeup.redis.UserKey;
 import com.hdh.lifeup.service.AttributeService;
+import com.hdh.lifeup.service.FollowService;
 import com.hdh.lifeup.service.LikeService;
 import com.hdh.lifeup.service.TeamMemberService;
+import com.hdh.lifeup.service.TimelineService;
+import com.hdh.lifeup.service.UserCardCache;
 import com.hdh.lifeup.service.UserInfoService;
 import com.hdh.lifeup.util.PasswordUtil;
-import com.hdh.lifeup.util.TokenUtil;
+import com.hdh.lifeup.convert.DomainConverter;
+import com.hdh.lifeup.convert.ViewConverter;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -34,12 +40,12 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.annotation.Resource;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
-import static com.hdh.lifeup.model.constant.UserConst.FollowStatus;
-
 /**
  * UserInfoServiceImpl class<br/>
  *
@@ -53,6 +59,9 @@ public class UserInfoServiceImpl implements UserInfoService {
     @Resource
     private RedisOperator redisOperator;
 
+    @Resource
+    private SessionCache sessionCache;
+
     @Resource
     private UserInfoMapper userInfoMapper;
 
@@ -65,6 +74,15 @@ public class UserInfoServiceImpl implements UserInfoService {
     @Resource
     private LikeService likeService;
 
+    @Resource
+    private TimelineService timelineService;
+
+    @Resource
+    private FollowService followService;
+
+    @Resource
+    private UserCardCache userCardCache;
+
     @Override
     public UserInfoDTO getOne(@NonNull Long userId) {
         UserInfoDO userInfoDO = userInfoMapper.selectById(userId);
@@ -96,13 +114,14 @@ public class UserInfoServiceImpl implements UserInfoService {
     @Transactional(rollbackFor = Exception.class)
     public UserInfoDTO update(@NonNull UserInfoDTO userInfoDTO) {
         UserInfoDTO cachedUserInfoDTO = UserContext.get();
-        BeanUtils.copyProperties(userInfoDTO, cachedUserInfoDTO, "userId", "createTime");
+        DomainConverter.INSTANCE.update(userInfoDTO, cachedUserInfoDTO);
         Integer result = userInfoMapper.updateById(cachedUserInfoDTO.toDO(UserInfoDO.class));
         if (!Objects.equals(1, result)) {
             log.error("【修改用户信息】插入记录数量 = [{}], UserInfoDTO = [{}]", result, userInfoDTO);
             throw new GlobalException(CodeMsgEnum.DATABASE_EXCEPTION);
         }
-        redisOperator.setex(UserKey.TOKEN, TokenContext.get(), cachedUserInfoDTO);
+        sessionCache.put(TokenContext.get(), cachedUserInfoDTO);
+        userCardCache.evict(cachedUserInfoDTO.getUserId());
         return cachedUserInfoDTO;
     }
 
@@ -110,17 +129,12 @@ public class UserInfoServiceImpl implements UserInfoService {
     public UserInfoDTO getByToken(String authenticityToken) {
         Preconditions.checkNotNull(authenticityToken, "【通过token获取用户】传入的Token为空");
 
-        UserInfoDTO userInfoDTO = redisOperator.get(UserKey.TOKEN, authenticityToken);
+        // 先查本地缓存再查redis，有效期不足时由定时任务批量续期
+        UserInfoDTO userInfoDTO = sessionCache.get(authenticityToken);
         if (userInfoDTO == null) {
             log.info("【通过token获取用户】无效的TOKEN");
             return null;
         }
-
-        long expire = redisOperator.ttl(UserKey.TOKEN, authenticityToken);
-        if (expire < TokenUtil.MIN_EXPIRED) {
-            log.info("【通过token获取用户】当前用户Token有效时长expire = [{}], 重设", expire);
-            redisOperator.expire(UserKey.TOKEN, authenticityToken);
-        }
         return userInfoDTO;
     }
 
@@ -130,8 +144,7 @@ public class UserInfoServiceImpl implements UserInfoService {
         UserInfoDTO userInfoDTO = (userId == null) ?
                 UserContext.get() : this.getOne(userId);
 
-        UserDetailVO userDetailVO = new UserDetailVO();
-        BeanUtils.copyProperties(userInfoDTO, userDetailVO);
+        UserDetailVO userDetailVO = ViewConverter.INSTANCE.toUserDetailVO(userInfoDTO);
         // 加入的团队数量（进行中的）
         userId = userInfoDTO.getUserId();
         userDetailVO.setTeamAmount(memberService.countUserTeamsWithStatus(userId, TaskConst.TaskStatus.DOING));
@@ -141,7 +154,8 @@ public class UserInfoServiceImpl implements UserInfoService {
         // 关注的人的数量
         userDetailVO.setFollowingAmount(redisOperator.zcard(UserKey.FOLLOWING, userId));
         // 关注的状态
-        userDetailVO.setIsFollow(getFollowStatus(UserContext.get().getUserId(), userId));
+        userDetailVO.setIsFollow(
+                followService.getFollowStatuses(UserContext.get().getUserId(), Collections.singletonList(userId)).get(0));
         // 获赞数量
         userDetailVO.setLikeCount(likeService.getUserLikeCount(userId));
 
@@ -157,7 +171,7 @@ public class UserInfoServiceImpl implements UserInfoService {
             throw new GlobalException(CodeMsgEnum.FORBIT_FOLLOW_YOURSELF);
         }
         // 判断userId指向的用户是否存在
-        this.getOne(userId);
+        this.checkExists(userId);
 
         // 存到跟随者 关注的用户列表中
         Long nowSecond = LocalDateTime.now().toEpochSecond(ZoneOffset.of("+8"));
@@ -170,6 +184,8 @@ public class UserInfoServiceImpl implements UserInfoService {
                     addFollowingResult, addFollowerResult);
             throw new GlobalException(CodeMsgEnum.FOLLOW_ERROR);
         }
+        // 关注的人变了，收件箱下次读时重建
+        timelineService.evictInbox(follower.getUserId());
     }
 
     @Override
@@ -181,7 +197,7 @@ public class UserInfoServiceImpl implements UserInfoService {
             throw new GlobalException(CodeMsgEnum.FORBIT_FOLLOW_YOURSELF);
         }
         // 判断userId指向的用户是否存在
-        this.getOne(userId);
+        this.checkExists(userId);
 
         // 我关注的用户列表中移除此用户
         long remFollowingResult = redisOperator.zrem(UserKey.FOLLOWING, follower.getUserId(), userId);
@@ -193,6 +209,7 @@ public class UserInfoServiceImpl implements UserInfoService {
                     remFollowingResult, remFollowerResult);
             throw new GlobalException(CodeMsgEnum.FOLLOW_ERROR);
         }
+        timelineService.evictInbox(follower.getUserId());
     }
 
     @Override
@@ -212,115 +229,100 @@ public class UserInfoServiceImpl implements UserInfoService {
     }
 
     @Override
-    @Deprecated // FIXME 极丑的实现
     public PageDTO<UserListVO> getFollowingsRank(Long userId, PageDTO pageDTO) {
+        long size = pageDTO.getSize();
+        long currentPage = pageDTO.currentPageOrFirst();
         Set<Long> userIdSet = redisOperator.zrange(UserKey.FOLLOWING, userId, 0, -1);
         userIdSet.add(userId);
-        List<UserInfoDO> userInfoDOList = userInfoMapper.selectList(
-                new QueryWrapper<UserInfoDO>().in("user_id", userIdSet)
-        );
+        List<Long> userIds = Lists.newArrayList(userIdSet);
+        int userSize = userIds.size();
+        long totalPage = (long) Math.ceil((userSize * 1.0) / size);
 
-        int fromIndex = (int) ((pageDTO.getCurrentPage() - 1) * pageDTO.getSize());
-        int toIndex = fromIndex + pageDTO.getSize().intValue();
-        int userSize = userIdSet.size();
+        int fromIndex = (int) ((currentPage - 1) * size);
         if (fromIndex >= userSize) {
-            return PageDTO.emptyPage((long) Math.ceil((userSize * 1.0) / pageDTO.getSize()));
-        } else if (toIndex > userSize) {
-            toIndex = userSize;
+            return PageDTO.emptyPage(totalPage);
         }
+        int toIndex = (int) Math.min(fromIndex + size, userSize);
 
-        List<UserListVO> userList = Lists.newArrayListWithCapacity(userSize);
-        userInfoDOList.forEach(userInfoDO -> {
-            UserListVO userListVO = new UserListVO();
+        // 周经验一次HMGET取回，只挑出前toIndex名，不对整个关注列表排序
+        List<Integer> points = memberService.getAttributeWeekly(userIds);
+        Map<Long, Integer> pointMap = Maps.newHashMapWithExpectedSize(userSize);
+        for (int i = 0; i < userSize; i++) {
+            pointMap.put(userIds.get(i), points.get(i));
+        }
+        // 经验相同时id小的在前
+        Ordering<Long> rankOrdering = Ordering.<Integer>natural().onResultOf((Long id) -> pointMap.get(id))
+                .compound(Ordering.<Long>natural().reverse());
+        List<Long> rankIds = rankOrdering.greatestOf(userIds, toIndex).subList(fromIndex, toIndex);
+
+        // 只取这一页的用户卡片
+        Map<Long, UserCardDTO> cards = userCardCache.getMany(rankIds);
+        List<UserListVO> userList = Lists.newArrayListWithCapacity(rankIds.size());
+        for (int i = 0; i < rankIds.size(); i++) {
+            UserCardDTO card = cards.get(rankIds.get(i));
+            if (card == null) {
+                continue;
+            }
+            UserListVO userListVO = ViewConverter.INSTANCE.toUserListVO(card);
+            userListVO.setPoint(pointMap.get(card.getUserId()));
+            userListVO.setRank(fromIndex + i + 1);
             userList.add(userListVO);
-            BeanUtils.copyProperties(userInfoDO, userListVO);
-            int attribute = memberService.getAttributeWeekly(userInfoDO.getUserId());
-            userListVO.setPoint(attribute);
-        });
-        userList.sort((o1, o2) -> o2.getPoint() - o1.getPoint());
-        for (int i = 0, len = userList.size(); i < len; i++) {
-            userList.get(i).setRank(i + 1);
         }
 
         return PageDTO.<UserListVO>builder()
-                .currentPage(pageDTO.getCurrentPage())
-                .list(userList.subList(fromIndex, toIndex))
-                .totalPage((long) Math.ceil((userSize * 1.0) / pageDTO.getSize()))
+                .currentPage(currentPage)
+                .list(userList)
+                .totalPage(totalPage)
                 .build();
     }
 
-    private PageDTO<UserListVO> getUserListVOs(Long userId, PageDTO pageDTO, UserKey<Long> userKey) {
-        Set<Long> userIdSet = redisOperator.zrange(userKey, userId, 0, -1);
-
-        int fromIndex = (int) ((pageDTO.getCurrentPage() - 1) * pageDTO.getSize());
-        int toIndex = fromIndex + pageDTO.getSize().intValue();
-        int userSize = userIdSet.size();
-        if (fromIndex >= userSize) {
-            return PageDTO.emptyPage((long) Math.ceil((userSize * 1.0) / pageDTO.getSize()));
-        } else if (toIndex > userSize) {
-            toIndex = userSize;
+    /**
+     * 用户不存在时抛出异常，走用户卡片缓存，不查数据库
+     */
+    private void checkExists(Long userId) {
+        if (userCardCache.get(userId) == null) {
+            log.error("【获取用户】不存在的用户，userId = [{}]", userId);
+            throw new GlobalException(CodeMsgEnum.USER_NOT_EXIST);
         }
+    }
 
-        List<Long> userIdList = Lists.newArrayList(userIdSet)
-                .subList(fromIndex, toIndex);
-        List<UserInfoDO> userInfoDOList = userInfoMapper.selectList(
-                new QueryWrapper<UserInfoDO>().in("user_id", userIdList)
-        );
-        List<UserListVO> userList = Lists.newArrayListWithCapacity(userInfoDOList.size());
-        userInfoDOList.forEach(userDO -> {
-            UserListVO userListVO = new UserListVO();
-            BeanUtils.copyProperties(userDO, userListVO);
-            // 判断是否有互相关注
-            int followStatus;
-            // 如果是查我关注的用户是否有关注我
-            if (UserKey.FOLLOWING == userKey) {
-                followStatus = redisOperator.zrank(UserKey.FOLLOWING, userDO.getUserId(), userId) == null ?
-                        FollowStatus.FOLLOWING : FollowStatus.INTERACTIVE;
-            } else if (UserKey.FOLLOWER == userKey) {
-            // 如果是查我是否关注了我的粉丝
-                followStatus = redisOperator.zrank(UserKey.FOLLOWING, userId, userDO.getUserId()) == null ?
-                        FollowStatus.NOT_FOLLOW : FollowStatus.INTERACTIVE;
-            } else {
+    /**
+     * 关注或粉丝列表的一页，按zset中的顺序；关注状态是列表中的用户对于userId而言的身份
+     */
+    private PageDTO<UserListVO> getUserListVOs(Long userId, PageDTO pageDTO, UserKey<Long> userKey) {
+        PageDTO<Long> userIdPage;
+        if (UserKey.FOLLOWING == userKey) {
+            userIdPage = followService.pageFollowings(userId, pageDTO);
+        } else if (UserKey.FOLLOWER == userKey) {
+            userIdPage = followService.pageFollowers(userId, pageDTO);
+        } else {
             // 限定userKey只能为上面两种之一
-                throw new UnsupportedOperationException("【获取用户ListVO】userKey只能为FOLLOWING或者FOLLOWER");
+            throw new UnsupportedOperationException("【获取用户ListVO】userKey只能为FOLLOWING或者FOLLOWER");
+        }
+        List<Long> userIdList = userIdPage.getList();
+        if (userIdList.isEmpty()) {
+            return PageDTO.emptyPage(userIdPage.getTotalPage());
+        }
+
+        Map<Long, UserCardDTO> cards = userCardCache.getMany(userIdList);
+        List<Integer> followStatuses = followService.getFollowStatuses(userId, userIdList);
+
+        List<UserListVO> userList = Lists.newArrayListWithCapacity(userIdList.size());
+        for (int i = 0, len = userIdList.size(); i < len; i++) {
+            UserCardDTO card = cards.get(userIdList.get(i));
+            if (card == null) {
+                continue;
             }
-            userListVO.setIsFollow(followStatus);
+            UserListVO userListVO = ViewConverter.INSTANCE.toUserListVO(card);
+            userListVO.setIsFollow(followStatuses.get(i));
             userList.add(userListVO);
-        });
+        }
 
         return PageDTO.<UserListVO>builder()
-                      .currentPage(pageDTO.getCurrentPage())
+                      .currentPage(userIdPage.getCurrentPage())
                       .list(userList)
-                      .totalPage((long) Math.ceil((userSize * 1.0) / pageDTO.getSize()))
+                      .totalPage(userIdPage.getTotalPage())
                       .build();
     }
 
-    /**
-     * 判断b用户对于a用户而言的身份是否
-     * @param aUserId a用户id
-     * @param bUserId b用户id
-     * @return 身份
-     */
-    private int getFollowStatus(long aUserId, long bUserId) {
-        if (aUserId == bUserId) {
-            return FollowStatus.MYSELF;
-        }
-        // 先判断 b 是否 a关注的人
-        int aFollow = redisOperator.zrank(UserKey.FOLLOWING, aUserId, bUserId) != null ?
-                FollowStatus.FOLLOWING : FollowStatus.NOT_FOLLOW;
-        // 再判断 b 是否 a的粉丝
-        int bFollow = redisOperator.zrank(UserKey.FOLLOWER, aUserId, bUserId) != null ?
-                FollowStatus.FOLLOWING : FollowStatus.NOT_FOLLOW;
-
-        if (FollowStatus.FOLLOWING.equals(aFollow)) {
-            // b 是 a关注的人
-            if (FollowStatus.FOLLOWING.equals(bFollow)) {
-                // b 是否 a的粉丝 -> 互相关注
-                return FollowStatus.INTERACTIVE;
-            }
-            return FollowStatus.FOLLOWING;
-        }
-        return FollowStatus.NOT_FOLLOW;
-    }
-
 }
@@ -0,0 +1,264 @@
+package com.hdh.lifeup.util;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * ImageUtil class<br/>
+ * 生成缩略图用到的图片处理：按EXIF方向摆正、解码时降采样、逐级缩小、按格式重新编码。
+ * 只用JDK自带的ImageIO，能解码的格式取决于ImageIO已注册的插件
+ * @author hdonghong
+ * @since 2020/02/20
+ */
+public class ImageUtil {
+
+    /** EXIF中的方向，1为正常 */
+    public static final int ORIENTATION_NORMAL = 1;
+
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    private ImageUtil() {
+
+    }
+
+    /**
+     * 读取JPEG中EXIF的方向，没有EXIF或者不是JPEG时返回 {@link #ORIENTATION_NORMAL}
+     * @param image 图片的原始字节
+     * @return 1 ~ 8
+     */
+    public static int readOrientation(byte[] image) {
+        if (image.length < 4 || u8(image, 0) != 0xFF || u8(image, 1) != 0xD8) {
+            return ORIENTATION_NORMAL;
+        }
+        int pos = 2;
+        while (pos + 4 <= image.length && u8(image, pos) == 0xFF) {
+            int marker = u8(image, pos + 1);
+            // 到了图像数据还没有EXIF
+            if (marker == 0xDA || marker == 0xD9) {
+                break;
+            }
+            int segmentEnd = Math.min(image.length, pos + 2 + u16(image, pos + 2, false));
+            if (marker == 0xE1 && pos + 10 <= segmentEnd && isExifHeader(image, pos + 4)) {
+                return readTiffOrientation(image, pos + 10, segmentEnd);
+            }
+            pos = segmentEnd;
+        }
+        return ORIENTATION_NORMAL;
+    }
+
+    /**
+     * 解码图片，长边超过 maxEdge 的两倍时在解码时降采样，大图不用先完整解码到内存
+     * @param image 图片的原始字节
+     * @param maxEdge 之后要缩小到的长边
+     * @return 解码后的图片，格式不支持时返回null
+     */
+    public static BufferedImage decode(byte[] image, int maxEdge) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(image))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longEdge = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                // 降采样是隔点取样，留出两倍再用插值缩小，画质不受影响
+                int subsampling = Math.max(1, longEdge / (maxEdge * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 按EXIF方向把图片摆正，方向为5 ~ 8时宽高互换
+     * @param image 图片
+     * @param orientation EXIF方向
+     * @return 摆正后的图片，方向正常时返回原图
+     */
+    public static BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation <= ORIENTATION_NORMAL || orientation > 8) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        AffineTransform transform = new AffineTransform();
+        switch (orientation) {
+            // 水平翻转
+            case 2: transform.scale(-1.0, 1.0); transform.translate(-w, 0); break;
+            // 旋转180度
+            case 3: transform.translate(w, h); transform.rotate(Math.PI); break;
+            // 垂直翻转
+            case 4: transform.scale(1.0, -1.0); transform.translate(0, -h); break;
+            // 沿左上-右下对角线翻转
+            case 5: transform.rotate(-Math.PI / 2); transform.scale(-1.0, 1.0); break;
+            // 顺时针旋转90度
+            case 6: transform.translate(h, 0); transform.rotate(Math.PI / 2); break;
+            // 沿右上-左下对角线翻转
+            case 7: transform.scale(-1.0, 1.0); transform.translate(-h, w); transform.rotate(3 * Math.PI / 2); break;
+            // 逆时针旋转90度
+            default: transform.translate(0, w); transform.rotate(3 * Math.PI / 2); break;
+        }
+        boolean swap = orientation >= 5;
+        BufferedImage result = new BufferedImage(swap ? h : w, swap ? w : h, typeOf(image));
+        Graphics2D graphics = result.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return result;
+    }
+
+    /**
+     * 等比缩小到长边不超过 maxEdge，每次最多缩小一半，避免一次缩小太多出现锯齿
+     * @param image 图片
+     * @param maxEdge 长边
+     * @return 缩小后的图片，本来就不超过时返回原图
+     */
+    public static BufferedImage scaleToFit(BufferedImage image, int maxEdge) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        if (Math.max(w, h) <= maxEdge) {
+            return image;
+        }
+        double scale = (double) maxEdge / Math.max(w, h);
+        int targetW = Math.max(1, (int) Math.round(w * scale));
+        int targetH = Math.max(1, (int) Math.round(h * scale));
+        BufferedImage result = image;
+        do {
+            w = Math.max(targetW, w / 2);
+            h = Math.max(targetH, h / 2);
+            result = resize(result, w, h);
+        } while (w != targetW || h != targetH);
+        return result;
+    }
+
+    /**
+     * 按格式编码，支持压缩质量的格式（如jpg、webp）使用 quality
+     * @param image 图片
+     * @param format ImageIO中的格式名
+     * @param quality 0 ~ 1
+     * @return 编码后的字节
+     */
+    public static byte[] encode(BufferedImage image, String format, float quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IOException("不支持的图片格式：" + format);
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(imageOutput);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (param.getCompressionType() == null) {
+                    param.setCompressionType(param.getCompressionTypes()[0]);
+                }
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * 是否有透明通道，有的话不能编码成jpg
+     */
+    public static boolean hasAlpha(BufferedImage image) {
+        return image.getColorModel().hasAlpha();
+    }
+
+    /**
+     * 格式名是否可以编码
+     */
+    public static boolean canEncode(String format) {
+        return ImageIO.getImageWritersByFormatName(format).hasNext();
+    }
+
+    private static BufferedImage resize(BufferedImage image, int width, int height) {
+        BufferedImage result = new BufferedImage(width, height, typeOf(image));
+        Graphics2D graphics = result.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return result;
+    }
+
+    /** 统一成RGB或ARGB，调色板、灰度等类型在缩放时也转换掉 */
+    private static int typeOf(BufferedImage image) {
+        return hasAlpha(image) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+    }
+
+    private static boolean isExifHeader(byte[] image, int pos) {
+        return image[pos] == 'E' && image[pos + 1] == 'x' && image[pos + 2] == 'i' && image[pos + 3] == 'f'
+                && image[pos + 4] == 0 && image[pos + 5] == 0;
+    }
+
+    /**
+     * 在TIFF结构的第0个IFD中找方向标签
+     * @param tiff TIFF头的位置
+     * @param end EXIF段的结束位置
+     */
+    private static int readTiffOrientation(byte[] image, int tiff, int end) {
+        if (tiff + 8 > end) {
+            return ORIENTATION_NORMAL;
+        }
+        boolean littleEndian = image[tiff] == 'I' && image[tiff + 1] == 'I';
+        long ifdOffset = u32(image, tiff + 4, littleEndian);
+        if (ifdOffset < 8 || tiff + ifdOffset + 2 > end) {
+            return ORIENTATION_NORMAL;
+        }
+        int ifd = (int) (tiff + ifdOffset);
+        int entries = u16(image, ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                break;
+            }
+            if (u16(image, entry, littleEndian) == EXIF_ORIENTATION_TAG) {
+                int orientation = u16(image, entry + 8, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : ORIENTATION_NORMAL;
+            }
+        }
+        return ORIENTATION_NORMAL;
+    }
+
+    private static int u8(byte[] bytes, int pos) {
+        return bytes[pos] & 0xFF;
+    }
+
+    private static int u16(byte[] bytes, int pos, boolean littleEndian) {
+        return littleEndian ? u8(bytes, pos) | u8(bytes, pos + 1) << 8 : u8(bytes, pos) << 8 | u8(bytes, pos + 1);
+    }
+
+    private static long u32(byte[] bytes, int pos, boolean littleEndian) {
+        long high = u16(bytes, littleEndian ? pos + 2 : pos, littleEndian);
+        long low = u16(bytes, littleEndian ? pos : pos + 2, littleEndian);
+        return high << 16 | low;
+    }
+}
@@ -0,0 +1,77 @@
+package com.hdh.lifeup.util;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * SignPeriodUtil class<br/>
+ * 团队签到周期的计算。第k次（从0开始）签到的时间段为
+ * [firstStartTime + k * teamFreq天, firstEndTime + k * teamFreq天]，teamFreq为0的单次任务只有第0次。
+ * 签到时间段完全由团队的这三个字段决定，不需要查询team_record。
+ * @author hdonghong
+ * @since 2020/02/09
+ */
+public class SignPeriodUtil {
+
+    /** 单次任务已经结束 */
+    public static final long NO_PERIOD = -1;
+
+    private static final long DAY_SECONDS = 24 * 3600;
+
+    private SignPeriodUtil() {
+
+    }
+
+    /**
+     * 当前的签到周期：已经开始、还没结束的最近一次；没有的话就是下一次
+     * @return 周期序号，单次任务已经结束时返回 {@link #NO_PERIOD}
+     */
+    public static long currentPeriod(LocalDateTime firstStartTime, LocalDateTime firstEndTime, int teamFreq,
+                                     LocalDateTime now) {
+        if (!now.isAfter(firstStartTime)) {
+            return 0;
+        }
+        if (teamFreq == 0) {
+            return now.isBefore(firstEndTime) ? 0 : NO_PERIOD;
+        }
+        // 开始时间早于now的最后一次
+        long k = Duration.between(firstStartTime, now).getSeconds() / (teamFreq * DAY_SECONDS);
+        if (!startOf(firstStartTime, teamFreq, k).isBefore(now)) {
+            k--;
+        }
+        return endOf(firstEndTime, teamFreq, k).isAfter(now) ? k : k + 1;
+    }
+
+    /**
+     * 第k次签到是否正在进行
+     */
+    public static boolean isOpen(LocalDateTime firstStartTime, LocalDateTime firstEndTime, int teamFreq,
+                                 long k, LocalDateTime now) {
+        return startOf(firstStartTime, teamFreq, k).isBefore(now)
+                && endOf(firstEndTime, teamFreq, k).isAfter(now);
+    }
+
+    public static LocalDateTime startOf(LocalDateTime firstStartTime, int teamFreq, long k) {
+        return firstStartTime.plusDays(k * teamFreq);
+    }
+
+    public static LocalDateTime endOf(LocalDateTime firstEndTime, int teamFreq, long k) {
+        return firstEndTime.plusDays(k * teamFreq);
+    }
+
+    /**
+     * 由签到记录的开始时间反推周期序号，精确到秒
+     * @return 周期序号，与团队的签到周期对不上时返回 {@link #NO_PERIOD}
+     */
+    public static long periodOf(LocalDateTime firstStartTime, int teamFreq, LocalDateTime nextStartTime) {
+        long seconds = Duration.between(firstStartTime.withNano(0), nextStartTime.withNano(0)).getSeconds();
+        if (seconds < 0) {
+            return NO_PERIOD;
+        }
+        if (teamFreq == 0) {
+            return seconds == 0 ? 0 : NO_PERIOD;
+        }
+        long freqSeconds = teamFreq * DAY_SECONDS;
+        return seconds % freqSeconds == 0 ? seconds / freqSeconds : NO_PERIOD;
+    }
+}
@@ -0,0 +1,44 @@
+package com.hdh.lifeup.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * TransactionUtil class<br/>
+ * 数据库写操作之后的redis更新（计数器、缓存失效）要等事务提交后再做，回滚时不做
+ * @author hdonghong
+ * @since 2020/02/18
+ */
+@Slf4j
+public class TransactionUtil {
+
+    private TransactionUtil() {
+
+    }
+
+    /**
+     * 在事务中时等提交后再执行，不在事务中时直接执行；执行失败只记录日志，不影响已提交的写操作
+     * @param name 日志中的名称
+     * @param action 要执行的操作
+     */
+    public static void afterCommit(String name, Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                log.error("【{}】事务提交后执行失败", name, e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.hdh.lifeup.util.sensitive;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 基于双数组trie的Aho-Corasick敏感词过滤器，与{@link SensitiveFilter}的用法一致。<br/>
+ * * 增加一个敏感词：{@link #put(String)} <br/>
+ * * 过滤一个句子：{@link #filter(String, char)} <br/>
+ * * 获取默认的单例：{@link #DEFAULT}
+ * <p>
+ * 与{@link SensitiveFilter}的区别：<br/>
+ * * 句子只扫描一遍，复杂度与句子长度成线性，扫描过程中除了命中时复制一次句子外不分配对象；<br/>
+ * * 支持单个字符的敏感词；<br/>
+ * * 重叠的敏感词都会被替换，例如词库有"ab"和"bc"时，"abc"整体被替换。
+ *
+ * @author hdonghong
+ * @since 2020/02/08
+ */
+public class AhoCorasickFilter implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 默认的单例，使用自带的敏感词库
+	 */
+	public static final AhoCorasickFilter DEFAULT = new AhoCorasickFilter(
+			new BufferedReader(new InputStreamReader(
+					Thread.currentThread().getContextClassLoader().getResourceAsStream("sensi_words.txt")
+					, StandardCharsets.UTF_8)));
+
+	/**
+	 * 词库，put后自动机需要重建
+	 */
+	private final Set<String> words = new TreeSet<>();
+
+	/**
+	 * 当前的自动机，构建完成后只读，可以被多个线程同时使用
+	 */
+	private transient volatile Automaton automaton;
+
+	/**
+	 * 构建一个空的filter
+	 */
+	public AhoCorasickFilter() {
+
+	}
+
+	/**
+	 * 加载一个文件中的词典，并构建filter<br/>
+	 * 文件中，每行一个敏感词条<br/>
+	 * <b>注意：</b>读取完成后会调用{@link BufferedReader#close()}方法。<br/>
+	 * <b>注意：</b>读取中的{@link IOException}不会抛出
+	 *
+	 * @param reader
+	 */
+	public AhoCorasickFilter(BufferedReader reader) {
+		try {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				put(line);
+			}
+			reader.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		automaton = new Automaton(words);
+	}
+
+	/**
+	 * 增加一个敏感词，空词丢弃；与{@link SensitiveFilter}一致，只由一两个字母数字组成的词也丢弃，避免误伤<br/>
+	 * 增加后下一次过滤时重建自动机，词库应尽量一次加载完
+	 *
+	 * @param word
+	 */
+	public synchronized boolean put(String word) {
+		if (word == null || word.trim().isEmpty()) {
+			return false;
+		}
+		word = word.trim();
+		if (word.length() <= 2 && word.matches("\\w+")) {
+			return false;
+		}
+		if (words.add(word)) {
+			automaton = null;
+		}
+		return true;
+	}
+
+	public static String filter(String sentence) {
+		return DEFAULT.filter(sentence, '*');
+	}
+
+	/**
+	 * 对句子进行敏感词过滤<br/>
+	 * 如果无敏感词返回输入的sentence对象，即可以用下面的方式判断是否有敏感词：<br/><code>
+	 * String result = filter.filter(sentence, '*');<br/>
+	 * if(result != sentence){<br/>
+	 * &nbsp;&nbsp;// 有敏感词<br/>
+	 * }
+	 * </code>
+	 *
+	 * @param sentence 句子
+	 * @param replace 敏感词的替换字符
+	 * @return 过滤后的句子
+	 */
+	public String filter(String sentence, char replace) {
+		if (sentence == null || sentence.isEmpty()) {
+			return sentence;
+		}
+		Automaton current = automaton;
+		if (current == null) {
+			current = rebuild();
+		}
+		return current.filter(sentence, replace);
+	}
+
+	private synchronized Automaton rebuild() {
+		if (automaton == null) {
+			automaton = new Automaton(words);
+		}
+		return automaton;
+	}
+
+	/**
+	 * 双数组trie加上失败指针，状态s经过字符c转移到 t = base[s] + c + 1，当 check[t] == s 时转移有效。<br/>
+	 * outLength[s]为状态s及其失败链上最长的词长，大于0表示在此处有词结束。
+	 */
+	private static final class Automaton {
+
+		private static final int ROOT = 0;
+
+		private static final int FREE = -1;
+
+		private int[] base;
+
+		private int[] check;
+
+		private int[] fail;
+
+		private int[] outLength;
+
+		/** 仅构建时使用，nextFree[p] == p 表示p空闲，否则沿着它找到p之后第一个空闲的位置 */
+		private int[] nextFree;
+
+		Automaton(Set<String> words) {
+			TrieNode trieRoot = new TrieNode();
+			for (String word : words) {
+				TrieNode node = trieRoot;
+				for (int i = 0, len = word.length(); i < len; i++) {
+					node = node.children.computeIfAbsent(word.charAt(i), c -> new TrieNode());
+				}
+				node.length = word.length();
+			}
+
+			int capacity = Character.MAX_VALUE + 2;
+			base = new int[capacity];
+			check = new int[capacity];
+			Arrays.fill(check, FREE);
+			check[ROOT] = ROOT;
+			nextFree = new int[capacity];
+			Arrays.setAll(nextFree, i -> i);
+			nextFree[ROOT] = ROOT + 1;
+			trieRoot.position = ROOT;
+
+			// 按层放置，每个节点的子节点在数组中找一段都空闲的位置
+			Queue<TrieNode> queue = new ArrayDeque<>();
+			queue.add(trieRoot);
+			while (!queue.isEmpty()) {
+				TrieNode node = queue.poll();
+				if (node.children.isEmpty()) {
+					continue;
+				}
+				// 只在空闲位置上尝试放第一个子节点，已占用的位置通过nextFree直接跳过
+				int firstCode = code(node.children.firstKey());
+				int b = nextFree(firstCode + 1) - firstCode;
+				while (!fits(b, node.children)) {
+					b = nextFree(b + firstCode + 1) - firstCode;
+				}
+				base[node.position] = b;
+				for (Map.Entry<Character, TrieNode> child : node.children.entrySet()) {
+					int t = b + code(child.getKey());
+					check[t] = node.position;
+					nextFree[t] = t + 1;
+					child.getValue().position = t;
+					queue.add(child.getValue());
+				}
+			}
+
+			int size = check.length;
+			while (size > 1 && check[size - 1] == FREE) {
+				size--;
+			}
+			base = Arrays.copyOf(base, size);
+			check = Arrays.copyOf(check, size);
+			nextFree = null;
+			fail = new int[size];
+			outLength = new int[size];
+
+			// 按层计算失败指针，父节点的失败指针总是先算好
+			queue.add(trieRoot);
+			while (!queue.isEmpty()) {
+				TrieNode node = queue.poll();
+				for (Map.Entry<Character, TrieNode> child : node.children.entrySet()) {
+					char c = child.getKey();
+					int t = child.getValue().position;
+					int f = ROOT;
+					if (node.position != ROOT) {
+						f = fail[node.position];
+						while (f != ROOT && transition(f, c) < 0) {
+							f = fail[f];
+						}
+						int next = transition(f, c);
+						f = next < 0 ? ROOT : next;
+					}
+					fail[t] = f;
+					outLength[t] = Math.max(child.getValue().length, outLength[f]);
+					queue.add(child.getValue());
+				}
+			}
+		}
+
+		private boolean fits(int b, TreeMap<Character, TrieNode> children) {
+			for (char c : children.keySet()) {
+				int t = b + code(c);
+				if (t >= check.length) {
+					grow(t + 1);
+				}
+				if (check[t] != FREE) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * @return 不小于position的第一个空闲位置
+		 */
+		private int nextFree(int position) {
+			int root = position;
+			while (true) {
+				if (root >= nextFree.length) {
+					grow(root + 1);
+				}
+				if (nextFree[root] == root) {
+					break;
+				}
+				root = nextFree[root];
+			}
+			// 路径压缩
+			while (position != root) {
+				int next = nextFree[position];
+				nextFree[position] = root;
+				position = next;
+			}
+			return root;
+		}
+
+		private void grow(int minCapacity) {
+			int capacity = Math.max(minCapacity, check.length + (check.length >> 1));
+			int oldLength = check.length;
+			base = Arrays.copyOf(base, capacity);
+			check = Arrays.copyOf(check, capacity);
+			Arrays.fill(check, oldLength, capacity, FREE);
+			nextFree = Arrays.copyOf(nextFree, capacity);
+			for (int i = oldLength; i < capacity; i++) {
+				nextFree[i] = i;
+			}
+		}
+
+		private static int code(char c) {
+			return c + 1;
+		}
+
+		/**
+		 * @return 转移后的状态，无法转移时返回-1
+		 */
+		private int transition(int state, char c) {
+			int t = base[state] + code(c);
+			return t < check.length && check[t] == state ? t : -1;
+		}
+
+		String filter(String sentence, char replace) {
+			// 热点循环，数组取到局部变量中
+			final int[] base = this.base;
+			final int[] check = this.check;
+			final int[] fail = this.fail;
+			final int[] outLength = this.outLength;
+			final int size = check.length;
+			char[] chars = null;
+			int state = ROOT;
+			for (int i = 0, len = sentence.length(); i < len; i++) {
+				int code = code(sentence.charAt(i));
+				int next = base[state] + code;
+				while (next >= size || check[next] != state) {
+					if (state == ROOT) {
+						next = ROOT;
+						break;
+					}
+					state = fail[state];
+					next = base[state] + code;
+				}
+				state = next;
+				int matched = outLength[state];
+				if (matched > 0) {
+					if (chars == null) {
+						chars = sentence.toCharArray();
+					}
+					Arrays.fill(chars, i - matched + 1, i + 1, replace);
+				}
+			}
+			// 如果没有替换，直接返回入参
+			return chars == null ? sentence : new String(chars);
+		}
+	}
+
+	/**
+	 * 构建时使用的临时trie节点
+	 */
+	private static final class TrieNode {
+
+		private final TreeMap<Character, TrieNode> children = new TreeMap<>();
+
+		/** 以此节点结束的词长，0表示不是词尾 */
+		private int length;
+
+		/** 在双数组中的位置 */
+		private int position;
+	}
+}
@@ -0,0 +1,55 @@
+package com.hdh.lifeup.auth;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class RateLimiterTest {
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @ApiLimiting(maxAccess = 3, seconds = 5)
+    public void fixedWindow() {}
+
+    @ApiLimiting(maxAccess = 3, seconds = 5, strategy = LimitStrategy.SLIDING_WINDOW)
+    public void slidingWindow() {}
+
+    @ApiLimiting(maxAccess = 3, seconds = 5, strategy = LimitStrategy.TOKEN_BUCKET, localPreCheck = false)
+    public void tokenBucket() {}
+
+    @Test
+    public void fixedWindowLimit() throws Exception {
+        assertLimited(limiting("fixedWindow"));
+    }
+
+    @Test
+    public void slidingWindowLimit() throws Exception {
+        assertLimited(limiting("slidingWindow"));
+    }
+
+    @Test
+    public void tokenBucketLimit() throws Exception {
+        assertLimited(limiting("tokenBucket"));
+    }
+
+    private void assertLimited(ApiLimiting apiLimiting) {
+        String key = "/test-" + UUID.randomUUID();
+        for (int i = 0; i < apiLimiting.maxAccess(); i++) {
+            assertTrue(rateLimiter.tryAcquire(key, apiLimiting));
+        }
+        assertFalse(rateLimiter.tryAcquire(key, apiLimiting));
+    }
+
+    private ApiLimiting limiting(String methodName) throws NoSuchMethodException {
+        return RateLimiterTest.class.getMethod(methodName).getAnnotation(ApiLimiting.class);
+    }
+}
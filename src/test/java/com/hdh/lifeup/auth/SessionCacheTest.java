@@ -0,0 +1,65 @@
+package com.hdh.lifeup.auth;
+
+import com.hdh.lifeup.model.dto.UserInfoDTO;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.redis.UserKey;
+import com.hdh.lifeup.util.TokenUtil;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class SessionCacheTest {
+
+    @Autowired
+    private SessionCache sessionCache;
+
+    @Autowired
+    private RedisOperator redisOperator;
+
+    @Test
+    public void putAndGet() {
+        String token = TokenUtil.get();
+        sessionCache.put(token, new UserInfoDTO().setUserId(-1L).setNickname("near"));
+
+        UserInfoDTO first = sessionCache.get(token);
+        assertEquals("near", first.getNickname());
+        // 返回的是副本，修改不影响缓存
+        first.setNickname("changed");
+        assertEquals("near", sessionCache.get(token).getNickname());
+        redisOperator.del(UserKey.TOKEN, token);
+    }
+
+    @Test
+    public void invalidate() {
+        String token = TokenUtil.get();
+        sessionCache.put(token, new UserInfoDTO().setUserId(-1L));
+        redisOperator.del(UserKey.TOKEN, token);
+        // 本地缓存仍然命中
+        assertNotNull(sessionCache.get(token));
+
+        sessionCache.invalidate(token);
+        assertNull(sessionCache.get(token));
+    }
+
+    @Test
+    public void flushPendingRefresh() {
+        // 先清掉其他用例留下的待续期token
+        sessionCache.flushPendingRefresh();
+        String token = TokenUtil.get();
+        // 不带过期时间写入，剩余有效期不足，读取时记为待续期
+        redisOperator.set(UserKey.TOKEN, token, new UserInfoDTO().setUserId(-1L));
+        assertNotNull(sessionCache.get(token));
+        assertEquals(-1L, redisOperator.ttl(UserKey.TOKEN, token));
+
+        assertEquals(1, sessionCache.flushPendingRefresh());
+        assertTrue(redisOperator.ttl(UserKey.TOKEN, token) > TokenUtil.MIN_EXPIRED);
+        assertEquals(0, sessionCache.flushPendingRefresh());
+        redisOperator.del(UserKey.TOKEN, token);
+    }
+}
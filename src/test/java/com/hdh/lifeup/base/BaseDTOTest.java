@@ -4,6 +4,8 @@ import com.hdh.lifeup.model.domain.UserInfoDO;
 import com.hdh.lifeup.model.dto.UserInfoDTO;
 import org.junit.Test;
 
+import static org.junit.Assert.assertNull;
+
 public class BaseDTOTest {
 
     @Test
@@ -27,6 +29,12 @@ public class BaseDTOTest {
         System.out.println(userInfoDTO);
     }
 
+    @Test
+    public void fromNull() throws Exception {
+        // 查不到的记录转换后还是null
+        assertNull(BaseDTO.from(null, UserInfoDTO.class));
+    }
+
 
     @Test
     public void from1() throws Exception {
@@ -0,0 +1,133 @@
+package com.hdh.lifeup.benchmark;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.google.common.collect.Lists;
+import com.hdh.lifeup.base.BaseDTO;
+import com.hdh.lifeup.convert.DomainConverter;
+import com.hdh.lifeup.model.domain.TeamTaskDO;
+import com.hdh.lifeup.model.domain.UserInfoDO;
+import com.hdh.lifeup.model.dto.PageDTO;
+import com.hdh.lifeup.model.dto.TeamTaskDTO;
+import com.hdh.lifeup.model.dto.UserInfoDTO;
+import com.hdh.lifeup.util.JsonUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.BeanUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BeanConvertBenchmark class<br/>
+ * 对比原来BeanUtils反射拷贝与MapStruct生成代码的DO转DTO耗时，以及BaseDTO.toDO和一页20条的PageDTO转换
+ * @author hdonghong
+ * @since 2020/02/10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanConvertBenchmark {
+
+    private TeamTaskDO teamTaskDO;
+
+    private UserInfoDO userInfoDO;
+
+    private TeamTaskDTO teamTaskDTO;
+
+    private IPage<TeamTaskDO> teamPage;
+
+    @Setup
+    public void setup() {
+        teamTaskDO = new TeamTaskDO();
+        teamTaskDO.setTeamId(1L)
+                .setTeamTitle("每天早起")
+                .setTeamDesc("六点前起床打卡")
+                .setRewardAttrs(JsonUtil.toJson(Lists.newArrayList("strength", "learning")))
+                .setRewardExp(10)
+                .setTeamFreq(1)
+                .setStartDate(LocalDate.now().plusDays(30))
+                .setFirstStartTime(LocalDateTime.now())
+                .setFirstEndTime(LocalDateTime.now().plusHours(2))
+                .setTeamStatus(0)
+                .setUserId(1L);
+        userInfoDO = new UserInfoDO();
+        userInfoDO.setUserId(1L)
+                .setNickname("nick")
+                .setUserAddress("广东省广州市天河区")
+                .setAuthTypes("[\"phone\",\"qq\"]");
+        teamTaskDTO = BaseDTO.from(teamTaskDO, TeamTaskDTO.class);
+        List<TeamTaskDO> records = Lists.newArrayList();
+        for (long i = 0; i < 20; i++) {
+            records.add(DomainConverter.INSTANCE.toDO(teamTaskDTO).setTeamId(i));
+        }
+        Page<TeamTaskDO> page = new Page<>(1, 20);
+        page.setTotal(200);
+        page.setRecords(records);
+        teamPage = page;
+    }
+
+    @Benchmark
+    public TeamTaskDTO teamTaskReflect() throws Exception {
+        TeamTaskDTO teamTaskDTO = TeamTaskDTO.class.newInstance();
+        BeanUtils.copyProperties(teamTaskDO, teamTaskDTO, "rewardAttrs");
+        teamTaskDTO.setRewardAttrs(JsonUtil.jsonToList(teamTaskDO.getRewardAttrs(), String.class));
+        return teamTaskDTO;
+    }
+
+    @Benchmark
+    public TeamTaskDTO teamTaskMapper() {
+        return DomainConverter.INSTANCE.toDTO(teamTaskDO);
+    }
+
+    @Benchmark
+    public TeamTaskDTO teamTaskFrom() {
+        return BaseDTO.from(teamTaskDO, TeamTaskDTO.class);
+    }
+
+    @Benchmark
+    public TeamTaskDO teamTaskToDO() {
+        return teamTaskDTO.toDO(TeamTaskDO.class);
+    }
+
+    @Benchmark
+    public PageDTO<TeamTaskDTO> pageCreate() {
+        return PageDTO.create(teamPage, TeamTaskDTO.class);
+    }
+
+    @Benchmark
+    public PageDTO<TeamTaskDTO> pageCreateFreely() {
+        return PageDTO.createFreely(teamPage, TeamTaskDTO.class);
+    }
+
+    @Benchmark
+    public UserInfoDTO userInfoReflect() throws Exception {
+        UserInfoDTO userInfoDTO = UserInfoDTO.class.newInstance();
+        BeanUtils.copyProperties(userInfoDO, userInfoDTO, "authTypes", "createTime");
+        userInfoDTO.setAuthTypes(JsonUtil.jsonToList(userInfoDO.getAuthTypes(), String.class));
+        return userInfoDTO;
+    }
+
+    @Benchmark
+    public UserInfoDTO userInfoMapper() {
+        return DomainConverter.INSTANCE.toDTO(userInfoDO);
+    }
+
+    @Benchmark
+    public UserInfoDTO userInfoFrom() {
+        return BaseDTO.from(userInfoDO, UserInfoDTO.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BeanConvertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
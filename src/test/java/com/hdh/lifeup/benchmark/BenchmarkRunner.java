@@ -0,0 +1,35 @@
+package com.hdh.lifeup.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkRunner class<br/>
+ * 运行所有的JMH基准测试，结果以json写入文件，便于与上一次的结果对比：<br/>
+ * <code>mvn -Pbenchmark test</code><br/>
+ * 只运行部分：<code>mvn -Pbenchmark test -Djmh.include=SensitiveFilter</code>
+ * <p>
+ * 系统属性：<br/>
+ * * jmh.include：基准测试的正则，默认所有以Benchmark结尾的类；<br/>
+ * * jmh.result：结果文件，默认 target/jmh-result.json；<br/>
+ * * jmh.forks：fork的jvm数，默认使用各个类上的注解。
+ * @author hdonghong
+ * @since 2020/02/12
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(System.getProperty("jmh.include", "com\\.hdh\\.lifeup\\..*Benchmark"))
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("jmh.result", "target/jmh-result.json"));
+        String forks = System.getProperty("jmh.forks");
+        if (forks != null && !forks.isEmpty()) {
+            options.forks(Integer.parseInt(forks));
+        }
+        new Runner(options.build()).run();
+    }
+}
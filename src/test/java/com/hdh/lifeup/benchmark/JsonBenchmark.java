@@ -0,0 +1,82 @@
+package com.hdh.lifeup.benchmark;
+
+import com.google.common.collect.Lists;
+import com.hdh.lifeup.model.dto.TeamMemberRecordDTO;
+import com.hdh.lifeup.model.dto.UserInfoDTO;
+import com.hdh.lifeup.util.JsonUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JsonBenchmark class<br/>
+ * JsonUtil对登录态和动态的序列化、反序列化耗时
+ * @author hdonghong
+ * @since 2020/02/12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    private UserInfoDTO userInfoDTO;
+
+    private TeamMemberRecordDTO recordDTO;
+
+    private String userJson;
+
+    private String recordJson;
+
+    @Setup
+    public void setup() {
+        userInfoDTO = new UserInfoDTO()
+                .setUserId(10086L)
+                .setNickname("lwang")
+                .setUserSex(1)
+                .setUserAddress("广东省广州市天河区")
+                .setUserHead("http://img.example.com/head/10086.jpg")
+                .setUserStatus(0)
+                .setAuthTypes(Lists.newArrayList("phone", "qq", "wechat"));
+        recordDTO = new TeamMemberRecordDTO()
+                .setMemberRecordId(1L)
+                .setTeamRecordId(2L)
+                .setTeamId(3L)
+                .setTeamTitle("每天早起")
+                .setUserId(10086L)
+                .setUserActivity("完成了今天的跑步，配速五分半")
+                .setActivityIcon(1)
+                .setActivityImages(Lists.newArrayList("a.jpg", "b.jpg", "c.jpg"))
+                .setCreateTime(LocalDateTime.now().withNano(0));
+        userJson = JsonUtil.toJson(userInfoDTO);
+        recordJson = JsonUtil.toJson(recordDTO);
+    }
+
+    @Benchmark
+    public String userToJson() {
+        return JsonUtil.toJson(userInfoDTO);
+    }
+
+    @Benchmark
+    public UserInfoDTO userFromJson() {
+        return JsonUtil.jsonToObject(userJson, UserInfoDTO.class);
+    }
+
+    @Benchmark
+    public String recordToJson() {
+        return JsonUtil.toJson(recordDTO);
+    }
+
+    @Benchmark
+    public TeamMemberRecordDTO recordFromJson() {
+        return JsonUtil.jsonToObject(recordJson, TeamMemberRecordDTO.class);
+    }
+
+    @Benchmark
+    public TeamMemberRecordDTO recordRoundTrip() {
+        return JsonUtil.jsonToObject(JsonUtil.toJson(recordDTO), TeamMemberRecordDTO.class);
+    }
+}
@@ -0,0 +1,115 @@
+package com.hdh.lifeup.benchmark;
+
+import com.google.common.collect.Lists;
+import com.hdh.lifeup.model.dto.UserInfoDTO;
+import com.hdh.lifeup.redis.RedisCodec;
+import com.hdh.lifeup.redis.RedisCodecs;
+import com.hdh.lifeup.util.JsonUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedisCodecBenchmark class<br/>
+ * 对比redis value的json编码与数字、二进制codec的编解码耗时，main中先打印编码后的大小
+ * @author hdonghong
+ * @since 2020/02/11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisCodecBenchmark {
+
+    private RedisCodec<UserInfoDTO> binaryCodec;
+
+    private RedisCodec<Long> numberCodec;
+
+    private UserInfoDTO userInfoDTO;
+
+    private byte[] jsonUser;
+
+    private byte[] binaryUser;
+
+    private String jsonNumber;
+
+    @Setup
+    public void setup() {
+        RedisCodecs.setBinaryWrite(true);
+        binaryCodec = RedisCodecs.binary(UserInfoDTO.class);
+        numberCodec = RedisCodecs.number(Long.class);
+        userInfoDTO = userInfo();
+        jsonUser = JsonUtil.toJson(userInfoDTO).getBytes(StandardCharsets.UTF_8);
+        binaryUser = binaryCodec.encode(userInfoDTO);
+        jsonNumber = JsonUtil.toJson(1234567890123L);
+    }
+
+    @Benchmark
+    public byte[] userEncodeJson() {
+        return JsonUtil.toJson(userInfoDTO).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] userEncodeBinary() {
+        return binaryCodec.encode(userInfoDTO);
+    }
+
+    @Benchmark
+    public UserInfoDTO userDecodeJson() {
+        return JsonUtil.jsonToObject(new String(jsonUser, StandardCharsets.UTF_8), UserInfoDTO.class);
+    }
+
+    @Benchmark
+    public UserInfoDTO userDecodeBinary() {
+        return binaryCodec.decode(binaryUser);
+    }
+
+    @Benchmark
+    public String numberEncodeJson() {
+        return JsonUtil.toJson(1234567890123L);
+    }
+
+    @Benchmark
+    public String numberEncodeRaw() {
+        return numberCodec.encodeToString(1234567890123L);
+    }
+
+    @Benchmark
+    public Long numberDecodeJson() {
+        return JsonUtil.jsonToObject(jsonNumber, Long.class);
+    }
+
+    @Benchmark
+    public Long numberDecodeRaw() {
+        return numberCodec.decodeFromString(jsonNumber);
+    }
+
+    private static UserInfoDTO userInfo() {
+        return new UserInfoDTO()
+                .setUserId(10086L)
+                .setNickname("lwang")
+                .setUserSex(1)
+                .setUserAddress("广东省广州市天河区")
+                .setUserHead("http://img.example.com/head/10086.jpg")
+                .setUserStatus(0)
+                .setCreateTime(Instant.now())
+                .setAuthTypes(Lists.newArrayList("phone", "qq", "wechat"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        RedisCodecs.setBinaryWrite(true);
+        UserInfoDTO userInfoDTO = userInfo();
+        System.out.println("UserInfoDTO json = " + JsonUtil.toJson(userInfoDTO).getBytes(StandardCharsets.UTF_8).length
+                + " bytes, binary = " + RedisCodecs.binary(UserInfoDTO.class).encode(userInfoDTO).length + " bytes");
+        new Runner(new OptionsBuilder()
+                .include(RedisCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,62 @@
+package com.hdh.lifeup.benchmark;
+
+import com.hdh.lifeup.util.sensitive.AhoCorasickFilter;
+import com.hdh.lifeup.util.sensitive.SensitiveFilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SensitiveFilterBenchmark class<br/>
+ * 不同长度的正常文本和带敏感词文本的过滤耗时，dirty每64个字符插入一个词库中的词
+ * @author hdonghong
+ * @since 2020/02/12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SensitiveFilterBenchmark {
+
+    private static final String CLEAN = "今天早上六点起床跑步五公里，然后背了五十个单词，晚上继续坚持阅读一小时。";
+
+    private static final String DIRTY_WORD = "TMD";
+
+    @Param({"16", "256", "4096"})
+    private int length;
+
+    @Param({"clean", "dirty"})
+    private String text;
+
+    private String sentence;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder(length + CLEAN.length());
+        while (builder.length() < length) {
+            builder.append(CLEAN);
+        }
+        builder.setLength(length);
+        if ("dirty".equals(text)) {
+            for (int i = 0; i + DIRTY_WORD.length() <= length; i += 64) {
+                builder.replace(i, i + DIRTY_WORD.length(), DIRTY_WORD);
+            }
+        }
+        sentence = builder.toString();
+        // 提前加载词库
+        SensitiveFilter.DEFAULT.filter(sentence, '*');
+        AhoCorasickFilter.DEFAULT.filter(sentence, '*');
+    }
+
+    @Benchmark
+    public String sensitiveFilter() {
+        return SensitiveFilter.DEFAULT.filter(sentence, '*');
+    }
+
+    @Benchmark
+    public String ahoCorasickFilter() {
+        return AhoCorasickFilter.DEFAULT.filter(sentence, '*');
+    }
+}
@@ -0,0 +1,74 @@
+package com.hdh.lifeup.benchmark;
+
+import com.hdh.lifeup.util.sensitive.StringPointer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StringPointerBenchmark class<br/>
+ * SensitiveFilter扫描时对StringPointer的逐字符操作，每次调用扫描整句
+ * @author hdonghong
+ * @since 2020/02/12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringPointerBenchmark {
+
+    private static final String SENTENCE = "今天早上六点起床跑步五公里，然后背了五十个单词，晚上继续坚持阅读一小时。";
+
+    private StringPointer pointer;
+
+    private StringPointer word;
+
+    private String sentence;
+
+    @Setup
+    public void setup() {
+        sentence = SENTENCE;
+        pointer = new StringPointer(SENTENCE);
+        word = new StringPointer("五十个单词");
+    }
+
+    @Benchmark
+    public StringPointer create() {
+        return new StringPointer(sentence);
+    }
+
+    @Benchmark
+    public void nextTwoCharHash(Blackhole blackhole) {
+        for (int i = 0, len = pointer.length() - 1; i < len; i++) {
+            blackhole.consume(pointer.nextTwoCharHash(i));
+        }
+    }
+
+    @Benchmark
+    public void nextTwoCharMix(Blackhole blackhole) {
+        for (int i = 0, len = pointer.length() - 1; i < len; i++) {
+            blackhole.consume(pointer.nextTwoCharMix(i));
+        }
+    }
+
+    @Benchmark
+    public void nextStartsWith(Blackhole blackhole) {
+        for (int i = 0, len = pointer.length() - 1; i < len; i++) {
+            blackhole.consume(pointer.nextStartsWith(i, word));
+        }
+    }
+
+    @Benchmark
+    public int substringHashCode() {
+        // 新建的子串没有缓存hash
+        return pointer.substring(3, 12).hashCode();
+    }
+
+    @Benchmark
+    public boolean substringEquals() {
+        return pointer.substring(20, 25).equals(word);
+    }
+}
@@ -0,0 +1,57 @@
+package com.hdh.lifeup.convert;
+
+import com.google.common.collect.Lists;
+import com.hdh.lifeup.base.BaseDTO;
+import com.hdh.lifeup.model.domain.TeamTaskDO;
+import com.hdh.lifeup.model.domain.UserInfoDO;
+import com.hdh.lifeup.model.dto.TeamTaskDTO;
+import com.hdh.lifeup.model.dto.UserInfoDTO;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class DomainConverterTest {
+
+    @Test
+    public void teamTaskRoundTrip() {
+        TeamTaskDTO teamTaskDTO = new TeamTaskDTO();
+        teamTaskDTO.setTeamId(1L)
+                .setTeamTitle("早起")
+                .setRewardAttrs(Lists.newArrayList("strength", "learning"))
+                .setFirstStartTime(LocalDateTime.of(2020, 2, 10, 6, 0));
+        TeamTaskDO teamTaskDO = teamTaskDTO.toDO(TeamTaskDO.class);
+        assertEquals("[\"strength\",\"learning\"]", teamTaskDO.getRewardAttrs());
+        assertEquals(teamTaskDTO.getFirstStartTime(), teamTaskDO.getFirstStartTime());
+
+        TeamTaskDTO copy = BaseDTO.from(teamTaskDO, TeamTaskDTO.class);
+        assertEquals(teamTaskDTO.getRewardAttrs(), copy.getRewardAttrs());
+        assertEquals("早起", copy.getTeamTitle());
+    }
+
+    @Test
+    public void emptyListNotWritten() {
+        TeamTaskDTO teamTaskDTO = new TeamTaskDTO();
+        teamTaskDTO.setRewardAttrs(Collections.emptyList());
+        assertNull(DomainConverter.INSTANCE.toDO(teamTaskDTO).getRewardAttrs());
+    }
+
+    @Test
+    public void userInfoIgnoresCreateTime() {
+        UserInfoDO userInfoDO = new UserInfoDO();
+        userInfoDO.setUserId(1L)
+                .setNickname("nick")
+                .setAuthTypes("[\"phone\"]")
+                .setCreateTime(LocalDateTime.now());
+        UserInfoDTO userInfoDTO = DomainConverter.INSTANCE.toDTO(userInfoDO);
+        assertNull(userInfoDTO.getCreateTime());
+        assertEquals(Lists.newArrayList("phone"), userInfoDTO.getAuthTypes());
+
+        UserInfoDTO patch = new UserInfoDTO().setUserId(2L).setNickname("new");
+        DomainConverter.INSTANCE.update(patch, userInfoDTO);
+        assertEquals(Long.valueOf(1L), userInfoDTO.getUserId());
+        assertEquals("new", userInfoDTO.getNickname());
+    }
+}
@@ -1,7 +1,8 @@
 package com.hdh.lifeup.dao;
 
-import com.google.common.collect.Lists;
+import com.hdh.lifeup.model.dto.PageCursor;
 import com.hdh.lifeup.model.dto.PageDTO;
+import com.hdh.lifeup.model.dto.RecordDTO;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,21 +21,27 @@ public class TeamMemberRecordMapperTest {
     private TeamMemberRecordMapper teamMemberRecordMapper;
 
     @Test
-    public void getRecordsByUserIds() throws Exception {
+    public void getRecords() {
         PageDTO pageDTO = new PageDTO();
         pageDTO.setCurrentPage(0L);
         pageDTO.setSize(3L);
-        List<Long> objects = Lists.newArrayList();
-        objects.add(1L);
-        teamMemberRecordMapper.getRecordsByUserIds(objects, pageDTO, 0);
+        teamMemberRecordMapper.getRecords(pageDTO, 1, null);
     }
 
     @Test
-    public void getRecords() {
+    public void getRecordsWithCursor() {
         PageDTO pageDTO = new PageDTO();
-        pageDTO.setCurrentPage(0L);
         pageDTO.setSize(3L);
-        teamMemberRecordMapper.getRecords(pageDTO, 1);
+        List<RecordDTO> firstPage = teamMemberRecordMapper.getRecords(pageDTO, 0, null);
+        if (firstPage.size() < pageDTO.getSize()) {
+            return;
+        }
+        RecordDTO last = firstPage.get(firstPage.size() - 1);
+        PageCursor cursor = new PageCursor(last.getCreateTime(), last.getMemberRecordId());
+        List<RecordDTO> nextPage = teamMemberRecordMapper.getRecords(pageDTO, 0, cursor);
+        nextPage.forEach(recordDTO -> assertFalse(
+                firstPage.stream().anyMatch(r -> r.getMemberRecordId().equals(recordDTO.getMemberRecordId()))
+        ));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,301 @@
+package com.hdh.lifeup.loadtest;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hdh.lifeup.model.constant.TaskConst;
+import com.hdh.lifeup.model.dto.UserInfoDTO;
+import com.hdh.lifeup.redis.LikeKey;
+import com.hdh.lifeup.redis.RedisBatch;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.redis.UserKey;
+import com.hdh.lifeup.service.TeamScheduleService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * DataSeeder class<br/>
+ * 按线上的数据形态造压测数据：数据库用批量insert，关注关系、登录态、点赞集合直接写redis。<br/>
+ * 关注对象按幂律分布选取，id越小的用户粉丝越多，头部用户的粉丝数会超过大V阈值，朋友圈的推拉两条路径都会走到。
+ * <p>
+ * 数据量由系统属性控制：<br/>
+ * * loadtest.users：用户数，默认2000；<br/>
+ * * loadtest.followings：每个用户关注的人数，默认50；<br/>
+ * * loadtest.teams：团队数，默认200；<br/>
+ * * loadtest.team-members：每个团队的成员数，默认20；<br/>
+ * * loadtest.records：每个成员在团队中的历史动态数，默认10；<br/>
+ * * loadtest.likes：每条历史动态最多的点赞数，默认5。
+ * @author hdonghong
+ * @since 2020/02/14
+ */
+@Slf4j
+public class DataSeeder {
+
+    /** 造的数据从这个id开始，与IdWorker生成的id不会冲突 */
+    private static final long ID_BASE = 10_000_000L;
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final int HOT_RECORDS = 50;
+
+    private final int users = Integer.getInteger("loadtest.users", 2000);
+
+    private final int followings = Integer.getInteger("loadtest.followings", 50);
+
+    private final int teams = Integer.getInteger("loadtest.teams", 200);
+
+    private final int teamMembers = Integer.getInteger("loadtest.team-members", 20);
+
+    private final int records = Integer.getInteger("loadtest.records", 10);
+
+    private final int likes = Integer.getInteger("loadtest.likes", 5);
+
+    /** 固定种子，每次压测的数据一致，结果才能相互比较 */
+    private final Random random = new Random(20200214L);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final RedisOperator redisOperator;
+
+    private final TeamScheduleService teamScheduleService;
+
+    private long nextId = ID_BASE;
+
+    public DataSeeder(JdbcTemplate jdbcTemplate, RedisOperator redisOperator,
+                      TeamScheduleService teamScheduleService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisOperator = redisOperator;
+        this.teamScheduleService = teamScheduleService;
+    }
+
+    public SeedData seed() {
+        long start = System.currentTimeMillis();
+        List<Long> userIds = seedUsers();
+        seedFollows(userIds);
+        List<long[]> memberships = seedTeams(userIds);
+        List<long[]> recordAndCreators = seedRecords(memberships);
+
+        Set<Long> hotRecordIds = new LinkedHashSet<>();
+        while (hotRecordIds.size() < Math.min(HOT_RECORDS, recordAndCreators.size())) {
+            hotRecordIds.add(recordAndCreators.get(random.nextInt(recordAndCreators.size()))[0]);
+        }
+        seedLikes(userIds, recordAndCreators, hotRecordIds);
+
+        int teamRecords = teamScheduleService.materialize();
+        log.info("【压测】造数据完成，users = [{}]，memberships = [{}]，records = [{}]，teamRecords = [{}]，耗时 = [{}ms]",
+                userIds.size(), memberships.size(), recordAndCreators.size(), teamRecords,
+                System.currentTimeMillis() - start);
+        return new SeedData()
+                .setUserIds(userIds)
+                .setMemberships(memberships)
+                .setHotRecordIds(new ArrayList<>(hotRecordIds));
+    }
+
+    /**
+     * 用户、账号、属性和登录态
+     */
+    private List<Long> seedUsers() {
+        List<Long> userIds = Lists.newArrayListWithCapacity(users);
+        List<Object[]> userRows = Lists.newArrayListWithCapacity(users);
+        List<Object[]> authRows = Lists.newArrayListWithCapacity(users);
+        List<Object[]> attributeRows = Lists.newArrayListWithCapacity(users);
+        for (int i = 0; i < users; i++) {
+            long userId = nextId++;
+            userIds.add(userId);
+            userRows.add(new Object[]{userId, "user" + i, i % 3, "http://localhost/cdn/head/" + i + ".png", "phone"});
+            authRows.add(new Object[]{nextId++, userId, "phone", String.valueOf(13_800_000_000L + i)});
+            attributeRows.add(new Object[]{nextId++, userId, random.nextInt(1000)});
+        }
+        batchInsert("INSERT INTO user_info (user_id, nickname, user_sex, user_head, auth_types) VALUES (?, ?, ?, ?, ?)",
+                userRows);
+        batchInsert("INSERT INTO user_auth (auth_id, user_id, auth_type, auth_identifier) VALUES (?, ?, ?, ?)",
+                authRows);
+        batchInsert("INSERT INTO user_attribute (attribute_id, user_id, user_exp) VALUES (?, ?, ?)",
+                attributeRows);
+
+        for (int i = 0; i < users; i++) {
+            Object[] row = userRows.get(i);
+            UserInfoDTO userInfoDTO = new UserInfoDTO()
+                    .setUserId((Long) row[0])
+                    .setNickname((String) row[1])
+                    .setUserSex((Integer) row[2])
+                    .setUserHead((String) row[3]);
+            redisOperator.setex(UserKey.TOKEN, SeedData.tokenOf(userInfoDTO.getUserId()), userInfoDTO);
+        }
+        return userIds;
+    }
+
+    /**
+     * 关注关系只在redis中，写法与 UserInfoServiceImpl#follow 一致
+     */
+    private void seedFollows(List<Long> userIds) {
+        long nowSecond = LocalDateTime.now().toEpochSecond(ZoneOffset.of("+8"));
+        Map<Long, List<Object>> followers = Maps.newHashMap();
+        RedisBatch batch = redisOperator.batch();
+        for (Long userId : userIds) {
+            Set<Long> targets = new LinkedHashSet<>();
+            for (int attempt = 0; targets.size() < followings && attempt < followings * 4; attempt++) {
+                Long target = userIds.get(powerLawIndex(userIds.size()));
+                if (!target.equals(userId)) {
+                    targets.add(target);
+                }
+            }
+            List<Object> scoreAndMembers = new ArrayList<>(targets.size() * 2);
+            for (Long target : targets) {
+                long score = nowSecond - random.nextInt(30 * 24 * 3600);
+                scoreAndMembers.add(score);
+                scoreAndMembers.add(target);
+                List<Object> targetFollowers = followers.computeIfAbsent(target, k -> new ArrayList<>());
+                targetFollowers.add(score);
+                targetFollowers.add(userId);
+            }
+            if (!scoreAndMembers.isEmpty()) {
+                batch.zadd(UserKey.FOLLOWING, userId, scoreAndMembers.toArray());
+            }
+            if (batch.size() >= BATCH_SIZE) {
+                batch.execute();
+                batch = redisOperator.batch();
+            }
+        }
+        for (Map.Entry<Long, List<Object>> entry : followers.entrySet()) {
+            batch.zadd(UserKey.FOLLOWER, entry.getKey(), entry.getValue().toArray());
+            if (batch.size() >= BATCH_SIZE) {
+                batch.execute();
+                batch = redisOperator.batch();
+            }
+        }
+        batch.execute();
+    }
+
+    /**
+     * 进行中的每日签到团队，当前周期从一小时前开始，压测期间一直可以签到
+     * @return 成员关系 {teamId, userId}
+     */
+    private List<long[]> seedTeams(List<Long> userIds) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp firstStartTime = Timestamp.valueOf(now.minusHours(1));
+        Timestamp firstEndTime = Timestamp.valueOf(now.plusHours(12));
+        Date startDate = Date.valueOf(LocalDate.now().plusDays(30));
+
+        List<Object[]> teamRows = Lists.newArrayListWithCapacity(teams);
+        List<Object[]> memberRows = Lists.newArrayListWithCapacity(teams * teamMembers);
+        List<long[]> memberships = Lists.newArrayListWithCapacity(teams * teamMembers);
+        for (int t = 0; t < teams; t++) {
+            long teamId = nextId++;
+            Long ownerId = userIds.get(random.nextInt(userIds.size()));
+            teamRows.add(new Object[]{teamId, "team" + t, "每天打卡" + t, "http://localhost/cdn/team/" + t + ".png",
+                    "[]", 10, 1, startDate, firstStartTime, firstEndTime, TaskConst.TaskStatus.DOING, ownerId,
+                    random.nextInt(1000)});
+
+            Set<Long> members = new LinkedHashSet<>();
+            members.add(ownerId);
+            while (members.size() < Math.min(teamMembers, userIds.size())) {
+                members.add(userIds.get(random.nextInt(userIds.size())));
+            }
+            for (Long memberId : members) {
+                String role = memberId.equals(ownerId) ? TaskConst.TeamRole.OWNER : TaskConst.TeamRole.MEMBER;
+                memberRows.add(new Object[]{nextId++, memberId, teamId, role,
+                        Timestamp.valueOf(now.minusMinutes(random.nextInt(30 * 24 * 60)))});
+                memberships.add(new long[]{teamId, memberId});
+            }
+        }
+        batchInsert("INSERT INTO team_task (team_id, team_title, team_desc, team_head, reward_attrs, reward_exp, " +
+                "team_freq, start_date, first_start_time, first_end_time, team_status, user_id, team_rank) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", teamRows);
+        batchInsert("INSERT INTO team_member (member_id, user_id, team_id, team_role, create_time) " +
+                "VALUES (?, ?, ?, ?, ?)", memberRows);
+        return memberships;
+    }
+
+    /**
+     * 历史动态，发布时间分散在最近30天
+     * @return {memberRecordId, userId}
+     */
+    private List<long[]> seedRecords(List<long[]> memberships) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> recordRows = Lists.newArrayListWithCapacity(memberships.size() * records);
+        List<long[]> recordAndCreators = Lists.newArrayListWithCapacity(memberships.size() * records);
+        for (long[] membership : memberships) {
+            for (int i = 0; i < records; i++) {
+                long memberRecordId = nextId++;
+                recordRows.add(new Object[]{memberRecordId, "team" + membership[0], membership[0], membership[1],
+                        "第" + (i + 1) + "次打卡", TaskConst.ActivityIcon.IC_SIGN,
+                        Timestamp.valueOf(now.minusMinutes(random.nextInt(30 * 24 * 60)))});
+                recordAndCreators.add(new long[]{memberRecordId, membership[1]});
+            }
+        }
+        batchInsert("INSERT INTO team_member_record (member_record_id, team_title, team_id, user_id, " +
+                "user_activity, activity_icon, create_time) VALUES (?, ?, ?, ?, ?, ?, ?)", recordRows);
+        return recordAndCreators;
+    }
+
+    /**
+     * 点赞记录写数据库，点赞集合和获赞数写redis，与LikeWriteBuffer落库后的状态一致
+     */
+    private void seedLikes(List<Long> userIds, List<long[]> recordAndCreators, Set<Long> hotRecordIds) {
+        List<Object[]> likeRows = Lists.newArrayList();
+        Map<Long, Integer> likeCounts = Maps.newHashMap();
+        RedisBatch batch = redisOperator.batch();
+        for (long[] recordAndCreator : recordAndCreators) {
+            if (hotRecordIds.contains(recordAndCreator[0])) {
+                continue;
+            }
+            Set<Long> likers = new LinkedHashSet<>();
+            for (int i = random.nextInt(likes + 1); i > 0; i--) {
+                likers.add(userIds.get(random.nextInt(userIds.size())));
+            }
+            if (likers.isEmpty()) {
+                continue;
+            }
+            for (Long liker : likers) {
+                likeRows.add(new Object[]{recordAndCreator[0], liker});
+            }
+            likeCounts.merge(recordAndCreator[1], likers.size(), Integer::sum);
+            batch.sadd(LikeKey.ACTIVITY, recordAndCreator[0], likers.toArray());
+            if (batch.size() >= BATCH_SIZE) {
+                batch.execute();
+                batch = redisOperator.batch();
+            }
+        }
+        batch.execute();
+        batchInsert("INSERT INTO like_member_record (member_record_id, user_id) VALUES (?, ?)", likeRows);
+
+        List<Object[]> countRows = Lists.newArrayListWithCapacity(likeCounts.size());
+        List<Object> keyAndValues = Lists.newArrayListWithCapacity(likeCounts.size() * 2);
+        likeCounts.forEach((userId, count) -> {
+            countRows.add(new Object[]{userId, count});
+            keyAndValues.add(userId);
+            keyAndValues.add(count.longValue());
+        });
+        batchInsert("INSERT INTO like_count_user (user_id, like_count) VALUES (?, ?)", countRows);
+        if (!keyAndValues.isEmpty()) {
+            redisOperator.mset(UserKey.LIKE_COUNT, keyAndValues.toArray());
+        }
+    }
+
+    private void batchInsert(String sql, List<Object[]> rows) {
+        for (List<Object[]> partition : Lists.partition(rows, BATCH_SIZE)) {
+            jdbcTemplate.batchUpdate(sql, partition);
+        }
+    }
+
+    /**
+     * x^3 的分布，返回值集中在小的下标上
+     */
+    private int powerLawIndex(int size) {
+        double x = random.nextDouble();
+        return Math.min(size - 1, (int) (size * x * x * x));
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.hdh.lifeup.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import redis.embedded.RedisExecProvider;
+import redis.embedded.RedisServer;
+import redis.embedded.util.Architecture;
+import redis.embedded.util.OS;
+
+import java.io.File;
+
+/**
+ * EmbeddedRedis class<br/>
+ * 压测用的内嵌redis。自带的可执行文件是2.8版本，不支持带count的SPOP，
+ * 团队活跃度回写会失败，需要完整覆盖时用系统属性 loadtest.redis.executable 指定本机3.2以上的redis-server
+ * @author hdonghong
+ * @since 2020/02/14
+ */
+@Slf4j
+public class EmbeddedRedis {
+
+    private final RedisServer server;
+
+    private EmbeddedRedis(RedisServer server) {
+        this.server = server;
+    }
+
+    public static EmbeddedRedis start(int port) {
+        RedisExecProvider provider = RedisExecProvider.defaultProvider();
+        String executable = System.getProperty("loadtest.redis.executable");
+        if (executable != null && !executable.isEmpty()) {
+            File file = new File(executable);
+            provider.override(OS.UNIX, Architecture.x86_64, file.getAbsolutePath())
+                    .override(OS.MAC_OS_X, Architecture.x86_64, file.getAbsolutePath());
+        }
+        RedisServer server = RedisServer.builder()
+                .redisExecProvider(provider)
+                .port(port)
+                .setting("maxmemory 512M")
+                .setting("save \"\"")
+                .setting("appendonly no")
+                .build();
+        server.start();
+        log.info("【压测】内嵌redis已启动，port = [{}]，executable = [{}]", port,
+                executable == null ? "bundled" : executable);
+        return new EmbeddedRedis(server);
+    }
+
+    public void stop() {
+        server.stop();
+    }
+}
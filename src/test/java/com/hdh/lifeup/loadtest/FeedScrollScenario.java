@@ -0,0 +1,53 @@
+package com.hdh.lifeup.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.hdh.lifeup.model.constant.TaskConst;
+
+import java.util.List;
+
+/**
+ * FeedScrollScenario class<br/>
+ * 刷朋友圈：随机用户打开关注的人的动态，沿着nextCursor往下翻几页。
+ * 用户按幂律选取时头部用户的收件箱一直是热的，这里均匀选取，冷收件箱的重建也会被压到
+ * @author hdonghong
+ * @since 2020/02/14
+ */
+public class FeedScrollScenario implements LoadScenario {
+
+    private static final int PAGE_SIZE = 20;
+
+    private final List<Long> userIds;
+
+    private final int iterations = Integer.getInteger("loadtest.feed.iterations", 2000);
+
+    private final int pages = Integer.getInteger("loadtest.feed.pages", 3);
+
+    public FeedScrollScenario(SeedData seedData) {
+        this.userIds = seedData.getUserIds();
+    }
+
+    @Override
+    public String name() {
+        return "feed";
+    }
+
+    @Override
+    public int iterations() {
+        return iterations;
+    }
+
+    @Override
+    public void iterate(LoadClient client, int i) {
+        Long userId = userIds.get(Math.floorMod(i * 7919, userIds.size()));
+        String token = SeedData.tokenOf(userId);
+        String path = "/user/moments/" + TaskConst.ActivityScope.MYFOLLOWERS + "?skipTotal=true&size=" + PAGE_SIZE;
+        String cursor = null;
+        for (int page = 0; page < pages; page++) {
+            JsonNode data = client.get(cursor == null ? path : path + "&cursor=" + cursor, token);
+            if (data == null || !data.hasNonNull("nextCursor")) {
+                return;
+            }
+            cursor = data.get("nextCursor").asText();
+        }
+    }
+}
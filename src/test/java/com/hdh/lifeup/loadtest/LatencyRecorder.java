@@ -0,0 +1,74 @@
+package com.hdh.lifeup.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyRecorder class<br/>
+ * 记录一个场景所有请求的耗时和结果，多线程同时写入，结束后汇总出吞吐量和耗时分位数
+ * @author hdonghong
+ * @since 2020/02/14
+ */
+public class LatencyRecorder {
+
+    /** 请求的结果：成功、被限流、其他失败 */
+    public enum Outcome {
+        OK, LIMITED, FAILED
+    }
+
+    static final String HEADER = String.format("%-12s %9s %9s %9s %9s %10s %9s %9s %9s %9s",
+            "scenario", "requests", "ok", "limited", "failed", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)");
+
+    private final String name;
+
+    /** 只记录成功的请求，限流和失败的请求耗时没有参考意义 */
+    private final Recorder recorder = new Recorder(3);
+
+    private final LongAdder ok = new LongAdder();
+
+    private final LongAdder limited = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    public void record(Outcome outcome, long nanos) {
+        switch (outcome) {
+            case OK:
+                ok.increment();
+                recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+                break;
+            case LIMITED:
+                limited.increment();
+                break;
+            default:
+                failed.increment();
+        }
+    }
+
+    /**
+     * @param elapsedNanos 场景从开始到结束的时间
+     * @return 一行汇总，列与 {@link #HEADER} 对齐
+     */
+    public String report(long elapsedNanos) {
+        Histogram histogram = recorder.getIntervalHistogram();
+        long requests = ok.sum() + limited.sum() + failed.sum();
+        double seconds = elapsedNanos / 1e9;
+        return String.format("%-12s %9d %9d %9d %9d %10.1f %9.2f %9.2f %9.2f %9.2f",
+                name, requests, ok.sum(), limited.sum(), failed.sum(),
+                seconds > 0 ? requests / seconds : 0,
+                toMillis(histogram.getValueAtPercentile(50)),
+                toMillis(histogram.getValueAtPercentile(90)),
+                toMillis(histogram.getValueAtPercentile(99)),
+                toMillis(histogram.getMaxValue()));
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+}
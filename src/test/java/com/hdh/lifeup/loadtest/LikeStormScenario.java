@@ -0,0 +1,43 @@
+package com.hdh.lifeup.loadtest;
+
+import java.util.List;
+
+/**
+ * LikeStormScenario class<br/>
+ * 点赞风暴：大量用户集中给少数几条热门动态点赞，压点赞集合、获赞计数和LikeWriteBuffer的合并写库。
+ * 第i次迭代由第 i % 用户数 个用户给第 i / 用户数 条热门动态点赞，每个用户对每条动态只点一次
+ * @author hdonghong
+ * @since 2020/02/14
+ */
+public class LikeStormScenario implements LoadScenario {
+
+    private final List<Long> userIds;
+
+    private final List<Long> hotRecordIds;
+
+    private final int iterations;
+
+    public LikeStormScenario(SeedData seedData) {
+        this.userIds = seedData.getUserIds();
+        this.hotRecordIds = seedData.getHotRecordIds();
+        int max = userIds.size() * hotRecordIds.size();
+        this.iterations = Math.min(max, Integer.getInteger("loadtest.like.iterations", 20000));
+    }
+
+    @Override
+    public String name() {
+        return "like";
+    }
+
+    @Override
+    public int iterations() {
+        return iterations;
+    }
+
+    @Override
+    public void iterate(LoadClient client, int i) {
+        Long userId = userIds.get(i % userIds.size());
+        Long memberRecordId = hotRecordIds.get(i / userIds.size());
+        client.post("/likes/activities/" + memberRecordId, SeedData.tokenOf(userId), null);
+    }
+}
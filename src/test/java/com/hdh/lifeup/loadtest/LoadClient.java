@@ -0,0 +1,106 @@
+package com.hdh.lifeup.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hdh.lifeup.model.enums.CodeMsgEnum;
+import com.hdh.lifeup.util.TokenUtil;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+
+import static com.hdh.lifeup.loadtest.LatencyRecorder.Outcome;
+
+/**
+ * LoadClient class<br/>
+ * 场景发请求用的客户端，每个请求的耗时和结果写入场景的 {@link LatencyRecorder}。<br/>
+ * 请求头带上token和点赞接口要求的Referer，响应按ResultVO的code判断成功、限流还是失败
+ * @author hdonghong
+ * @since 2020/02/14
+ */
+public class LoadClient {
+
+    private static final String REFERER = "lifeup.D2D0706D81E7DB115451B33841A8BF09";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final RestTemplate restTemplate;
+
+    private final String baseUrl;
+
+    private final LatencyRecorder recorder;
+
+    public LoadClient(RestTemplate restTemplate, String baseUrl, LatencyRecorder recorder) {
+        this.restTemplate = restTemplate;
+        this.baseUrl = baseUrl;
+        this.recorder = recorder;
+    }
+
+    /**
+     * 不因为4xx、5xx抛异常，统一按响应体判断结果
+     */
+    static RestTemplate newRestTemplate() {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.setErrorHandler(new ResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                return false;
+            }
+
+            @Override
+            public void handleError(ClientHttpResponse response) {
+
+            }
+        });
+        return restTemplate;
+    }
+
+    public JsonNode get(String path, String token) {
+        return exchange(HttpMethod.GET, path, token, null);
+    }
+
+    public JsonNode post(String path, String token, Object body) {
+        return exchange(HttpMethod.POST, path, token, body);
+    }
+
+    /**
+     * path中的参数由调用方编码好，不再做模板展开
+     * @return 成功时返回ResultVO的data，失败或限流时返回null
+     */
+    private JsonNode exchange(HttpMethod method, String path, String token, Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(TokenUtil.AUTHENTICITY_TOKEN, token);
+        headers.set(HttpHeaders.REFERER, REFERER);
+        headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
+
+        long start = System.nanoTime();
+        Outcome outcome = Outcome.FAILED;
+        JsonNode data = null;
+        try {
+            ResponseEntity<String> response = restTemplate.exchange(
+                    URI.create(baseUrl + path), method, new HttpEntity<>(body, headers), String.class);
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                JsonNode result = MAPPER.readTree(response.getBody());
+                int code = result.path("code").asInt();
+                if (code == CodeMsgEnum.SUCCESS.getCode()) {
+                    outcome = Outcome.OK;
+                    data = result.path("data");
+                } else if (code == CodeMsgEnum.TOO_MANY_ACCESSES.getCode()) {
+                    outcome = Outcome.LIMITED;
+                }
+            }
+        } catch (RestClientException | IOException e) {
+            outcome = Outcome.FAILED;
+        }
+        recorder.record(outcome, System.nanoTime() - start);
+        return data;
+    }
+}
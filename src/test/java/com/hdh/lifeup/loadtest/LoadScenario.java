@@ -0,0 +1,27 @@
+package com.hdh.lifeup.loadtest;
+
+/**
+ * LoadScenario interface<br/>
+ * 压测场景，由 {@link LoadTestRunner} 用固定数量的线程并发执行，直到跑完所有迭代
+ * @author hdonghong
+ * @since 2020/02/14
+ */
+public interface LoadScenario {
+
+    /**
+     * @return 场景名，对应系统属性 loadtest.scenarios 中的值
+     */
+    String name();
+
+    /**
+     * @return 总迭代次数，一次迭代可以发多个请求
+     */
+    int iterations();
+
+    /**
+     * 执行第i次迭代，多个线程同时调用
+     * @param client 发请求并记录耗时
+     * @param i 迭代序号，从0开始
+     */
+    void iterate(LoadClient client, int i);
+}
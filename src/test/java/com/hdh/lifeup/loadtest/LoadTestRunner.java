@@ -0,0 +1,129 @@
+package com.hdh.lifeup.loadtest;
+
+import com.google.common.collect.Lists;
+import com.hdh.lifeup.LifeupApplication;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.service.TeamScheduleService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LoadTestRunner class<br/>
+ * 端到端压测：启动内嵌redis，用H2内存库以loadtest配置启动整个应用，造数据后按场景通过http并发请求，
+ * 输出每个场景的吞吐量和耗时分位数：<br/>
+ * <code>mvn -Ploadtest test</code><br/>
+ * 只跑部分场景：<code>mvn -Ploadtest test -Dloadtest.scenarios=feed,like</code>
+ * <p>
+ * 系统属性（造数据的见 {@link DataSeeder}）：<br/>
+ * * loadtest.scenarios：要跑的场景，可选 feed、sign、like，默认全部；<br/>
+ * * loadtest.concurrency：并发线程数，默认32；<br/>
+ * * loadtest.result：报告文件，默认 target/loadtest-result.txt；<br/>
+ * * loadtest.redis.port：内嵌redis的端口，默认6390；<br/>
+ * * loadtest.redis.executable：本机的redis-server，不指定时用自带的。
+ * <p>
+ * 内存库和内嵌redis的绝对数值不代表线上，用于同一台机器上前后两次改动的对比。
+ * @author hdonghong
+ * @since 2020/02/14
+ */
+@Slf4j
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        int redisPort = Integer.getInteger("loadtest.redis.port", 6390);
+        System.setProperty("loadtest.redis.port", String.valueOf(redisPort));
+        System.setProperty("spring.profiles.active", "loadtest");
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        EmbeddedRedis redis = EmbeddedRedis.start(redisPort);
+        ConfigurableApplicationContext context = null;
+        try {
+            context = SpringApplication.run(LifeupApplication.class, args);
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+
+            SeedData seedData = new DataSeeder(
+                    context.getBean(JdbcTemplate.class),
+                    context.getBean(RedisOperator.class),
+                    context.getBean(TeamScheduleService.class)
+            ).seed();
+
+            List<String> enabled = Arrays.asList(System.getProperty("loadtest.scenarios", "feed,sign,like").split(","));
+            List<LoadScenario> scenarios = Lists.newArrayList(
+                    new FeedScrollScenario(seedData),
+                    new SignInBurstScenario(seedData),
+                    new LikeStormScenario(seedData)
+            );
+            int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+            RestTemplate restTemplate = LoadClient.newRestTemplate();
+
+            List<String> report = Lists.newArrayList(LatencyRecorder.HEADER);
+            for (LoadScenario scenario : scenarios) {
+                if (enabled.contains(scenario.name())) {
+                    report.add(run(scenario, restTemplate, "http://127.0.0.1:" + port, concurrency));
+                }
+            }
+
+            Path result = Paths.get(System.getProperty("loadtest.result", "target/loadtest-result.txt"));
+            writeReport(result, report);
+            log.info("【压测】concurrency = [{}]，报告 = [{}]\n{}", concurrency, result.toAbsolutePath(),
+                    String.join("\n", report));
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            redis.stop();
+        }
+    }
+
+    /**
+     * 固定数量的线程抢迭代序号，直到跑完所有迭代
+     * @return 场景的汇总
+     */
+    private static String run(LoadScenario scenario, RestTemplate restTemplate, String baseUrl, int concurrency)
+            throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder(scenario.name());
+        LoadClient client = new LoadClient(restTemplate, baseUrl, recorder);
+        AtomicInteger next = new AtomicInteger();
+        int iterations = scenario.iterations();
+        log.info("【压测】开始场景 = [{}]，iterations = [{}]", scenario.name(), iterations);
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int t = 0; t < concurrency; t++) {
+            executor.execute(() -> {
+                for (int i = next.getAndIncrement(); i < iterations; i = next.getAndIncrement()) {
+                    try {
+                        scenario.iterate(client, i);
+                    } catch (RuntimeException e) {
+                        log.error("【压测】场景 = [{}] 第 [{}] 次迭代异常", scenario.name(), i, e);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+        return recorder.report(System.nanoTime() - start);
+    }
+
+    private static void writeReport(Path result, List<String> report) throws IOException {
+        if (result.getParent() != null) {
+            Files.createDirectories(result.getParent());
+        }
+        Files.write(result, report, StandardCharsets.UTF_8);
+    }
+}
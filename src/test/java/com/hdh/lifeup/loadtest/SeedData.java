@@ -0,0 +1,31 @@
+package com.hdh.lifeup.loadtest;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * SeedData class<br/>
+ * 造好的数据中场景需要用到的部分，token由用户id直接拼出
+ * @author hdonghong
+ * @since 2020/02/14
+ */
+@Data
+@Accessors(chain = true)
+public class SeedData {
+
+    private static final String TOKEN_PREFIX = "loadtest-";
+
+    private List<Long> userIds;
+
+    /** 团队成员关系，每项为 {teamId, userId} */
+    private List<long[]> memberships;
+
+    /** 点赞风暴集中点赞的动态，造数据时不给它们点赞，避免重复点赞 */
+    private List<Long> hotRecordIds;
+
+    public static String tokenOf(Long userId) {
+        return TOKEN_PREFIX + userId;
+    }
+}
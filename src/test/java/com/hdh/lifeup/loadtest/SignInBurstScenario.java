@@ -0,0 +1,42 @@
+package com.hdh.lifeup.loadtest;
+
+import com.hdh.lifeup.model.vo.ActivityVO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * SignInBurstScenario class<br/>
+ * 签到高峰：所有团队的所有成员在同一时间段内各签到一次，顺序打乱，同一团队的签到会并发落到周期表和位图上
+ * @author hdonghong
+ * @since 2020/02/14
+ */
+public class SignInBurstScenario implements LoadScenario {
+
+    private final List<long[]> memberships;
+
+    public SignInBurstScenario(SeedData seedData) {
+        this.memberships = new ArrayList<>(seedData.getMemberships());
+        Collections.shuffle(this.memberships, new Random(20200214L));
+    }
+
+    @Override
+    public String name() {
+        return "sign";
+    }
+
+    @Override
+    public int iterations() {
+        return memberships.size();
+    }
+
+    @Override
+    public void iterate(LoadClient client, int i) {
+        long[] membership = memberships.get(i);
+        ActivityVO activityVO = new ActivityVO();
+        activityVO.setActivity("压测签到" + i);
+        client.post("/teams/" + membership[0] + "/sign", SeedData.tokenOf(membership[1]), activityVO);
+    }
+}
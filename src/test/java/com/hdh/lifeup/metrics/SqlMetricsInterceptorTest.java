@@ -0,0 +1,72 @@
+package com.hdh.lifeup.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SqlMetricsInterceptorTest {
+
+    @Test
+    public void recordByMapperMethod() throws Throwable {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SqlMetricsInterceptor interceptor = new SqlMetricsInterceptor(registry);
+        Configuration configuration = new Configuration();
+        MappedStatement mappedStatement = new MappedStatement.Builder(configuration,
+                "com.hdh.lifeup.dao.TeamTaskMapper.selectById",
+                new StaticSqlSource(configuration, "select 1"), SqlCommandType.SELECT).build();
+
+        FakeExecutor executor = new FakeExecutor();
+        Invocation invocation = new Invocation(executor,
+                FakeExecutor.class.getMethod("query", MappedStatement.class), new Object[] {mappedStatement});
+        assertEquals("ok", interceptor.intercept(invocation));
+        interceptor.intercept(invocation);
+
+        Timer timer = registry.find("sql.latency")
+                .tag("mapper", "TeamTaskMapper")
+                .tag("method", "selectById")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(2, timer.count());
+    }
+
+    @Test
+    public void countRejections() throws Exception {
+        CountingRejectedExecutionHandler handler =
+                new CountingRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1), handler);
+        CountDownLatch latch = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(() -> { });
+        // 线程和队列都满了，由调用线程执行
+        executor.execute(() -> { });
+        assertEquals(1, handler.getRejectedCount());
+        latch.countDown();
+        executor.shutdown();
+    }
+
+    public static class FakeExecutor {
+
+        public Object query(MappedStatement mappedStatement) {
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.hdh.lifeup.model.dto;
+
+import com.google.common.collect.Lists;
+import com.hdh.lifeup.exception.GlobalException;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PageCursorTest {
+
+    @Test
+    public void encodeAndDecode() {
+        LocalDateTime createTime = LocalDateTime.of(2020, 1, 18, 20, 30, 15, 123_000_000);
+        PageCursor cursor = new PageCursor(createTime, 1085427356744609793L);
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    public void decodeEmpty() {
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode(""));
+    }
+
+    @Test(expected = GlobalException.class)
+    public void decodeIllegal() {
+        PageCursor.decode("not-a-cursor");
+    }
+
+    @Test
+    public void epochMilli() {
+        PageCursor cursor = PageCursor.ofEpochMilli(1579350615123L, 1L);
+        assertEquals(1579350615123L, cursor.toEpochMilli());
+        assertEquals(1579350615123L, PageCursor.decode(cursor.encode()).toEpochMilli());
+    }
+
+    @Test
+    public void next() {
+        LocalDateTime now = LocalDateTime.now();
+        List<RecordDTO> list = Lists.newArrayList(
+                new RecordDTO().setMemberRecordId(2L).setCreateTime(now),
+                new RecordDTO().setMemberRecordId(1L).setCreateTime(now)
+        );
+        assertNull(PageCursor.next(list, 3, RecordDTO::getCreateTime, RecordDTO::getMemberRecordId));
+
+        String next = PageCursor.next(list, 2, RecordDTO::getCreateTime, RecordDTO::getMemberRecordId);
+        assertEquals(Long.valueOf(1L), PageCursor.decode(next).getId());
+    }
+}
@@ -0,0 +1,90 @@
+package com.hdh.lifeup.redis;
+
+import com.google.common.collect.Lists;
+import com.hdh.lifeup.model.dto.TeamMemberRecordDTO;
+import com.hdh.lifeup.model.dto.UserInfoDTO;
+import com.hdh.lifeup.util.JsonUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.Assert.*;
+
+public class RedisCodecTest {
+
+    @After
+    public void tearDown() {
+        RedisCodecs.setBinaryWrite(false);
+    }
+
+    @Test
+    public void numberSameAsJson() {
+        RedisCodec<Long> codec = LikeKey.ACTIVITY.getCodec();
+        assertEquals(JsonUtil.toJson(1234567890123L), codec.encodeToString(1234567890123L));
+        assertEquals(Long.valueOf(42L), codec.decodeFromString(JsonUtil.toJson(42L)));
+        assertEquals(Long.valueOf(-7L), codec.decode("-7".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(Long.valueOf(5L), ApiKey.withExpire(1).getCodec().decodeFromString("5"));
+    }
+
+    @Test
+    public void binaryRoundTrip() {
+        RedisCodecs.setBinaryWrite(true);
+        RedisCodec<UserInfoDTO> codec = UserKey.TOKEN.getCodec();
+        UserInfoDTO userInfoDTO = userInfo();
+        byte[] bytes = codec.encode(userInfoDTO);
+        assertEquals(':', bytes[0]);
+        assertEquals(userInfoDTO, codec.decode(bytes));
+
+        RedisCodec<TeamMemberRecordDTO> recordCodec = MemberRecordKey.ID.getCodec();
+        TeamMemberRecordDTO recordDTO = new TeamMemberRecordDTO()
+                .setMemberRecordId(1L)
+                .setUserActivity("完成了今天的跑步")
+                .setActivityImages(Lists.newArrayList("a.jpg", "b.jpg"))
+                .setCreateTime(LocalDateTime.now().withNano(0));
+        assertEquals(recordDTO, recordCodec.decode(recordCodec.encode(recordDTO)));
+    }
+
+    @Test
+    public void binaryReadsJson() {
+        RedisCodec<UserInfoDTO> codec = UserKey.TOKEN.getCodec();
+        UserInfoDTO userInfoDTO = userInfo().setCreateTime(null);
+        // 关闭二进制写入时与原来的json一致
+        byte[] bytes = codec.encode(userInfoDTO);
+        assertEquals(JsonUtil.toJson(userInfoDTO), new String(bytes, StandardCharsets.UTF_8));
+
+        RedisCodecs.setBinaryWrite(true);
+        assertEquals(userInfoDTO, codec.decode(bytes));
+    }
+
+    @Test
+    public void binarySmaller() {
+        RedisCodec<UserInfoDTO> codec = UserKey.TOKEN.getCodec();
+        UserInfoDTO userInfoDTO = userInfo();
+        int jsonSize = codec.encode(userInfoDTO).length;
+        RedisCodecs.setBinaryWrite(true);
+        int binarySize = codec.encode(userInfoDTO).length;
+        System.out.println("json = " + jsonSize + " bytes, binary = " + binarySize + " bytes");
+        assertTrue(binarySize < jsonSize);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void binaryNotForMembers() {
+        UserKey.TOKEN.getCodec().encodeToString(userInfo());
+    }
+
+    private static UserInfoDTO userInfo() {
+        return new UserInfoDTO()
+                .setUserId(10086L)
+                .setNickname("lwang")
+                .setUserSex(1)
+                .setUserAddress("广东省广州市天河区")
+                .setUserHead("http://img.example.com/head/10086.jpg")
+                .setUserStatus(0)
+                .setCreateTime(Instant.now().truncatedTo(ChronoUnit.SECONDS))
+                .setAuthTypes(Lists.newArrayList("phone", "qq", "wechat"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.hdh.lifeup.redis;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedisKeyBenchmark class<br/>
+ * RedisOperator每个命令都要拼接的key，放在redis包下以便调用包内的方法
+ * @author hdonghong
+ * @since 2020/02/12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisKeyBenchmark {
+
+    private String token;
+
+    private Long userId;
+
+    @Setup
+    public void setup() {
+        token = "2c9a7f8e0d1b4c6a9e3f5d7b1a2c4e6f";
+        userId = 10086L;
+    }
+
+    @Benchmark
+    public String prefix() {
+        return UserKey.TOKEN.getPrefix();
+    }
+
+    @Benchmark
+    public String tokenKey() {
+        return RedisOperator.getRealKey(UserKey.TOKEN, token);
+    }
+
+    @Benchmark
+    public String longKey() {
+        return RedisOperator.getRealKey(LikeKey.ACTIVITY, userId);
+    }
+
+    @Benchmark
+    public byte[] rawKey() {
+        return RedisOperator.getRawKey(UserKey.TOKEN, token);
+    }
+}
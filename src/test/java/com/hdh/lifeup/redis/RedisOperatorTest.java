@@ -9,6 +9,13 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
 @RunWith(SpringRunner.class)
 @SpringBootTest
 public class RedisOperatorTest {
@@ -76,6 +83,75 @@ public class RedisOperatorTest {
     public void getList() throws Exception {
     }
 
+    @Test
+    public void zrankEach() throws Exception {
+        redisOperator.del(UserKey.FOLLOWING, -1L);
+        redisOperator.zadd(UserKey.FOLLOWING, -1L, 1, -2L);
+
+        List<Long> ranks = redisOperator.zrankEach(UserKey.FOLLOWING,
+                Lists.newArrayList(-1L, -1L), Lists.newArrayList(-2L, -3L));
+        assertEquals(Long.valueOf(0L), ranks.get(0));
+        assertNull(ranks.get(1));
+        redisOperator.del(UserKey.FOLLOWING, -1L);
+    }
+
+    @Test
+    public void zrangeKeepsOrder() throws Exception {
+        redisOperator.del(UserKey.FOLLOWING, -1L);
+        redisOperator.zadd(UserKey.FOLLOWING, -1L, 3, -2L, 1, -3L, 2, -4L);
+
+        assertEquals(Lists.newArrayList(-3L, -4L, -2L),
+                Lists.newArrayList(redisOperator.zrange(UserKey.FOLLOWING, -1L, 0, -1)));
+        assertEquals(Lists.newArrayList(-4L),
+                Lists.newArrayList(redisOperator.zrange(UserKey.FOLLOWING, -1L, 1, 1)));
+        redisOperator.del(UserKey.FOLLOWING, -1L);
+    }
+
+    @Test
+    public void mget() throws Exception {
+        redisOperator.mset(UserKey.LIKE_COUNT, -1L, 10L, -2L, 20L);
+        redisOperator.del(UserKey.LIKE_COUNT, -3L);
+        List<Long> values = redisOperator.mget(UserKey.LIKE_COUNT, Lists.newArrayList(-1L, -3L, -2L));
+        assertEquals(Lists.newArrayList(10L, null, 20L), values);
+    }
+
+    @Test
+    public void zaddVariadic() throws Exception {
+        redisOperator.del(UserKey.FOLLOWING, -1L);
+        long added = redisOperator.zadd(UserKey.FOLLOWING, -1L, 1, -2L, 2, -3L, 3, -4L);
+        assertEquals(3L, added);
+        assertEquals(3L, redisOperator.zcard(UserKey.FOLLOWING, -1L));
+        redisOperator.del(UserKey.FOLLOWING, -1L);
+    }
+
+    @Test
+    public void batch() throws Exception {
+        redisOperator.del(LikeKey.ACTIVITY, -1L);
+        RedisBatch batch = redisOperator.batch();
+        RedisBatch.Response<Long> added = batch.sadd(LikeKey.ACTIVITY, -1L, 1L, 2L);
+        RedisBatch.Response<Boolean> isMember = batch.sismember(LikeKey.ACTIVITY, -1L, 2L);
+        RedisBatch.Response<Long> count = batch.scard(LikeKey.ACTIVITY, -1L);
+        RedisBatch.Response<Long> missing = batch.get(UserKey.LIKE_COUNT, -3L);
+        batch.execute();
+
+        assertEquals(Long.valueOf(2L), added.get());
+        assertTrue(isMember.get());
+        assertEquals(Long.valueOf(2L), count.get());
+        assertNull(missing.get());
+
+        batch = redisOperator.batch();
+        RedisBatch.Response<Boolean> deleted = batch.del(LikeKey.ACTIVITY, -1L);
+        RedisBatch.Response<Boolean> deletedAgain = batch.del(LikeKey.ACTIVITY, -1L);
+        batch.execute();
+        assertTrue(deleted.get());
+        assertFalse(deletedAgain.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void batchNotExecuted() throws Exception {
+        redisOperator.batch().scard(LikeKey.ACTIVITY, -1L).get();
+    }
+
     @Test
     public void hset() throws Exception {
     }
@@ -0,0 +1,53 @@
+package com.hdh.lifeup.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.hdh.lifeup.dao.LikeCountUserMapper;
+import com.hdh.lifeup.dao.LikeMemberRecordMapper;
+import com.hdh.lifeup.model.domain.LikeCountUserDO;
+import com.hdh.lifeup.model.domain.LikeMemberRecordDO;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class LikeWriteBufferTest {
+
+    @Autowired
+    private LikeWriteBuffer likeWriteBuffer;
+
+    @Autowired
+    private LikeMemberRecordMapper likeMemberRecordMapper;
+
+    @Autowired
+    private LikeCountUserMapper likeCountUserMapper;
+
+    @Test
+    public void likeAndUnlikeCancelOut() {
+        long creatorId = -1L;
+        likeWriteBuffer.like(-1L, -2L, creatorId);
+        likeWriteBuffer.unlike(-1L, -2L, creatorId);
+        likeWriteBuffer.like(-1L, -3L, creatorId);
+        likeWriteBuffer.flush();
+        assertEquals(0, likeWriteBuffer.getBufferDepth());
+
+        assertNull(likeMemberRecordMapper.selectOne(new QueryWrapper<LikeMemberRecordDO>()
+                .eq("member_record_id", -1L).eq("user_id", -2L)));
+        assertNotNull(likeMemberRecordMapper.selectOne(new QueryWrapper<LikeMemberRecordDO>()
+                .eq("member_record_id", -1L).eq("user_id", -3L)));
+        LikeCountUserDO likeCountUserDO = likeCountUserMapper.selectById(creatorId);
+        assertNotNull(likeCountUserDO);
+
+        likeWriteBuffer.unlike(-1L, -3L, creatorId);
+        likeWriteBuffer.flush();
+        assertNull(likeMemberRecordMapper.selectOne(new QueryWrapper<LikeMemberRecordDO>()
+                .eq("member_record_id", -1L).eq("user_id", -3L)));
+        assertEquals(likeCountUserDO.getLikeCount() - 1,
+                likeCountUserMapper.selectById(creatorId).getLikeCount().intValue());
+        likeCountUserMapper.deleteById(creatorId);
+    }
+}
@@ -0,0 +1,62 @@
+package com.hdh.lifeup.service;
+
+import com.hdh.lifeup.model.dto.TeamDetailDTO;
+import com.hdh.lifeup.model.dto.TeamTaskDTO;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.redis.TeamKey;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class TeamDetailCacheTest {
+
+    @Autowired
+    private TeamDetailCache teamDetailCache;
+
+    @Autowired
+    private RedisOperator redisOperator;
+
+    @Before
+    public void setUp() {
+        clear();
+    }
+
+    @After
+    public void tearDown() {
+        clear();
+    }
+
+    @Test
+    public void evictByVersion() {
+        AtomicInteger loads = new AtomicInteger();
+        Function<Long, TeamDetailDTO> loader = teamId -> new TeamDetailDTO()
+                .setTeam(new TeamTaskDTO().setTeamId(teamId))
+                .setMemberAmount(loads.incrementAndGet());
+
+        assertEquals(Integer.valueOf(1), teamDetailCache.get(-1L, loader).getMemberAmount());
+        assertEquals(Integer.valueOf(1), teamDetailCache.get(-1L, loader).getMemberAmount());
+        assertEquals(1, loads.get());
+
+        // 版本号变化后重新加载
+        teamDetailCache.evict(-1L);
+        assertEquals(Integer.valueOf(2), teamDetailCache.get(-1L, loader).getMemberAmount());
+        assertEquals(2, loads.get());
+    }
+
+    private void clear() {
+        redisOperator.del(TeamKey.DETAIL_VERSION, -1L);
+        redisOperator.del(TeamKey.DETAIL, "-1:0");
+        redisOperator.del(TeamKey.DETAIL, "-1:1");
+    }
+}
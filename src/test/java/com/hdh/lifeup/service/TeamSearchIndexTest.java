@@ -0,0 +1,80 @@
+package com.hdh.lifeup.service;
+
+import com.google.common.collect.Sets;
+import com.hdh.lifeup.model.domain.TeamTaskDO;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 只测内存中的索引与搜索，不依赖数据库和redis
+ */
+public class TeamSearchIndexTest {
+
+    private TeamSearchIndex teamSearchIndex;
+
+    @Before
+    public void setUp() {
+        teamSearchIndex = new TeamSearchIndex(null, null);
+        LocalDate future = LocalDate.now().plusDays(10);
+        teamSearchIndex.put(team(-1L, "每天早起打卡", "一起早睡早起", future));
+        teamSearchIndex.put(team(-2L, "背单词", "每天早起背50个单词", future));
+        teamSearchIndex.put(team(-3L, "早起跑步", "", LocalDate.now().minusDays(1)));
+        teamSearchIndex.put(team(-4L, "Reading Club", null, future));
+    }
+
+    @Test
+    public void bigrams() throws Exception {
+        assertEquals(Sets.newHashSet("早起", "起打", "打卡"), TeamSearchIndex.bigrams("早起打卡"));
+        assertTrue(TeamSearchIndex.bigrams("早").isEmpty());
+    }
+
+    @Test
+    public void search() throws Exception {
+        List<TeamSearchIndex.Hit> hits = teamSearchIndex.search("早起", false);
+        hits.sort(Comparator.comparing(TeamSearchIndex.Hit::getTeamId));
+        assertEquals("-3,-2,-1", ids(hits));
+        // 标题命中的档位高于只命中描述的
+        assertEquals(TeamSearchIndex.DESC_HIT, hits.get(1).getMatchLevel());
+        assertEquals(TeamSearchIndex.TITLE_HIT, hits.get(2).getMatchLevel());
+
+        // 过了截止日期的被过滤
+        assertEquals(2, teamSearchIndex.search("早起", true).size());
+        // -1的描述里“早起”“起早”都有，但没有连续出现“早起早”，不算命中
+        assertTrue(teamSearchIndex.search("早起早", false).isEmpty());
+        // 忽略大小写
+        assertEquals("-4", ids(teamSearchIndex.search("READ", false)));
+        // 单字用标题的单字查
+        assertEquals("-2", ids(teamSearchIndex.search("词", false)));
+    }
+
+    @Test
+    public void update() throws Exception {
+        teamSearchIndex.put(team(-1L, "晚睡晚起", "", LocalDate.now().plusDays(10)));
+        assertEquals("-2", ids(teamSearchIndex.search("早起", true)));
+        assertEquals("-1", ids(teamSearchIndex.search("晚起", true)));
+
+        teamSearchIndex.remove(-1L);
+        assertTrue(teamSearchIndex.search("晚起", true).isEmpty());
+    }
+
+    private static TeamTaskDO team(Long teamId, String title, String desc, LocalDate startDate) {
+        TeamTaskDO teamTaskDO = new TeamTaskDO();
+        teamTaskDO.setTeamId(teamId);
+        teamTaskDO.setTeamTitle(title);
+        teamTaskDO.setTeamDesc(desc);
+        teamTaskDO.setStartDate(startDate);
+        return teamTaskDO;
+    }
+
+    private static String ids(List<TeamSearchIndex.Hit> hits) {
+        return hits.stream().map(hit -> String.valueOf(hit.getTeamId())).collect(Collectors.joining(","));
+    }
+}
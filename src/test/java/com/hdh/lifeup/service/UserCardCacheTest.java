@@ -0,0 +1,63 @@
+package com.hdh.lifeup.service;
+
+import com.google.common.collect.Lists;
+import com.hdh.lifeup.dao.UserInfoMapper;
+import com.hdh.lifeup.model.domain.UserInfoDO;
+import com.hdh.lifeup.model.dto.UserCardDTO;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.redis.UserKey;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class UserCardCacheTest {
+
+    @Autowired
+    private UserCardCache userCardCache;
+
+    @Autowired
+    private UserInfoMapper userInfoMapper;
+
+    @Autowired
+    private RedisOperator redisOperator;
+
+    private Long userId;
+
+    @Before
+    public void setUp() {
+        UserInfoDO userInfoDO = new UserInfoDO();
+        userInfoDO.setNickname("card").setUserHead("head");
+        userInfoMapper.insert(userInfoDO);
+        userId = userInfoDO.getUserId();
+    }
+
+    @After
+    public void tearDown() {
+        userInfoMapper.deleteById(userId);
+        redisOperator.del(UserKey.CARD, userId);
+    }
+
+    @Test
+    public void getMany() {
+        Map<Long, UserCardDTO> cards = userCardCache.getMany(Lists.newArrayList(userId, -1L, userId));
+        assertEquals(1, cards.size());
+        assertEquals("card", cards.get(userId).getNickname());
+        assertEquals("head", cards.get(userId).getUserHead());
+
+        // 数据库中删除后仍从缓存读到，删除缓存后读不到
+        userInfoMapper.deleteById(userId);
+        assertNotNull(userCardCache.get(userId));
+        userCardCache.evict(userId);
+        assertNull(userCardCache.get(userId));
+    }
+}
@@ -0,0 +1,61 @@
+package com.hdh.lifeup.service.impl;
+
+import com.google.common.collect.Lists;
+import com.hdh.lifeup.model.dto.PageDTO;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.redis.UserKey;
+import com.hdh.lifeup.service.FollowService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static com.hdh.lifeup.model.constant.UserConst.FollowStatus;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class FollowServiceImplTest {
+
+    @Autowired
+    private FollowService followService;
+
+    @Autowired
+    private RedisOperator redisOperator;
+
+    @Before
+    public void setUp() {
+        clear();
+        // -1关注了-2、-3、-4，-2关注了-1
+        redisOperator.zadd(UserKey.FOLLOWING, -1L, 1, -2L, 2, -3L, 3, -4L);
+        redisOperator.zadd(UserKey.FOLLOWER, -1L, 1, -2L);
+    }
+
+    @After
+    public void tearDown() {
+        clear();
+    }
+
+    @Test
+    public void getFollowStatuses() throws Exception {
+        assertEquals(
+                Lists.newArrayList(FollowStatus.MYSELF, FollowStatus.INTERACTIVE, FollowStatus.FOLLOWING, FollowStatus.NOT_FOLLOW),
+                followService.getFollowStatuses(-1L, Lists.newArrayList(-1L, -2L, -3L, -5L)));
+    }
+
+    @Test
+    public void pageFollowings() throws Exception {
+        PageDTO pageDTO = PageDTO.builder().currentPage(2L).size(2L).build();
+        PageDTO<Long> page = followService.pageFollowings(-1L, pageDTO);
+        assertEquals(Lists.newArrayList(-4L), page.getList());
+        assertEquals(Long.valueOf(2L), page.getTotalPage());
+    }
+
+    private void clear() {
+        redisOperator.del(UserKey.FOLLOWING, -1L);
+        redisOperator.del(UserKey.FOLLOWER, -1L);
+    }
+}
@@ -0,0 +1,67 @@
+package com.hdh.lifeup.service.impl;
+
+import com.hdh.lifeup.redis.CountKey;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.service.TeamCounterService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class TeamCounterServiceImplTest {
+
+    @Autowired
+    private TeamCounterService teamCounterService;
+
+    @Autowired
+    private RedisOperator redisOperator;
+
+    @Before
+    public void setUp() {
+        clear();
+    }
+
+    @After
+    public void tearDown() {
+        clear();
+    }
+
+    @Test
+    public void memberChanged() throws Exception {
+        // 计数器不存在时不累加，读取时从数据库加载
+        teamCounterService.memberChanged(-1L, -1L, 1);
+        assertEquals(0, teamCounterService.countTeamMembers(-1L));
+        assertEquals(0, teamCounterService.countUserTeams(-1L));
+
+        teamCounterService.memberChanged(-1L, -1L, 1);
+        assertEquals(1, teamCounterService.countTeamMembers(-1L));
+        assertEquals(1, teamCounterService.countUserTeams(-1L));
+    }
+
+    @Test
+    public void reconcile() throws Exception {
+        assertEquals(0, teamCounterService.countTeamRecords(-1L));
+        // 数据库中并没有这条动态，计数器产生偏差
+        teamCounterService.recordChanged(-1L, 2, 1);
+        assertEquals(1, teamCounterService.countTeamRecords(-1L));
+
+        assertTrue(teamCounterService.reconcile() >= 1);
+        assertEquals(0, teamCounterService.countTeamRecords(-1L));
+    }
+
+    private void clear() {
+        redisOperator.del(CountKey.TEAM_MEMBERS, -1L);
+        redisOperator.del(CountKey.TEAM_RECORDS, -1L);
+        redisOperator.del(CountKey.USER_TEAMS, -1L);
+        redisOperator.srem(CountKey.DIRTY_TEAMS, "all", -1L);
+        redisOperator.srem(CountKey.DIRTY_USERS, "all", -1L);
+    }
+}
@@ -3,6 +3,9 @@ package com.hdh.lifeup.service.impl;
 import com.google.common.collect.Lists;
 import com.hdh.lifeup.model.dto.PageDTO;
 import com.hdh.lifeup.model.dto.TeamMemberRecordDTO;
+import com.hdh.lifeup.redis.RedisBatch;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.redis.UserKey;
 import com.hdh.lifeup.service.TeamMemberService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -10,8 +13,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
+
 @RunWith(SpringRunner.class)
 @SpringBootTest
 public class TeamMemberServiceImplTest {
@@ -34,4 +40,33 @@ public class TeamMemberServiceImplTest {
 //        System.out.println(page);
     }
 
-}
\ No newline at end of file
+    @Autowired
+    private RedisOperator redisOperator;
+
+    @Test
+    public void weekOf() throws Exception {
+        assertEquals("2020W07", TeamMemberServiceImpl.weekOf(LocalDate.of(2020, 2, 16)));
+        // 2019-12-30是周一，属于2020年的第一周
+        assertEquals("2020W01", TeamMemberServiceImpl.weekOf(LocalDate.of(2019, 12, 30)));
+        assertEquals("2020W53", TeamMemberServiceImpl.weekOf(LocalDate.of(2021, 1, 3)));
+    }
+
+    @Test
+    public void attributeWeekly() throws Exception {
+        clearAttributeWeekly();
+        try {
+            teamMemberService.incrAttributeWeekly(-1L, 10);
+            teamMemberService.incrAttributeWeekly(-1L, 5);
+            assertEquals(Lists.newArrayList(15, 0), teamMemberService.getAttributeWeekly(Lists.newArrayList(-1L, -2L)));
+        } finally {
+            clearAttributeWeekly();
+        }
+    }
+
+    private void clearAttributeWeekly() {
+        RedisBatch batch = redisOperator.batch();
+        batch.hdel(UserKey.ATTRIBUTE_WEEK, TeamMemberServiceImpl.weekOf(LocalDate.now()), "-1");
+        batch.execute();
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.hdh.lifeup.service.impl;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TeamRankServiceImplTest {
+
+    private static final long DAY = 24 * 3600 * 1000L;
+
+    @Test
+    public void decayPerDay() {
+        long now = TeamRankServiceImpl.EPOCH_MILLIS + 1000 * DAY;
+        double stored = TeamRankServiceImpl.toStored(101, now);
+        assertEquals(100, TeamRankServiceImpl.toRank(TeamRankServiceImpl.toStored(100.5, now), now));
+        // 101 * 0.95 = 95.95，101 * 0.95^2 = 91.15
+        assertEquals(95, TeamRankServiceImpl.toRank(stored, now + DAY));
+        assertEquals(91, TeamRankServiceImpl.toRank(stored, now + 2 * DAY));
+    }
+
+    @Test
+    public void noMinimumDecrement() {
+        long now = TeamRankServiceImpl.EPOCH_MILLIS + 1500 * DAY;
+        double stored = TeamRankServiceImpl.toStored(5, now);
+        // 没有每天至少减1的下限：5 * 0.95^31 = 1.02，5 * 0.95^32 = 0.97
+        assertEquals(3, TeamRankServiceImpl.toRank(stored, now + 5 * DAY));
+        assertEquals(1, TeamRankServiceImpl.toRank(stored, now + 31 * DAY));
+        assertEquals(0, TeamRankServiceImpl.toRank(stored, now + 32 * DAY));
+    }
+
+    @Test
+    public void orderIsKept() {
+        long now = TeamRankServiceImpl.EPOCH_MILLIS + 2000 * DAY;
+        // 10天前的100分比今天的60分衰减得更多
+        double old = TeamRankServiceImpl.toStored(100, now - 10 * DAY);
+        double fresh = TeamRankServiceImpl.toStored(60, now);
+        assertTrue(fresh > old);
+        assertEquals(59, TeamRankServiceImpl.toRank(old, now));
+    }
+
+    @Test
+    public void increments() {
+        long now = TeamRankServiceImpl.EPOCH_MILLIS + 3000 * DAY;
+        // 21 * 0.95 + 4 = 23.95
+        double stored = TeamRankServiceImpl.toStored(21, now - DAY) + TeamRankServiceImpl.toStored(4, now);
+        assertEquals(23, TeamRankServiceImpl.toRank(stored, now));
+    }
+
+    @Test
+    public void decayDatabaseRank() {
+        TeamRankServiceImpl teamRankService = new TeamRankServiceImpl(null, null);
+        // 100 * 0.95^2 = 90.25，没有结算时刻的视为刚刚结算
+        assertEquals(90, teamRankService.decay(100, LocalDateTime.now().minusDays(2).minusMinutes(1)));
+        assertEquals(100, teamRankService.decay(100, null));
+    }
+}
@@ -15,6 +15,9 @@ import org.springframework.test.context.junit4.SpringRunner;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest
@@ -57,6 +60,16 @@ public class TeamTaskServiceImplTest {
         System.out.println(nextSignVO);
     }
 
+    @Test
+    public void getAllNextSigns() throws Exception {
+        List<NextSignVO> nextSigns = teamTaskService.getAllNextSigns(1033360879819161601L, null);
+        nextSigns.forEach(System.out::println);
+        // 与逐个查询的结果一致
+        for (NextSignVO nextSign : nextSigns) {
+            assertEquals(teamTaskService.getNextSign(nextSign.getTeamId()).getTeamRecordId(), nextSign.getTeamRecordId());
+        }
+    }
+
     @Autowired
     private TeamTaskService teamTaskService;
 
@@ -0,0 +1,174 @@
+package com.hdh.lifeup.service.impl;
+
+import com.google.common.collect.Lists;
+import com.hdh.lifeup.config.TimelineConfig;
+import com.hdh.lifeup.model.dto.PageDTO;
+import com.hdh.lifeup.model.dto.TeamMemberRecordDTO;
+import com.hdh.lifeup.redis.RedisOperator;
+import com.hdh.lifeup.redis.TimelineKey;
+import com.hdh.lifeup.redis.UserKey;
+import com.hdh.lifeup.service.TimelineService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 用户和动态都用负数id，数据库里没有它们的动态，收件箱的重建结果为空
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class TimelineServiceImplTest {
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private RedisOperator redisOperator;
+
+    @Autowired
+    private TimelineConfig timelineConfig;
+
+    private int celebrityThreshold;
+
+    @Before
+    public void setUp() {
+        celebrityThreshold = timelineConfig.getCelebrityThreshold();
+        clear();
+        // -1关注了-2、-3，-3还有一个粉丝-9
+        redisOperator.zadd(UserKey.FOLLOWING, -1L, 1, -2L, 2, -3L);
+        redisOperator.zadd(UserKey.FOLLOWER, -2L, 1, -1L);
+        redisOperator.zadd(UserKey.FOLLOWER, -3L, 1, -1L, 2, -9L);
+    }
+
+    @After
+    public void tearDown() {
+        timelineConfig.setCelebrityThreshold(celebrityThreshold);
+        clear();
+    }
+
+    @Test
+    public void fanOutToFollowerInbox() throws Exception {
+        // 第一次读时重建，没有动态也留下收件箱，之后的推送才能写进来
+        assertTrue(page(-1L, 0).getList().isEmpty());
+        assertTrue(redisOperator.exists(TimelineKey.INBOX, -1L));
+
+        timelineService.fanOut(record(-2L, -101L, null));
+        PageDTO<Long> page = page(-1L, 0);
+        assertEquals(Lists.newArrayList(-101L), page.getList());
+        assertEquals(Long.valueOf(1L), page.getTotalPage());
+        // 没有文字和图片的动态不进过滤后的时间线
+        assertTrue(page(-1L, 1).getList().isEmpty());
+    }
+
+    @Test
+    public void mergeCelebrityOutbox() throws Exception {
+        timelineConfig.setCelebrityThreshold(2);
+        page(-1L, 0);
+
+        timelineService.fanOut(record(-2L, -101L, null));
+        Thread.sleep(5);
+        // -3有两个粉丝，成为大V，只写发件箱
+        timelineService.fanOut(record(-3L, -102L, null));
+        assertFalse(redisOperator.zrevrangeWithScores(TimelineKey.INBOX, -1L, 0, -1).containsKey(-102L));
+
+        assertEquals(Lists.newArrayList(-102L, -101L), page(-1L, 0).getList());
+    }
+
+    @Test
+    public void cursorAcrossEqualScores() throws Exception {
+        // 五条同一毫秒的动态加一条更早的，同分数时按id倒序
+        redisOperator.zadd(TimelineKey.INBOX, -1L,
+                1000, -101L, 1000, -102L, 1000, -103L, 1000, -104L, 1000, -105L, 999, -106L);
+
+        List<Long> ids = Lists.newArrayList();
+        PageDTO pageDTO = PageDTO.builder().size(2L).skipTotal(true).build();
+        PageDTO<Long> page;
+        do {
+            page = timelineService.pageTimeline(-1L, pageDTO, 0);
+            ids.addAll(page.getList());
+            pageDTO.setCursor(page.getNextCursor());
+        } while (page.getNextCursor() != null);
+
+        assertEquals(Lists.newArrayList(-101L, -102L, -103L, -104L, -105L, -106L), ids);
+    }
+
+    @Test
+    public void rebuildAfterEviction() throws Exception {
+        redisOperator.zadd(TimelineKey.INBOX, -1L, 1000, -101L);
+        timelineService.evictInbox(-1L);
+        assertFalse(redisOperator.exists(TimelineKey.INBOX, -1L));
+
+        // 重建后只有占位成员，不计入总数
+        PageDTO<Long> page = page(-1L, 0);
+        assertTrue(page.getList().isEmpty());
+        assertEquals(Long.valueOf(0L), page.getTotalPage());
+        assertNull(page.getNextCursor());
+        assertTrue(redisOperator.ttl(TimelineKey.INBOX, -1L) > 0);
+
+        timelineService.fanOut(record(-2L, -103L, "早起"));
+        assertEquals(Lists.newArrayList(-103L), page(-1L, 0).getList());
+    }
+
+    @Test
+    public void removeRecord() throws Exception {
+        page(-1L, 0);
+        page(-1L, 1);
+        timelineService.fanOut(record(-2L, -101L, "早起"));
+        assertEquals(Lists.newArrayList(-101L), page(-1L, 1).getList());
+
+        timelineService.removeRecord(-2L, -101L);
+        assertTrue(page(-1L, 0).getList().isEmpty());
+        assertTrue(page(-1L, 1).getList().isEmpty());
+        assertEquals(Long.valueOf(0L), page(-1L, 0).getTotalPage());
+        assertEquals(0L, redisOperator.zcard(TimelineKey.OUTBOX, -2L));
+    }
+
+    @Test
+    public void removeCelebrityRecord() throws Exception {
+        timelineConfig.setCelebrityThreshold(2);
+        page(-1L, 0);
+        timelineService.fanOut(record(-3L, -102L, "早起"));
+        assertEquals(Lists.newArrayList(-102L), page(-1L, 0).getList());
+
+        // 大V的动态只需要移出发件箱
+        timelineService.removeRecord(-3L, -102L);
+        assertTrue(page(-1L, 0).getList().isEmpty());
+        assertEquals(0L, redisOperator.zcard(TimelineKey.CONTENT_OUTBOX, -3L));
+    }
+
+    private PageDTO<Long> page(Long userId, int filter) {
+        return timelineService.pageTimeline(userId, PageDTO.builder().currentPage(1L).size(10L).build(), filter);
+    }
+
+    private static TeamMemberRecordDTO record(Long userId, Long memberRecordId, String activity) {
+        return new TeamMemberRecordDTO()
+                .setUserId(userId)
+                .setMemberRecordId(memberRecordId)
+                .setUserActivity(activity)
+                .setActivityImages(Collections.emptyList());
+    }
+
+    private void clear() {
+        for (Long userId : Lists.newArrayList(-1L, -2L, -3L, -9L)) {
+            redisOperator.del(TimelineKey.INBOX, userId);
+            redisOperator.del(TimelineKey.CONTENT_INBOX, userId);
+            redisOperator.del(TimelineKey.OUTBOX, userId);
+            redisOperator.del(TimelineKey.CONTENT_OUTBOX, userId);
+            redisOperator.del(UserKey.FOLLOWING, userId);
+            redisOperator.del(UserKey.FOLLOWER, userId);
+        }
+        redisOperator.srem(TimelineKey.CELEBRITY, "all", -2L, -3L);
+    }
+}
@@ -0,0 +1,150 @@
+package com.hdh.lifeup.service.impl;
+
+import com.google.common.collect.Lists;
+import com.hdh.lifeup.config.StorageConfig;
+import com.hdh.lifeup.exception.GlobalException;
+import com.hdh.lifeup.model.dto.ImageVariantDTO;
+import com.hdh.lifeup.service.ImageVariantService;
+import com.hdh.lifeup.service.StorageBackend;
+import com.hdh.lifeup.util.ImageUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 用本地目录代替七牛云，不启动整个应用
+ */
+public class UploadServiceImplTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StorageConfig storageConfig;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        storageConfig = new StorageConfig();
+        storageConfig.setLocalPath(folder.getRoot().getPath());
+        storageConfig.setLocalUrl("http://cdn/");
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void uploadImages() throws Exception {
+        UploadServiceImpl uploadService = new UploadServiceImpl(new LocalStorageBackend(storageConfig), executor, null, storageConfig);
+        List<MultipartFile> images = Lists.newArrayList(image("a.jpg", "1"), image("b.png", "22"), image("c", "333"));
+        List<String> urls = uploadService.uploadImages(images, "images/activities/", false);
+
+        assertEquals(3, urls.size());
+        assertTrue(urls.get(0).startsWith("http://cdn/images/activities/") && urls.get(0).endsWith(".jpg"));
+        assertTrue(urls.get(1).endsWith(".png"));
+        // 按传入的顺序返回
+        for (int i = 0; i < urls.size(); i++) {
+            String key = urls.get(i).substring("http://cdn/".length());
+            byte[] content = Files.readAllBytes(Paths.get(folder.getRoot().getPath(), key));
+            assertEquals(new String(images.get(i).getBytes(), StandardCharsets.UTF_8), new String(content, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test(expected = GlobalException.class)
+    public void uploadImagesFailed() throws Exception {
+        StorageBackend failOnPng = (key, input, size, contentType) -> {
+            if (key.endsWith(".png")) {
+                throw new IOException("mock");
+            }
+            return key;
+        };
+        new UploadServiceImpl(failOnPng, executor, null, storageConfig)
+                .uploadImages(Lists.newArrayList(image("a.jpg", "1"), image("b.png", "2")), "images/", false);
+    }
+
+    @Test
+    public void uploadImagesWithoutWaitingForVariants() throws Exception {
+        // 缩小版本一直没有生成完，上传照样在超时前返回原图
+        ImageVariantService slowVariants = new ImageVariantService() {
+            @Override
+            public CompletableFuture<ImageVariantDTO> createVariants(String imageName, byte[] image) {
+                return new CompletableFuture<>();
+            }
+
+            @Override
+            public void saveVariants(String imageUrl, ImageVariantDTO variants) {
+                throw new IllegalStateException("没有生成完不应该记录");
+            }
+
+            @Override
+            public List<ImageVariantDTO> getVariants(List<String> imageUrls) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void fillWhenReady(Long memberRecordId, List<String> imageUrls) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        storageConfig.setUploadTimeoutSeconds(1);
+        List<String> urls = new UploadServiceImpl(new LocalStorageBackend(storageConfig), executor, slowVariants, storageConfig)
+                .uploadImages(Lists.newArrayList(image("a.jpg", "1"), image("b.jpg", "2")), "images/activities/", true);
+        assertEquals(2, urls.size());
+        assertTrue(urls.get(0).startsWith("http://cdn/images/activities/"));
+    }
+
+    @Test
+    public void createVariants() throws Exception {
+        storageConfig.setThumbEdge(30);
+        storageConfig.setMediumEdge(60);
+        ImageVariantServiceImpl imageVariantService = new ImageVariantServiceImpl(
+                new LocalStorageBackend(storageConfig), executor, executor, null, null, storageConfig);
+        BufferedImage photo = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        ImageVariantDTO variants = imageVariantService
+                .createVariants("images/activities/a.png", ImageUtil.encode(photo, "png", 1f)).get();
+
+        assertEquals("http://cdn/images/activities/a_thumb.jpg", variants.getThumb());
+        assertEquals("http://cdn/images/activities/a_medium.jpg", variants.getMedium());
+        BufferedImage thumb = ImageIO.read(Paths.get(folder.getRoot().getPath(), "images/activities/a_thumb.jpg").toFile());
+        assertEquals(30, thumb.getWidth());
+        assertEquals(15, thumb.getHeight());
+        BufferedImage medium = ImageIO.read(Paths.get(folder.getRoot().getPath(), "images/activities/a_medium.jpg").toFile());
+        assertEquals(60, medium.getWidth());
+
+        // 不是图片时没有缩小版本
+        assertNull(imageVariantService.createVariants("images/a.txt", "text".getBytes(StandardCharsets.UTF_8)).get());
+    }
+
+    @Test
+    public void suffixOf() throws Exception {
+        assertEquals(".jpg", UploadServiceImpl.suffixOf("a.b.jpg"));
+        assertEquals("", UploadServiceImpl.suffixOf("noSuffix"));
+        assertEquals("", UploadServiceImpl.suffixOf(null));
+    }
+
+    private static MultipartFile image(String filename, String content) {
+        return new MockMultipartFile("imageFiles", filename, "image/jpeg", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
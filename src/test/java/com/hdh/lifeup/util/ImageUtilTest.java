@@ -0,0 +1,101 @@
+package com.hdh.lifeup.util;
+
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ImageUtilTest {
+
+    @Test
+    public void readOrientation() throws Exception {
+        assertEquals(6, ImageUtil.readOrientation(exifJpeg(6, false)));
+        assertEquals(8, ImageUtil.readOrientation(exifJpeg(8, true)));
+        // 不是JPEG、没有EXIF
+        assertEquals(1, ImageUtil.readOrientation(new byte[]{(byte) 0x89, 'P', 'N', 'G'}));
+        assertEquals(1, ImageUtil.readOrientation(
+                ImageUtil.encode(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "jpg", 0.8f)));
+    }
+
+    @Test
+    public void orient() throws Exception {
+        // 左上角标红，顺时针旋转90度后红点到右上角
+        BufferedImage image = new BufferedImage(4, 2, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, Color.RED.getRGB());
+        BufferedImage rotated = ImageUtil.orient(image, 6);
+        assertEquals(2, rotated.getWidth());
+        assertEquals(4, rotated.getHeight());
+        assertEquals(Color.RED.getRGB(), rotated.getRGB(1, 0));
+
+        // 逆时针旋转90度后到左下角
+        assertEquals(Color.RED.getRGB(), ImageUtil.orient(image, 8).getRGB(0, 3));
+        // 水平翻转后到右上角
+        assertEquals(Color.RED.getRGB(), ImageUtil.orient(image, 2).getRGB(3, 0));
+        assertSame(image, ImageUtil.orient(image, 1));
+    }
+
+    @Test
+    public void scaleToFit() throws Exception {
+        BufferedImage image = new BufferedImage(4000, 3000, BufferedImage.TYPE_INT_RGB);
+        BufferedImage scaled = ImageUtil.scaleToFit(image, 360);
+        assertEquals(360, scaled.getWidth());
+        assertEquals(270, scaled.getHeight());
+        assertSame(scaled, ImageUtil.scaleToFit(scaled, 360));
+    }
+
+    /**
+     * 只有EXIF段的JPEG头，方向标签在第0个IFD的唯一一项
+     */
+    private static byte[] exifJpeg(int orientation, boolean littleEndian) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xFF);
+        out.write(0xD8);
+        out.write(0xFF);
+        out.write(0xE1);
+        // 段长度：长度本身2 + Exif头6 + TIFF头8 + 项数2 + 一项12 + 下一个IFD偏移4
+        writeU16(out, 34, false);
+        for (char c : "Exif".toCharArray()) {
+            out.write(c);
+        }
+        out.write(0);
+        out.write(0);
+        out.write(littleEndian ? 'I' : 'M');
+        out.write(littleEndian ? 'I' : 'M');
+        writeU16(out, 42, littleEndian);
+        writeU32(out, 8, littleEndian);
+        writeU16(out, 1, littleEndian);
+        writeU16(out, 0x0112, littleEndian);
+        writeU16(out, 3, littleEndian);
+        writeU32(out, 1, littleEndian);
+        writeU16(out, orientation, littleEndian);
+        writeU16(out, 0, littleEndian);
+        writeU32(out, 0, littleEndian);
+        out.write(0xFF);
+        out.write(0xD9);
+        return out.toByteArray();
+    }
+
+    private static void writeU16(ByteArrayOutputStream out, int value, boolean littleEndian) {
+        if (littleEndian) {
+            out.write(value & 0xFF);
+            out.write(value >> 8 & 0xFF);
+        } else {
+            out.write(value >> 8 & 0xFF);
+            out.write(value & 0xFF);
+        }
+    }
+
+    private static void writeU32(ByteArrayOutputStream out, int value, boolean littleEndian) {
+        if (littleEndian) {
+            writeU16(out, value & 0xFFFF, true);
+            writeU16(out, value >>> 16, true);
+        } else {
+            writeU16(out, value >>> 16, false);
+            writeU16(out, value & 0xFFFF, false);
+        }
+    }
+}
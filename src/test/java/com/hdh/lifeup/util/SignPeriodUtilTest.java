@@ -0,0 +1,64 @@
+package com.hdh.lifeup.util;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SignPeriodUtilTest {
+
+    /** 每两天一次，每次 8:00 ~ 20:00 */
+    private static final LocalDateTime FIRST_START = LocalDateTime.of(2020, 2, 1, 8, 0);
+    private static final LocalDateTime FIRST_END = LocalDateTime.of(2020, 2, 1, 20, 0);
+
+    @Test
+    public void currentPeriod() {
+        // 还没开始
+        assertEquals(0, SignPeriodUtil.currentPeriod(FIRST_START, FIRST_END, 2, FIRST_START.minusDays(3)));
+        assertEquals(0, SignPeriodUtil.currentPeriod(FIRST_START, FIRST_END, 2, FIRST_START));
+        // 第0次进行中
+        assertEquals(0, SignPeriodUtil.currentPeriod(FIRST_START, FIRST_END, 2, FIRST_START.plusHours(1)));
+        // 第0次结束，等待第1次
+        assertEquals(1, SignPeriodUtil.currentPeriod(FIRST_START, FIRST_END, 2, FIRST_END.plusHours(1)));
+        assertEquals(1, SignPeriodUtil.currentPeriod(FIRST_START, FIRST_END, 2, FIRST_START.plusDays(2)));
+        // 第10次进行中
+        assertEquals(10, SignPeriodUtil.currentPeriod(FIRST_START, FIRST_END, 2, FIRST_START.plusDays(20).plusMinutes(1)));
+    }
+
+    @Test
+    public void overlappedPeriods() {
+        // 每天一次，每次持续三天，取最近开始的那次
+        LocalDateTime firstEnd = FIRST_START.plusDays(3);
+        assertEquals(5, SignPeriodUtil.currentPeriod(FIRST_START, firstEnd, 1, FIRST_START.plusDays(5).plusHours(1)));
+        assertTrue(SignPeriodUtil.isOpen(FIRST_START, firstEnd, 1, 4, FIRST_START.plusDays(5).plusHours(1)));
+    }
+
+    @Test
+    public void singleTask() {
+        assertEquals(0, SignPeriodUtil.currentPeriod(FIRST_START, FIRST_END, 0, FIRST_START.plusHours(1)));
+        assertEquals(SignPeriodUtil.NO_PERIOD, SignPeriodUtil.currentPeriod(FIRST_START, FIRST_END, 0, FIRST_END.plusSeconds(1)));
+        assertEquals(0, SignPeriodUtil.periodOf(FIRST_START, 0, FIRST_START));
+        assertEquals(SignPeriodUtil.NO_PERIOD, SignPeriodUtil.periodOf(FIRST_START, 0, FIRST_START.plusDays(1)));
+    }
+
+    @Test
+    public void isOpen() {
+        assertTrue(SignPeriodUtil.isOpen(FIRST_START, FIRST_END, 2, 3, FIRST_START.plusDays(6).plusHours(1)));
+        assertFalse(SignPeriodUtil.isOpen(FIRST_START, FIRST_END, 2, 3, FIRST_START.plusDays(6)));
+        assertFalse(SignPeriodUtil.isOpen(FIRST_START, FIRST_END, 2, 3, FIRST_END.plusDays(6)));
+    }
+
+    @Test
+    public void periodOf() {
+        assertEquals(0, SignPeriodUtil.periodOf(FIRST_START, 2, FIRST_START));
+        assertEquals(7, SignPeriodUtil.periodOf(FIRST_START, 2, FIRST_START.plusDays(14)));
+        assertEquals(7, SignPeriodUtil.periodOf(FIRST_START.withNano(123), 2, FIRST_START.plusDays(14)));
+        assertEquals(SignPeriodUtil.NO_PERIOD, SignPeriodUtil.periodOf(FIRST_START, 2, FIRST_START.plusDays(3)));
+        assertEquals(SignPeriodUtil.NO_PERIOD, SignPeriodUtil.periodOf(FIRST_START, 2, FIRST_START.minusDays(2)));
+        assertEquals(SignPeriodUtil.startOf(FIRST_START, 2, 7), FIRST_START.plusDays(14));
+        assertEquals(SignPeriodUtil.endOf(FIRST_END, 2, 7), FIRST_END.plusDays(14));
+    }
+}
@@ -0,0 +1,61 @@
+package com.hdh.lifeup.util.sensitive;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class AhoCorasickFilterTest {
+
+    @Test
+    public void filter() {
+        AhoCorasickFilter filter = new AhoCorasickFilter();
+        filter.put("春天在哪里");
+        filter.put("哪里有");
+        filter.put("他");
+
+        assertEquals("唱*****", filter.filter("唱春天在哪里", '*'));
+        // 重叠的词都被替换
+        assertEquals("唱******？", filter.filter("唱春天在哪里有？", '*'));
+        // 单字的词
+        assertEquals("*们", filter.filter("他们", '*'));
+    }
+
+    @Test
+    public void failLinks() {
+        AhoCorasickFilter filter = new AhoCorasickFilter();
+        filter.put("she");
+        filter.put("his");
+        filter.put("hers");
+        assertEquals("u*****", filter.filter("ushers", '*'));
+        assertEquals("a***", filter.filter("ahis", '*'));
+    }
+
+    @Test
+    public void noMatchReturnsSameInstance() {
+        AhoCorasickFilter filter = new AhoCorasickFilter();
+        filter.put("敏感词");
+        String sentence = "没有需要过滤的内容";
+        assertSame(sentence, filter.filter(sentence, '*'));
+        assertSame(null, filter.filter(null, '*'));
+    }
+
+    @Test
+    public void shortWordCharsAreDropped() {
+        AhoCorasickFilter filter = new AhoCorasickFilter();
+        assertFalse(filter.put("ab"));
+        assertFalse(filter.put("  "));
+        String sentence = "abc";
+        assertSame(sentence, filter.filter(sentence, '*'));
+    }
+
+    @Test
+    public void putAfterBuild() {
+        AhoCorasickFilter filter = new AhoCorasickFilter();
+        filter.put("甲乙");
+        assertEquals("**丙", filter.filter("甲乙丙", '*'));
+        filter.put("乙丙");
+        assertEquals("***", filter.filter("甲乙丙", '*'));
+    }
+}
@@ -0,0 +1,200 @@
+-- 压测用的表结构，对应model.domain下的16张表，H2以MySQL模式运行
+-- create_time等时间列由数据库填充默认值，与线上一致
+
+CREATE TABLE IF NOT EXISTS app_version (
+  version_id BIGINT NOT NULL PRIMARY KEY,
+  new_version INT NOT NULL DEFAULT 0,
+  version_name VARCHAR(32),
+  version_desc VARCHAR(512),
+  download_url VARCHAR(255),
+  is_del TINYINT NOT NULL DEFAULT 0,
+  create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS user_info (
+  user_id BIGINT NOT NULL PRIMARY KEY,
+  nickname VARCHAR(64),
+  user_sex TINYINT,
+  pwd_salt VARCHAR(64),
+  user_address VARCHAR(128),
+  user_head VARCHAR(255),
+  user_status TINYINT NOT NULL DEFAULT 0,
+  auth_types VARCHAR(64),
+  is_del TINYINT NOT NULL DEFAULT 0,
+  create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS user_auth (
+  auth_id BIGINT NOT NULL PRIMARY KEY,
+  user_id BIGINT NOT NULL,
+  auth_type VARCHAR(16) NOT NULL,
+  auth_identifier VARCHAR(128) NOT NULL,
+  access_token VARCHAR(255),
+  create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT uk_auth_type_identifier UNIQUE (auth_type, auth_identifier)
+);
+CREATE INDEX IF NOT EXISTS idx_user_auth_user_id ON user_auth (user_id);
+
+CREATE TABLE IF NOT EXISTS user_attribute (
+  attribute_id BIGINT NOT NULL PRIMARY KEY,
+  user_grade INT NOT NULL DEFAULT 1,
+  user_exp INT NOT NULL DEFAULT 0,
+  attribute_strength INT NOT NULL DEFAULT 0,
+  attribute_knowledge INT NOT NULL DEFAULT 0,
+  attribute_charm INT NOT NULL DEFAULT 0,
+  attribute_endurance INT NOT NULL DEFAULT 0,
+  attribute_energy INT NOT NULL DEFAULT 0,
+  attribute_creativity INT NOT NULL DEFAULT 0,
+  user_id BIGINT NOT NULL,
+  is_del TINYINT NOT NULL DEFAULT 0,
+  create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT uk_user_attribute_user_id UNIQUE (user_id)
+);
+
+CREATE TABLE IF NOT EXISTS user_feedback (
+  feedback_id BIGINT NOT NULL PRIMARY KEY,
+  user_id BIGINT NOT NULL,
+  reply_which_feedback_id BIGINT,
+  feedback_desc VARCHAR(1024),
+  feedback_images VARCHAR(1024),
+  status TINYINT NOT NULL DEFAULT 0,
+  is_del TINYINT NOT NULL DEFAULT 0,
+  create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS user_task (
+  task_id BIGINT NOT NULL PRIMARY KEY,
+  task_title VARCHAR(128),
+  task_remark VARCHAR(512),
+  urgent_degree TINYINT,
+  difficult_degree TINYINT,
+  reward_attributes VARCHAR(255),
+  reward_exp INT,
+  task_frequency INT,
+  is_shared TINYINT NOT NULL DEFAULT 0,
+  task_status TINYINT NOT NULL DEFAULT 0,
+  first_expire_time DATETIME,
+  first_remind_time DATETIME,
+  task_complete_time DATETIME,
+  user_id BIGINT NOT NULL,
+  is_del TINYINT NOT NULL DEFAULT 0,
+  create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_user_task_user_id ON user_task (user_id);
+
+CREATE TABLE IF NOT EXISTS task_record (
+  record_id BIGINT NOT NULL PRIMARY KEY,
+  expire_time DATETIME,
+  remind_time DATETIME,
+  record_complete_time DATETIME,
+  record_status TINYINT NOT NULL DEFAULT 0,
+  task_id BIGINT NOT NULL,
+  is_del TINYINT NOT NULL DEFAULT 0,
+  create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_task_record_task_id ON task_record (task_id);
+
+CREATE TABLE IF NOT EXISTS user_achievement (
+  achievement_id BIGINT NOT NULL PRIMARY KEY,
+  has_complete TINYINT NOT NULL DEFAULT 0,
+  has_receive TINYINT NOT NULL DEFAULT 0,
+  complete_time DATETIME,
+  client_achievement_id BIGINT NOT NULL,
+  user_id BIGINT NOT NULL,
+  is_del TINYINT NOT NULL DEFAULT 0,
+  create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+  update_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_user_achievement_user_id ON user_achievement (user_id);
+
+CREATE TABLE IF NOT EXISTS team_task (
+  team_id BIGINT NOT NULL PRIMARY KEY,
+  team_title VARCHAR(64),
+  team_desc VARCHAR(512),
+  team_head VARCHAR(255),
+  reward_attrs VARCHAR(255),
+  reward_exp INT NOT NULL DEFAULT 0,
+  team_freq INT NOT NULL DEFAULT 0,
+  start_date DATE,
+  first_start_time DATETIME,
+  first_end_time DATETIME,
+  team_status TINYINT NOT NULL DEFAULT 0,
+  complete_time DATETIME,
+  user_id BIGINT NOT NULL,
+  coin INT NOT NULL DEFAULT 0,
+  coin_variable INT NOT NULL DEFAULT 0,
+  team_rank INT NOT NULL DEFAULT 0,
+  rank_update_time DATETIME,
+  is_del TINYINT NOT NULL DEFAULT 0,
+  create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_team_task_status ON team_task (team_status, start_date);
+
+CREATE TABLE IF NOT EXISTS team_member (
+  member_id BIGINT NOT NULL PRIMARY KEY,
+  user_id BIGINT NOT NULL,
+  team_id BIGINT NOT NULL,
+  team_role VARCHAR(16) NOT NULL,
+  create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT uk_team_member_team_user UNIQUE (team_id, user_id)
+);
+CREATE INDEX IF NOT EXISTS idx_team_member_user ON team_member (user_id, create_time);
+
+CREATE TABLE IF NOT EXISTS team_record (
+  team_record_id BIGINT NOT NULL PRIMARY KEY,
+  team_id BIGINT NOT NULL,
+  next_start_time DATETIME NOT NULL,
+  next_end_time DATETIME NOT NULL,
+  sign_number INT NOT NULL DEFAULT 0,
+  is_del TINYINT NOT NULL DEFAULT 0,
+  create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_team_record_team ON team_record (team_id, next_start_time);
+
+CREATE TABLE IF NOT EXISTS team_member_record (
+  member_record_id BIGINT NOT NULL PRIMARY KEY,
+  team_record_id BIGINT,
+  team_title VARCHAR(64),
+  team_id BIGINT NOT NULL,
+  user_id BIGINT NOT NULL,
+  user_activity VARCHAR(1024) DEFAULT '',
+  activity_icon TINYINT NOT NULL DEFAULT 0,
+  activity_images VARCHAR(1024),
+  activity_thumbs VARCHAR(1024),
+  activity_mediums VARCHAR(1024),
+  activity_scope TINYINT NOT NULL DEFAULT 3,
+  create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_team_member_record_team ON team_member_record (team_id, create_time);
+CREATE INDEX IF NOT EXISTS idx_team_member_record_user ON team_member_record (user_id, create_time);
+CREATE INDEX IF NOT EXISTS idx_team_member_record_time ON team_member_record (create_time);
+
+CREATE TABLE IF NOT EXISTS like_member_record (
+  member_record_id BIGINT NOT NULL,
+  user_id BIGINT NOT NULL,
+  create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (member_record_id, user_id)
+);
+
+CREATE TABLE IF NOT EXISTS like_count_user (
+  user_id BIGINT NOT NULL PRIMARY KEY,
+  like_count INT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS report_type (
+  report_type_id BIGINT NOT NULL PRIMARY KEY,
+  type_name VARCHAR(32),
+  is_del TINYINT NOT NULL DEFAULT 0,
+  create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS report_record (
+  report_id BIGINT NOT NULL PRIMARY KEY,
+  report_type_id BIGINT NOT NULL,
+  report_user_id BIGINT NOT NULL,
+  report_item VARCHAR(32),
+  item_id BIGINT,
+  criminal_user_id BIGINT,
+  is_del TINYINT NOT NULL DEFAULT 0,
+  create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);